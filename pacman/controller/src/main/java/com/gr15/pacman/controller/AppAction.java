@@ -1,12 +1,15 @@
 package com.gr15.pacman.controller;
 
-import com.gr15.pacman.model.GameConfigFactory;
+import com.gr15.pacman.model.LevelCompiler;
 import com.gr15.pacman.controller.screen.GameController;
 import com.gr15.pacman.controller.screen.GameOverController;
 import com.gr15.pacman.controller.screen.PauseController;
 import com.gr15.pacman.controller.screen.YouWonController;
-import com.gr15.pacman.model.GameConfig;
+import com.gr15.pacman.model.ChunkedBoard;
+import com.gr15.pacman.model.CompiledLevel;
 import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.MazeChunkSource;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
 import com.gr15.pacman.view.ViewManager;
 import com.gr15.pacman.view.ViewManager.ViewKeys;
 import com.gr15.pacman.view.screen.GameOverView;
@@ -28,17 +31,52 @@ public final class AppAction {
     /** Manages the different views of the application. */
     private static final ViewManager VIEW_MANAGER = ViewManager.getInstance();
 
+    /** Width and height in tiles of the endless worlds, see {@link #NEW_WORLD}. */
+    private static final int WORLD_SIZE = 1 << 15;
+
+    /** Width and height in tiles of a chunk of the endless worlds. */
+    private static final int WORLD_CHUNK_SIZE = 32;
+
+    /** Number of chunks of an endless world kept in memory. */
+    private static final int WORLD_MAX_CHUNKS = 256;
+
+    /** Chance that a wall between two corridors of an endless world is removed. */
+    private static final double WORLD_LOOP_DENSITY = 0.1;
+
+    /** Chance that a corridor tile of an endless world holds a pellet. */
+    private static final double WORLD_PELLET_DENSITY = 0.8;
+
+    /** Number of ghosts chasing Pacman in an endless world. */
+    private static final int WORLD_GHOSTS = 4;
+
+    /** The controller of the game being played, or {@code null} if there is none. */
+    private static GameController currentGame;
+
+    /**
+     * Action to end the game being played for good, if any, closing its replay file.
+     * Run whenever the game is left or replaced, so a new game never records
+     * to a file still open from the previous one.
+     */
+    public static final Runnable END_GAME = () -> {
+        if (currentGame != null) {
+            currentGame.close();
+            currentGame = null;
+        }
+    };
+
     /**
      * Action to immediately quit the application.
      */
     public static final Runnable QUIT = () -> {
+        END_GAME.run();
         System.exit(0);
     };
 
     /**
-     * Action to switch to the main menu view.
+     * Action to switch to the main menu view, leaving the game being played.
      */
     public static final Runnable MAIN_MENU = () -> {
+        END_GAME.run();
         VIEW_MANAGER.showView(ViewKeys.MAIN_MENU_VIEW);
     };
 
@@ -93,18 +131,29 @@ public final class AppAction {
 
     /**
      * Action to start a new game using configuration from an InputStream.
-     * It sets up the game state, view, and controller, and starts the game loop.
+     * The configuration is loaded through the {@link LevelCompiler} cache, so a
+     * configuration played before starts without parsing or precomputation.
+     * It ends the previous game, sets up the game state, view, and controller,
+     * and starts the game loop.
      */
     public static final Consumer<InputStream> NEW_GAME = (input) -> {
-        GameConfig config = GameConfigFactory.fromJson(input);
-        GameState gameState = new GameState(config);
-        GameView gameView = new GameView(gameState);
+        END_GAME.run();
+        CompiledLevel level = LevelCompiler.load(input);
+        startGame(new GameState(level));
+    };
 
-        VIEW_MANAGER.removeView(ViewKeys.GAME_VIEW);
-        VIEW_MANAGER.addView(ViewKeys.GAME_VIEW, gameView);
-        VIEW_MANAGER.showView(ViewKeys.GAME_VIEW);
-        GameController gameController = new GameController(gameState, gameView);
-        gameController.startGameLoop();
+    /**
+     * Action to start a new game on an endless world of generated mazes,
+     * a new one every time. Only the chunks of the world around Pacman and
+     * the ghosts are kept in memory, and playing again keeps the same world.
+     */
+    public static final Runnable NEW_WORLD = () -> {
+        END_GAME.run();
+        MazeChunkSource mazes = new MazeChunkSource(System.nanoTime(),
+            WORLD_LOOP_DENSITY, WORLD_PELLET_DENSITY);
+        ChunkedBoard world = new ChunkedBoard(WORLD_SIZE, WORLD_SIZE, WORLD_CHUNK_SIZE,
+            WORLD_MAX_CHUNKS, mazes);
+        startGame(new GameState(mazes.configFor(world, WORLD_GHOSTS, StrategyType.A_STAR), world));
     };
 
     /**
@@ -116,6 +165,27 @@ public final class AppAction {
         gameController.startGameLoop();
     };
     
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that sets up the view and controller of a new game
+     * and starts its game loop.
+     *
+     * @param gameState the new game.
+     */
+    private static void startGame(GameState gameState) {
+        GameView gameView = new GameView(gameState);
+
+        VIEW_MANAGER.removeView(ViewKeys.GAME_VIEW);
+        VIEW_MANAGER.addView(ViewKeys.GAME_VIEW, gameView);
+        VIEW_MANAGER.showView(ViewKeys.GAME_VIEW);
+        GameController gameController = new GameController(gameState, gameView);
+        currentGame = gameController;
+        gameController.startGameLoop();
+    }
+
     /** Private constructor to prevent external instantiation */
     private AppAction() {}
 }
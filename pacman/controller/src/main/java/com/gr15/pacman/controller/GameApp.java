@@ -55,6 +55,17 @@ public class GameApp
         primaryStage.show();
     }
 
+    /**
+     * Stops the JavaFX application when its window is closed,
+     * ending the game being played, if any.
+     *
+     * @throws Exception if an error occurs during shutdown
+     */
+    @Override
+    public void stop() throws Exception {
+        AppAction.END_GAME.run();
+    }
+
     /**
      * Launches the JavaFX application.
      *
@@ -1,10 +1,14 @@
 package com.gr15.pacman.controller.screen;
 
+import java.nio.file.Path;
 import java.util.Map;
 
 import com.gr15.pacman.controller.AppAction;
 import com.gr15.pacman.controller.HandlerFactory;
+import com.gr15.pacman.model.FixedTimestep;
 import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.ReplayWriter;
+import com.gr15.pacman.model.RewindBuffer;
 import com.gr15.pacman.model.entities.Entity.Direction;
 import com.gr15.pacman.view.screen.GameView;
 
@@ -17,9 +21,38 @@ import javafx.scene.input.KeyCode;
  * 
  * <p> It uses a JavaFX {@link AnimationTimer} to continuously update
  * the game state and render the game view at regular intervals. </p>
+ *
+ * <p> The game state is updated in fixed ticks, {@value #DEFAULT_TICK_RATE} per
+ * second unless changed with the {@value #TICK_RATE_PROPERTY} system property,
+ * however often frames are drawn. Each frame draws the entities between the
+ * previous and the current tick. </p>
+ *
+ * <p> Every tick is recorded in a {@link RewindBuffer}, and while
+ * {@link KeyCode#BACK_SPACE} is held the game runs backwards,
+ * up to {@value #REWIND_SECONDS} seconds. </p>
+ *
+ * <p> When the {@value #REPLAY_FILE_PROPERTY} system property is set, the game
+ * is recorded to a replay file at that path, see {@link ReplayWriter}. Playing
+ * the game again keeps recording to the same file, which is completed by
+ * {@link #close()} once the game is left for good. </p>
  */
 public class GameController {
 
+    /** System property overriding the number of ticks per second. */
+    public static final String TICK_RATE_PROPERTY = "pacman.tickRate";
+
+    /** System property giving the path of a replay file to record the game to. */
+    public static final String REPLAY_FILE_PROPERTY = "pacman.replayFile";
+
+    /** Number of ticks per second, unless overridden. */
+    public static final int DEFAULT_TICK_RATE = 120;
+
+    /** Largest number of ticks run in one frame, to recover from stalls. */
+    private static final int MAX_TICKS_PER_FRAME = 8;
+
+    /** Number of seconds the game can be rewound. */
+    private static final int REWIND_SECONDS = 30;
+
     /** Reference to the current game state. */
     private final GameState gameState;
 
@@ -29,6 +62,25 @@ public class GameController {
     /** Timestamp of the last update, used to calculate elapsed time. */
     private long lastUpdate = 0;
 
+    /** Number of ticks per second. */
+    private final double tickRate = Double.parseDouble(System.getProperty(
+        TICK_RATE_PROPERTY, String.valueOf(DEFAULT_TICK_RATE)));
+
+    /** Divides the elapsed time into ticks. */
+    private final FixedTimestep timestep = new FixedTimestep(tickRate, MAX_TICKS_PER_FRAME);
+
+    /** The recent ticks of the game, for rewinding. */
+    private final RewindBuffer rewindBuffer = RewindBuffer.forSeconds(REWIND_SECONDS, tickRate);
+
+    /** Whether the game is running backwards. */
+    private boolean rewinding = false;
+
+    /** Whether the game was rewound since the last update. */
+    private boolean rewound = false;
+
+    /** Records the game to a replay file, or {@code null} if not recording or closed. */
+    private ReplayWriter replayWriter;
+
     /**
      * Constructs a new {@code GameController} with the specified game state,
      * game view, and view manager.
@@ -48,15 +100,23 @@ public class GameController {
         this.gameState = gameState;
 
         Map<KeyCode, Runnable> keyBindings = Map.of(
-            KeyCode.UP, () -> gameState.getPacman().setDirection(Direction.UP),
-            KeyCode.DOWN, () -> gameState.getPacman().setDirection(Direction.DOWN),
-            KeyCode.LEFT, () -> gameState.getPacman().setDirection(Direction.LEFT),
-            KeyCode.RIGHT, () -> gameState.getPacman().setDirection(Direction.RIGHT),
+            KeyCode.UP, () -> steer(Direction.UP),
+            KeyCode.DOWN, () -> steer(Direction.DOWN),
+            KeyCode.LEFT, () -> steer(Direction.LEFT),
+            KeyCode.RIGHT, () -> steer(Direction.RIGHT),
             KeyCode.PAGE_UP, () -> gameView.changeZoom(0.1),
             KeyCode.PAGE_DOWN, () -> gameView.changeZoom(-0.1),
+            KeyCode.BACK_SPACE, () -> rewinding = true,
             KeyCode.ESCAPE, () -> AppAction.PAUSE.accept(GameController.this)
         );
         gameView.setOnKeyPressed(HandlerFactory.createKeyHandler(keyBindings));
+        gameView.setOnKeyReleased(HandlerFactory.createKeyHandler(
+            KeyCode.BACK_SPACE, () -> rewinding = false));
+        rewindBuffer.record(gameState);
+        String replayFile = System.getProperty(REPLAY_FILE_PROPERTY);
+        replayWriter = replayFile != null
+            ? new ReplayWriter(Path.of(replayFile), gameState, tickRate)
+            : null;
 
         gameLoop = new AnimationTimer() {
 
@@ -78,8 +138,23 @@ public class GameController {
                 double deltaSeconds = (now - lastUpdate) / 1_000_000_000.0;
                 lastUpdate = now;
 
-                gameState.update(deltaSeconds);
-                gameView.renderGame(deltaSeconds);
+                int ticks = timestep.advance(deltaSeconds);
+                for (int i = 0; i < ticks; i++) {
+                    if (rewinding) {
+                        rewound |= rewindBuffer.rewind(gameState, 1) > 0;
+                    } else {
+                        if (rewound && replayWriter != null) {
+                            replayWriter.jump(gameState);
+                        }
+                        rewound = false;
+                        gameState.update(timestep.stepSeconds());
+                        rewindBuffer.record(gameState);
+                        if (replayWriter != null) {
+                            replayWriter.tick(gameState);
+                        }
+                    }
+                }
+                gameView.renderGame(deltaSeconds, timestep.alpha());
             }
         };
     }
@@ -89,6 +164,12 @@ public class GameController {
      */
     public void resetGame() {
         gameState.resetGame();
+        rewindBuffer.clear();
+        rewindBuffer.record(gameState);
+        rewound = false;
+        if (replayWriter != null) {
+            replayWriter.jump(gameState);
+        }
     }
 
     /**
@@ -103,6 +184,41 @@ public class GameController {
      */
     public void stopGameLoop() {
         lastUpdate = 0;
+        rewinding = false;
+        timestep.reset();
         gameLoop.stop();
+        if (replayWriter != null) {
+            replayWriter.flush();
+        }
+    }
+
+    /**
+     * Ends the game for good, stopping the game loop and closing the replay
+     * file, if recording, so the file is complete and no longer open.
+     * The game can not be played again after it is closed.
+     */
+    public void close() {
+        stopGameLoop();
+        if (replayWriter != null) {
+            replayWriter.close();
+            replayWriter = null;
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that gives Pacman a direction, recording it
+     * if the game is being recorded.
+     *
+     * @param direction the direction to turn Pacman.
+     */
+    private void steer(Direction direction) {
+        gameState.getPacman().setDirection(direction);
+        if (replayWriter != null) {
+            replayWriter.input(direction);
+        }
     }
 }
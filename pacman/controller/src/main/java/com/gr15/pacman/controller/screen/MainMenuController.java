@@ -23,6 +23,8 @@ public class MainMenuController {
         mainMenuView.getNewGameButton().setOnAction(HandlerFactory.createHandler(
             () -> this.getClass().getResourceAsStream("/exampleConfig.json"),
             AppAction.NEW_GAME));
+        mainMenuView.getEndlessWorldButton().setOnAction(HandlerFactory.createHandler(
+            AppAction.NEW_WORLD));
         mainMenuView.getExitButton().setOnAction(HandlerFactory.createHandler(
             AppAction.QUIT));
     }
@@ -0,0 +1,316 @@
+package com.gr15.pacman.headless;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import com.gr15.pacman.model.CompiledLevel;
+import com.gr15.pacman.model.GameState;
+
+/**
+ * Runs many independent games of a level at once, spread across the cores.
+ *
+ * <p> Games share nothing mutable: each has its own {@link GameState} and
+ * {@link Bot}, and only reads the board and navigation data of the level. The
+ * ghost searches of the games run on a pool owned by the batch rather than the
+ * common pool, so batches do not compete with each other or with the rest of
+ * the program. Game {@code i} gets a bot made from the seed plus {@code i}, and
+ * its result does not depend on the number of threads. </p>
+ *
+ * <p> Aggregated statistics are reported while the batch runs, in the order
+ * games finish, and per-game results are returned in game order. </p>
+ */
+public final class BatchRunner {
+
+    /** How games are spread across threads. */
+    public enum Mode {
+
+        /** One virtual thread per game, with at most the parallelism running at once. */
+        VIRTUAL_THREADS,
+
+        /** Games are tasks of a work-stealing pool with the parallelism as its size. */
+        WORK_STEALING
+    };
+
+    /** Number of progress reports over a batch, besides the final one. */
+    private static final int REPORTS = 20;
+
+    /** Plays each game. */
+    private final HeadlessRunner runner;
+
+    /** Number of games run at once. */
+    private final int parallelism;
+
+    /** How games are spread across threads. */
+    private final Mode mode;
+
+    /**
+     * Constructs a batch runner.
+     *
+     * @param runner plays each game (must not be {@code null})
+     * @param parallelism the number of games run at once.
+     * @param mode how games are spread across threads (must not be {@code null})
+     * @throws IllegalArgumentException if {@code runner} or {@code mode} is {@code null},
+     *      or {@code parallelism} is not positive.
+     */
+    public BatchRunner(HeadlessRunner runner, int parallelism, Mode mode) {
+        if (runner == null) {
+            throw new IllegalArgumentException("runner must not be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        this.runner = runner;
+        this.parallelism = parallelism;
+        this.mode = mode;
+    }
+
+    /**
+     * Plays a batch of games of a level.
+     *
+     * @param level the level (must not be {@code null})
+     * @param games the number of games.
+     * @param bots makes the bot of every game from its seed (must not be {@code null})
+     * @param seed the seed of the first game.
+     * @param progress receives the statistics of the games finished so far, a few times
+     *      during the batch and once at the end, from one thread at a time (must not be {@code null})
+     * @return the result of every game, in game order.
+     * @throws IllegalArgumentException if an argument is {@code null} or {@code games} is negative.
+     * @throws RuntimeException if a game fails.
+     */
+    public List<GameResult> run(CompiledLevel level, int games, LongFunction<Bot> bots,
+        long seed, Consumer<BatchStats> progress) {
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        if (games < 0) {
+            throw new IllegalArgumentException("games must be non-negative");
+        }
+        if (bots == null) {
+            throw new IllegalArgumentException("bots must not be null");
+        }
+        if (progress == null) {
+            throw new IllegalArgumentException("progress must not be null");
+        }
+
+        GameResult[] results = new GameResult[games];
+        Aggregator aggregator = new Aggregator(games, progress);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Game game = index -> {
+                GameState state = new GameState(level, pool);
+                results[index] = runner.play(state, bots.apply(seed + index));
+                aggregator.add(results[index]);
+            };
+            switch (mode) {
+                case VIRTUAL_THREADS -> runOnVirtualThreads(games, game);
+                case WORK_STEALING -> pool.invoke(new GameTask(game, 0, games));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        aggregator.finish();
+        return Arrays.asList(results);
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /** Plays the game with the given index. */
+    @FunctionalInterface
+    private interface Game {
+
+        /**
+         * Plays a game.
+         *
+         * @param index the index of the game in the batch.
+         */
+        void play(int index);
+    }
+
+    /**
+     * Helper function that plays every game on a virtual thread of its own,
+     * letting at most the parallelism run at once.
+     *
+     * @param games the number of games.
+     * @param game plays a game.
+     * @throws RuntimeException if a game fails or the thread is interrupted.
+     */
+    private void runOnVirtualThreads(int games, Game game) {
+        Semaphore running = new Semaphore(parallelism);
+        List<Future<?>> futures = new ArrayList<>(games);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < games; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    running.acquireUninterruptibly();
+                    try {
+                        game.play(index);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException executionException) {
+            throw new RuntimeException("Game failed", executionException.getCause());
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running games", interruptedException);
+        }
+    }
+
+    /**
+     * Task that plays a range of games,
+     * splitting the range in halves until it is a single game.
+     */
+    private static final class GameTask
+        extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Plays a game. */
+        private final transient Game game;
+
+        /** First game of the range, inclusive. */
+        private final int from;
+
+        /** Last game of the range, exclusive. */
+        private final int to;
+
+        /**
+         * Constructs a task playing a range of games.
+         *
+         * @param game plays a game.
+         * @param from first game of the range, inclusive.
+         * @param to last game of the range, exclusive.
+         */
+        GameTask(Game game, int from, int to) {
+            this.game = game;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                game.play(from);
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GameTask(game, from, middle), new GameTask(game, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Collects the results of finished games and reports their statistics.
+     */
+    private static final class Aggregator {
+
+        /** Receives the statistics. */
+        private final Consumer<BatchStats> progress;
+
+        /** Number of games between reports. */
+        private final int interval;
+
+        /** Number of games in the batch. */
+        private final int total;
+
+        /** Time the batch started, in nanoseconds. */
+        private final long start = System.nanoTime();
+
+        /** Number of games finished. */
+        private int games = 0;
+
+        /** Number of games won. */
+        private int won = 0;
+
+        /** Number of games lost. */
+        private int lost = 0;
+
+        /** Number of games stopped at the tick limit. */
+        private int timedOut = 0;
+
+        /** Number of ticks simulated. */
+        private long ticks = 0;
+
+        /** Sum of the final scores. */
+        private long totalScore = 0;
+
+        /** Lowest final score. */
+        private int minScore = Integer.MAX_VALUE;
+
+        /** Highest final score. */
+        private int maxScore = Integer.MIN_VALUE;
+
+        /**
+         * Constructs an aggregator.
+         *
+         * @param total the number of games in the batch.
+         * @param progress receives the statistics.
+         */
+        Aggregator(int total, Consumer<BatchStats> progress) {
+            this.progress = progress;
+            this.total = total;
+            this.interval = Math.max(1, total / REPORTS);
+        }
+
+        /**
+         * Adds the result of a finished game, reporting the statistics
+         * every so many games, except after the last game.
+         *
+         * @param result the result of the game.
+         */
+        synchronized void add(GameResult result) {
+            games++;
+            switch (result.outcome()) {
+                case WON -> won++;
+                case LOST -> lost++;
+                case TIMED_OUT -> timedOut++;
+            }
+            ticks += result.ticks();
+            totalScore += result.score();
+            minScore = Math.min(minScore, result.score());
+            maxScore = Math.max(maxScore, result.score());
+            if (games % interval == 0 && games < total) {
+                progress.accept(snapshot());
+            }
+        }
+
+        /**
+         * Reports the final statistics.
+         */
+        synchronized void finish() {
+            progress.accept(snapshot());
+        }
+
+        /**
+         * Returns the statistics of the games finished so far.
+         *
+         * @return the statistics.
+         */
+        private BatchStats snapshot() {
+            return new BatchStats(games, won, lost, timedOut, ticks, totalScore,
+                games == 0 ? 0 : minScore, games == 0 ? 0 : maxScore,
+                System.nanoTime() - start);
+        }
+    }
+}
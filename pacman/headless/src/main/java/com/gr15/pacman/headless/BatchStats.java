@@ -0,0 +1,53 @@
+package com.gr15.pacman.headless;
+
+/**
+ * Aggregated outcomes of the games of a batch finished so far.
+ *
+ * @param games The number of games finished.
+ * @param won The number of games won.
+ * @param lost The number of games lost.
+ * @param timedOut The number of games stopped at the tick limit.
+ * @param ticks The number of ticks simulated, over all games.
+ * @param totalScore The sum of the final scores.
+ * @param minScore The lowest final score, or {@code 0} if no game finished.
+ * @param maxScore The highest final score, or {@code 0} if no game finished.
+ * @param elapsedNanos The wall-clock time since the batch started, in nanoseconds.
+ */
+public record BatchStats(
+    int games,
+    int won,
+    int lost,
+    int timedOut,
+    long ticks,
+    long totalScore,
+    int minScore,
+    int maxScore,
+    long elapsedNanos) {
+
+    /**
+     * Returns the mean final score.
+     *
+     * @return the mean score, or {@code 0} if no game finished.
+     */
+    public double meanScore() {
+        return games == 0 ? 0 : (double) totalScore / games;
+    }
+
+    /**
+     * Returns the number of ticks simulated per second of wall-clock time, over all games.
+     *
+     * @return the ticks per second, or {@code 0} if no time was measured.
+     */
+    public double ticksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the number of games finished per minute of wall-clock time.
+     *
+     * @return the games per minute, or {@code 0} if no time was measured.
+     */
+    public double gamesPerMinute() {
+        return elapsedNanos == 0 ? 0 : games * 60e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,22 @@
+package com.gr15.pacman.headless;
+
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * Steers Pacman in place of a player, for games run without a display.
+ *
+ * <p> A bot is asked for a direction once every tick, before the game is updated.
+ * A bot keeps state for a single game, so a new bot is made for every game. </p>
+ */
+@FunctionalInterface
+public interface Bot {
+
+    /**
+     * Decides the direction Pacman should turn to next.
+     *
+     * @param state the game, before the tick is simulated.
+     * @return the direction, or {@link Direction#NONE} to keep the current one.
+     */
+    Direction decide(GameState state);
+}
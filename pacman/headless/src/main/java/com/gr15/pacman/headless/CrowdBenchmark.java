@@ -0,0 +1,180 @@
+package com.gr15.pacman.headless;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.CompiledLevel;
+import com.gr15.pacman.model.GameConfig;
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.GhostSpawn;
+import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.EntityStore;
+import com.gr15.pacman.model.entities.Ghost.GhostType;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * Measures how long a tick takes in a game with a crowd of ghosts.
+ *
+ * <p> The level is played with its ghosts replaced by a crowd chasing Pacman
+ * along a shared flow field, starting on random walkable tiles away from Pacman. The crowd is kept
+ * in the {@link EntityStore} of the game, which steers, moves and collides it with
+ * Pacman, so the ticks measured are the ones of the game itself. Pacman is played
+ * by a {@link PelletBot}, and a new game is started whenever the crowd wins. Only
+ * the ticks played are measured, not the ones of the time outs after Pacman died,
+ * where the game stands still. </p>
+ *
+ * <p> Run with {@code mvn exec:java -Dexec.mainClass=com.gr15.pacman.headless.CrowdBenchmark
+ * -Dexec.args="..."} from the headless module. </p>
+ */
+public final class CrowdBenchmark {
+
+    /** Number of ghosts in the crowd, unless overridden. */
+    private static final int DEFAULT_GHOSTS = 100_000;
+
+    /** Number of ticks measured, unless overridden. */
+    private static final int DEFAULT_TICKS = 600;
+
+    /** Number of times every measurement is repeated, the first ones warming up the JIT. */
+    private static final int ROUNDS = 3;
+
+    /**
+     * Distance in tiles, along the board, that the crowd starts from Pacman at least,
+     * so Pacman is not caught as soon as the game starts.
+     */
+    private static final int START_DISTANCE = 10;
+
+    /** Seed of the tiles the ghosts start on, so runs are comparable. */
+    private static final long SEED = 575;
+
+    /** Private constructor to prevent external instantiation */
+    private CrowdBenchmark() {}
+
+    /**
+     * Runs the benchmark on a level.
+     *
+     * <p> Usage: {@code CrowdBenchmark <level> [--ghosts N] [--ticks N]} </p>
+     *
+     * @param args the level and the options.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args.length % 2 == 0) {
+            usage();
+        }
+
+        int ghosts = DEFAULT_GHOSTS;
+        int ticks = DEFAULT_TICKS;
+        for (int i = 1; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--ghosts" -> ghosts = Integer.parseInt(args[i + 1]);
+                case "--ticks" -> ticks = Integer.parseInt(args[i + 1]);
+                default -> usage();
+            }
+        }
+
+        CompiledLevel level = HeadlessRunner.loadLevel(Path.of(args[0]));
+        GameConfig config = crowdOf(level.config(), ghosts);
+        double stepSeconds = 1.0 / HeadlessRunner.DEFAULT_TICK_RATE;
+        System.out.printf(Locale.ROOT, "%d ghosts on %s, %d ticks per round%n",
+            ghosts, args[0], ticks);
+
+        long sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            GameState game = new GameState(config);
+            Bot bot = new PelletBot();
+
+            int games = 1;
+            int played = 0;
+            long updateNanos = 0;
+            long worstNanos = 0;
+            for (int tick = 0; tick < ticks; tick++) {
+                if (game.gameOver()) {
+                    sink += game.getScore();
+                    game = new GameState(config);
+                    games++;
+                }
+                Direction direction = bot.decide(game);
+                if (direction != null && direction != Direction.NONE) {
+                    game.getPacman().setDirection(direction);
+                }
+
+                boolean timedOut = game.getTimeOutDuration() > 0;
+                long start = System.nanoTime();
+                game.update(stepSeconds);
+                long elapsed = System.nanoTime() - start;
+                if (timedOut) {
+                    continue;
+                }
+                played++;
+                updateNanos += elapsed;
+                worstNanos = Math.max(worstNanos, elapsed);
+            }
+            sink += game.getScore();
+
+            System.out.printf(Locale.ROOT,
+                "round %d: %.2f ms/tick, worst %.2f ms, %.0f ns/ghost, %d ticks played, %d games%n",
+                round, updateNanos / 1e6 / Math.max(1, played), worstNanos / 1e6,
+                (double) updateNanos / Math.max(1, played) / Math.max(1, ghosts), played, games);
+        }
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink); /* Keeps the games from being optimized away */
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that replaces the ghosts of a configuration with a crowd
+     * chasing along a flow field, as fast as the ghosts of the level, or as Pacman
+     * if it has none, each starting on a random walkable tile at least
+     * {@link #START_DISTANCE} tiles from Pacman.
+     *
+     * @param config the configuration of the level.
+     * @param ghosts the number of ghosts in the crowd.
+     * @return the configuration with the crowd.
+     */
+    private static GameConfig crowdOf(GameConfig config, int ghosts) {
+        Board board = config.initialBoard();
+        Position pacman = config.pacmanStartPosition();
+        List<Position> walkable = new ArrayList<>();
+        for (int y = 0; y < board.height(); y++) {
+            for (int x = 0; x < board.width(); x++) {
+                int distance = Math.abs(x - pacman.x()) + Math.abs(y - pacman.y());
+                if (board.isWalkable(x, y) && distance >= START_DISTANCE) {
+                    walkable.add(new Position(x, y));
+                }
+            }
+        }
+        if (walkable.isEmpty()) {
+            throw new IllegalArgumentException("board has no walkable tiles away from Pacman");
+        }
+
+        double speed = config.ghosts().isEmpty()
+            ? config.pacmanSpeed() : config.ghosts().get(0).speed();
+        GhostType[] types = GhostType.values();
+        Random random = new Random(SEED);
+        List<GhostSpawn> crowd = new ArrayList<>(ghosts);
+        for (int i = 0; i < ghosts; i++) {
+            Position spawn = walkable.get(random.nextInt(walkable.size()));
+            crowd.add(new GhostSpawn(types[i % types.length], spawn, speed,
+                StrategyType.FLOW_FIELD));
+        }
+        return new GameConfig(config.initialBoard(), config.powerModeDuration(),
+            config.lives(), config.pacmanSpeed(), config.numberOfItems(),
+            config.pacmanStartPosition(), crowd);
+    }
+
+    /**
+     * Helper function that prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println("Usage: CrowdBenchmark <level> [--ghosts N] [--ticks N]");
+        System.exit(1);
+    }
+}
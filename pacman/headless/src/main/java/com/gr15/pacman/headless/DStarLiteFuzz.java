@@ -0,0 +1,240 @@
+package com.gr15.pacman.headless;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import com.gr15.pacman.model.GameState.TileType;
+import com.gr15.pacman.model.TileGrid;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.searching.DStarLiteSearch;
+
+/**
+ * Checks {@link DStarLiteSearch} against breadth-first distances on random boards.
+ *
+ * <p> Every seed makes a board with random walls and lets one search follow
+ * a goal and a ghost around it, as a ghost's search does in a game. Between
+ * calls the goal moves to a tile beside it, the ghost steps the way it was told
+ * or to another tile beside it, either jumps somewhere else, or a few walls are
+ * toggled and the search is reset. Every step returned must lead one tile closer
+ * to the goal by breadth-first distance, and {@link Direction#NONE} is only
+ * allowed when the goal cannot be reached. </p>
+ *
+ * <p> Run with {@code mvn exec:java -Dexec.mainClass=com.gr15.pacman.headless.DStarLiteFuzz
+ * -Dexec.args="..."} from the headless module. </p>
+ */
+public final class DStarLiteFuzz {
+
+    /** Number of boards, unless overridden. */
+    private static final int DEFAULT_SEEDS = 400;
+
+    /** Number of calls on every board, unless overridden. */
+    private static final int DEFAULT_CALLS = 300;
+
+    /** Smallest width and height of a board. */
+    private static final int MIN_SIZE = 5;
+
+    /** Number of widths and heights a board may have above {@link #MIN_SIZE}. */
+    private static final int SIZE_RANGE = 20;
+
+    /** Chance that a tile starts out as a wall. */
+    private static final double WALL_DENSITY = 0.25;
+
+    /** Largest number of walls toggled at once. */
+    private static final int MAX_TOGGLES = 6;
+
+    /** Number of mismatches printed before only counting them. */
+    private static final int MAX_REPORTED = 5;
+
+    /** Private constructor to prevent external instantiation */
+    private DStarLiteFuzz() {}
+
+    /**
+     * Runs the fuzz and exits with status 2 if any step was wrong.
+     *
+     * <p> Usage: {@code DStarLiteFuzz [--seeds N] [--calls N]} </p>
+     *
+     * @param args the options.
+     */
+    public static void main(String[] args) {
+        if (args.length % 2 != 0) {
+            usage();
+        }
+        int seeds = DEFAULT_SEEDS;
+        int calls = DEFAULT_CALLS;
+        for (int i = 0; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--seeds" -> seeds = Integer.parseInt(args[i + 1]);
+                case "--calls" -> calls = Integer.parseInt(args[i + 1]);
+                default -> usage();
+            }
+        }
+
+        long total = 0;
+        long wrong = 0;
+        for (int seed = 0; seed < seeds; seed++) {
+            Random random = new Random(seed);
+            int width = MIN_SIZE + random.nextInt(SIZE_RANGE);
+            int height = MIN_SIZE + random.nextInt(SIZE_RANGE);
+            TileGrid grid = new TileGrid(width, height, TileType.EMPTY);
+            for (int index = 0; index < grid.size(); index++) {
+                if (random.nextDouble() < WALL_DENSITY) {
+                    grid.set(index, TileType.WALL);
+                }
+            }
+
+            DStarLiteSearch search = new DStarLiteSearch();
+            int ghost = random.nextInt(grid.size());
+            int goal = random.nextInt(grid.size());
+            Direction step = Direction.NONE;
+            for (int call = 0; call < calls; call++) {
+                int move = random.nextInt(10);
+                if (move < 3) {
+                    int toggles = 1 + random.nextInt(MAX_TOGGLES);
+                    for (int i = 0; i < toggles; i++) {
+                        int index = random.nextInt(grid.size());
+                        if (index != ghost) {
+                            grid.set(index,
+                                grid.isWalkable(index) ? TileType.WALL : TileType.EMPTY);
+                        }
+                    }
+                    search.reset();
+                } else if (move < 6) {
+                    goal = beside(grid, goal, random);
+                } else if (move < 7) {
+                    ghost = follow(grid, ghost, step);
+                } else if (move < 8) {
+                    ghost = beside(grid, ghost, random);
+                } else if (move < 9) {
+                    ghost = random.nextInt(grid.size());
+                } else {
+                    goal = random.nextInt(grid.size());
+                }
+
+                step = search.nextStep(grid, ghost, goal);
+                total++;
+                if (!isShortest(grid, ghost, goal, step)) {
+                    wrong++;
+                    if (wrong <= MAX_REPORTED) {
+                        System.out.printf(Locale.ROOT,
+                            "seed %d, call %d: ghost %d, goal %d on %dx%d, stepped %s%n",
+                            seed, call, ghost, goal, width, height, step);
+                    }
+                }
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%d calls on %d boards, %d steps not on a shortest path%n",
+            total, seeds, wrong);
+        if (wrong > 0) {
+            System.exit(2);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that checks a step against breadth-first distances to the goal.
+     *
+     * @param grid the board.
+     * @param ghost the tile of the ghost.
+     * @param goal the goal.
+     * @param step the step taken from the ghost's tile.
+     * @return {@code true} if the step leads one tile closer to the goal, or is
+     *      {@link Direction#NONE} and the goal is the ghost's tile or cannot be reached.
+     */
+    private static boolean isShortest(TileGrid grid, int ghost, int goal, Direction step) {
+        int[] distance = distancesTo(grid, goal);
+        if (ghost == goal || !grid.isWalkable(ghost) || distance[ghost] < 0) {
+            return step == Direction.NONE;
+        }
+        int next = follow(grid, ghost, step);
+        return next != ghost && distance[next] == distance[ghost] - 1;
+    }
+
+    /**
+     * Helper function that computes the breadth-first distance from every tile to the goal.
+     *
+     * @param grid the board.
+     * @param goal the goal.
+     * @return the distances by tile index, {@code -1} for tiles that cannot reach the goal.
+     */
+    private static int[] distancesTo(TileGrid grid, int goal) {
+        int width = grid.width();
+        int[] distance = new int[grid.size()];
+        Arrays.fill(distance, -1);
+        if (!grid.isWalkable(goal)) {
+            return distance;
+        }
+
+        int[] queue = new int[grid.size()];
+        int head = 0;
+        int tail = 0;
+        distance[goal] = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int index = queue[head++];
+            int x = index % width;
+            int y = index / width;
+            int[] neighbours = {
+                y + 1 < grid.height() ? index + width : -1,
+                y > 0 ? index - width : -1,
+                x > 0 ? index - 1 : -1,
+                x + 1 < width ? index + 1 : -1
+            };
+            for (int neighbour : neighbours) {
+                if (neighbour >= 0 && distance[neighbour] < 0 && grid.isWalkable(neighbour)) {
+                    distance[neighbour] = distance[index] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Helper function that picks a random tile at most one tile away along each axis,
+     * which may be the tile itself.
+     *
+     * @param grid the board.
+     * @param index the tile.
+     * @param random the random generator.
+     * @return the tile picked.
+     */
+    private static int beside(TileGrid grid, int index, Random random) {
+        int x = index % grid.width() + random.nextInt(3) - 1;
+        int y = index / grid.width() + random.nextInt(3) - 1;
+        return grid.contains(x, y) ? grid.index(x, y) : index;
+    }
+
+    /**
+     * Helper function that finds the tile a step leads to.
+     *
+     * @param grid the board.
+     * @param index the tile stepped from.
+     * @param step the step.
+     * @return the tile stepped to, or {@code index} if the step leaves the board.
+     */
+    private static int follow(TileGrid grid, int index, Direction step) {
+        int x = index % grid.width();
+        int y = index / grid.width();
+        switch (step) {
+            case UP -> y--;
+            case DOWN -> y++;
+            case LEFT -> x--;
+            case RIGHT -> x++;
+            default -> { }
+        }
+        return grid.contains(x, y) ? grid.index(x, y) : index;
+    }
+
+    /**
+     * Helper function that prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println("Usage: DStarLiteFuzz [--seeds N] [--calls N]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,168 @@
+package com.gr15.pacman.headless;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.MazeGenerator;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * Measures how fast games can be forked with {@link GameState#fork},
+ * as search-based agents do thousands of times per move.
+ *
+ * <p> A game of the level is first played for a while by a {@link PelletBot},
+ * so the board has been written to and the path cache is warm. The benchmark
+ * then forks that game over and over, and separately forks it and plays every
+ * fork a few ticks ahead with a {@link RandomBot}, like a rollout of a tree
+ * search. The first tick of every rollout is timed on its own, as that is where
+ * a fork pays for anything it does not share with the original. </p>
+ *
+ * <p> Instead of a level, a large maze can be generated with {@link MazeGenerator},
+ * whose ghosts all use the given search strategy. </p>
+ *
+ * <p> Run with {@code mvn exec:java -Dexec.mainClass=com.gr15.pacman.headless.ForkBenchmark
+ * -Dexec.args="..."} from the headless module. </p>
+ */
+public final class ForkBenchmark {
+
+    /** Number of forks measured, unless overridden. */
+    private static final int DEFAULT_FORKS = 200_000;
+
+    /** Number of ticks every rollout is played, unless overridden. */
+    private static final int DEFAULT_DEPTH = 60;
+
+    /** Number of ticks played before forking, unless overridden. */
+    private static final int DEFAULT_WARMUP = 600;
+
+    /** Number of times every measurement is repeated, the first ones warming up the JIT. */
+    private static final int ROUNDS = 3;
+
+    /** Seed of generated mazes, so runs are comparable. */
+    private static final long SEED = 575;
+
+    /** Chance that a wall between two corridors of a generated maze is removed. */
+    private static final double LOOP_DENSITY = 0.5;
+
+    /** Chance that a corridor tile of a generated maze holds a pellet. */
+    private static final double PELLET_DENSITY = 0.5;
+
+    /** Number of ghosts in a generated maze. */
+    private static final int MAZE_GHOSTS = 4;
+
+    /** Private constructor to prevent external instantiation */
+    private ForkBenchmark() {}
+
+    /**
+     * Runs the benchmark on a level or a generated maze.
+     *
+     * <p> Usage: {@code ForkBenchmark <level | --maze SIZE> [--strategy S]
+     * [--forks N] [--depth N] [--warmup N]} </p>
+     *
+     * @param args the level or maze and the options.
+     */
+    public static void main(String[] args) {
+        boolean maze = args.length > 1 && args[0].equals("--maze");
+        int first = maze ? 2 : 1;
+        if (args.length < first || (args.length - first) % 2 != 0) {
+            usage();
+        }
+        int mazeSize = maze ? Integer.parseInt(args[1]) : 0;
+        String levelName = maze ? mazeSize + "x" + mazeSize + " maze" : args[0];
+
+        StrategyType strategy = StrategyType.A_STAR;
+        int forks = DEFAULT_FORKS;
+        int depth = DEFAULT_DEPTH;
+        int warmup = DEFAULT_WARMUP;
+        for (int i = first; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--strategy" ->
+                    strategy = StrategyType.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                case "--forks" -> forks = Integer.parseInt(args[i + 1]);
+                case "--depth" -> depth = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                default -> usage();
+            }
+        }
+
+        GameState game = maze
+            ? new GameState(MazeGenerator.generate(SEED, mazeSize, mazeSize, LOOP_DENSITY,
+                PELLET_DENSITY, MAZE_GHOSTS, strategy))
+            : new GameState(HeadlessRunner.loadLevel(Path.of(levelName)));
+        double stepSeconds = 1.0 / HeadlessRunner.DEFAULT_TICK_RATE;
+        Bot warmupBot = new PelletBot();
+        for (int tick = 0; tick < warmup && !game.gameOver(); tick++) {
+            play(game, warmupBot, stepSeconds);
+        }
+        System.out.printf(Locale.ROOT, "Forking %s after %d ticks, score %d%n",
+            levelName, warmup, game.getScore());
+
+        int rollouts = Math.max(1, forks / depth);
+        long sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < forks; i++) {
+                sink += game.fork().getScore();
+            }
+            long forkNanos = System.nanoTime() - start;
+
+            long firstTickNanos = 0;
+            long worstFirstTickNanos = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < rollouts; i++) {
+                GameState fork = game.fork();
+                Bot bot = new RandomBot(i);
+                for (int tick = 0; tick < depth && !fork.gameOver(); tick++) {
+                    long tickStart = System.nanoTime();
+                    play(fork, bot, stepSeconds);
+                    if (tick == 0) {
+                        long elapsed = System.nanoTime() - tickStart;
+                        firstTickNanos += elapsed;
+                        worstFirstTickNanos = Math.max(worstFirstTickNanos, elapsed);
+                    }
+                }
+                sink += fork.getScore();
+            }
+            long rolloutNanos = System.nanoTime() - start;
+
+            System.out.printf(Locale.ROOT,
+                "round %d: %.0f ns/fork, %.0f forks/s, %.0f rollouts/s of %d ticks,"
+                    + " first tick %.3f ms, worst %.3f ms%n",
+                round, (double) forkNanos / forks, forks * 1e9 / forkNanos,
+                rollouts * 1e9 / rolloutNanos, depth,
+                firstTickNanos / 1e6 / rollouts, worstFirstTickNanos / 1e6);
+        }
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink); /* Keeps the forks from being optimized away */
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that plays a single tick of a game.
+     *
+     * @param game the game.
+     * @param bot the bot steering Pacman.
+     * @param stepSeconds the length of a tick in seconds.
+     */
+    private static void play(GameState game, Bot bot, double stepSeconds) {
+        Direction direction = bot.decide(game);
+        if (direction != null && direction != Direction.NONE) {
+            game.getPacman().setDirection(direction);
+        }
+        game.update(stepSeconds);
+    }
+
+    /**
+     * Helper function that prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println("Usage: ForkBenchmark <level | --maze SIZE> [--strategy S]"
+            + " [--forks N] [--depth N] [--warmup N]");
+        System.exit(1);
+    }
+}
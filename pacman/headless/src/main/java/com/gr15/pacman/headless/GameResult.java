@@ -0,0 +1,55 @@
+package com.gr15.pacman.headless;
+
+/**
+ * The outcome of a game run by the {@link HeadlessRunner}.
+ *
+ * @param outcome How the game ended.
+ * @param ticks The number of ticks simulated.
+ * @param score The final score.
+ * @param lives The lives left at the end.
+ * @param elapsedNanos The wall-clock time spent simulating, in nanoseconds.
+ */
+public record GameResult(
+    Outcome outcome,
+    long ticks,
+    int score,
+    int lives,
+    long elapsedNanos) {
+
+    /** How a game ended. */
+    public enum Outcome {
+
+        /** Every pellet was eaten with lives left. */
+        WON,
+
+        /** Pacman ran out of lives. */
+        LOST,
+
+        /** The tick limit was reached before the game ended. */
+        TIMED_OUT
+    };
+
+    /**
+     * Constructs a new {@code GameResult} record.
+     *
+     * @throws IllegalArgumentException if {@code outcome} is {@code null},
+     *      or {@code ticks} or {@code elapsedNanos} is negative.
+     */
+    public GameResult {
+        if (outcome == null) {
+            throw new IllegalArgumentException("outcome must not be null");
+        }
+        if (ticks < 0 || elapsedNanos < 0) {
+            throw new IllegalArgumentException("ticks and elapsedNanos must be non-negative");
+        }
+    }
+
+    /**
+     * Returns the number of ticks simulated per second of wall-clock time.
+     *
+     * @return the ticks per second, or {@code 0} if no time was measured.
+     */
+    public double ticksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+}
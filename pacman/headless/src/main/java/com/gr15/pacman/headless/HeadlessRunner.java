@@ -0,0 +1,274 @@
+package com.gr15.pacman.headless;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongFunction;
+
+import com.gr15.pacman.headless.GameResult.Outcome;
+import com.gr15.pacman.model.CompiledLevel;
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.LevelCompiler;
+import com.gr15.pacman.model.LevelFile;
+import com.gr15.pacman.model.ReplayWriter;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * Runs games without a display, as fast as the CPU allows.
+ *
+ * <p> Every game is updated in fixed ticks, like the JavaFX game loop, but
+ * without waiting for frames, and Pacman is steered by a {@link Bot}. A game
+ * ends when it is won or lost, or after a maximum number of ticks. </p>
+ *
+ * <p> Levels are loaded through the {@link LevelCompiler} cache, so repeated
+ * runs of the same level skip the precomputation. Games of one level share its
+ * board and navigation data, so starting a game is cheap. A runner keeps no
+ * state between games, so one runner can play many games at once, see
+ * {@link BatchRunner}. </p>
+ */
+public final class HeadlessRunner {
+
+    /** Number of ticks per second, unless overridden. */
+    public static final double DEFAULT_TICK_RATE = 120;
+
+    /** Simulated minutes before a game is stopped, unless overridden. */
+    private static final int DEFAULT_MINUTES = 10;
+
+    /** Number of ticks per second of simulated time. */
+    private final double tickRate;
+
+    /** Number of ticks after which a game is stopped. */
+    private final long maxTicks;
+
+    /**
+     * Constructs a runner.
+     *
+     * @param tickRate the number of ticks per second of simulated time.
+     * @param maxTicks the number of ticks after which a game is stopped.
+     * @throws IllegalArgumentException if {@code tickRate} or {@code maxTicks} is not positive.
+     */
+    public HeadlessRunner(double tickRate, long maxTicks) {
+        if (!(tickRate > 0) || Double.isInfinite(tickRate)) {
+            throw new IllegalArgumentException("tickRate must be positive");
+        }
+        if (maxTicks <= 0) {
+            throw new IllegalArgumentException("maxTicks must be positive");
+        }
+        this.tickRate = tickRate;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Plays a new game of a level.
+     *
+     * @param level the level (must not be {@code null})
+     * @param bot the bot steering Pacman (must not be {@code null})
+     * @return the result of the game.
+     * @throws IllegalArgumentException if {@code level} or {@code bot} is {@code null}
+     */
+    public GameResult play(CompiledLevel level, Bot bot) {
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        return play(new GameState(level), bot);
+    }
+
+    /**
+     * Plays a game from its current state until it ends or the tick limit is reached.
+     *
+     * @param state the game (must not be {@code null})
+     * @param bot the bot steering Pacman (must not be {@code null})
+     * @return the result of the game.
+     * @throws IllegalArgumentException if {@code state} or {@code bot} is {@code null}
+     */
+    public GameResult play(GameState state, Bot bot) {
+        return play(state, bot, null);
+    }
+
+    /**
+     * Plays a game from its current state until it ends or the tick limit
+     * is reached, recording it to a replay file.
+     *
+     * @param state the game (must not be {@code null})
+     * @param bot the bot steering Pacman (must not be {@code null})
+     * @param replay the writer recording the game, or {@code null} to not record it.
+     * @return the result of the game.
+     * @throws IllegalArgumentException if {@code state} or {@code bot} is {@code null}
+     * @throws RuntimeException if an I/O error occurs during recording.
+     */
+    public GameResult play(GameState state, Bot bot, ReplayWriter replay) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null");
+        }
+        if (bot == null) {
+            throw new IllegalArgumentException("bot must not be null");
+        }
+
+        double stepSeconds = 1.0 / tickRate;
+        long ticks = 0;
+        long start = System.nanoTime();
+        while (!state.gameOver() && ticks < maxTicks) {
+            Direction direction = bot.decide(state);
+            if (direction != null && direction != Direction.NONE) {
+                state.getPacman().setDirection(direction);
+                if (replay != null) {
+                    replay.input(direction);
+                }
+            }
+            state.update(stepSeconds);
+            if (replay != null) {
+                replay.tick(state);
+            }
+            ticks++;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Outcome outcome = state.isWon() ? Outcome.WON
+            : state.gameOver() ? Outcome.LOST
+            : Outcome.TIMED_OUT;
+        return new GameResult(outcome, ticks, state.getScore(), state.getLives(), elapsedNanos);
+    }
+
+    /**
+     * Loads a level from a JSON configuration, through the level cache,
+     * or from a binary level file ending in {@code .pmlv}.
+     *
+     * @param path the path of the level.
+     * @return the compiled level.
+     * @throws RuntimeException if the level is not valid
+     *      or if an I/O error occurs during reading.
+     */
+    public static CompiledLevel loadLevel(Path path) {
+        if (path.getFileName().toString().endsWith(".pmlv")) {
+            return LevelCompiler.compile(LevelFile.read(path));
+        }
+        try {
+            return LevelCompiler.load(Files.newInputStream(path));
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading JSON file. Ensure the file exists and is accessible", ioException);
+        }
+    }
+
+    /**
+     * Returns a factory making a bot for every game from a seed.
+     *
+     * @param name {@code pellet}, {@code random}, or the path of a script for {@link ScriptedBot}.
+     * @return the factory, taking the seed of the game.
+     * @throws RuntimeException if the script cannot be read.
+     */
+    static LongFunction<Bot> botFactory(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "pellet" -> seed -> new PelletBot();
+            case "random" -> RandomBot::new;
+            default -> {
+                List<String> script;
+                try {
+                    script = Files.readAllLines(Path.of(name));
+                } catch (IOException ioException) {
+                    throw new RuntimeException(
+                        "Error reading script file. Ensure the file exists and is accessible",
+                        ioException);
+                }
+                new ScriptedBot(script); /* Fail early on a malformed script */
+                yield seed -> new ScriptedBot(script);
+            }
+        };
+    }
+
+    /**
+     * Plays games of a level and reports the outcomes and the simulation speed.
+     *
+     * <p> Usage: {@code HeadlessRunner <level> [--games N] [--bot pellet|random|<script>]
+     * [--seed N] [--tick-rate N] [--max-ticks N] [--threads N]
+     * [--mode virtual|work-stealing] [--record <replay>]} </p>
+     *
+     * <p> The level is a JSON configuration or a binary level file. Games are run by a
+     * {@link BatchRunner}, on as many threads as there are processors unless given.
+     * Game {@code i} gets a bot made from the seed plus {@code i}. With
+     * {@code --record}, a single game is played and recorded to a replay file,
+     * which can be checked and inspected with {@link ReplayTool}. </p>
+     *
+     * @param args the level and the options.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args.length % 2 == 0) {
+            usage();
+        }
+
+        int games = 1;
+        String botName = "pellet";
+        long seed = 0;
+        double tickRate = DEFAULT_TICK_RATE;
+        Long maxTicks = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        BatchRunner.Mode mode = BatchRunner.Mode.WORK_STEALING;
+        Path record = null;
+        for (int i = 1; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--bot" -> botName = args[i + 1];
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--tick-rate" -> tickRate = Double.parseDouble(args[i + 1]);
+                case "--max-ticks" -> maxTicks = Long.parseLong(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--mode" -> mode = switch (args[i + 1]) {
+                    case "virtual" -> BatchRunner.Mode.VIRTUAL_THREADS;
+                    case "work-stealing" -> BatchRunner.Mode.WORK_STEALING;
+                    default -> {
+                        usage();
+                        yield mode;
+                    }
+                };
+                case "--record" -> record = Path.of(args[i + 1]);
+                default -> usage();
+            }
+        }
+        if (record != null && games != 1) {
+            usage();
+        }
+
+        CompiledLevel level = loadLevel(Path.of(args[0]));
+        HeadlessRunner runner = new HeadlessRunner(tickRate, maxTicks != null
+            ? maxTicks
+            : (long) Math.ceil(tickRate * 60 * DEFAULT_MINUTES));
+        if (record != null) {
+            GameState state = new GameState(level);
+            try (ReplayWriter replay = new ReplayWriter(record, state, tickRate)) {
+                System.out.println(runner.play(state, botFactory(botName).apply(seed), replay));
+            }
+            System.out.println("Recorded to " + record);
+            return;
+        }
+        BatchRunner batch = new BatchRunner(runner, threads, mode);
+
+        System.out.printf(Locale.ROOT, "%d games of %s with the %s bot on %d threads%n",
+            games, args[0], botName, threads);
+        List<GameResult> results = batch.run(level, games, botFactory(botName), seed,
+            stats -> System.out.printf(Locale.ROOT,
+                "%d games: won %d, lost %d, timed out %d, mean score %.1f,"
+                    + " %.0f ticks/s, %.0f games/min%n",
+                stats.games(), stats.won(), stats.lost(), stats.timedOut(),
+                stats.meanScore(), stats.ticksPerSecond(), stats.gamesPerMinute()));
+        if (games == 1) {
+            System.out.println(results.get(0));
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println("Usage: HeadlessRunner <level> [--games N]"
+            + " [--bot pellet|random|<script>] [--seed N] [--tick-rate N] [--max-ticks N]"
+            + " [--threads N] [--mode virtual|work-stealing] [--record <replay>]"
+            + " (--record needs --games 1)");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,147 @@
+package com.gr15.pacman.headless;
+
+import java.util.Arrays;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.GameState.TileType;
+import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.Ghost;
+
+/**
+ * A {@link Bot} heading for the nearest pellet.
+ *
+ * <p> Every tick the nearest pellet or power pellet is found with a breadth-first
+ * search from Pacman's tile. Outside power mode the tiles of the ghosts and the
+ * tiles next to them are avoided, unless no pellet can be reached without them. </p>
+ */
+public final class PelletBot
+    implements Bot {
+
+    /** Directions in the order neighbours are searched. */
+    private static final Direction[] DIRECTIONS = {
+        Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT
+    };
+
+    /** Stamp of the current search, marking the tiles it has visited. */
+    private int stamp = 0;
+
+    /** For each tile, the stamp of the last search that visited it. */
+    private int[] visited = new int[0];
+
+    /** For each tile, the stamp of the last search that avoided it. */
+    private int[] dangerous = new int[0];
+
+    /** For each visited tile, the direction of the first step towards it. */
+    private byte[] firstStep = new byte[0];
+
+    /** Queue of the breadth-first search. */
+    private int[] queue = new int[0];
+
+    @Override
+    public Direction decide(GameState state) {
+        Board board = state.getBoard();
+        if (visited.length != board.size()) {
+            visited = new int[board.size()];
+            dangerous = new int[board.size()];
+            firstStep = new byte[board.size()];
+            queue = new int[board.size()];
+            stamp = 0;
+        }
+
+        Position position = state.getPacman().getPosition();
+        if (!board.contains(position.x(), position.y())) {
+            return Direction.NONE;
+        }
+        int start = board.index(position.x(), position.y());
+
+        if (state.getPowerModeDuration() <= 0) {
+            nextStamp();
+            for (Ghost ghost : state.getGhosts()) {
+                markDangerous(board, ghost.getPosition());
+            }
+            Direction direction = search(board, start, true);
+            if (direction != Direction.NONE) {
+                return direction;
+            }
+        }
+        nextStamp();
+        return search(board, start, false);
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that searches for the nearest pellet.
+     *
+     * @param board the board.
+     * @param start the tile of Pacman.
+     * @param avoidGhosts whether to avoid the tiles marked as dangerous.
+     * @return the first step towards the nearest pellet, or {@link Direction#NONE}
+     *      if no pellet can be reached.
+     */
+    private Direction search(Board board, int start, boolean avoidGhosts) {
+        int head = 0;
+        int tail = 0;
+        visited[start] = stamp;
+        queue[tail++] = start;
+        while (head < tail) {
+            int tile = queue[head++];
+            TileType type = board.get(tile);
+            if (tile != start && (type == TileType.PELLET || type == TileType.POWER_PELLET)) {
+                return DIRECTIONS[firstStep[tile]];
+            }
+
+            int x = tile % board.width();
+            int y = tile / board.width();
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                Position next = new Position(x, y).offset(DIRECTIONS[d]);
+                if (!board.contains(next.x(), next.y())) {
+                    continue;
+                }
+                int neighbour = board.index(next.x(), next.y());
+                if (visited[neighbour] == stamp || !board.isWalkable(neighbour)
+                    || (avoidGhosts && dangerous[neighbour] == stamp)) {
+                    continue;
+                }
+                visited[neighbour] = stamp;
+                firstStep[neighbour] = tile == start ? (byte) d : firstStep[tile];
+                queue[tail++] = neighbour;
+            }
+        }
+        return Direction.NONE;
+    }
+
+    /**
+     * Helper function that marks a ghost's tile and the tiles next to it as dangerous.
+     *
+     * @param board the board.
+     * @param ghost the position of the ghost.
+     */
+    private void markDangerous(Board board, Position ghost) {
+        if (board.contains(ghost.x(), ghost.y())) {
+            dangerous[board.index(ghost.x(), ghost.y())] = stamp;
+        }
+        for (Direction direction : DIRECTIONS) {
+            Position next = ghost.offset(direction);
+            if (board.contains(next.x(), next.y())) {
+                dangerous[board.index(next.x(), next.y())] = stamp;
+            }
+        }
+    }
+
+    /**
+     * Helper function that starts a new search, clearing the marks
+     * when the stamp wraps around.
+     */
+    private void nextStamp() {
+        if (++stamp == 0) {
+            Arrays.fill(visited, 0);
+            Arrays.fill(dangerous, 0);
+            stamp = 1;
+        }
+    }
+}
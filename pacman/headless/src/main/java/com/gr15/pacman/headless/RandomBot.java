@@ -0,0 +1,90 @@
+package com.gr15.pacman.headless;
+
+import java.util.Random;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A {@link Bot} wandering the maze at random.
+ *
+ * <p> Whenever Pacman reaches a new tile, one of the open directions is picked
+ * at random, turning back only at dead ends. The same seed always makes the
+ * same choices, so games are reproducible. </p>
+ */
+public final class RandomBot
+    implements Bot {
+
+    /** Directions in the order they are considered. */
+    private static final Direction[] DIRECTIONS = {
+        Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT
+    };
+
+    /** The random generator choosing directions. */
+    private final Random random;
+
+    /** The tile a direction was last chosen on. */
+    private Position lastTile = null;
+
+    /** The direction chosen last. */
+    private Direction lastDirection = Direction.NONE;
+
+    /**
+     * Constructs a bot with the given seed.
+     *
+     * @param seed the seed of the random generator.
+     */
+    public RandomBot(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Direction decide(GameState state) {
+        Position position = state.getPacman().getPosition();
+        if (position.equals(lastTile)) {
+            return lastDirection;
+        }
+        lastTile = position;
+
+        Board board = state.getBoard();
+        Direction[] options = new Direction[DIRECTIONS.length];
+        int count = 0;
+        Direction back = Direction.NONE;
+        for (Direction direction : DIRECTIONS) {
+            Position next = position.offset(direction);
+            if (!board.contains(next.x(), next.y()) || !board.isWalkable(next.x(), next.y())) {
+                continue;
+            }
+            if (isReverse(direction, state.getPacman().getDirection())) {
+                back = direction;
+            } else {
+                options[count++] = direction;
+            }
+        }
+        lastDirection = count > 0 ? options[random.nextInt(count)] : back;
+        return lastDirection;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that checks if two directions are opposite.
+     *
+     * @param direction the first direction.
+     * @param other the second direction.
+     * @return {@code true} if the directions are opposite.
+     */
+    private static boolean isReverse(Direction direction, Direction other) {
+        return switch (direction) {
+            case UP -> other == Direction.DOWN;
+            case DOWN -> other == Direction.UP;
+            case LEFT -> other == Direction.RIGHT;
+            case RIGHT -> other == Direction.LEFT;
+            default -> false;
+        };
+    }
+}
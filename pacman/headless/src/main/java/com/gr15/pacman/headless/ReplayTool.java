@@ -0,0 +1,99 @@
+package com.gr15.pacman.headless;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.gr15.pacman.model.CompiledLevel;
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.Replay;
+import com.gr15.pacman.model.ReplayPlayer;
+
+/**
+ * Checks and inspects replay files, such as the ones attached to bug reports.
+ *
+ * <p> The replay is played from the start against every keyframe in it, which
+ * tells whether the game still plays the same as when it was recorded. Given a
+ * tick, the game is then also shown as it was at that tick, found by seeking
+ * from the keyframe before it rather than playing the whole replay. </p>
+ *
+ * <p> Run with {@code mvn exec:java -Dexec.mainClass=com.gr15.pacman.headless.ReplayTool
+ * -Dexec.args="..."} from the headless module. </p>
+ */
+public final class ReplayTool {
+
+    /** Private constructor to prevent external instantiation */
+    private ReplayTool() {}
+
+    /**
+     * Checks a replay and optionally shows the game at a tick.
+     *
+     * <p> Usage: {@code ReplayTool <level> <replay> [--seek N]} </p>
+     *
+     * @param args the level, the replay and the options.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 4) {
+            usage();
+        }
+        Long seek = null;
+        if (args.length == 4) {
+            if (!args[2].equals("--seek")) {
+                usage();
+            }
+            seek = Long.parseLong(args[3]);
+        }
+
+        CompiledLevel level = HeadlessRunner.loadLevel(Path.of(args[0]));
+        Replay replay = Replay.read(Path.of(args[1]));
+        if (!replay.matches(level.config())) {
+            System.err.println("The replay was recorded with another configuration than " + args[0]);
+            System.exit(1);
+        }
+        if (seek != null && (seek < 0 || seek > replay.ticks())) {
+            System.err.println("The replay has " + replay.ticks() + " ticks, cannot seek to " + seek);
+            usage();
+        }
+        System.out.printf(Locale.ROOT, "%d ticks at %.0f ticks/s, %d inputs%n",
+            replay.ticks(), replay.tickRate(), replay.inputCount());
+
+        long start = System.nanoTime();
+        long desync = new ReplayPlayer(replay, level).verify();
+        long elapsedNanos = System.nanoTime() - start;
+        if (desync < 0) {
+            System.out.printf(Locale.ROOT, "Plays the same, verified in %.1f ms%n",
+                elapsedNanos / 1e6);
+        } else {
+            System.out.printf(Locale.ROOT, "Plays differently from tick %d%n", desync);
+        }
+
+        if (seek != null) {
+            ReplayPlayer player = new ReplayPlayer(replay, level);
+            start = System.nanoTime();
+            player.seek(seek);
+            elapsedNanos = System.nanoTime() - start;
+
+            GameState state = player.getState();
+            Position pacman = state.getPacman().getPosition();
+            System.out.printf(Locale.ROOT,
+                "Tick %d, found in %.1f ms: score %d, lives %d, Pacman at (%d, %d)%n",
+                player.getTick(), elapsedNanos / 1e6, state.getScore(), state.getLives(),
+                pacman.x(), pacman.y());
+        }
+        if (desync >= 0) {
+            System.exit(2);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println("Usage: ReplayTool <level> <replay> [--seek N]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.gr15.pacman.headless;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A {@link Bot} replaying a script of key presses.
+ *
+ * <p> A script has one key press per line, as the tick it happens at followed by
+ * the direction, for example {@code 120 LEFT}. Ticks are counted from zero and
+ * must not decrease. Blank lines and lines starting with {@code #} are ignored. </p>
+ */
+public final class ScriptedBot
+    implements Bot {
+
+    /** Tick of each key press, in order. */
+    private final long[] ticks;
+
+    /** Direction of each key press. */
+    private final Direction[] directions;
+
+    /** Index of the next key press. */
+    private int next = 0;
+
+    /** Number of ticks decided so far. */
+    private long tick = 0;
+
+    /**
+     * Constructs a bot from the lines of a script.
+     *
+     * @param lines the lines of the script (must not be {@code null})
+     * @throws IllegalArgumentException if {@code lines} is {@code null},
+     *      or a line is not a valid key press.
+     */
+    public ScriptedBot(List<String> lines) {
+        if (lines == null) {
+            throw new IllegalArgumentException("lines must not be null");
+        }
+
+        long[] ticks = new long[lines.size()];
+        Direction[] directions = new Direction[lines.size()];
+        int count = 0;
+        for (String line : lines) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ill formated script line: " + line);
+            }
+            try {
+                ticks[count] = Long.parseLong(parts[0]);
+                directions[count] = Direction.valueOf(parts[1].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException illegalArgumentException) {
+                throw new IllegalArgumentException(
+                    "Ill formated script line: " + line, illegalArgumentException);
+            }
+            if (ticks[count] < 0 || (count > 0 && ticks[count] < ticks[count - 1])) {
+                throw new IllegalArgumentException("Script ticks must not decrease: " + line);
+            }
+            count++;
+        }
+        this.ticks = Arrays.copyOf(ticks, count);
+        this.directions = Arrays.copyOf(directions, count);
+    }
+
+    /**
+     * Reads a script from a file.
+     *
+     * @param path the path of the script.
+     * @return the bot.
+     * @throws IllegalArgumentException if a line is not a valid key press.
+     * @throws RuntimeException if an I/O error occurs during reading.
+     */
+    public static ScriptedBot fromFile(Path path) {
+        try {
+            return new ScriptedBot(Files.readAllLines(path));
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading script file. Ensure the file exists and is accessible", ioException);
+        }
+    }
+
+    @Override
+    public Direction decide(GameState state) {
+        Direction direction = Direction.NONE;
+        while (next < ticks.length && ticks[next] <= tick) {
+            direction = directions[next++];
+        }
+        tick++;
+        return direction;
+    }
+}
@@ -0,0 +1,126 @@
+package com.gr15.pacman.headless;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.gr15.pacman.model.ChunkDirectory;
+import com.gr15.pacman.model.ChunkedBoard;
+import com.gr15.pacman.model.ChunkedBoard.ChunkSource;
+import com.gr15.pacman.model.GameConfig;
+import com.gr15.pacman.model.GameState;
+import com.gr15.pacman.model.MazeChunkSource;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * Plays games on an endless world without a display.
+ *
+ * <p> The world is a {@link ChunkedBoard} of mazes generated by a
+ * {@link MazeChunkSource}, of which only the chunks around Pacman and the ghosts
+ * are kept in memory. Pacman wanders it with a {@link RandomBot}, as the world
+ * never runs out of pellets. Every game after the first resets the previous one,
+ * which keeps the same world, so the chunks loaded show how far the games went.
+ * Given a directory, the chunks whose pellets were eaten are stored in it, see
+ * {@link ChunkDirectory}, and the world is played again from there. </p>
+ *
+ * <p> Run with {@code mvn exec:java -Dexec.mainClass=com.gr15.pacman.headless.WorldRunner
+ * -Dexec.args="..."} from the headless module. </p>
+ */
+public final class WorldRunner {
+
+    /** Width and height of the world in tiles, unless overridden. */
+    private static final int DEFAULT_SIZE = 1 << 15;
+
+    /** Width and height of a chunk in tiles, unless overridden. */
+    private static final int DEFAULT_CHUNK_SIZE = 32;
+
+    /** Number of chunks kept in memory, unless overridden. */
+    private static final int DEFAULT_MAX_CHUNKS = 256;
+
+    /** Number of ghosts, unless overridden. */
+    private static final int DEFAULT_GHOSTS = 4;
+
+    /** Chance that a wall between two corridors is removed. */
+    private static final double LOOP_DENSITY = 0.1;
+
+    /** Chance that a corridor tile holds a pellet. */
+    private static final double PELLET_DENSITY = 0.8;
+
+    /** Simulated minutes before a game is stopped. */
+    private static final int MINUTES = 10;
+
+    /** Private constructor to prevent external instantiation */
+    private WorldRunner() {}
+
+    /**
+     * Plays games on a generated world and reports them with the chunks loaded.
+     *
+     * <p> Usage: {@code WorldRunner [--games N] [--seed N] [--size N] [--chunk-size N]
+     * [--max-chunks N] [--ghosts N] [--strategy S] [--dir <chunks>]} </p>
+     *
+     * @param args the options.
+     */
+    public static void main(String[] args) {
+        if (args.length % 2 != 0) {
+            usage();
+        }
+
+        int games = 1;
+        long seed = 0;
+        int size = DEFAULT_SIZE;
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        int maxChunks = DEFAULT_MAX_CHUNKS;
+        int ghosts = DEFAULT_GHOSTS;
+        StrategyType strategy = StrategyType.A_STAR;
+        Path directory = null;
+        for (int i = 0; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                case "--chunk-size" -> chunkSize = Integer.parseInt(args[i + 1]);
+                case "--max-chunks" -> maxChunks = Integer.parseInt(args[i + 1]);
+                case "--ghosts" -> ghosts = Integer.parseInt(args[i + 1]);
+                case "--strategy" -> strategy =
+                    StrategyType.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                case "--dir" -> directory = Path.of(args[i + 1]);
+                default -> usage();
+            }
+        }
+
+        MazeChunkSource mazes = new MazeChunkSource(seed, LOOP_DENSITY, PELLET_DENSITY);
+        ChunkSource source = directory == null ? mazes : new ChunkDirectory(directory, mazes);
+        ChunkedBoard world = new ChunkedBoard(size, size, chunkSize, maxChunks, source);
+        GameConfig config = mazes.configFor(world, ghosts, strategy);
+        HeadlessRunner runner = new HeadlessRunner(HeadlessRunner.DEFAULT_TICK_RATE,
+            (long) Math.ceil(HeadlessRunner.DEFAULT_TICK_RATE * 60 * MINUTES));
+        System.out.printf(Locale.ROOT, "%d by %d world in chunks of %d, %d ghosts using %s%n",
+            size, size, chunkSize, ghosts, strategy);
+
+        GameState state = new GameState(config, world);
+        for (int game = 1; game <= games; game++) {
+            if (game > 1) {
+                state.resetGame();
+            }
+            GameResult result = runner.play(state, new RandomBot(seed + game));
+            System.out.printf(Locale.ROOT, "game %d: %s, %d chunks loaded, %d in memory%n",
+                game, result, world.chunkLoads(), world.residentChunks());
+        }
+        if (directory != null) {
+            world.flush();
+            System.out.println("Stored the changed chunks in " + directory);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that prints the usage and exits.
+     */
+    private static void usage() {
+        System.err.println("Usage: WorldRunner [--games N] [--seed N] [--size N] [--chunk-size N]"
+            + " [--max-chunks N] [--ghosts N] [--strategy S] [--dir <chunks>]");
+        System.exit(1);
+    }
+}
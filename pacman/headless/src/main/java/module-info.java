@@ -0,0 +1,8 @@
+/* module-info.java
+ * This acts as the manifest for the module.
+ */
+module com.gr15.pacman.headless {
+    requires transitive com.gr15.pacman.model;
+
+    exports com.gr15.pacman.headless;
+}
@@ -0,0 +1,144 @@
+package com.gr15.pacman.model;
+
+import java.util.Collection;
+
+import com.gr15.pacman.model.GameState.TileType;
+
+/**
+ * A rectangular game board of tiles, addressed by index, {@code y * width + x}.
+ *
+ * <p> Movement, the search strategies and rendering only use this interface, so
+ * they work on any backend: {@link TileGrid} keeps the whole board in memory, while
+ * {@link ChunkedBoard} keeps only the chunks around the entities. Cells outside the
+ * rows of a jagged board are padding; they are not tiles and cannot be walked on. </p>
+ */
+public interface Board {
+
+    /**
+     * Returns the width of the board.
+     *
+     * @return the width in tiles.
+     */
+    int width();
+
+    /**
+     * Returns the height of the board.
+     *
+     * @return the height in tiles.
+     */
+    int height();
+
+    /**
+     * Returns the number of cells in the board, including padding.
+     *
+     * @return {@code width * height}
+     */
+    default int size() {
+        return width() * height();
+    }
+
+    /**
+     * Returns the index of a tile.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return {@code y * width + x}
+     */
+    default int index(int x, int y) {
+        return y * width() + x;
+    }
+
+    /**
+     * Checks if a position is a tile of this board,
+     * inside the bounds and not padding.
+     *
+     * @param x the column.
+     * @param y the row.
+     * @return {@code true} if there is a tile at the position.
+     */
+    default boolean contains(int x, int y) {
+        return x >= 0 && x < width() && y >= 0 && y < height() && get(index(x, y)) != null;
+    }
+
+    /**
+     * Checks if the tile at an index can be walked on.
+     *
+     * @param index the index of the tile, inside the board.
+     * @return {@code true} if the tile is not a wall and not padding.
+     */
+    boolean isWalkable(int index);
+
+    /**
+     * Checks if a position is a tile that can be walked on.
+     * Positions outside the board cannot be walked on.
+     *
+     * @param x the column.
+     * @param y the row.
+     * @return {@code true} if the position is inside the board and walkable.
+     */
+    default boolean isWalkable(int x, int y) {
+        return x >= 0 && x < width() && y >= 0 && y < height() && isWalkable(index(x, y));
+    }
+
+    /**
+     * Returns the tile at an index.
+     *
+     * @param index the index of the tile, inside the board.
+     * @return the type of the tile, or {@code null} for padding.
+     */
+    TileType get(int index);
+
+    /**
+     * Returns the tile at a position.
+     *
+     * @param x the column, inside the board.
+     * @param y the row, inside the board.
+     * @return the type of the tile, or {@code null} for padding.
+     */
+    default TileType get(int x, int y) {
+        return get(index(x, y));
+    }
+
+    /**
+     * Sets the tile at an index.
+     *
+     * @param index the index of the tile, inside the board.
+     * @param type the new type of the tile (must not be {@code null})
+     * @throws IllegalArgumentException if {@code type} is {@code null}
+     *      or the index is padding.
+     * @throws IllegalStateException if the board is read-only.
+     */
+    void set(int index, TileType type);
+
+    /**
+     * Tells the board where the entities are, so it can keep the tiles around them
+     * at hand. Called once per update; boards kept wholly in memory ignore it.
+     *
+     * @param positions the positions of the entities (must not be {@code null})
+     */
+    default void retainAround(Collection<Position> positions) {}
+
+    /**
+     * Checks if the tile at an index is among the tiles kept at hand around the
+     * entities, see {@link #retainAround}. Searches that flood the board, like flow
+     * fields, only spread over these tiles, so they never pull the rest of a large
+     * board into memory. Boards kept wholly in memory retain every tile.
+     *
+     * @param index the index of the tile, inside the board.
+     * @return {@code true} if the tile is retained.
+     */
+    default boolean isRetained(int index) {
+        return true;
+    }
+
+    /**
+     * Returns a number that changes whenever the retained tiles change, so
+     * results covering only those tiles can tell when they are out of date.
+     * Boards kept wholly in memory always return {@code 0}.
+     *
+     * @return the version of the retained tiles.
+     */
+    default long retainedVersion() {
+        return 0;
+    }
+}
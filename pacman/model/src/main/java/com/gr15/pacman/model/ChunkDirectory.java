@@ -0,0 +1,122 @@
+package com.gr15.pacman.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.gr15.pacman.model.ChunkedBoard.ChunkSource;
+
+/**
+ * A {@link ChunkSource} keeping the chunks of a world as files in a directory.
+ *
+ * <p> Chunks that have no file yet are produced by another source, typically a
+ * procedural generator, so only the chunks whose pellets were eaten are ever
+ * written. A chunk file holds the chunk exactly as a {@link TileGrid} stores
+ * it: the walkability bitset, then one byte per tile, little-endian. </p>
+ */
+public final class ChunkDirectory
+    implements ChunkSource {
+
+    /** Byte order of every value in a chunk file. */
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** The directory holding the chunk files. */
+    private final Path directory;
+
+    /** Produces chunks that have no file. */
+    private final ChunkSource fallback;
+
+    /**
+     * Constructs a source over a directory, which is created when a chunk is first stored.
+     *
+     * @param directory the directory holding the chunk files (must not be {@code null})
+     * @param fallback produces chunks that have no file (must not be {@code null})
+     * @throws IllegalArgumentException if {@code directory} or {@code fallback} is {@code null}
+     */
+    public ChunkDirectory(Path directory, ChunkSource fallback) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        if (fallback == null) {
+            throw new IllegalArgumentException("fallback must not be null");
+        }
+        this.directory = directory;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Reads a chunk from its file, or produces it with the fallback if it has none.
+     *
+     * @throws RuntimeException if the file does not hold a chunk of the given size
+     *      or if an I/O error occurs during reading.
+     */
+    @Override
+    public TileGrid load(int chunkX, int chunkY, int chunkSize) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path(chunkX, chunkY));
+        } catch (NoSuchFileException noSuchFileException) {
+            return fallback.load(chunkX, chunkY, chunkSize);
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading chunk file. Ensure the file exists and is accessible", ioException);
+        }
+
+        int cells = chunkSize * chunkSize;
+        int blockedSize = ((cells + 63) >>> 6) * Long.BYTES;
+        if (bytes.length != blockedSize + cells) {
+            throw new RuntimeException("Ill formated chunk file, chunk does not fit the file.");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ORDER);
+        LongBuffer blocked = buffer.slice(0, blockedSize).order(ORDER).asLongBuffer();
+        ByteBuffer tiles = buffer.slice(blockedSize, cells);
+        return TileGrid.wrap(chunkSize, chunkSize, tiles, blocked);
+    }
+
+    /**
+     * Writes a chunk to its file, replacing the file atomically.
+     *
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    @Override
+    public void store(int chunkX, int chunkY, TileGrid chunk) {
+        LongBuffer blocked = chunk.blockedBuffer();
+        ByteBuffer tiles = chunk.tileBuffer();
+        ByteBuffer buffer = ByteBuffer
+            .allocate(blocked.capacity() * Long.BYTES + tiles.capacity())
+            .order(ORDER);
+        buffer.asLongBuffer().put(blocked);
+        buffer.position(blocked.capacity() * Long.BYTES).put(tiles);
+
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "chunk", ".tmp");
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, path(chunkX, chunkY),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing chunk file. Ensure the directory is writable", ioException);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that returns the path of the file of a chunk.
+     *
+     * @param chunkX the column of the chunk, in chunks.
+     * @param chunkY the row of the chunk, in chunks.
+     * @return the path.
+     */
+    private Path path(int chunkX, int chunkY) {
+        return directory.resolve(chunkX + "_" + chunkY + ".chunk");
+    }
+}
@@ -0,0 +1,393 @@
+package com.gr15.pacman.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.gr15.pacman.model.GameState.TileType;
+
+/**
+ * A {@link Board} split into square chunks, of which only a bounded number are
+ * kept in memory, so worlds can be far larger than memory.
+ *
+ * <p> Chunks are produced by a {@link ChunkSource}, which may generate them
+ * procedurally or load them from disk, when a tile in them is first used. The
+ * chunks around the entities, as reported by {@link #retainAround}, are pinned.
+ * Once more than the maximum number of chunks are in memory, the least recently
+ * used chunk that is not pinned is evicted, and handed back to the source to be
+ * stored if any of its tiles changed. The pinned chunks are the tiles the board
+ * retains, see {@link #isRetained}, which bounds how far the searches over tiles
+ * spread, so a ghost cannot find a path leaving the chunks around the entities. </p>
+ *
+ * <p> The graphs of the corridor and hierarchical searches are built over every
+ * tile of the board, so they would load the whole world, and refuse chunked
+ * boards. </p>
+ *
+ * <p> Tiles may be read from many threads at once, as ghosts plan in parallel,
+ * but must only be written while no other thread reads the board. </p>
+ *
+ * <p> Tiles are addressed by {@code int} index like every board, so a world
+ * holds at most {@link Integer#MAX_VALUE} tiles. </p>
+ */
+public final class ChunkedBoard
+    implements Board {
+
+    /** Produces the chunks of a {@link ChunkedBoard} and stores changed ones. */
+    public interface ChunkSource {
+
+        /**
+         * Produces a chunk of the world.
+         *
+         * @param chunkX the column of the chunk, in chunks.
+         * @param chunkY the row of the chunk, in chunks.
+         * @param chunkSize the width and height of the chunk in tiles.
+         * @return the tiles of the chunk, as a board of {@code chunkSize} by {@code chunkSize}.
+         */
+        TileGrid load(int chunkX, int chunkY, int chunkSize);
+
+        /**
+         * Stores a chunk whose tiles have changed since it was loaded, before it is evicted.
+         * Sources that do not keep changes may ignore it.
+         *
+         * @param chunkX the column of the chunk, in chunks.
+         * @param chunkY the row of the chunk, in chunks.
+         * @param chunk the tiles of the chunk.
+         */
+        default void store(int chunkX, int chunkY, TileGrid chunk) {}
+    }
+
+    /** Chunks within this many chunks of an entity are pinned. */
+    private static final int RETAIN_RADIUS = 1;
+
+    /** Width of the world in tiles. */
+    private final int width;
+
+    /** Height of the world in tiles. */
+    private final int height;
+
+    /** Width and height of a chunk in tiles, a power of two. */
+    private final int chunkSize;
+
+    /** Base two logarithm of {@link #chunkSize}. */
+    private final int chunkShift;
+
+    /** Number of chunks along the x axis. */
+    private final int chunksX;
+
+    /** Number of chunks kept in memory, unless more are pinned. */
+    private final int maxChunks;
+
+    /** Produces and stores the chunks. */
+    private final ChunkSource source;
+
+    /** Chunks in memory by index, least recently used first. */
+    private final LinkedHashMap<Integer, Chunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The chunk used last, checked before looking up {@link #chunks}. */
+    private volatile Chunk lastChunk;
+
+    /** Indices of the pinned chunks, in ascending order. */
+    private volatile int[] pinnedChunks = new int[0];
+
+    /** Number of times the pinned chunks changed. */
+    private volatile long pinnedVersion = 0;
+
+    /** Number of chunks loaded from the source. */
+    private long loads = 0;
+
+    /** A chunk in memory. */
+    private static final class Chunk {
+
+        /** Index of the chunk, {@code chunkY * chunksX + chunkX}. */
+        private final int index;
+
+        /** Tiles of the chunk. */
+        private final TileGrid tiles;
+
+        /** Whether a tile changed since the chunk was loaded. */
+        private boolean dirty = false;
+
+        /** Whether an entity is near the chunk. */
+        private boolean pinned = false;
+
+        /**
+         * Constructs a chunk.
+         *
+         * @param index the index of the chunk.
+         * @param tiles the tiles of the chunk.
+         */
+        private Chunk(int index, TileGrid tiles) {
+            this.index = index;
+            this.tiles = tiles;
+        }
+    }
+
+    /**
+     * Constructs a world whose chunks are produced when needed.
+     *
+     * @param width the width of the world in tiles.
+     * @param height the height of the world in tiles.
+     * @param chunkSize the width and height of a chunk in tiles, a power of two.
+     * @param maxChunks the number of chunks kept in memory, unless more are pinned.
+     * @param source produces and stores the chunks (must not be {@code null})
+     * @throws IllegalArgumentException if a dimension is negative, the world is too large,
+     *      {@code chunkSize} is not a power of two, {@code maxChunks} is not positive,
+     *      or {@code source} is {@code null}
+     */
+    public ChunkedBoard(int width, int height, int chunkSize, int maxChunks, ChunkSource source) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be non-negative");
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("world is too large");
+        }
+        if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("chunkSize must be a power of two");
+        }
+        if (maxChunks <= 0) {
+            throw new IllegalArgumentException("maxChunks must be positive");
+        }
+        if (source == null) {
+            throw new IllegalArgumentException("source must not be null");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunksX = (width + chunkSize - 1) >> chunkShift;
+        this.maxChunks = maxChunks;
+        this.source = source;
+    }
+
+    /*************************************************************
+     *                          ACCESSORS                        *
+     *************************************************************/
+
+    @Override
+    public int width() { return this.width; }
+
+    @Override
+    public int height() { return this.height; }
+
+    @Override
+    public boolean isWalkable(int index) {
+        int x = index % width;
+        int y = index / width;
+        return chunkAt(x, y).tiles.isWalkable(local(x, y));
+    }
+
+    @Override
+    public TileType get(int index) {
+        int x = index % width;
+        int y = index / width;
+        return chunkAt(x, y).tiles.get(local(x, y));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The chunk of the tile is stored by the source when it is evicted. </p>
+     */
+    @Override
+    public void set(int index, TileType type) {
+        int x = index % width;
+        int y = index / width;
+        Chunk chunk = chunkAt(x, y);
+        chunk.tiles.set(local(x, y), type);
+        chunk.dirty = true;
+    }
+
+    /**
+     * Pins the chunks around the given positions, loading them if needed,
+     * and evicts chunks that are no longer pinned if too many are in memory.
+     *
+     * @param positions the positions of the entities (must not be {@code null})
+     * @throws IllegalArgumentException if {@code positions} is {@code null}
+     */
+    @Override
+    public synchronized void retainAround(Collection<Position> positions) {
+        if (positions == null) {
+            throw new IllegalArgumentException("positions must not be null");
+        }
+        for (Chunk chunk : chunks.values()) {
+            chunk.pinned = false;
+        }
+        int chunksY = (height + chunkSize - 1) >> chunkShift;
+        int side = 2 * RETAIN_RADIUS + 1;
+        int[] pinned = new int[positions.size() * side * side];
+        int count = 0;
+        for (Position position : positions) {
+            int centerX = position.x() >> chunkShift;
+            int centerY = position.y() >> chunkShift;
+            for (int cy = centerY - RETAIN_RADIUS; cy <= centerY + RETAIN_RADIUS; cy++) {
+                for (int cx = centerX - RETAIN_RADIUS; cx <= centerX + RETAIN_RADIUS; cx++) {
+                    if (cx >= 0 && cx < chunksX && cy >= 0 && cy < chunksY) {
+                        Chunk chunk = chunk(cy * chunksX + cx);
+                        if (!chunk.pinned) {
+                            chunk.pinned = true;
+                            pinned[count++] = chunk.index;
+                        }
+                    }
+                }
+            }
+        }
+        evictExcess(null);
+
+        pinned = Arrays.copyOf(pinned, count);
+        Arrays.sort(pinned);
+        if (!Arrays.equals(pinned, pinnedChunks)) {
+            pinnedChunks = pinned;
+            pinnedVersion++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The retained tiles are those of the pinned chunks. </p>
+     */
+    @Override
+    public boolean isRetained(int index) {
+        int x = index % width;
+        int y = index / width;
+        int chunk = (y >> chunkShift) * chunksX + (x >> chunkShift);
+        return Arrays.binarySearch(pinnedChunks, chunk) >= 0;
+    }
+
+    @Override
+    public long retainedVersion() {
+        return pinnedVersion;
+    }
+
+    /**
+     * Hands every changed chunk in memory to the source to be stored,
+     * for example before the program exits.
+     */
+    public synchronized void flush() {
+        for (Chunk chunk : chunks.values()) {
+            store(chunk);
+        }
+    }
+
+    /**
+     * Returns the number of chunks in memory.
+     *
+     * @return the number of chunks.
+     */
+    public synchronized int residentChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the number of chunks loaded from the source so far,
+     * counting a chunk again every time it is loaded after being evicted.
+     *
+     * @return the number of loads.
+     */
+    public synchronized long chunkLoads() {
+        return loads;
+    }
+
+    /**
+     * Returns the width and height of a chunk.
+     *
+     * @return the chunk size in tiles.
+     */
+    public int chunkSize() { return this.chunkSize; }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that returns the index of a tile within its chunk.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the index within the chunk.
+     */
+    private int local(int x, int y) {
+        return ((y & (chunkSize - 1)) << chunkShift) | (x & (chunkSize - 1));
+    }
+
+    /**
+     * Helper function that returns the chunk containing a tile, loading it if needed.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the chunk.
+     */
+    private Chunk chunkAt(int x, int y) {
+        int index = (y >> chunkShift) * chunksX + (x >> chunkShift);
+        Chunk chunk = lastChunk;
+        if (chunk != null && chunk.index == index) {
+            return chunk;
+        }
+        synchronized (this) {
+            chunk = chunk(index);
+            lastChunk = chunk;
+            evictExcess(chunk);
+            return chunk;
+        }
+    }
+
+    /**
+     * Helper function that returns a chunk, loading it if needed.
+     * Must be called while holding the lock.
+     *
+     * @param index the index of the chunk.
+     * @return the chunk.
+     * @throws IllegalStateException if the source returns a chunk of the wrong size.
+     */
+    private Chunk chunk(int index) {
+        Chunk chunk = chunks.get(index);
+        if (chunk != null) {
+            return chunk;
+        }
+
+        TileGrid tiles = source.load(index % chunksX, index / chunksX, chunkSize);
+        if (tiles == null || tiles.width() != chunkSize || tiles.height() != chunkSize) {
+            throw new IllegalStateException("source must load chunks of chunkSize tiles");
+        }
+        chunk = new Chunk(index, tiles.isReadOnly() ? tiles.copy() : tiles);
+        chunks.put(index, chunk);
+        loads++;
+        return chunk;
+    }
+
+    /**
+     * Helper function that evicts the least recently used chunks that are not
+     * pinned, until no more than the maximum number are in memory.
+     * Must be called while holding the lock.
+     *
+     * @param keep a chunk that must not be evicted, or {@code null}
+     */
+    private void evictExcess(Chunk keep) {
+        Iterator<Chunk> iterator = chunks.values().iterator();
+        while (chunks.size() > maxChunks && iterator.hasNext()) {
+            Chunk chunk = iterator.next();
+            if (chunk.pinned || chunk == keep) {
+                continue;
+            }
+            iterator.remove();
+            store(chunk);
+            if (lastChunk == chunk) {
+                lastChunk = null;
+            }
+        }
+    }
+
+    /**
+     * Helper function that hands a chunk to the source to be stored, if it changed.
+     *
+     * @param chunk the chunk.
+     */
+    private void store(Chunk chunk) {
+        if (chunk.dirty) {
+            source.store(chunk.index % chunksX, chunk.index / chunksX, chunk.tiles);
+            chunk.dirty = false;
+        }
+    }
+}
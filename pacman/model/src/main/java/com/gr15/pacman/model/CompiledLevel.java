@@ -0,0 +1,44 @@
+package com.gr15.pacman.model;
+
+import com.gr15.pacman.model.entities.searching.ClusterGraph;
+import com.gr15.pacman.model.entities.searching.NavigationGraph;
+
+/**
+ * A {@link GameConfig} together with the navigation data precomputed for its board,
+ * as produced by {@link LevelCompiler}.
+ *
+ * <p> A {@link GameState} started from a compiled level uses the precomputed graphs
+ * instead of building its own. The graphs are never changed by the game, so one
+ * compiled level can start any number of games. </p>
+ *
+ * @param config The configuration of the level.
+ * @param navigationGraph The corridor graph of the initial board.
+ * @param clusterGraph The cluster graph of the initial board.
+ */
+public record CompiledLevel(
+    GameConfig config,
+    NavigationGraph navigationGraph,
+    ClusterGraph clusterGraph) {
+
+    /**
+     * Constructs a new {@code CompiledLevel} record.
+     *
+     * @throws IllegalArgumentException if a component is {@code null},
+     *      or a graph does not fit the initial board.
+     */
+    public CompiledLevel {
+        if (config == null) {
+            throw new IllegalArgumentException("config must not be null");
+        }
+        if (navigationGraph == null) {
+            throw new IllegalArgumentException("navigationGraph must not be null");
+        }
+        if (clusterGraph == null) {
+            throw new IllegalArgumentException("clusterGraph must not be null");
+        }
+        TileGrid board = config.initialBoard();
+        if (!navigationGraph.fits(board.width(), board.height()) || !clusterGraph.fits(board)) {
+            throw new IllegalArgumentException("graphs must fit the initial board");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.gr15.pacman.model;
+
+/**
+ * Turns the varying time between frames into a whole number of fixed-length ticks.
+ *
+ * <p> Frame time is added to an accumulator, and a tick is run for every full
+ * tick length in it, so the simulation advances at the same rate and with the
+ * same step whatever the frame rate. The time left over, as a fraction of a
+ * tick, is the interpolation factor for drawing entities between the previous
+ * and the current tick. </p>
+ *
+ * <p> After a long stall, at most a fixed number of ticks are run in one frame
+ * and the rest of the time is dropped, so the simulation slows down instead of
+ * falling ever further behind. </p>
+ */
+public final class FixedTimestep {
+
+    /** Length of a tick in seconds. */
+    private final double stepSeconds;
+
+    /** Largest number of ticks run in one frame. */
+    private final int maxStepsPerFrame;
+
+    /** Time not yet simulated, in seconds. */
+    private double accumulator = 0;
+
+    /**
+     * Constructs a timestep.
+     *
+     * @param ticksPerSecond the number of ticks per second of simulated time.
+     * @param maxStepsPerFrame the largest number of ticks run in one frame.
+     * @throws IllegalArgumentException if {@code ticksPerSecond} or
+     *      {@code maxStepsPerFrame} is not positive.
+     */
+    public FixedTimestep(double ticksPerSecond, int maxStepsPerFrame) {
+        if (!(ticksPerSecond > 0) || Double.isInfinite(ticksPerSecond)) {
+            throw new IllegalArgumentException("ticksPerSecond must be positive");
+        }
+        if (maxStepsPerFrame <= 0) {
+            throw new IllegalArgumentException("maxStepsPerFrame must be positive");
+        }
+        this.stepSeconds = 1.0 / ticksPerSecond;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Adds the time of a frame and returns the number of ticks to run for it,
+     * each of {@link #stepSeconds()}.
+     *
+     * @param deltaSeconds the time elapsed since the last frame (in seconds)
+     * @return the number of ticks, at most the maximum per frame.
+     * @throws IllegalArgumentException if {@code deltaSeconds} is negative or not a number.
+     */
+    public int advance(double deltaSeconds) {
+        if (!(deltaSeconds >= 0)) {
+            throw new IllegalArgumentException("deltaSeconds must be non-negative");
+        }
+        accumulator += deltaSeconds;
+        int steps = (int) Math.min(maxStepsPerFrame, Math.floor(accumulator / stepSeconds));
+        accumulator -= steps * stepSeconds;
+        if (accumulator >= stepSeconds) {
+            /* Too far behind, drop the ticks that did not fit in this frame */
+            accumulator %= stepSeconds;
+        }
+        return steps;
+    }
+
+    /**
+     * Returns how far the time not yet simulated is into the next tick,
+     * for interpolating between the previous and the current tick.
+     *
+     * @return the interpolation factor, from 0 inclusive to 1 exclusive.
+     */
+    public double alpha() {
+        return Math.min(accumulator / stepSeconds, 1);
+    }
+
+    /**
+     * Returns the length of a tick.
+     *
+     * @return the length in seconds.
+     */
+    public double stepSeconds() { return this.stepSeconds; }
+
+    /**
+     * Drops the time not yet simulated, for example when the game is paused.
+     */
+    public void reset() {
+        accumulator = 0;
+    }
+}
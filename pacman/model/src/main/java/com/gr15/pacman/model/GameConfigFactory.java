@@ -1,21 +1,34 @@
 package com.gr15.pacman.model;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.JSONTokener;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import com.gr15.pacman.model.GameState.TileType;
+import com.gr15.pacman.model.JsonReader.MalformedJsonException;
+import com.gr15.pacman.model.entities.Ghost.GhostType;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
 
 /**
  * Utility factory class for building a {@link GameConfig} instance from a JSON file.
  *
  * <p> This class provides methods to parse a JSON configuration and convert it into
- * an instance of {@code GameConfig}, handling all necessary conversions and validations. </p>
+ * an instance of {@code GameConfig}, handling all necessary conversions and validations,
+ * and to write a {@code GameConfig} back out in the same format. </p>
+ *
+ * <p> The configuration is read with a streaming {@link JsonReader}. The board is
+ * written into a {@link TileGrid} tile by tile as it is read, so parsing needs little
+ * more memory than the finished board. Every other field is small and read whole. </p>
  *
  * <p> This class cannot be extended or instantiated. </p>
  */
@@ -27,19 +40,18 @@ public final class GameConfigFactory {
      *
      * @param inputStream the input stream pointing to a valid JSON configuration file.
      * @return the constructed {@code GameConfig} instance.
-     * @throws RuntimeException if the JSON is malformed
-     *      or if an I/O error occurs during reading.
+     * @throws RuntimeException if the JSON is malformed, if {@code numberOfItems}
+     *      does not match the board, or if an I/O error occurs during reading.
      */
     public static final GameConfig fromJson(InputStream inputStream) {
         /* Notice the reader gets closed by
          * the try-with-resource statement */
-        try (InputStreamReader reader = new InputStreamReader(inputStream)) {
-            JSONTokener tokener = new JSONTokener(reader);
-            JSONObject jsonObject = new JSONObject(tokener);
-            return buildFromJsonObject(jsonObject);
-        } catch (JSONException jsonException) {
+        try (JsonReader reader = new JsonReader(
+            new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            return buildFromJson(reader);
+        } catch (MalformedJsonException malformedJsonException) {
             throw new RuntimeException(
-                "Failed to parse JSON file, ill formated JSON file.", jsonException);
+                "Failed to parse JSON file, ill formated JSON file.", malformedJsonException);
         } catch (IOException ioException) {
             throw new RuntimeException(
                 "Error reading JSON file. Ensure the file exists and is accessible", ioException);
@@ -47,67 +59,122 @@ public final class GameConfigFactory {
     }
 
     /**
-     * Constructs a {@link GameConfig} object from a parsed {@link JSONObject}.
+     * Writes a {@link GameConfig} as a JSON configuration that {@link #fromJson} reads back.
+     * Every ghost is written with its own speed and strategy, and the board is written
+     * one row per line, leaving out the padding after the end of short rows.
+     * The stream is flushed but not closed.
      *
-     * @param jsonObject the JSON object containing all required game configuration fields.
-     * @return the constructed {@code GameConfig} instance.
-     * @throws RuntimeException if required fields are missing or have invalid types.
+     * @param config the configuration to write (must not be {@code null})
+     * @param outputStream the output stream to write to (must not be {@code null})
+     * @throws IllegalArgumentException if {@code config} or {@code outputStream} is {@code null},
+     *      or if a row of the board has a gap before its last tile.
+     * @throws RuntimeException if an I/O error occurs during writing.
      */
-    private static final GameConfig buildFromJsonObject(JSONObject jsonObject) {
+    public static final void toJson(GameConfig config, OutputStream outputStream) {
+        if (config == null) {
+            throw new IllegalArgumentException("config must not be null");
+        }
+        if (outputStream == null) {
+            throw new IllegalArgumentException("outputStream must not be null");
+        }
+
         try {
-            TileType[][] initialBoard = parseBoard(jsonObject.getJSONArray("board"));
-
-            /* Settings */
-            int lives = jsonObject.getInt("lives");
-            double powerModeDuration = jsonObject.getDouble("powerModeDuration");
-            double ghostSpeed = jsonObject.getDouble("ghostSpeed");
-            int numberOfItems = jsonObject.getInt("numberOfItems");
-
-            /* Pacman Entity */
-            JSONObject pacmanObject = jsonObject.getJSONObject("pacman");
-            double pacmanSpeed = pacmanObject.getDouble("speed");
-            Position pacmanStartPosition = new Position(pacmanObject.getInt("x"),
-                pacmanObject.getInt("y"));
-
-            /* Ghost Entities */
-            /* Red Ghost */
-            JSONObject redGhostObject = jsonObject.getJSONObject("redGhost");
-            Position redGhostStartPosition = new Position(
-                redGhostObject.getInt("x"), redGhostObject.getInt("y"));
-            /* Blue Ghost */
-            JSONObject blueGhostObject = jsonObject.getJSONObject("blueGhost");
-            Position blueGhostStartPosition = new Position(
-                blueGhostObject.getInt("x"), blueGhostObject.getInt("y"));
-
-            /* Pink Ghost */
-            JSONObject pinkGhostObject = jsonObject.getJSONObject("pinkGhost");
-            Position pinkGhostStartPosition = new Position(
-                pinkGhostObject.getInt("x"), pinkGhostObject.getInt("y"));
-
-            /* Orange Ghost */
-            JSONObject orangeGhostObject = jsonObject.getJSONObject("orangeGhost");
-            Position orangeGhostStartPosition = new Position(
-                orangeGhostObject.getInt("x"), orangeGhostObject.getInt("y"));
-
-            return new GameConfig(
-                initialBoard,
-                powerModeDuration,
-                lives,
-                ghostSpeed,
-                pacmanSpeed,
-                numberOfItems,
-                pacmanStartPosition,
-                redGhostStartPosition,
-                blueGhostStartPosition,
-                pinkGhostStartPosition,
-                orangeGhostStartPosition);
-        } catch (JSONException jsonException) {
-            throw new RuntimeException("Missing requried config fields in JSON file.", jsonException);
+            Writer writer = new BufferedWriter(
+                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+            writer.write("{\n");
+            writer.write("    \"powerModeDuration\": " + config.powerModeDuration() + ",\n");
+            writer.write("    \"lives\": " + config.lives() + ",\n");
+            writer.write("    \"numberOfItems\": " + config.numberOfItems() + ",\n\n");
+
+            Position pacman = config.pacmanStartPosition();
+            writer.write("    \"pacman\": { \"x\": " + pacman.x() + ", \"y\": " + pacman.y()
+                + ", \"speed\": " + config.pacmanSpeed() + " },\n\n");
+
+            writer.write("    \"ghosts\": [");
+            List<GhostSpawn> ghosts = config.ghosts();
+            for (int i = 0; i < ghosts.size(); i++) {
+                GhostSpawn ghost = ghosts.get(i);
+                writer.write(i == 0 ? "\n" : ",\n");
+                writer.write("        { \"type\": \"" + ghost.type().name()
+                    + "\", \"x\": " + ghost.position().x()
+                    + ", \"y\": " + ghost.position().y()
+                    + ", \"speed\": " + ghost.speed()
+                    + ", \"strategy\": \"" + ghost.strategy().name() + "\" }");
+            }
+            writer.write(ghosts.isEmpty() ? "],\n\n" : "\n    ],\n\n");
+
+            writer.write("    \"board\": [");
+            writeBoard(writer, config.initialBoard());
+            writer.write("]\n}\n");
+            writer.flush();
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing JSON file. Ensure the file is writable", ioException);
         }
     }
 
     /**
-     * Parses a 2D array of {@link TileType} from a {@link JSONArray} representing the board.
+     * Constructs a {@link GameConfig} object from a JSON configuration.
+     * The board is streamed, every other field is read whole.
+     *
+     * @param reader the reader, positioned at the configuration object.
+     * @return the constructed {@code GameConfig} instance.
+     * @throws IOException if the JSON is malformed or cannot be read.
+     * @throws RuntimeException if required fields are missing or have invalid types,
+     *      or if {@code numberOfItems} does not match the board.
+     */
+    private static final GameConfig buildFromJson(JsonReader reader) throws IOException {
+        TileGrid initialBoard = null;
+        int itemsOnBoard = 0;
+        Map<String, Object> fields = new HashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("board")) {
+                TileGrid.RowBuilder builder = new TileGrid.RowBuilder();
+                itemsOnBoard = parseBoard(reader, builder);
+                initialBoard = builder.build();
+            } else {
+                fields.put(name, reader.readValue());
+            }
+        }
+        reader.endObject();
+        if (initialBoard == null) {
+            throw new RuntimeException("Missing requried config fields in JSON file: board");
+        }
+
+        /* Settings */
+        int lives = getInt(fields, "lives");
+        double powerModeDuration = getDouble(fields, "powerModeDuration");
+        int numberOfItems = getInt(fields, "numberOfItems");
+        if (numberOfItems != itemsOnBoard) {
+            throw new RuntimeException("numberOfItems is " + numberOfItems
+                + ", but the board has " + itemsOnBoard + " pellets and power pellets.");
+        }
+
+        /* Pacman Entity */
+        Map<String, Object> pacmanObject = getObject(fields, "pacman");
+        double pacmanSpeed = getDouble(pacmanObject, "speed");
+        Position pacmanStartPosition = new Position(getInt(pacmanObject, "x"),
+            getInt(pacmanObject, "y"));
+
+        /* Ghost Entities */
+        List<GhostSpawn> ghosts = parseGhosts(fields);
+
+        return new GameConfig(
+            initialBoard,
+            powerModeDuration,
+            lives,
+            pacmanSpeed,
+            numberOfItems,
+            pacmanStartPosition,
+            ghosts);
+    }
+
+    /**
+     * Parses the board, an array of rows of tile symbols, into a {@link TileGrid.RowBuilder}.
+     * Rows shorter than the longest row are padded with cells that are not tiles.
      *
      * Expected JSON tile symbols:
      * <ul>
@@ -117,28 +184,253 @@ public final class GameConfigFactory {
      *   <li>"P" - Power Pellet</li>
      * </ul>
      *
-     * @param jsonArray the JSON array representing the 2D board.
-     * @return a 2D array of {@code TileType}.
+     * @param reader the reader, positioned at the board array.
+     * @param builder the builder the tiles are added to.
+     * @return the number of pellets and power pellets on the board.
+     * @throws IOException if the JSON is malformed or cannot be read.
+     * @throws IllegalArgumentException if a tile symbol is unknown.
      */
-    private static TileType[][] parseBoard(JSONArray jsonArray) {
-        assert jsonArray != null;
-
-        TileType[][] tileBoard = new TileType[jsonArray.length()][];
-        for (int y = 0; y < tileBoard.length; y++) {
-            JSONArray row = jsonArray.getJSONArray(y);
-            tileBoard[y] = new TileType[row.length()];
-            for (int x = 0; x < tileBoard[y].length; x++) {
-                switch (row.getString(x)) {
-                    case "W" -> tileBoard[y][x] = TileType.WALL;
-                    case "E" -> tileBoard[y][x] = TileType.EMPTY;
-                    case "p" -> tileBoard[y][x] = TileType.PELLET;
-                    case "P" -> tileBoard[y][x] = TileType.POWER_PELLET;
-                    default -> {}
+    private static int parseBoard(JsonReader reader, TileGrid.RowBuilder builder)
+        throws IOException {
+        int items = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                TileType type = switch (reader.nextSymbol()) {
+                    case 'W' -> TileType.WALL;
+                    case 'E' -> TileType.EMPTY;
+                    case 'p' -> TileType.PELLET;
+                    case 'P' -> TileType.POWER_PELLET;
+                    default -> throw new IllegalArgumentException("Unknown tile symbol in board");
+                };
+                if (type == TileType.PELLET || type == TileType.POWER_PELLET) {
+                    items++;
+                }
+                builder.add(type);
+            }
+            reader.endArray();
+            builder.endRow();
+        }
+        reader.endArray();
+        return items;
+    }
+
+    /**
+     * Writes the board as an array of rows of tile symbols, the inverse of {@link #parseBoard}.
+     *
+     * @param writer the writer, positioned after the opening bracket of the board array.
+     * @param board the board to write.
+     * @throws IOException if an I/O error occurs during writing.
+     * @throws IllegalArgumentException if a row has a gap before its last tile.
+     */
+    private static void writeBoard(Writer writer, TileGrid board) throws IOException {
+        for (int y = 0; y < board.height(); y++) {
+            int length = board.width();
+            while (length > 0 && board.get(length - 1, y) == null) {
+                length--; /* Padding past the end of a short row */
+            }
+
+            writer.write(y == 0 ? "\n        [" : ",\n        [");
+            for (int x = 0; x < length; x++) {
+                if (x > 0) {
+                    writer.write(',');
+                }
+                TileType tile = board.get(x, y);
+                if (tile == null) {
+                    throw new IllegalArgumentException("board must not have gaps inside rows");
                 }
+                writer.write(switch (tile) {
+                    case WALL -> "\"W\"";
+                    case EMPTY -> "\"E\"";
+                    case PELLET -> "\"p\"";
+                    case POWER_PELLET -> "\"P\"";
+                });
             }
+            writer.write(']');
+        }
+        if (board.height() > 0) {
+            writer.write("\n    ");
+        }
+    }
+
+    /**
+     * Parses the ghost roster of a configuration.
+     *
+     * <p> The roster is read from the {@code "ghosts"} array, where each entry has
+     * a {@code "type"}, {@code "x"} and {@code "y"}, and optionally a {@code "speed"}
+     * and {@code "strategy"}. Missing speeds and strategies default to the top-level
+     * {@code "ghostSpeed"} and {@code "ghostStrategy"}. Configurations without a
+     * {@code "ghosts"} array are read from the older {@code "redGhost"},
+     * {@code "blueGhost"}, {@code "pinkGhost"} and {@code "orangeGhost"} objects. </p>
+     *
+     * @param fields the top-level fields of the configuration.
+     * @return the ghost roster.
+     * @throws RuntimeException if required fields are missing or have invalid types,
+     *      or if a ghost type or strategy is unknown.
+     */
+    private static List<GhostSpawn> parseGhosts(Map<String, Object> fields) {
+        double defaultSpeed = fields.containsKey("ghostSpeed")
+            ? getDouble(fields, "ghostSpeed")
+            : Double.NaN;
+        StrategyType defaultStrategy = fields.containsKey("ghostStrategy")
+            ? parseStrategy(getString(fields, "ghostStrategy"))
+            : StrategyType.FLOW_FIELD;
+
+        List<GhostSpawn> ghosts = new ArrayList<>();
+        if (!fields.containsKey("ghosts")) {
+            /* Legacy configuration with one object per ghost type */
+            for (GhostType type : GhostType.values()) {
+                String key = type.name().toLowerCase(Locale.ROOT) + "Ghost";
+                ghosts.add(parseGhost(getObject(fields, key), type,
+                    getDouble(fields, "ghostSpeed"), defaultStrategy));
+            }
+            return ghosts;
+        }
+
+        for (Object entry : get(fields, "ghosts", List.class)) {
+            Map<String, Object> ghostObject = asObject(entry, "ghosts");
+            GhostType type = parseGhostType(getString(ghostObject, "type"));
+            ghosts.add(parseGhost(ghostObject, type, defaultSpeed, defaultStrategy));
+        }
+        return ghosts;
+    }
+
+    /**
+     * Parses a single entry of the ghost roster.
+     *
+     * @param ghostObject the fields of the ghost entry.
+     * @param type the type of the ghost.
+     * @param defaultSpeed the speed used if the entry has none,
+     *      or {@code NaN} if the speed is required.
+     * @param defaultStrategy the strategy used if the entry has none.
+     * @return the parsed spawn entry.
+     * @throws RuntimeException if required fields are missing or have invalid types.
+     */
+    private static GhostSpawn parseGhost(Map<String, Object> ghostObject, GhostType type,
+        double defaultSpeed, StrategyType defaultStrategy) {
+        Position position = new Position(getInt(ghostObject, "x"), getInt(ghostObject, "y"));
+        double speed = ghostObject.containsKey("speed") || Double.isNaN(defaultSpeed)
+            ? getDouble(ghostObject, "speed")
+            : defaultSpeed;
+        StrategyType strategy = ghostObject.containsKey("strategy")
+            ? parseStrategy(getString(ghostObject, "strategy"))
+            : defaultStrategy;
+        return new GhostSpawn(type, position, speed, strategy);
+    }
+
+    /**
+     * Parses the name of a {@link GhostType}.
+     *
+     * @param name the name of the type, e.g. "RED".
+     * @return the matching {@code GhostType}.
+     * @throws RuntimeException if no ghost type has the given name.
+     */
+    private static GhostType parseGhostType(String name) {
+        try {
+            return GhostType.valueOf(name);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new RuntimeException(
+                "Unknown ghost type: " + name, illegalArgumentException);
+        }
+    }
+
+    /**
+     * Parses the name of a {@link StrategyType}.
+     *
+     * @param name the name of the strategy, e.g. "A_STAR".
+     * @return the matching {@code StrategyType}.
+     * @throws RuntimeException if no strategy has the given name.
+     */
+    private static StrategyType parseStrategy(String name) {
+        try {
+            return StrategyType.valueOf(name);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new RuntimeException(
+                "Unknown ghost search strategy: " + name, illegalArgumentException);
+        }
+    }
+
+    /**
+     * Helper function that returns a required field of an object.
+     *
+     * @param <T> the type of the field.
+     * @param object the fields of the object.
+     * @param key the name of the field.
+     * @param type the type of the field.
+     * @return the value of the field.
+     * @throws RuntimeException if the field is missing or has another type.
+     */
+    private static <T> T get(Map<String, Object> object, String key, Class<T> type) {
+        Object value = object.get(key);
+        if (!type.isInstance(value)) {
+            throw new RuntimeException("Missing requried config fields in JSON file: " + key);
         }
+        return type.cast(value);
+    }
+
+    /**
+     * Helper function that returns a required integer field of an object.
+     *
+     * @param object the fields of the object.
+     * @param key the name of the field.
+     * @return the value of the field.
+     * @throws RuntimeException if the field is missing or not a number.
+     */
+    private static int getInt(Map<String, Object> object, String key) {
+        return get(object, key, Double.class).intValue();
+    }
+
+    /**
+     * Helper function that returns a required number field of an object.
+     *
+     * @param object the fields of the object.
+     * @param key the name of the field.
+     * @return the value of the field.
+     * @throws RuntimeException if the field is missing or not a number.
+     */
+    private static double getDouble(Map<String, Object> object, String key) {
+        return get(object, key, Double.class);
+    }
+
+    /**
+     * Helper function that returns a required string field of an object.
+     *
+     * @param object the fields of the object.
+     * @param key the name of the field.
+     * @return the value of the field.
+     * @throws RuntimeException if the field is missing or not a string.
+     */
+    private static String getString(Map<String, Object> object, String key) {
+        return get(object, key, String.class);
+    }
 
-        return tileBoard;
+    /**
+     * Helper function that returns a required object field of an object.
+     *
+     * @param object the fields of the object.
+     * @param key the name of the field.
+     * @return the fields of the nested object.
+     * @throws RuntimeException if the field is missing or not an object.
+     */
+    private static Map<String, Object> getObject(Map<String, Object> object, String key) {
+        return asObject(object.get(key), key);
+    }
+
+    /**
+     * Helper function that casts a value read by {@link JsonReader#readValue()} to an object.
+     *
+     * @param value the value.
+     * @param key the name of the field holding the value, for error messages.
+     * @return the fields of the object.
+     * @throws RuntimeException if the value is not an object.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value, String key) {
+        if (!(value instanceof Map)) {
+            throw new RuntimeException("Missing requried config fields in JSON file: " + key);
+        }
+        return (Map<String, Object>) value;
     }
 
     /** Private constructor to prevent external instantiation */
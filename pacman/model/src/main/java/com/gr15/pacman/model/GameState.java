@@ -1,14 +1,31 @@
 package com.gr15.pacman.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
-import com.gr15.pacman.model.entities.EntityUtils;
+import com.gr15.pacman.model.entities.EntityStore;
 import com.gr15.pacman.model.entities.Ghost;
 import com.gr15.pacman.model.entities.Pacman;
 import com.gr15.pacman.model.entities.Entity.Direction;
-import com.gr15.pacman.model.entities.Ghost.GhostType;
+import com.gr15.pacman.model.entities.searching.AStarSearch;
 import com.gr15.pacman.model.entities.searching.BreadthFirstSearch;
+import com.gr15.pacman.model.entities.searching.ClusterGraph;
+import com.gr15.pacman.model.entities.searching.CorridorGraphSearch;
+import com.gr15.pacman.model.entities.searching.DStarLiteSearch;
+import com.gr15.pacman.model.entities.searching.FlowField;
+import com.gr15.pacman.model.entities.searching.FlowFieldSearch;
+import com.gr15.pacman.model.entities.searching.HierarchicalSearch;
+import com.gr15.pacman.model.entities.searching.NavigationGraph;
+import com.gr15.pacman.model.entities.searching.PathCache;
+import com.gr15.pacman.model.entities.searching.SearchStrategy;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
 
 /**
  * Represents the current state of the game, including the game configuration,
@@ -20,12 +37,31 @@ public class GameState {
     /** Epsilon is used as tolerance when comparing floating point numbers. */
     private static final double EPSILON = 1e-5;
 
+    /** Tile types by ordinal, to avoid copying {@link TileType#values()} on every read. */
+    private static final TileType[] TILE_TYPES = TileType.values();
+
     /** Configuration settings for the game such as initial board,
      * speeds, and start positions. */
     private final GameConfig config;
 
-    /** The game board containing tile information such as walls and pellets. */
-    private TileType[][] board;
+    /** The game board containing tile information such as walls and pellets.
+     * Starts out sharing the tiles of the initial board, copying them on first write. */
+    private Board board;
+
+    /** Indices of the tiles changed since the initial board, so reset can undo only those. */
+    private int[] changedTiles = new int[64];
+
+    /** Type of each tile in {@link #changedTiles} before it was changed, by ordinal. */
+    private byte[] changedTileTypes = new byte[64];
+
+    /** The number of entries in {@link #changedTiles}. */
+    private int changedTileCount = 0;
+
+    /** Whether the board was replaced with {@link #setBoard}, so the journal no longer applies. */
+    private boolean boardReplaced = false;
+
+    /** Positions of Pacman and the ghosts, reused every update to tell the board where they are. */
+    private final List<Position> entityPositions = new ArrayList<>();
 
     /** The Pacman entity controlled by the player. */
     private Pacman pacman;
@@ -33,6 +69,69 @@ public class GameState {
     /** The list of ghost entities that act as AI opponents. */
     private List<Ghost> ghosts;
 
+    /**
+     * The state of the ghosts, which the ghost objects view,
+     * so they are steered, moved and collided together.
+     */
+    private final EntityStore ghostStore = new EntityStore(4);
+
+    /** Resolves the collisions found in an update, kept so updates do not allocate one. */
+    private final IntConsumer collisionHandler = this::collide;
+
+    /** Flow field search shared by all ghosts, so each goal is only searched once. */
+    private final FlowFieldSearch flowFieldSearch;
+
+    /** Corridor graph of the board shared by all ghosts, built when first needed. */
+    private volatile NavigationGraph navigationGraph;
+
+    /** Cluster graph of the board shared by all ghosts, built when first needed. */
+    private volatile ClusterGraph clusterGraph;
+
+    /** Whether {@link #clusterGraph} may be used by another game, so it must not be refreshed in place. */
+    private boolean clusterGraphShared = false;
+
+    /** The compiled level the game was started from, whose graphs are never changed, or {@code null}. */
+    private CompiledLevel compiledLevel;
+
+    /**
+     * The board of its own the game is played on, such as an endless {@link ChunkedBoard},
+     * kept across resets instead of a copy of the initial board, or {@code null}.
+     */
+    private Board world;
+
+    /** Maximum number of search results kept in each of the {@link #pathCaches}. */
+    private static final int PATH_CACHE_CAPACITY = 1024;
+
+    /**
+     * Caches of search results, one per search strategy shared by the ghosts using it,
+     * so the approximate steps of one strategy are never taken by a ghost using another.
+     */
+    private final EnumMap<StrategyType, PathCache> pathCaches = new EnumMap<>(StrategyType.class);
+
+    /** Incremented whenever the board is changed, so cached paths are not reused. */
+    private int boardGeneration = 0;
+
+    /**
+     * Generation the paths are cached under, incremented whenever the board changes
+     * or it retains other tiles, as searches do not step outside the retained tiles.
+     */
+    private int pathGeneration = 0;
+
+    /** The version of the tiles the board retained during the last update. */
+    private long retainedVersion = 0;
+
+    /** Number of ghost searches below which planning is not split across threads. */
+    private static final int PLANNING_THRESHOLD = 8;
+
+    /** Pool the ghost searches are run on. */
+    private final ForkJoinPool planningPool;
+
+    /** The search strategies used by at least one ghost. */
+    private final EnumSet<StrategyType> strategiesInUse = EnumSet.noneOf(StrategyType.class);
+
+    /** Ghosts whose plan needs a search in the current update, reused between updates. */
+    private final List<Ghost> ghostsToSearch = new ArrayList<>();
+
     /** The current score of the player. */
     private int score = 0;
 
@@ -75,29 +174,180 @@ public class GameState {
      * Initializes the board, player (Pacman), ghosts, score, lives, and item count
      * based on the provided configuration.
      *
+     * <p> Ghost searches are run on the common fork/join pool. </p>
+     *
      * @param config the game configuration to initialize the state (must not be {@code null})
      * @throws IllegalArgumentException if {@code config} is {@code null}
      */
     public GameState(GameConfig config) {
+        this(config, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new {@code GameState} from a compiled level,
+     * using its precomputed navigation data instead of building it.
+     *
+     * <p> Ghost searches are run on the common fork/join pool. </p>
+     *
+     * @param level the compiled level to initialize the state (must not be {@code null})
+     * @throws IllegalArgumentException if {@code level} is {@code null}
+     */
+    public GameState(CompiledLevel level) {
+        this(level, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new {@code GameState} from a compiled level, using its precomputed
+     * navigation data instead of building it, and running ghost searches on the given pool.
+     *
+     * @param level the compiled level to initialize the state (must not be {@code null})
+     * @param planningPool the pool to run ghost searches on (must not be {@code null})
+     * @throws IllegalArgumentException if {@code level} or {@code planningPool} is {@code null}
+     */
+    public GameState(CompiledLevel level, ForkJoinPool planningPool) {
+        this(configOf(level), planningPool);
+        this.compiledLevel = level;
+        useCompiledGraphs();
+    }
+
+    /**
+     * Constructs a new {@code GameState} with the specified game configuration,
+     * running ghost searches on the given pool.
+     *
+     * @param config the game configuration to initialize the state (must not be {@code null})
+     * @param planningPool the pool to run ghost searches on (must not be {@code null})
+     * @throws IllegalArgumentException if {@code config} or {@code planningPool} is {@code null}
+     */
+    public GameState(GameConfig config, ForkJoinPool planningPool) {
         if (config == null) {
             throw new IllegalArgumentException("config must not be null");
         }
+        if (planningPool == null) {
+            throw new IllegalArgumentException("planningPool must not be null");
+        }
 
         this.config = config;
+        this.planningPool = planningPool;
+        this.flowFieldSearch = new FlowFieldSearch();
         this.lives = config.lives();
         this.numberOfItemsLeft = config.numberOfItems();
-        this.board = config.initialBoard();
+        this.board = config.initialBoard().copy();
         this.pacman = new Pacman(config.pacmanStartPosition(), config.pacmanSpeed(), 0.5);
 
-        this.ghosts = new ArrayList<>();
-        this.ghosts.add(new Ghost(config.redGhostStartPosition(), config.ghostSpeed(),
-            0.5, pacman.getPosition(), GhostType.RED, new BreadthFirstSearch()));
-        ghosts.add(new Ghost(config.blueGhostStartPosition(), config.ghostSpeed(),
-            0.5, pacman.getPosition(), GhostType.BLUE, new BreadthFirstSearch()));
-        ghosts.add(new Ghost(config.pinkGhostStartPosition(), config.ghostSpeed(),
-            0.5, pacman.getPosition(), GhostType.PINK, new BreadthFirstSearch()));
-        ghosts.add(new Ghost(config.orangeGhostStartPosition(), config.ghostSpeed(),
-            0.5, pacman.getPosition(), GhostType.ORANGE, new BreadthFirstSearch()));
+        this.ghosts = new ArrayList<>(config.ghosts().size());
+        for (GhostSpawn spawn : config.ghosts()) {
+            ghosts.add(new Ghost(spawn.position(), spawn.speed(), 0.5,
+                pacman.getPosition(), spawn.type(), createSearchStrategy(spawn.strategy())));
+            ghosts.getLast().setPathCache(pathCacheFor(spawn.strategy()));
+            strategiesInUse.add(spawn.strategy());
+        }
+        storeGhosts();
+    }
+
+    /**
+     * Constructs a new {@code GameState} played on a board of its own, such as a
+     * {@link ChunkedBoard} holding a world too large for memory, instead of a copy
+     * of the initial board of the configuration. The rest of the configuration
+     * is used as usual.
+     *
+     * <p> The board is kept when the game is reset, with the tiles eaten since
+     * put back, so the world is only created once. Ghost searches are run on the
+     * common fork/join pool. </p>
+     *
+     * @param config the game configuration to initialize the state (must not be {@code null})
+     * @param world the board to play on (must not be {@code null})
+     * @throws IllegalArgumentException if {@code config} or {@code world} is {@code null},
+     *      Pacman or a ghost starts outside the world, or a ghost on a {@link ChunkedBoard}
+     *      uses a corridor or hierarchical search, which would load the whole world.
+     */
+    public GameState(GameConfig config, Board world) {
+        this(config, world, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new {@code GameState} played on a board of its own,
+     * running ghost searches on the given pool, see {@link #GameState(GameConfig, Board)}.
+     *
+     * @param config the game configuration to initialize the state (must not be {@code null})
+     * @param world the board to play on (must not be {@code null})
+     * @param planningPool the pool to run ghost searches on (must not be {@code null})
+     * @throws IllegalArgumentException if {@code config}, {@code world} or {@code planningPool}
+     *      is {@code null}, Pacman or a ghost starts outside the world, or a ghost on a
+     *      {@link ChunkedBoard} uses a corridor or hierarchical search.
+     */
+    public GameState(GameConfig config, Board world, ForkJoinPool planningPool) {
+        this(config, planningPool);
+        if (world == null) {
+            throw new IllegalArgumentException("world must not be null");
+        }
+        if (!config.pacmanStartPosition().inBounds(world)) {
+            throw new IllegalArgumentException("Pacman must start inside the world");
+        }
+        for (GhostSpawn spawn : config.ghosts()) {
+            if (!spawn.position().inBounds(world)) {
+                throw new IllegalArgumentException("ghosts must start inside the world");
+            }
+            if (world instanceof ChunkedBoard
+                && (spawn.strategy() == StrategyType.CORRIDOR_GRAPH
+                    || spawn.strategy() == StrategyType.HIERARCHICAL)) {
+                throw new IllegalArgumentException(
+                    "ghosts on a ChunkedBoard must not use " + spawn.strategy());
+            }
+        }
+        this.world = world;
+        this.board = world;
+    }
+
+    /**
+     * Copy constructor, see {@link #fork}.
+     *
+     * @param other the game to copy, on a {@link TileGrid}.
+     */
+    private GameState(GameState other) {
+        this.config = other.config;
+        this.planningPool = other.planningPool;
+        this.compiledLevel = other.compiledLevel;
+        this.board = ((TileGrid) other.board).fork();
+        this.changedTiles = Arrays.copyOf(other.changedTiles, Math.max(other.changedTileCount, 64));
+        this.changedTileTypes = Arrays.copyOf(other.changedTileTypes, changedTiles.length);
+        this.changedTileCount = other.changedTileCount;
+        this.boardReplaced = other.boardReplaced;
+        this.boardGeneration = other.boardGeneration;
+        this.pathGeneration = other.pathGeneration;
+        this.retainedVersion = other.retainedVersion;
+        for (StrategyType type : other.pathCaches.keySet()) {
+            this.pathCaches.put(type, other.pathCaches.get(type).copy());
+        }
+
+        /* Flow fields only depend on the walls and the goal, which the fork shares */
+        this.flowFieldSearch = other.flowFieldSearch.copy();
+
+        /* Graphs are never changed once shared, so both games can keep using them */
+        this.navigationGraph = other.navigationGraph;
+        this.clusterGraph = other.clusterGraph;
+        this.clusterGraphShared = true;
+        other.clusterGraphShared = true;
+
+        this.score = other.score;
+        this.powerModeDuration = other.powerModeDuration;
+        this.timeOutDuration = other.timeOutDuration;
+        this.lives = other.lives;
+        this.numberOfItemsLeft = other.numberOfItemsLeft;
+        this.strategiesInUse.addAll(other.strategiesInUse);
+
+        this.pacman = other.pacman.copy();
+        this.ghosts = new ArrayList<>(other.ghosts.size());
+        for (Ghost ghost : other.ghosts) {
+            StrategyType type = strategyTypeOf(ghost.getSearchStrategy());
+            if (type == null) {
+                throw new IllegalStateException("Cannot fork a ghost with search strategy "
+                    + ghost.getSearchStrategy().getClass().getName());
+            }
+            Ghost copy = ghost.copy(createSearchStrategy(type));
+            copy.setPathCache(pathCacheFor(type));
+            ghosts.add(copy);
+        }
+        storeGhosts();
     }
 
     /*************************************************************
@@ -109,15 +359,43 @@ public class GameState {
      * Moves Pacman and ghosts, handles power mode duration, detects collisions,
      * updates score, and processes pellet consumption.
      *
+     * <p> The directions of all ghosts are planned first, from the board and
+     * positions at the start of the update, with searches running in parallel.
+     * The outcome does not depend on the number of threads. </p>
+     *
+     * <p> While Pacman is chased, the ghosts sharing the flow field search are
+     * steered along the field towards him together, see {@link EntityStore#steerAll}.
+     * The ghosts are then moved together, and collisions with Pacman are found once
+     * all have moved, along the whole of their moves, so entities moving far in a
+     * long tick do not pass through each other, see {@link EntityStore#forEachCollision}.
+     * Once Pacman dies, the remaining collisions of the update are ignored. </p>
+     *
+     * <p> The game is meant to be updated in fixed ticks, see {@link FixedTimestep}.
+     * The positions of the entities at the start of the tick are recorded first,
+     * for drawing them between ticks. </p>
+     *
      * @param deltaSeconds the time elapsed since the last update (in seconds)
      */
     public void update(double deltaSeconds) {
+        pacman.savePreviousPosition();
+        ghostStore.savePreviousPositions();
 
         if (timeOutDuration > EPSILON) {
             timeOutDuration -= deltaSeconds;
             return; /* Skip updating everything else */
         }
 
+        entityPositions.clear();
+        entityPositions.add(pacman.getPosition());
+        for (Ghost ghost : ghosts) {
+            entityPositions.add(ghost.getPosition());
+        }
+        board.retainAround(entityPositions);
+        if (board.retainedVersion() != retainedVersion) {
+            retainedVersion = board.retainedVersion();
+            pathsChanged();
+        }
+
         pacman.move(board, deltaSeconds);
 
         /* Power mode */
@@ -130,38 +408,29 @@ public class GameState {
             }
         } else {
             for (Ghost ghost : ghosts) {
-                switch (ghost.getGhostType()) {
-                    case RED -> ghost.setGoal(config.redGhostStartPosition());
-                    case BLUE -> ghost.setGoal(config.blueGhostStartPosition());
-                    case PINK -> ghost.setGoal(config.pinkGhostStartPosition());
-                    case ORANGE -> ghost.setGoal(config.orangeGhostStartPosition());
-                }
+                ghost.setGoal(ghost.getSpawnPosition());
             }
         }
 
+        planGhosts();
+
         /* updating and checking collisions with entities */
-        for (Ghost ghost : ghosts) {
-            ghost.move(board, deltaSeconds);
-            if (EntityUtils.hasCollided(pacman, ghost)
-                && powerModeDuration < EPSILON) {
-                pacmanDied();
-            } else if (EntityUtils.hasCollided(pacman, ghost)) {
-                ghostDied(ghost);
-            }
-        }
+        ghostStore.moveAll(board, deltaSeconds);
+        ghostStore.forEachCollision(pacman, collisionHandler);
 
         Position pacmanPos = pacman.getPosition();
-        switch (board[pacmanPos.y()][pacmanPos.x()]) {
+        int pacmanTile = board.index(pacmanPos.x(), pacmanPos.y());
+        switch (board.get(pacmanTile)) {
             case PELLET -> {
                 numberOfItemsLeft--;
                 score++;
-                board[pacmanPos.y()][pacmanPos.x()] = TileType.EMPTY;
+                clearTile(pacmanTile);
             }
             
             case POWER_PELLET -> {
                 numberOfItemsLeft--;
                 powerModeDuration = config.powerModeDuration();
-                board[pacmanPos.y()][pacmanPos.x()] = TileType.EMPTY;
+                clearTile(pacmanTile);
             }
             default -> {}
         }
@@ -171,6 +440,356 @@ public class GameState {
      *                      HELPER FUNCTIONS                     *
      *************************************************************/
 
+    /**
+     * Plans the next direction of every ghost. Cache lookups and stores run
+     * in ghost order on the calling thread. Searches of ghosts with their own
+     * search strategy run on {@link #planningPool}, while ghosts sharing the
+     * flow field search are searched on the calling thread, or steered
+     * together along the field towards Pacman while he is chased.
+     */
+    private void planGhosts() {
+        FlowField chaseField = chaseField();
+        ghostsToSearch.clear();
+        for (Ghost ghost : ghosts) {
+            if (chaseField != null && ghost.getSearchStrategy() == flowFieldSearch) {
+                continue; /* Steered below */
+            }
+            if (ghost.startPlan(board)) {
+                if (ghost.getSearchStrategy() == flowFieldSearch) {
+                    ghost.searchPlan();
+                } else {
+                    ghostsToSearch.add(ghost);
+                }
+            }
+        }
+
+        if (ghostsToSearch.size() > PLANNING_THRESHOLD) {
+            /* Shared graphs are built up front, rather than by the first worker asking */
+            if (strategiesInUse.contains(StrategyType.CORRIDOR_GRAPH)) {
+                getNavigationGraph();
+            }
+            if (strategiesInUse.contains(StrategyType.HIERARCHICAL)) {
+                getClusterGraph();
+            }
+            planningPool.invoke(new PlanTask(ghostsToSearch, 0, ghostsToSearch.size()));
+        } else {
+            for (Ghost ghost : ghostsToSearch) {
+                ghost.searchPlan();
+            }
+        }
+
+        for (Ghost ghost : ghosts) {
+            if (chaseField == null || ghost.getSearchStrategy() != flowFieldSearch) {
+                ghost.finishPlan();
+            }
+        }
+        if (chaseField != null) {
+            ghostStore.steerAll(board, chaseField);
+        }
+    }
+
+    /**
+     * Helper function that returns the flow field towards Pacman, if the ghosts
+     * sharing the flow field search chase him, so they can be steered together.
+     *
+     * @return the flow field towards Pacman, or {@code null} if the ghosts
+     *      are not chasing him or none of them use flow fields.
+     */
+    private FlowField chaseField() {
+        if (powerModeDuration >= EPSILON || !strategiesInUse.contains(StrategyType.FLOW_FIELD)) {
+            return null;
+        }
+        Position goal = pacman.getPosition();
+        if (!goal.inBounds(board)) {
+            return null;
+        }
+        return flowFieldSearch.fieldFor(board, board.index(goal.x(), goal.y()));
+    }
+
+    /**
+     * Task that searches the plans of a range of ghosts,
+     * splitting the range in halves until it is small.
+     */
+    private static final class PlanTask
+        extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The ghosts to search for. */
+        private final transient List<Ghost> ghosts;
+
+        /** First ghost of the range, inclusive. */
+        private final int from;
+
+        /** Last ghost of the range, exclusive. */
+        private final int to;
+
+        /**
+         * Constructs a task searching the plans of a range of ghosts.
+         *
+         * @param ghosts the ghosts to search for.
+         * @param from first ghost of the range, inclusive.
+         * @param to last ghost of the range, exclusive.
+         */
+        PlanTask(List<Ghost> ghosts, int from, int to) {
+            this.ghosts = ghosts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PLANNING_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    ghosts.get(i).searchPlan();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlanTask(ghosts, from, middle), new PlanTask(ghosts, middle, to));
+        }
+    }
+
+    /**
+     * Creates the search strategy for a ghost.
+     * Flow fields are shared by all ghosts, other strategies get an instance each.
+     * Corridor graph and hierarchical searches share the graphs of the board.
+     *
+     * @param type the type of strategy to create.
+     * @return the search strategy.
+     */
+    private SearchStrategy createSearchStrategy(StrategyType type) {
+        return switch (type) {
+            case BREADTH_FIRST -> new BreadthFirstSearch();
+            case A_STAR -> new AStarSearch();
+            case FLOW_FIELD -> flowFieldSearch;
+            case CORRIDOR_GRAPH -> new CorridorGraphSearch(this::getNavigationGraph);
+            case HIERARCHICAL -> new HierarchicalSearch(this::getClusterGraph);
+            case D_STAR_LITE -> new DStarLiteSearch();
+        };
+    }
+
+    /**
+     * Returns the cluster graph of the board, building it if needed.
+     * Safe to call from the searches running on {@link #planningPool},
+     * of which only the first to find no graph builds it.
+     *
+     * @return the cluster graph of the current board.
+     */
+    private ClusterGraph getClusterGraph() {
+        ClusterGraph graph = clusterGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = clusterGraph;
+                if (graph == null) {
+                    graph = ClusterGraph.build(board);
+                    clusterGraphShared = false;
+                    clusterGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the navigation graph of the board, building it if needed.
+     * Safe to call from the searches running on {@link #planningPool},
+     * of which only the first to find no graph builds it.
+     *
+     * @return the navigation graph of the current board.
+     */
+    private NavigationGraph getNavigationGraph() {
+        NavigationGraph graph = navigationGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = navigationGraph;
+                if (graph == null) {
+                    graph = NavigationGraph.build(board);
+                    navigationGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Helper function that returns the type of a search strategy, so a fork can
+     * create a strategy of its own of the same type and share the right path cache.
+     *
+     * @param strategy the search strategy of a ghost.
+     * @return the type of the strategy, or {@code null} if it is not
+     *      one of the {@link StrategyType}s.
+     */
+    private static StrategyType strategyTypeOf(SearchStrategy strategy) {
+        return switch (strategy) {
+            case BreadthFirstSearch search -> StrategyType.BREADTH_FIRST;
+            case AStarSearch search -> StrategyType.A_STAR;
+            case FlowFieldSearch search -> StrategyType.FLOW_FIELD;
+            case CorridorGraphSearch search -> StrategyType.CORRIDOR_GRAPH;
+            case HierarchicalSearch search -> StrategyType.HIERARCHICAL;
+            case DStarLiteSearch search -> StrategyType.D_STAR_LITE;
+            default -> null;
+        };
+    }
+
+    /**
+     * Helper function that returns the configuration of a compiled level.
+     *
+     * @param level the compiled level.
+     * @return the configuration of the level.
+     * @throws IllegalArgumentException if {@code level} is {@code null}
+     */
+    private static GameConfig configOf(CompiledLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        return level.config();
+    }
+
+    /**
+     * Helper function that uses the graphs of the compiled level, if any,
+     * which are only valid while the board has the walls of the initial board.
+     */
+    private void useCompiledGraphs() {
+        if (compiledLevel != null) {
+            navigationGraph = compiledLevel.navigationGraph();
+            clusterGraph = compiledLevel.clusterGraph();
+            clusterGraphShared = true;
+        }
+    }
+
+    /**
+     * Helper function that empties a tile of the board
+     * and records it in the journal of changed tiles.
+     * Also used by {@link Replay} to put back the tiles eaten before a keyframe.
+     *
+     * @param index the index of the tile to empty.
+     */
+    void clearTile(int index) {
+        if (changedTileCount == changedTiles.length) {
+            changedTiles = Arrays.copyOf(changedTiles, changedTileCount * 2);
+            changedTileTypes = Arrays.copyOf(changedTileTypes, changedTileCount * 2);
+        }
+        changedTileTypes[changedTileCount] = (byte) board.get(index).ordinal();
+        changedTiles[changedTileCount++] = index;
+        board.set(index, TileType.EMPTY);
+        boardChanged();
+    }
+
+    /**
+     * Undoes the latest changes in the journal of changed tiles, for {@link RewindBuffer},
+     * restoring the tiles to their types before the changes.
+     *
+     * @param count the number of changes to keep.
+     * @throws IllegalArgumentException if {@code count} is negative or more than the number of changes.
+     */
+    void rewindTiles(int count) {
+        if (count < 0 || count > changedTileCount) {
+            throw new IllegalArgumentException("count must be between 0 and the number of changes");
+        }
+        if (count == changedTileCount) {
+            return;
+        }
+        for (int i = changedTileCount - 1; i >= count; i--) {
+            board.set(changedTiles[i], TILE_TYPES[changedTileTypes[i]]);
+        }
+        changedTileCount = count;
+        boardChanged();
+    }
+
+    /**
+     * Helper function that restores the board to the initial board, or puts back
+     * the tiles eaten on the board the game is played on, if it has one of its own.
+     * Only the tiles in the journal are restored, unless the board was replaced.
+     * Walls are never changed by the game, so search strategies are only
+     * reset when the board was replaced.
+     */
+    private void restoreBoard() {
+        if (world != null && !boardReplaced) {
+            rewindTiles(0);
+            return;
+        }
+        if (world != null) {
+            board = world;
+            boardReplaced = false;
+            changedTileCount = 0;
+            boardChanged();
+            resetSearchStrategies();
+            return;
+        }
+
+        TileGrid initialBoard = config.initialBoard();
+        if (boardReplaced) {
+            board = initialBoard.copy();
+            boardReplaced = false;
+            changedTileCount = 0;
+            boardChanged();
+            resetSearchStrategies();
+            useCompiledGraphs();
+            return;
+        }
+        for (int i = changedTileCount - 1; i >= 0; i--) {
+            int index = changedTiles[i];
+            board.set(index, initialBoard.get(index));
+        }
+        changedTileCount = 0;
+        boardChanged();
+    }
+
+    /**
+     * Bumps the board generation, so paths cached for the old board are not reused.
+     */
+    private void boardChanged() {
+        boardGeneration++;
+        pathsChanged();
+    }
+
+    /**
+     * Helper function that bumps the generation of the cached paths,
+     * so paths found over other tiles are not reused.
+     */
+    private void pathsChanged() {
+        pathGeneration++;
+        for (PathCache pathCache : pathCaches.values()) {
+            pathCache.setGeneration(pathGeneration);
+        }
+    }
+
+    /**
+     * Helper function that returns the cache of search results
+     * of a search strategy, creating it if needed.
+     *
+     * @param type the search strategy.
+     * @return the cache shared by the ghosts using the strategy.
+     */
+    private PathCache pathCacheFor(StrategyType type) {
+        PathCache pathCache = pathCaches.get(type);
+        if (pathCache == null) {
+            pathCache = new PathCache(PATH_CACHE_CAPACITY);
+            pathCache.setGeneration(pathGeneration);
+            pathCaches.put(type, pathCache);
+        }
+        return pathCache;
+    }
+
+    /**
+     * Discards board-derived state in the search strategies of all ghosts.
+     * A cluster graph of the same size is kept, rebuilding only the clusters that changed,
+     * unless it came from a compiled level or is used by a fork.
+     */
+    private void resetSearchStrategies() {
+        navigationGraph = null;
+        if (clusterGraph != null && !clusterGraphShared && clusterGraph.fits(board)) {
+            clusterGraph.refresh(board);
+        } else {
+            clusterGraph = null;
+        }
+        flowFieldSearch.reset();
+        for (Ghost ghost : ghosts) {
+            ghost.getSearchStrategy().reset();
+        }
+    }
+
     /**
      * Handles Pacman's death by decrementing lives, resetting Pacman's position
      * and direction. It also resets the position of all ghosts.
@@ -181,28 +800,7 @@ public class GameState {
         timeOutDuration = 2.0;
 
         for (Ghost ghost : ghosts) {
-            switch (ghost.getGhostType()) {
-                case RED -> {
-                    ghost.setPosition(config.redGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-                case BLUE -> {
-                    ghost.setPosition(config.blueGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-                case PINK -> {
-                    ghost.setPosition(config.pinkGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-                case ORANGE -> {
-                    ghost.setPosition(config.orangeGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-            }
+            ghost.respawn();
         }
 
         pacman.setPosition(config.pacmanStartPosition());
@@ -211,73 +809,94 @@ public class GameState {
         pacman.setDirection(Direction.NONE);
     }
 
+    /**
+     * Helper function that resolves a collision between Pacman and a ghost
+     * that touched during their moves in an update. Pacman dies when hitting
+     * a ghost, unless in power mode, where the ghost dies instead.
+     * Ghosts pass through each other, so they are never tested against each other.
+     *
+     * @param index the index of the ghost in the ghost store, and in the list of ghosts.
+     */
+    private void collide(int index) {
+        if (timeOutDuration > EPSILON) {
+            return; /* Pacman already died in this update */
+        }
+        if (powerModeDuration < EPSILON) {
+            pacmanDied();
+        } else {
+            ghostDied(ghosts.get(index));
+        }
+    }
+
+    /**
+     * Helper function that moves the ghosts into the ghost store, in order,
+     * replacing what was in it. The ghosts sharing the flow field search
+     * are steered by the store.
+     */
+    private void storeGhosts() {
+        ghostStore.clear();
+        for (Ghost ghost : ghosts) {
+            int index = ghostStore.add(ghost);
+            ghostStore.setSteered(index, ghost.getSearchStrategy() == flowFieldSearch);
+        }
+    }
+
     /**
      * Handles the event when a ghost dies during power mode.
-     * Resets the ghost's position based on its type and increments the score.
+     * Moves the ghost back to its spawn position and increments the score.
      *
      * @param ghost the ghost that died (must not be {@code null})
      */
     private void ghostDied(Ghost ghost) {
 
         score += 50;
-        switch (ghost.getGhostType()) {
-            case RED -> {
-                ghost.setPosition(config.redGhostStartPosition());
-                ghost.setSubTileX(0.5f);
-                ghost.setSubTileY(0.5f);
-            }
-            case BLUE -> {
-                ghost.setPosition(config.blueGhostStartPosition());
-                ghost.setSubTileX(0.5f);
-                ghost.setSubTileY(0.5f);
-            }
-            case PINK -> {
-                ghost.setPosition(config.pinkGhostStartPosition());
-                ghost.setSubTileX(0.5f);
-                ghost.setSubTileY(0.5f);
-            }
-            case ORANGE -> {
-                ghost.setPosition(config.orangeGhostStartPosition());
-                ghost.setSubTileX(0.5f);
-                ghost.setSubTileY(0.5f);
-            }
-        }
+        ghost.respawn();
     }
 
     /**
      * Reset game to initial start state.
+     * Only the tiles changed since the last reset are restored.
      */
     public void resetGame() {
         this.lives = config.lives();
         this.numberOfItemsLeft = config.numberOfItems();
-        this.board = config.initialBoard();
+        restoreBoard();
         this.score = 0;
         pacman.setPosition(config.pacmanStartPosition());
 
         for (Ghost ghost : ghosts) {
-            switch (ghost.getGhostType()) {
-                case RED -> {
-                    ghost.setPosition(config.redGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-                case BLUE -> {
-                    ghost.setPosition(config.blueGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-                case PINK -> {
-                    ghost.setPosition(config.pinkGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-                case ORANGE -> {
-                    ghost.setPosition(config.orangeGhostStartPosition());
-                    ghost.setSubTileX(0.5f);
-                    ghost.setSubTileY(0.5f);
-                }
-            }
+            ghost.respawn();
+        }
+    }
+
+    /**
+     * Returns an independent copy of the game, for agents that search its future.
+     * Updating either game afterwards does not affect the other, and both
+     * evolve the same way when given the same input.
+     *
+     * <p> Forking is cheap: the board is shared until either game eats a pellet,
+     * the configuration and navigation graphs are shared for good, and the
+     * entities, timers and path cache are copied by value. The fork starts
+     * with the flow fields of the original, which neither game changes.
+     * The ghosts of the fork get search strategies of their own, but A* and
+     * breadth-first searches reuse the buffers of the thread they run on,
+     * so they do not allocate again in the fork.
+     * Both games run ghost searches on the same pool. </p>
+     *
+     * @return the fork.
+     * @throws IllegalStateException if the board is not a {@link TileGrid}, the game
+     *      is played on a board of its own, or a ghost uses a search strategy that is
+     *      not a {@link StrategyType}.
+     */
+    public GameState fork() {
+        if (!(board instanceof TileGrid)) {
+            throw new IllegalStateException("Only games on a TileGrid can be forked");
+        }
+        if (world != null) {
+            throw new IllegalStateException(
+                "Games played on a board of their own cannot be forked");
         }
+        return new GameState(this);
     }
 
     /**
@@ -309,10 +928,20 @@ public class GameState {
      *
      * @return the current board
      */
-    public TileType[][] getBoard() {
+    public Board getBoard() {
         return this.board;
     }
 
+    /**
+     * Returns the board generation, which is incremented
+     * every time the board is changed or replaced.
+     *
+     * @return the current board generation
+     */
+    public int getBoardGeneration() {
+        return this.boardGeneration;
+    }
+
     /**
      * Returns the current Pacman entity.
      *
@@ -323,13 +952,14 @@ public class GameState {
     }
 
     /**
-     * Returns the list of ghost entities.
+     * Returns the list of ghost entities. The list cannot be changed,
+     * use {@link #setEntities} to replace the ghosts.
      *
-     * @return list of all ghosts
+     * @return unmodifiable list of all ghosts
      */
     public List<Ghost> getGhosts() {
-        return this.ghosts;
-    } 
+        return Collections.unmodifiableList(this.ghosts);
+    }
 
     /**
      * Returns the current score.
@@ -358,21 +988,78 @@ public class GameState {
         return this.powerModeDuration;
     }
 
+    /**
+     * Returns the configuration the game was started from.
+     *
+     * @return the game configuration
+     */
+    GameConfig getConfig() {
+        return this.config;
+    }
+
+    /**
+     * Returns the index of an entry in the journal of tiles changed since the initial board.
+     *
+     * @param entry the entry, from 0 to the number of changed tiles.
+     * @return the index of the changed tile
+     */
+    int getChangedTile(int entry) {
+        return this.changedTiles[entry];
+    }
+
+    /**
+     * Returns the remaining duration of the time out after Pacman died,
+     * during which updates do not move anything.
+     *
+     * @return the time out duration in seconds
+     */
+    public double getTimeOutDuration() {
+        return this.timeOutDuration;
+    }
+
+    /**
+     * Returns the number of pellets and power pellets left on the board.
+     *
+     * @return the number of items left
+     */
+    int getNumberOfItemsLeft() {
+        return this.numberOfItemsLeft;
+    }
+
+    /**
+     * Returns the number of entries in the journal of tiles changed since the initial board.
+     *
+     * @return the number of changed tiles
+     */
+    int getChangedTileCount() {
+        return this.changedTileCount;
+    }
+
     /*************************************************************
      *                          SETTERS                          *
      *************************************************************/
 
     /**
-     * Sets the game board.
+     * Sets the game board. A read-only {@link TileGrid} is copied on first write.
+     * When the game is played on a board of its own, the tiles eaten on it are put
+     * back before it is left, and resetting the game goes back to it.
      *
      * @param newBoard the new board to set (must not be {@code null})
      * @throws IllegalArgumentException if {@code newBoard} is {@code null}
      */
-    public void setBoard(TileType[][] newBoard) {
+    public void setBoard(Board newBoard) {
         if (newBoard == null) {
             throw new IllegalArgumentException("newBoard must not be null");
         }
-        this.board = newBoard;
+        if (world != null && board == world) {
+            rewindTiles(0);
+        }
+        this.board = newBoard instanceof TileGrid grid && grid.isReadOnly()
+            ? grid.copy()
+            : newBoard;
+        this.boardReplaced = true;
+        boardChanged();
+        resetSearchStrategies();
     }
 
     /**
@@ -407,7 +1094,12 @@ public class GameState {
     }
 
     /**
-     * Sets the list of ghost entities.
+     * Sets the list of ghost entities. The list is copied,
+     * so later changes to it do not affect the game.
+     *
+     * <p> Every ghost is given the path cache of its search strategy,
+     * and the graphs are built for the strategies the new ghosts use.
+     * Ghosts with a search strategy of their own do not use a path cache. </p>
      *
      * @param newGhosts the new list of ghosts (must not be {@code null})
      * @throws IllegalArgumentException if {@code newGhosts} is {@code null}
@@ -416,7 +1108,18 @@ public class GameState {
         if (newGhosts == null) {
             throw new IllegalArgumentException("newGhost must not be null");
         }
-        this.ghosts = newGhosts;
+        this.ghosts = new ArrayList<>(newGhosts);
+        strategiesInUse.clear();
+        for (Ghost ghost : ghosts) {
+            StrategyType type = strategyTypeOf(ghost.getSearchStrategy());
+            if (type == null) {
+                ghost.setPathCache(null);
+            } else {
+                ghost.setPathCache(pathCacheFor(type));
+                strategiesInUse.add(type);
+            }
+        }
+        storeGhosts();
     }
 
     /**
@@ -427,4 +1130,22 @@ public class GameState {
     public void setPowerMode(double duration) {
         this.powerModeDuration = duration;
     }
+
+    /**
+     * Sets the remaining duration of the time out after Pacman died.
+     *
+     * @param duration the new time out duration in seconds
+     */
+    void setTimeOutDuration(double duration) {
+        this.timeOutDuration = duration;
+    }
+
+    /**
+     * Sets the number of pellets and power pellets left on the board.
+     *
+     * @param newNumberOfItemsLeft the new number of items left
+     */
+    void setNumberOfItemsLeft(int newNumberOfItemsLeft) {
+        this.numberOfItemsLeft = newNumberOfItemsLeft;
+    }
 }
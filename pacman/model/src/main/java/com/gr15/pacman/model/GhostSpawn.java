@@ -0,0 +1,41 @@
+package com.gr15.pacman.model;
+
+import com.gr15.pacman.model.entities.Ghost;
+import com.gr15.pacman.model.entities.Ghost.GhostType;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * Describes a single {@link Ghost} in the roster of a {@link GameConfig}.
+ *
+ * @param type The {@link GhostType} of the ghost, deciding how it is drawn.
+ * @param position The {@link Position} the ghost starts and respawns at.
+ * @param speed The speed of the ghost, in tiles per second.
+ * @param strategy The {@link StrategyType} the ghost uses to find paths.
+ */
+public record GhostSpawn(
+    GhostType type,
+    Position position,
+    double speed,
+    StrategyType strategy) {
+
+    /**
+     * Constructs a new {@code GhostSpawn} record.
+     *
+     * @throws IllegalArgumentException if {@code type}, {@code position}
+     *      or {@code strategy} is {@code null}, or {@code speed} is negative.
+     */
+    public GhostSpawn {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null");
+        }
+        if (position == null) {
+            throw new IllegalArgumentException("position must not be null");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must not be null");
+        }
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed must be non-negative");
+        }
+    }
+}
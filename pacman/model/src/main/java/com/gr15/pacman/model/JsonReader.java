@@ -0,0 +1,445 @@
+package com.gr15.pacman.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pull-style JSON reader, reading one value at a time from a character stream.
+ *
+ * <p> Unlike a DOM parser, nothing is kept in memory beyond the value being read,
+ * so large arrays can be consumed element by element. Small values can still be
+ * read whole with {@link #readValue()}, as maps, lists, strings, doubles,
+ * booleans or {@code null}. </p>
+ *
+ * <p> Trailing commas in objects and arrays are accepted, as configurations
+ * are written by hand. </p>
+ */
+final class JsonReader implements Closeable {
+
+    /** Thrown when the input is not valid JSON. */
+    static final class MalformedJsonException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs a new exception.
+         *
+         * @param message the detail message.
+         */
+        MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+
+    /** The stream characters are read from. */
+    private final Reader reader;
+
+    /** Characters read from the stream but not consumed yet. */
+    private final char[] buffer = new char[8192];
+
+    /** Index of the next character in {@link #buffer}. */
+    private int position = 0;
+
+    /** Number of valid characters in {@link #buffer}. */
+    private int limit = 0;
+
+    /** Number of characters consumed before {@link #buffer}, for error messages. */
+    private long consumed = 0;
+
+    /** Scratch space for reading strings and numbers. */
+    private final StringBuilder scratch = new StringBuilder();
+
+    /** For each open object or array, whether no element has been read from it yet. */
+    private boolean[] first = new boolean[32];
+
+    /** Number of open objects and arrays. */
+    private int depth = 0;
+
+    /**
+     * Constructs a reader over a character stream.
+     *
+     * @param reader the stream to read from (must not be {@code null})
+     * @throws IllegalArgumentException if {@code reader} is {@code null}
+     */
+    JsonReader(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader must not be null");
+        }
+        this.reader = reader;
+    }
+
+    /*************************************************************
+     *                         STRUCTURE                         *
+     *************************************************************/
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException if the next value is not an object.
+     */
+    void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    /**
+     * Consumes the end of an object, after its last member.
+     *
+     * @throws IOException if the object has more members.
+     */
+    void endObject() throws IOException {
+        skipComma();
+        expect('}');
+        depth--;
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException if the next value is not an array.
+     */
+    void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    /**
+     * Consumes the end of an array, after its last element.
+     *
+     * @throws IOException if the array has more elements.
+     */
+    void endArray() throws IOException {
+        skipComma();
+        expect(']');
+        depth--;
+    }
+
+    /**
+     * Checks if the current object or array has another member or element,
+     * consuming the comma before it.
+     *
+     * @return {@code true} if another member or element follows.
+     * @throws IOException if the input is malformed.
+     */
+    boolean hasNext() throws IOException {
+        int c = skipComma();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (c == -1) {
+            throw error("Unexpected end of input");
+        }
+        first[depth - 1] = false;
+        return true;
+    }
+
+    /**
+     * Reads the name of the next member of the current object, and the colon after it.
+     *
+     * @return the name.
+     * @throws IOException if the next token is not a name.
+     */
+    String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    /*************************************************************
+     *                           VALUES                          *
+     *************************************************************/
+
+    /**
+     * Reads a string value.
+     *
+     * @return the string.
+     * @throws IOException if the next value is not a string.
+     */
+    String nextString() throws IOException {
+        readString();
+        return scratch.toString();
+    }
+
+    /**
+     * Reads a string value of a single character, without allocating a string.
+     *
+     * @return the character, or {@code -1} if the string is not one character long.
+     * @throws IOException if the next value is not a string.
+     */
+    int nextSymbol() throws IOException {
+        readString();
+        return scratch.length() == 1 ? scratch.charAt(0) : -1;
+    }
+
+    /**
+     * Reads a number value.
+     *
+     * @return the number.
+     * @throws IOException if the next value is not a number.
+     */
+    double nextDouble() throws IOException {
+        int c = skipWhitespace();
+        if (c != '-' && (c < '0' || c > '9')) {
+            throw error("Expected a number");
+        }
+        scratch.setLength(0);
+        while ((c = peek()) != -1 && (c == '-' || c == '+' || c == '.'
+            || c == 'e' || c == 'E' || (c >= '0' && c <= '9'))) {
+            scratch.append((char) c);
+            position++;
+        }
+        try {
+            return Double.parseDouble(scratch.toString());
+        } catch (NumberFormatException numberFormatException) {
+            throw error("Malformed number " + scratch);
+        }
+    }
+
+    /**
+     * Reads a whole value of any type. Objects are read as maps keeping the
+     * order of their members, arrays as lists, and numbers as doubles.
+     *
+     * @return the value, or {@code null} for a JSON {@code null}.
+     * @throws IOException if the input is malformed.
+     */
+    Object readValue() throws IOException {
+        int c = skipWhitespace();
+        switch (c) {
+            case '{' -> {
+                Map<String, Object> object = new LinkedHashMap<>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, readValue());
+                }
+                endObject();
+                return object;
+            }
+            case '[' -> {
+                List<Object> array = new ArrayList<>();
+                beginArray();
+                while (hasNext()) {
+                    array.add(readValue());
+                }
+                endArray();
+                return array;
+            }
+            case '"' -> {
+                return nextString();
+            }
+            case 't' -> {
+                literal("true");
+                return Boolean.TRUE;
+            }
+            case 'f' -> {
+                literal("false");
+                return Boolean.FALSE;
+            }
+            case 'n' -> {
+                literal("null");
+                return null;
+            }
+            default -> {
+                return nextDouble();
+            }
+        }
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException if the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that opens an object or array.
+     */
+    private void push() {
+        if (depth == first.length) {
+            first = Arrays.copyOf(first, depth * 2);
+        }
+        first[depth++] = true;
+    }
+
+    /**
+     * Helper function that skips whitespace and, unless at the first element of the
+     * current object or array, the comma separating it from the previous one.
+     *
+     * @return the next character, or {@code -1} at the end of the input.
+     * @throws IOException if a comma is missing.
+     */
+    private int skipComma() throws IOException {
+        int c = skipWhitespace();
+        if (depth == 0 || first[depth - 1]) {
+            return c;
+        }
+        if (c == ',') {
+            position++;
+            return skipWhitespace();
+        }
+        if (c != '}' && c != ']') {
+            throw error("Expected ','");
+        }
+        return c;
+    }
+
+    /**
+     * Helper function that reads a string value into {@link #scratch}.
+     *
+     * @throws IOException if the next value is not a string.
+     */
+    private void readString() throws IOException {
+        expect('"');
+        scratch.setLength(0);
+        while (true) {
+            int c = read();
+            switch (c) {
+                case -1 -> throw error("Unterminated string");
+                case '"' -> {
+                    return;
+                }
+                case '\\' -> scratch.append(readEscape());
+                default -> scratch.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Helper function that reads the character after a backslash in a string.
+     *
+     * @return the escaped character.
+     * @throws IOException if the escape sequence is malformed.
+     */
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"', '\\', '/' -> {
+                return (char) c;
+            }
+            case 'b' -> {
+                return '\b';
+            }
+            case 'f' -> {
+                return '\f';
+            }
+            case 'n' -> {
+                return '\n';
+            }
+            case 'r' -> {
+                return '\r';
+            }
+            case 't' -> {
+                return '\t';
+            }
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Malformed unicode escape");
+                    }
+                    value = value * 16 + digit;
+                }
+                return (char) value;
+            }
+            default -> throw error("Malformed escape sequence");
+        }
+    }
+
+    /**
+     * Helper function that consumes a literal such as {@code true}.
+     *
+     * @param literal the expected literal.
+     * @throws IOException if the input does not match.
+     */
+    private void literal(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+        }
+    }
+
+    /**
+     * Helper function that skips whitespace and consumes an expected character.
+     *
+     * @param expected the expected character.
+     * @throws IOException if another character follows.
+     */
+    private void expect(char expected) throws IOException {
+        if (skipWhitespace() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    /**
+     * Helper function that skips whitespace.
+     *
+     * @return the next character, not consumed, or {@code -1} at the end of the input.
+     * @throws IOException if the stream cannot be read.
+     */
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+        }
+        return c;
+    }
+
+    /**
+     * Helper function that consumes the next character.
+     *
+     * @return the character, or {@code -1} at the end of the input.
+     * @throws IOException if the stream cannot be read.
+     */
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    /**
+     * Helper function that returns the next character without consuming it,
+     * refilling the buffer when it is empty.
+     *
+     * @return the character, or {@code -1} at the end of the input.
+     * @throws IOException if the stream cannot be read.
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            consumed += limit;
+            position = 0;
+            limit = Math.max(reader.read(buffer), 0);
+            if (limit == 0) {
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Helper function that creates an exception for malformed input.
+     *
+     * @param message what was wrong with the input.
+     * @return the exception, including the offset in the input.
+     */
+    private MalformedJsonException error(String message) {
+        return new MalformedJsonException(message + " at character " + (consumed + position));
+    }
+}
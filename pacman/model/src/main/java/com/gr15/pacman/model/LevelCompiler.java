@@ -0,0 +1,276 @@
+package com.gr15.pacman.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+import com.gr15.pacman.model.entities.searching.ClusterGraph;
+import com.gr15.pacman.model.entities.searching.NavigationGraph;
+
+/**
+ * Utility class for compiling JSON configurations into {@link CompiledLevel}s,
+ * cached on disk.
+ *
+ * <p> Compiling a level parses the configuration and precomputes the navigation
+ * data of its board: the walkability bitset, the corridor graph with its corridor
+ * lengths, and the distance tables of the cluster graph. The result is stored in
+ * a cache directory, keyed by the SHA-256 hash of the configuration file, as a
+ * {@link LevelFile} and a file holding the graphs. Loading a configuration whose
+ * hash is cached maps those files instead, skipping both parsing and
+ * precomputation. </p>
+ *
+ * <p> The cache directory defaults to {@code .cache/pacman/levels} in the home
+ * directory, and can be changed with the {@value #CACHE_DIRECTORY_PROPERTY}
+ * system property. Files are written to a temporary name and then moved into
+ * place, so concurrent games never see a partial file. A cache that cannot be
+ * read or written only costs the time to compile the level again. </p>
+ *
+ * <p> This class cannot be extended or instantiated. </p>
+ */
+public final class LevelCompiler {
+
+    /** System property overriding the default cache directory. */
+    public static final String CACHE_DIRECTORY_PROPERTY = "pacman.levelCache";
+
+    /** Version of the compiled files, bumped whenever their layout changes. */
+    private static final int VERSION = 1;
+
+    /** Magic number at the start of every graph file, "PNAV". */
+    private static final int MAGIC = 0x56414E50;
+
+    /** Byte order of every value in the graph file. */
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Logger for cache files that cannot be read or written. */
+    private static final System.Logger LOGGER = System.getLogger(LevelCompiler.class.getName());
+
+    /**
+     * Precomputes the navigation data of a configuration.
+     *
+     * @param config the configuration (must not be {@code null})
+     * @return the compiled level.
+     * @throws IllegalArgumentException if {@code config} is {@code null}
+     */
+    public static CompiledLevel compile(GameConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config must not be null");
+        }
+        TileGrid board = config.initialBoard();
+        return new CompiledLevel(config, NavigationGraph.build(board), ClusterGraph.build(board));
+    }
+
+    /**
+     * Loads a JSON configuration, using the default cache directory.
+     *
+     * @param inputStream the input stream pointing to a valid JSON configuration file.
+     * @return the compiled level.
+     * @throws RuntimeException if the JSON is malformed
+     *      or if an I/O error occurs during reading.
+     * @see #load(InputStream, Path)
+     */
+    public static CompiledLevel load(InputStream inputStream) {
+        return load(inputStream, defaultCacheDirectory());
+    }
+
+    /**
+     * Loads a JSON configuration, from the cache if it has been compiled before,
+     * otherwise compiling it and storing the result in the cache.
+     *
+     * @param inputStream the input stream pointing to a valid JSON configuration file.
+     * @param cacheDirectory the cache directory (must not be {@code null})
+     * @return the compiled level.
+     * @throws IllegalArgumentException if {@code cacheDirectory} is {@code null}
+     * @throws RuntimeException if the JSON is malformed
+     *      or if an I/O error occurs during reading.
+     */
+    public static CompiledLevel load(InputStream inputStream, Path cacheDirectory) {
+        if (cacheDirectory == null) {
+            throw new IllegalArgumentException("cacheDirectory must not be null");
+        }
+
+        /* Notice the input stream gets closed by
+         * the try-with-resource statement */
+        byte[] source;
+        try (InputStream input = inputStream) {
+            source = input.readAllBytes();
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading JSON file. Ensure the file exists and is accessible", ioException);
+        }
+
+        String key = hash(source) + "-v" + VERSION;
+        Path levelPath = cacheDirectory.resolve(key + ".level");
+        Path graphPath = cacheDirectory.resolve(key + ".nav");
+        if (Files.isRegularFile(levelPath) && Files.isRegularFile(graphPath)) {
+            try {
+                return read(levelPath, graphPath);
+            } catch (RuntimeException runtimeException) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable compiled level " + key,
+                    runtimeException);
+            }
+        }
+
+        CompiledLevel level = compile(GameConfigFactory.fromJson(new ByteArrayInputStream(source)));
+        try {
+            Files.createDirectories(cacheDirectory);
+            writeGraphs(level, graphPath);
+            write(levelPath, temporary -> LevelFile.write(level.config(), temporary));
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Could not cache compiled level " + key, exception);
+        }
+        return level;
+    }
+
+    /**
+     * Returns the cache directory used by {@link #load(InputStream)}.
+     *
+     * @return the value of the {@value #CACHE_DIRECTORY_PROPERTY} system property if set,
+     *      otherwise {@code .cache/pacman/levels} in the home directory.
+     */
+    public static Path defaultCacheDirectory() {
+        String directory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return Path.of(directory);
+        }
+        return Path.of(System.getProperty("user.home"), ".cache", "pacman", "levels");
+    }
+
+    /**
+     * Compiles JSON configurations ahead of time into the default cache directory.
+     *
+     * <p> Usage: {@code LevelCompiler <config.json>...} </p>
+     *
+     * @param args the paths of the JSON configurations.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: LevelCompiler <config.json>...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            try {
+                load(Files.newInputStream(Path.of(arg)));
+            } catch (IOException ioException) {
+                throw new RuntimeException(
+                    "Error reading JSON file. Ensure the file exists and is accessible", ioException);
+            }
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that reads a compiled level from the cache.
+     *
+     * @param levelPath the path of the level file.
+     * @param graphPath the path of the graph file.
+     * @return the compiled level.
+     * @throws RuntimeException if a file is not valid
+     *      or if an I/O error occurs during reading.
+     */
+    private static CompiledLevel read(Path levelPath, Path graphPath) {
+        GameConfig config = LevelFile.read(levelPath);
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(graphPath, StandardOpenOption.READ)) {
+            mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading graph file. Ensure the file exists and is accessible", ioException);
+        }
+        ByteBuffer buffer = mapped.order(ORDER);
+        if (buffer.remaining() < 2 * Integer.BYTES
+            || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new RuntimeException("Not a graph file, wrong magic number or version.");
+        }
+        NavigationGraph navigationGraph = NavigationGraph.readFrom(buffer);
+        ClusterGraph clusterGraph = ClusterGraph.readFrom(buffer);
+        if (buffer.hasRemaining()) {
+            throw new RuntimeException("Ill formated graph file, trailing bytes.");
+        }
+        return new CompiledLevel(config, navigationGraph, clusterGraph);
+    }
+
+    /**
+     * Helper function that writes the graphs of a compiled level to the cache.
+     *
+     * @param level the compiled level.
+     * @param graphPath the path of the graph file.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeGraphs(CompiledLevel level, Path graphPath) throws IOException {
+        long size = 2 * Integer.BYTES + level.navigationGraph().serializedSize()
+            + level.clusterGraph().serializedSize();
+        write(graphPath, temporary -> {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size).order(ORDER);
+                buffer.putInt(MAGIC).putInt(VERSION);
+                level.navigationGraph().writeTo(buffer);
+                level.clusterGraph().writeTo(buffer);
+            } catch (IOException ioException) {
+                throw new RuntimeException(
+                    "Error writing graph file. Ensure the path is writable", ioException);
+            }
+        });
+    }
+
+    /**
+     * Helper function that writes a file under a unique temporary name
+     * next to the target, then moves it into place.
+     *
+     * @param target the path of the finished file.
+     * @param writer writes the file to the path it is given.
+     * @throws IOException if the file cannot be created or moved into place.
+     */
+    private static void write(Path target, Consumer<Path> writer) throws IOException {
+        Path temporary = Files.createTempFile(target.getParent(),
+            target.getFileName().toString(), ".tmp");
+        try {
+            writer.accept(temporary);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Helper function that hashes the contents of a configuration file.
+     *
+     * @param source the contents of the file.
+     * @return the SHA-256 hash as lowercase hexadecimal.
+     */
+    private static String hash(byte[] source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(source));
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            /* Every Java platform is required to support SHA-256 */
+            throw new IllegalStateException(noSuchAlgorithmException);
+        }
+    }
+
+    /** Private constructor to prevent external instantiation */
+    private LevelCompiler() {}
+}
@@ -0,0 +1,252 @@
+package com.gr15.pacman.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gr15.pacman.model.entities.Ghost.GhostType;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * Utility class for reading and writing levels in a compact binary format.
+ *
+ * <p> A level file starts with a header holding the settings and the ghost
+ * roster, followed by the board exactly as a {@link TileGrid} stores it: the
+ * walkability bitset, then one byte per tile. The file is memory mapped when
+ * read, and the board wraps the mapped file without copying or parsing it, so
+ * even very large levels load in a few milliseconds. All values are little-endian. </p>
+ *
+ * <p> Layout of the header:
+ * <ul>
+ *   <li>magic number and format version (two ints)</li>
+ *   <li>board width and height (two ints)</li>
+ *   <li>power mode duration (double), lives (int), Pacman speed (double),
+ *       number of items (int), Pacman start x and y (two ints)</li>
+ *   <li>number of ghosts (int), then per ghost: type ordinal (byte),
+ *       strategy ordinal (byte), x and y (two ints), speed (double)</li>
+ *   <li>zero padding up to a multiple of eight bytes</li>
+ * </ul></p>
+ *
+ * <p> Existing JSON configurations are converted with {@link #main}. </p>
+ *
+ * <p> This class cannot be extended or instantiated. </p>
+ */
+public final class LevelFile {
+
+    /** Magic number at the start of every level file, "PMLV". */
+    private static final int MAGIC = 0x564C4D50;
+
+    /** Version of the format, bumped whenever the layout or the enums change. */
+    private static final int VERSION = 1;
+
+    /** Byte order of every value in the file. */
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Size of the fixed part of the header in bytes. */
+    private static final int FIXED_HEADER_SIZE = 4 * 4 + 8 + 4 + 8 + 4 + 2 * 4 + 4;
+
+    /** Size of each ghost entry in the header in bytes. */
+    private static final int GHOST_SIZE = 2 + 2 * 4 + 8;
+
+    /**
+     * Reads a level file by memory mapping it.
+     * The board of the returned configuration is backed by the mapped file.
+     *
+     * @param path the path of the level file.
+     * @return the constructed {@code GameConfig} instance.
+     * @throws RuntimeException if the file is not a valid level file
+     *      or if an I/O error occurs during reading.
+     */
+    public static GameConfig read(Path path) {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading level file. Ensure the file exists and is accessible", ioException);
+        }
+        return parse(mapped.order(ORDER));
+    }
+
+    /**
+     * Writes a configuration as a level file.
+     *
+     * @param config the configuration to write (must not be {@code null})
+     * @param path the path of the level file, replaced if it exists.
+     * @throws IllegalArgumentException if {@code config} is {@code null}
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public static void write(GameConfig config, Path path) {
+        if (config == null) {
+            throw new IllegalArgumentException("config must not be null");
+        }
+
+        TileGrid board = config.initialBoard();
+        List<GhostSpawn> ghosts = config.ghosts();
+        ByteBuffer header = ByteBuffer.allocate(headerSize(ghosts.size())).order(ORDER);
+        header.putInt(MAGIC).putInt(VERSION)
+            .putInt(board.width()).putInt(board.height())
+            .putDouble(config.powerModeDuration())
+            .putInt(config.lives())
+            .putDouble(config.pacmanSpeed())
+            .putInt(config.numberOfItems())
+            .putInt(config.pacmanStartPosition().x())
+            .putInt(config.pacmanStartPosition().y())
+            .putInt(ghosts.size());
+        for (GhostSpawn ghost : ghosts) {
+            header.put((byte) ghost.type().ordinal())
+                .put((byte) ghost.strategy().ordinal())
+                .putInt(ghost.position().x())
+                .putInt(ghost.position().y())
+                .putDouble(ghost.speed());
+        }
+        header.position(header.capacity()).flip();
+
+        LongBuffer blocked = board.blockedBuffer();
+        ByteBuffer blockedBytes = ByteBuffer.allocate(blocked.capacity() * Long.BYTES).order(ORDER);
+        blockedBytes.asLongBuffer().put(blocked);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer tiles = board.tileBuffer();
+            ByteBuffer[] buffers = { header, blockedBytes, tiles };
+            while (tiles.hasRemaining()) {
+                channel.write(buffers);
+            }
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing level file. Ensure the path is writable", ioException);
+        }
+    }
+
+    /**
+     * Converts a JSON configuration to a level file.
+     *
+     * <p> Usage: {@code LevelFile <config.json> <level.pmlv>} </p>
+     *
+     * @param args the path of the JSON configuration and the path of the level file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: LevelFile <config.json> <level.pmlv>");
+            System.exit(1);
+        }
+
+        GameConfig config;
+        try (InputStream input = Files.newInputStream(Path.of(args[0]))) {
+            config = GameConfigFactory.fromJson(input);
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading JSON file. Ensure the file exists and is accessible", ioException);
+        }
+        write(config, Path.of(args[1]));
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that parses a mapped level file.
+     *
+     * @param buffer the whole file, in the byte order of the format.
+     * @return the constructed {@code GameConfig} instance.
+     * @throws RuntimeException if the file is not a valid level file.
+     */
+    private static GameConfig parse(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new RuntimeException("Not a level file, wrong magic number.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new RuntimeException("Unsupported level file version: " + version);
+            }
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            double powerModeDuration = buffer.getDouble();
+            int lives = buffer.getInt();
+            double pacmanSpeed = buffer.getDouble();
+            int numberOfItems = buffer.getInt();
+            Position pacmanStartPosition = new Position(buffer.getInt(), buffer.getInt());
+
+            int ghostCount = buffer.getInt();
+            if (ghostCount < 0 || ghostCount > buffer.remaining() / GHOST_SIZE) {
+                throw new RuntimeException("Ill formated level file, invalid ghost count.");
+            }
+            List<GhostSpawn> ghosts = new ArrayList<>(ghostCount);
+            for (int i = 0; i < ghostCount; i++) {
+                GhostType type = ordinal(GhostType.values(), buffer.get());
+                StrategyType strategy = ordinal(StrategyType.values(), buffer.get());
+                Position position = new Position(buffer.getInt(), buffer.getInt());
+                ghosts.add(new GhostSpawn(type, position, buffer.getDouble(), strategy));
+            }
+
+            int blockedOffset = headerSize(ghostCount);
+            long cells = (long) width * height;
+            long blockedSize = ((cells + 63) >>> 6) * Long.BYTES;
+            if (width < 0 || height < 0
+                || buffer.capacity() != blockedOffset + blockedSize + cells) {
+                throw new RuntimeException("Ill formated level file, board does not fit the file.");
+            }
+            LongBuffer blocked = buffer.slice(blockedOffset, (int) blockedSize)
+                .order(ORDER).asLongBuffer();
+            ByteBuffer tiles = buffer.slice(blockedOffset + (int) blockedSize, (int) cells);
+            TileGrid initialBoard = TileGrid.wrap(width, height, tiles, blocked);
+
+            return new GameConfig(
+                initialBoard,
+                powerModeDuration,
+                lives,
+                pacmanSpeed,
+                numberOfItems,
+                pacmanStartPosition,
+                ghosts);
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            throw new RuntimeException("Ill formated level file.", exception);
+        }
+    }
+
+    /**
+     * Helper function that returns the size of the header,
+     * padded so the walkability bitset is aligned to eight bytes.
+     *
+     * @param ghostCount the number of ghosts in the roster.
+     * @return the size of the header in bytes.
+     */
+    private static int headerSize(int ghostCount) {
+        long size = FIXED_HEADER_SIZE + (long) ghostCount * GHOST_SIZE;
+        return (int) ((size + 7) & ~7L);
+    }
+
+    /**
+     * Helper function that looks up an enum constant by its ordinal in the file.
+     *
+     * @param <E> the type of the enum.
+     * @param values the constants of the enum.
+     * @param ordinal the ordinal read from the file.
+     * @return the constant with the ordinal.
+     * @throws RuntimeException if no constant has the ordinal.
+     */
+    private static <E extends Enum<E>> E ordinal(E[] values, byte ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new RuntimeException("Ill formated level file, unknown ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /** Private constructor to prevent external instantiation */
+    private LevelFile() {}
+}
@@ -0,0 +1,208 @@
+package com.gr15.pacman.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.gr15.pacman.model.ChunkedBoard.ChunkSource;
+import com.gr15.pacman.model.GameState.TileType;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * A {@link ChunkSource} generating the chunks of an endless maze.
+ *
+ * <p> Every chunk is a maze of its own, carved and looped like the mazes of
+ * {@link MazeGenerator} and strewn with pellets. A door is opened between every
+ * chunk and the chunks beside and below it, at a place picked from the seed and
+ * the two chunks, so both chunks open it the same way and the whole world is
+ * connected. The same seed and settings always give the same chunk, so chunks
+ * can be evicted without being stored, unless their pellets should stay eaten,
+ * see {@link ChunkDirectory}. </p>
+ */
+public final class MazeChunkSource
+    implements ChunkSource {
+
+    /** Smallest chunk size with a cell beside each door. */
+    private static final int MIN_CHUNK_SIZE = 4;
+
+    /** Marks the door between a chunk and the chunk beside it. */
+    private static final int DOOR_EAST = 1;
+
+    /** Marks the door between a chunk and the chunk below it. */
+    private static final int DOOR_SOUTH = 2;
+
+    /** Marks the random generator of a chunk's maze, apart from its doors. */
+    private static final int MAZE = 3;
+
+    /** Seed of the world. */
+    private final long seed;
+
+    /** Chance that a wall between two corridors is removed. */
+    private final double loopDensity;
+
+    /** Chance that a corridor tile holds a pellet. */
+    private final double pelletDensity;
+
+    /**
+     * Constructs a source of the chunks of a world.
+     *
+     * @param seed the seed of the world.
+     * @param loopDensity the chance, from 0 to 1, that a wall between two corridors is removed.
+     * @param pelletDensity the chance, from 0 to 1, that a corridor tile holds a pellet.
+     * @throws IllegalArgumentException if a density is out of range.
+     */
+    public MazeChunkSource(long seed, double loopDensity, double pelletDensity) {
+        if (!(loopDensity >= 0 && loopDensity <= 1)
+            || !(pelletDensity >= 0 && pelletDensity <= 1)) {
+            throw new IllegalArgumentException("densities must be between 0 and 1");
+        }
+        this.seed = seed;
+        this.loopDensity = loopDensity;
+        this.pelletDensity = pelletDensity;
+    }
+
+    /**
+     * Generates a chunk of the maze.
+     *
+     * @throws IllegalArgumentException if {@code chunkSize} is less than 4.
+     */
+    @Override
+    public TileGrid load(int chunkX, int chunkY, int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be at least " + MIN_CHUNK_SIZE);
+        }
+
+        Random random = new Random(mix(chunkX, chunkY, MAZE));
+        TileGrid chunk = new TileGrid(chunkSize, chunkSize, TileType.WALL);
+        MazeGenerator.carve(chunk, random);
+        MazeGenerator.addLoops(chunk, random, loopDensity);
+
+        /* The cells sit at odd coordinates, the last two rows and columns are walls */
+        int last = chunkSize - 1;
+        int eastRow = door(chunkX, chunkY, DOOR_EAST, chunkSize);
+        chunk.set(chunk.index(last - 1, eastRow), TileType.EMPTY);
+        chunk.set(chunk.index(last, eastRow), TileType.EMPTY);
+        int southColumn = door(chunkX, chunkY, DOOR_SOUTH, chunkSize);
+        chunk.set(chunk.index(southColumn, last - 1), TileType.EMPTY);
+        chunk.set(chunk.index(southColumn, last), TileType.EMPTY);
+        if (chunkX > 0) {
+            chunk.set(chunk.index(0, door(chunkX - 1, chunkY, DOOR_EAST, chunkSize)),
+                TileType.EMPTY);
+        }
+        if (chunkY > 0) {
+            chunk.set(chunk.index(door(chunkX, chunkY - 1, DOOR_SOUTH, chunkSize), 0),
+                TileType.EMPTY);
+        }
+
+        for (int index = 0; index < chunk.size(); index++) {
+            if (chunk.isWalkable(index) && random.nextDouble() < pelletDensity) {
+                chunk.set(index, random.nextDouble() < MazeGenerator.POWER_PELLET_SHARE
+                    ? TileType.POWER_PELLET
+                    : TileType.PELLET);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Creates the configuration of a game on a world made of these chunks,
+     * to be played with {@link GameState#GameState(GameConfig, Board)}.
+     * Pacman starts in the chunk at the center of the world, and the ghosts
+     * at random cells of the same chunk, which is the initial board of the
+     * configuration. The world never runs out of pellets, so the game only
+     * ends when Pacman has no lives left.
+     *
+     * @param world the world (must not be {@code null})
+     * @param ghostCount the number of ghosts, cycling through the ghost types.
+     * @param strategy the search strategy of every ghost (must not be {@code null})
+     * @return the configuration.
+     * @throws IllegalArgumentException if {@code world} or {@code strategy} is {@code null},
+     *      {@code ghostCount} is negative, the world has no whole chunk at its center,
+     *      or a chunk is too small for the ghosts.
+     */
+    public GameConfig configFor(ChunkedBoard world, int ghostCount, StrategyType strategy) {
+        if (world == null) {
+            throw new IllegalArgumentException("world must not be null");
+        }
+        if (ghostCount < 0) {
+            throw new IllegalArgumentException("ghostCount must be non-negative");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must not be null");
+        }
+        int chunkSize = world.chunkSize();
+        int chunkX = world.width() / chunkSize / 2;
+        int chunkY = world.height() / chunkSize / 2;
+        if ((chunkX + 1) * chunkSize > world.width() || (chunkY + 1) * chunkSize > world.height()) {
+            throw new IllegalArgumentException("world must be at least one chunk wide and high");
+        }
+
+        TileGrid start = load(chunkX, chunkY, chunkSize);
+        Random random = new Random(mix(chunkX, chunkY, MAZE));
+        Position local = new Position(1, 1);
+        List<GhostSpawn> ghosts = new ArrayList<>(ghostCount);
+        for (GhostSpawn ghost : MazeGenerator.placeGhosts(start, random, ghostCount,
+            strategy, local)) {
+            ghosts.add(new GhostSpawn(ghost.type(),
+                toWorld(ghost.position(), chunkX, chunkY, chunkSize),
+                ghost.speed(), ghost.strategy()));
+        }
+
+        return new GameConfig(
+            start,
+            MazeGenerator.POWER_MODE_DURATION,
+            MazeGenerator.LIVES,
+            MazeGenerator.PACMAN_SPEED,
+            Integer.MAX_VALUE,
+            toWorld(local, chunkX, chunkY, chunkSize),
+            ghosts);
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that picks the cell row or column of a door of a chunk.
+     *
+     * @param chunkX the column of the chunk, in chunks.
+     * @param chunkY the row of the chunk, in chunks.
+     * @param side {@link #DOOR_EAST} or {@link #DOOR_SOUTH}.
+     * @param chunkSize the width and height of the chunk in tiles.
+     * @return an odd coordinate within the chunk.
+     */
+    private int door(int chunkX, int chunkY, int side, int chunkSize) {
+        int cells = (chunkSize - 1) / 2;
+        return 2 * new Random(mix(chunkX, chunkY, side)).nextInt(cells) + 1;
+    }
+
+    /**
+     * Helper function that derives the seed of a random generator of a chunk,
+     * mixing the seed of the world with the chunk and the purpose of the generator.
+     *
+     * @param chunkX the column of the chunk, in chunks.
+     * @param chunkY the row of the chunk, in chunks.
+     * @param purpose {@link #MAZE}, {@link #DOOR_EAST} or {@link #DOOR_SOUTH}.
+     * @return the seed.
+     */
+    private long mix(int chunkX, int chunkY, int purpose) {
+        long hash = seed;
+        hash = (hash ^ chunkX) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ chunkY) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ purpose) * 0x94D049BB133111EBL;
+        return hash ^ hash >>> 31;
+    }
+
+    /**
+     * Helper function that converts a position within a chunk to the world.
+     *
+     * @param position the position within the chunk.
+     * @param chunkX the column of the chunk, in chunks.
+     * @param chunkY the row of the chunk, in chunks.
+     * @param chunkSize the width and height of the chunk in tiles.
+     * @return the position in the world.
+     */
+    private static Position toWorld(Position position, int chunkX, int chunkY, int chunkSize) {
+        return new Position(chunkX * chunkSize + position.x(), chunkY * chunkSize + position.y());
+    }
+}
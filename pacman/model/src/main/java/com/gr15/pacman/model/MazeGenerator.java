@@ -0,0 +1,294 @@
+package com.gr15.pacman.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.gr15.pacman.model.GameState.TileType;
+import com.gr15.pacman.model.entities.Ghost.GhostType;
+import com.gr15.pacman.model.entities.searching.SearchStrategy.StrategyType;
+
+/**
+ * Utility class for generating mazes of any size, for benchmarks and stress tests.
+ *
+ * <p> The same seed and settings always give the same {@link GameConfig}. A perfect
+ * maze is carved with a randomized depth-first search over the tiles at odd
+ * coordinates, so every walkable tile can reach every other, and walls between
+ * corridors are then knocked out to add loops. Pellets are scattered over the
+ * corridors, Pacman starts near the center and the ghosts start at random corridor
+ * tiles. </p>
+ *
+ * <p> Generated mazes are written as JSON configurations with {@link #main}. </p>
+ *
+ * <p> This class cannot be extended or instantiated. </p>
+ */
+public final class MazeGenerator {
+
+    /** Share of the pellets that are power pellets. */
+    static final double POWER_PELLET_SHARE = 0.02;
+
+    /** Power mode duration of generated configurations, in seconds. */
+    static final double POWER_MODE_DURATION = 10.0;
+
+    /** Lives of generated configurations. */
+    static final int LIVES = 3;
+
+    /** Speed of Pacman in generated configurations, in tiles per second. */
+    static final double PACMAN_SPEED = 3.0;
+
+    /** Speed of the ghosts in generated configurations, in tiles per second. */
+    private static final double GHOST_SPEED = 2.5;
+
+    /**
+     * Generates a maze.
+     *
+     * @param seed the seed of the random generator.
+     * @param width the width of the board in tiles, at least 3.
+     * @param height the height of the board in tiles, at least 3.
+     * @param loopDensity the chance, from 0 to 1, that a wall between two corridors is removed.
+     *      At 0 the maze has exactly one path between any two tiles.
+     * @param pelletDensity the chance, from 0 to 1, that a corridor tile holds a pellet.
+     * @param ghostCount the number of ghosts, cycling through the ghost types.
+     * @param strategy the search strategy of every ghost (must not be {@code null})
+     * @return the generated configuration.
+     * @throws IllegalArgumentException if a setting is out of range, the board is too large,
+     *      or the maze has no room for the ghosts.
+     */
+    public static GameConfig generate(long seed, int width, int height, double loopDensity,
+        double pelletDensity, int ghostCount, StrategyType strategy) {
+        if (width < 3 || height < 3) {
+            throw new IllegalArgumentException("width and height must be at least 3");
+        }
+        if ((long) width * height > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("board is too large");
+        }
+        if (!(loopDensity >= 0 && loopDensity <= 1) || !(pelletDensity >= 0 && pelletDensity <= 1)) {
+            throw new IllegalArgumentException("densities must be between 0 and 1");
+        }
+        if (ghostCount < 0) {
+            throw new IllegalArgumentException("ghostCount must be non-negative");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must not be null");
+        }
+
+        Random random = new Random(seed);
+        TileGrid board = new TileGrid(width, height, TileType.WALL);
+        carve(board, random);
+        addLoops(board, random, loopDensity);
+
+        Position pacmanStartPosition = new Position(center(width), center(height));
+        List<GhostSpawn> ghosts = placeGhosts(board, random, ghostCount, strategy,
+            pacmanStartPosition);
+        int numberOfItems = scatterPellets(board, random, pelletDensity, pacmanStartPosition);
+
+        return new GameConfig(
+            board,
+            POWER_MODE_DURATION,
+            LIVES,
+            PACMAN_SPEED,
+            numberOfItems,
+            pacmanStartPosition,
+            ghosts);
+    }
+
+    /**
+     * Generates a maze and writes it as a JSON configuration.
+     *
+     * <p> Usage: {@code MazeGenerator <seed> <width> <height> <loopDensity>
+     * <pelletDensity> <ghostCount> <strategy> <config.json>} </p>
+     *
+     * @param args the settings of {@link #generate}, and the path of the JSON configuration.
+     */
+    public static void main(String[] args) {
+        if (args.length != 8) {
+            System.err.println("Usage: MazeGenerator <seed> <width> <height> <loopDensity>"
+                + " <pelletDensity> <ghostCount> <strategy> <config.json>");
+            System.exit(1);
+        }
+
+        GameConfig config = generate(
+            Long.parseLong(args[0]),
+            Integer.parseInt(args[1]),
+            Integer.parseInt(args[2]),
+            Double.parseDouble(args[3]),
+            Double.parseDouble(args[4]),
+            Integer.parseInt(args[5]),
+            StrategyType.valueOf(args[6].toUpperCase(Locale.ROOT)));
+        try (OutputStream output = Files.newOutputStream(Path.of(args[7]))) {
+            GameConfigFactory.toJson(config, output);
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing JSON file. Ensure the path is writable", ioException);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that carves a perfect maze with a randomized depth-first search.
+     * The tiles at odd coordinates are the cells of the maze, and a cell is visited
+     * once it has been carved.
+     *
+     * @param board the board, all walls.
+     * @param random the random generator.
+     */
+    static void carve(TileGrid board, Random random) {
+        int width = board.width();
+        int cellsX = (width - 1) / 2;
+        int cellsY = (board.height() - 1) / 2;
+        int[] stack = new int[cellsX * cellsY];
+        int[] options = new int[4];
+        int top = 0;
+
+        board.set(board.index(1, 1), TileType.EMPTY);
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int cellX = cell % cellsX;
+            int cellY = cell / cellsX;
+
+            int count = 0;
+            if (cellY > 0 && !isCarved(board, cellX, cellY - 1)) {
+                options[count++] = cell - cellsX;
+            }
+            if (cellY < cellsY - 1 && !isCarved(board, cellX, cellY + 1)) {
+                options[count++] = cell + cellsX;
+            }
+            if (cellX > 0 && !isCarved(board, cellX - 1, cellY)) {
+                options[count++] = cell - 1;
+            }
+            if (cellX < cellsX - 1 && !isCarved(board, cellX + 1, cellY)) {
+                options[count++] = cell + 1;
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+
+            int next = options[random.nextInt(count)];
+            int nextX = next % cellsX;
+            int nextY = next / cellsX;
+            /* The wall between two cells is halfway between their tiles. */
+            board.set(board.index(cellX + nextX + 1, cellY + nextY + 1), TileType.EMPTY);
+            board.set(board.index(2 * nextX + 1, 2 * nextY + 1), TileType.EMPTY);
+            stack[top++] = next;
+        }
+    }
+
+    /**
+     * Helper function that checks if a cell of the maze has been carved.
+     *
+     * @param board the board.
+     * @param cellX the column of the cell, in cells.
+     * @param cellY the row of the cell, in cells.
+     * @return {@code true} if the tile of the cell is walkable.
+     */
+    private static boolean isCarved(TileGrid board, int cellX, int cellY) {
+        return board.isWalkable(2 * cellX + 1, 2 * cellY + 1);
+    }
+
+    /**
+     * Helper function that removes walls separating two neighbouring cells at random.
+     *
+     * @param board the board, with a perfect maze carved.
+     * @param random the random generator.
+     * @param loopDensity the chance that a wall is removed.
+     */
+    static void addLoops(TileGrid board, Random random, double loopDensity) {
+        if (loopDensity == 0) {
+            return;
+        }
+        int lastX = 2 * ((board.width() - 1) / 2) - 1;
+        int lastY = 2 * ((board.height() - 1) / 2) - 1;
+        for (int y = 1; y <= lastY; y++) {
+            /* Walls between cells sit at even x on odd rows, and odd x on even rows. */
+            for (int x = 1 + (y & 1); x <= lastX; x += 2) {
+                int index = board.index(x, y);
+                if (!board.isWalkable(index) && random.nextDouble() < loopDensity) {
+                    board.set(index, TileType.EMPTY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function that places the ghosts at random cells other than Pacman's.
+     *
+     * @param board the board, with the maze carved.
+     * @param random the random generator.
+     * @param ghostCount the number of ghosts.
+     * @param strategy the search strategy of every ghost.
+     * @param pacmanStartPosition the start position of Pacman.
+     * @return the ghost roster.
+     * @throws IllegalArgumentException if the maze has no cell but Pacman's.
+     */
+    static List<GhostSpawn> placeGhosts(TileGrid board, Random random, int ghostCount,
+        StrategyType strategy, Position pacmanStartPosition) {
+        int cellsX = (board.width() - 1) / 2;
+        int cellsY = (board.height() - 1) / 2;
+        if (ghostCount > 0 && cellsX * cellsY == 1) {
+            throw new IllegalArgumentException("maze is too small for the ghosts");
+        }
+
+        GhostType[] types = GhostType.values();
+        List<GhostSpawn> ghosts = new ArrayList<>(ghostCount);
+        while (ghosts.size() < ghostCount) {
+            int cell = random.nextInt(cellsX * cellsY);
+            Position position = new Position(2 * (cell % cellsX) + 1, 2 * (cell / cellsX) + 1);
+            if (!position.equals(pacmanStartPosition)) {
+                ghosts.add(new GhostSpawn(types[ghosts.size() % types.length],
+                    position, GHOST_SPEED, strategy));
+            }
+        }
+        return ghosts;
+    }
+
+    /**
+     * Helper function that scatters pellets and power pellets over the corridors,
+     * leaving Pacman's start tile empty.
+     *
+     * @param board the board, with the maze carved.
+     * @param random the random generator.
+     * @param pelletDensity the chance that a corridor tile holds a pellet.
+     * @param pacmanStartPosition the start position of Pacman.
+     * @return the number of pellets and power pellets.
+     */
+    private static int scatterPellets(TileGrid board, Random random, double pelletDensity,
+        Position pacmanStartPosition) {
+        int start = board.index(pacmanStartPosition.x(), pacmanStartPosition.y());
+        int items = 0;
+        for (int index = 0; index < board.size(); index++) {
+            if (index == start || !board.isWalkable(index)
+                || random.nextDouble() >= pelletDensity) {
+                continue;
+            }
+            board.set(index, random.nextDouble() < POWER_PELLET_SHARE
+                ? TileType.POWER_PELLET
+                : TileType.PELLET);
+            items++;
+        }
+        return items;
+    }
+
+    /**
+     * Helper function that returns the cell coordinate nearest the middle of a side.
+     *
+     * @param length the length of the side in tiles, at least 3.
+     * @return an odd coordinate of a cell.
+     */
+    private static int center(int length) {
+        int cells = (length - 1) / 2;
+        return 2 * (cells / 2) + 1;
+    }
+
+    /** Private constructor to prevent external instantiation */
+    private MazeGenerator() {}
+}
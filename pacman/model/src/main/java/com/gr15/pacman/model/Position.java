@@ -53,6 +53,20 @@ public record Position(int x, int y) {
         return y >= 0 && y < board.length && x >= 0 && x < board[y].length;
     }
 
+    /**
+     * Checks if this position is a tile of the provided board.
+     *
+     * @param board the board to check against (must not be {@code null})
+     * @return {@code true} if the position is a tile of the board, {@code false} otherwise
+     * @throws IllegalArgumentException if {@code board} is {@code null}
+     */
+    public boolean inBounds(Board board) {
+        if (board == null) {
+            throw new IllegalArgumentException("board must not be null");
+        }
+        return board.contains(x, y);
+    }
+
     /**
      * Calculates the Euclidean distance from this position to another.
      *
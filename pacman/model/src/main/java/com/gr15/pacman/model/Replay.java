@@ -0,0 +1,500 @@
+package com.gr15.pacman.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.gr15.pacman.model.entities.Entity;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.Ghost;
+
+/**
+ * A recorded game, read from a replay file written by {@link ReplayWriter}
+ * and played back by {@link ReplayPlayer}.
+ *
+ * <p> Games are deterministic, so a replay only holds the inputs given to Pacman,
+ * with the tick they were given at, and the game is played again from the
+ * configuration and the inputs. Every so many ticks the whole state is stored as
+ * a keyframe, so a viewer can jump to any tick by starting from the keyframe
+ * before it, and a player can check that it still plays the same game. A keyframe
+ * is also stored whenever the game jumped to a state it did not update to, such as
+ * after being rewound or reset, and the player jumps to it as well. </p>
+ *
+ * <p> A replay file starts with a header, followed by records in the order
+ * they were written. Every record is a tag byte and the number of ticks since
+ * the record before as a variable-length integer, so an input usually takes
+ * two bytes. Records are only ever appended, and a file cut short, say by a
+ * crash, is read up to its last whole record. All values are little-endian. </p>
+ *
+ * <p> Layout of the header:
+ * <ul>
+ *   <li>magic number and format version (two ints)</li>
+ *   <li>SHA-256 hash of the configuration, see {@link #hashOf} (32 bytes)</li>
+ *   <li>ticks per second (double)</li>
+ * </ul></p>
+ *
+ * <p> Layout of a keyframe: score, lives and items left (three ints), power mode
+ * and time out durations (two doubles), the number of eaten tiles and their indices
+ * in the order they were eaten, the number of entities, then per entity, Pacman
+ * first: tile index, sub-tile offsets (two floats) and directions (byte). Counts
+ * and indices are variable-length integers. </p>
+ */
+public final class Replay {
+
+    /** Magic number at the start of every replay file, "PMRP". */
+    static final int MAGIC = 0x50524D50;
+
+    /** Version of the format, bumped whenever the layout or the enums change. */
+    static final int VERSION = 1;
+
+    /** Byte order of every value in the file. */
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Size of the configuration hash in bytes. */
+    static final int HASH_SIZE = 32;
+
+    /** Tags of inputs are the ordinals of their direction, all below this tag. */
+    static final byte INPUT_LIMIT = 0x10;
+
+    /** Tag of a keyframe the game updated to, followed by its size and contents. */
+    static final byte KEYFRAME = 0x10;
+
+    /** Tag of a keyframe the game jumped to, followed by its size and contents. */
+    static final byte JUMP = 0x11;
+
+    /** Tag of the end of the replay. */
+    static final byte END = 0x12;
+
+    /** Directions by ordinal, to avoid copying {@link Direction#values()} on every read. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** The contents of the file. */
+    private final ByteBuffer data;
+
+    /** Hash of the configuration the game was started from. */
+    private final byte[] configHash;
+
+    /** Number of ticks per second the game was updated at. */
+    private final double tickRate;
+
+    /** Tick of each record. */
+    private final long[] recordTicks;
+
+    /** Tag of each record. */
+    private final byte[] recordTags;
+
+    /** Position of the contents of each keyframe in {@link #data}, or zero for other records. */
+    private final int[] recordOffsets;
+
+    /** Number of records. */
+    private final int recordCount;
+
+    /** The last tick of the replay. */
+    private final long ticks;
+
+    /**
+     * Constructs a replay from its parsed parts.
+     *
+     * @param data the contents of the file.
+     * @param configHash the hash of the configuration.
+     * @param tickRate the number of ticks per second.
+     * @param recordTicks the tick of each record.
+     * @param recordTags the tag of each record.
+     * @param recordOffsets the position of the contents of each keyframe.
+     * @param recordCount the number of records.
+     * @param ticks the last tick of the replay.
+     */
+    private Replay(ByteBuffer data, byte[] configHash, double tickRate, long[] recordTicks,
+        byte[] recordTags, int[] recordOffsets, int recordCount, long ticks) {
+        this.data = data;
+        this.configHash = configHash;
+        this.tickRate = tickRate;
+        this.recordTicks = recordTicks;
+        this.recordTags = recordTags;
+        this.recordOffsets = recordOffsets;
+        this.recordCount = recordCount;
+        this.ticks = ticks;
+    }
+
+    /**
+     * Reads a replay file.
+     *
+     * @param path the path of the replay file.
+     * @return the replay.
+     * @throws RuntimeException if the file is not a valid replay file
+     *      or if an I/O error occurs during reading.
+     */
+    public static Replay read(Path path) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error reading replay file. Ensure the file exists and is accessible", ioException);
+        }
+        return parse(ByteBuffer.wrap(bytes).order(ORDER));
+    }
+
+    /**
+     * Computes the hash identifying a configuration in replay files,
+     * the SHA-256 hash of the configuration written as JSON.
+     *
+     * @param config the configuration (must not be {@code null})
+     * @return the hash.
+     * @throws IllegalArgumentException if {@code config} is {@code null}
+     */
+    public static byte[] hashOf(GameConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config must not be null");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            GameConfigFactory.toJson(config,
+                new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            /* Every Java platform is required to support SHA-256 */
+            throw new IllegalStateException(noSuchAlgorithmException);
+        }
+    }
+
+    /**
+     * Checks if the replay was recorded with a configuration.
+     *
+     * @param config the configuration (must not be {@code null})
+     * @return {@code true} if the configuration has the hash in the replay.
+     * @throws IllegalArgumentException if {@code config} is {@code null}
+     */
+    public boolean matches(GameConfig config) {
+        return Arrays.equals(configHash, hashOf(config));
+    }
+
+    /*************************************************************
+     *                          GETTERS                          *
+     *************************************************************/
+
+    /**
+     * Returns the number of ticks per second the game was updated at.
+     *
+     * @return the tick rate.
+     */
+    public double tickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Returns the last tick of the replay, the number of updates
+     * from the start, not counting jumps.
+     *
+     * @return the last tick.
+     */
+    public long ticks() {
+        return this.ticks;
+    }
+
+    /**
+     * Returns the number of inputs in the replay.
+     *
+     * @return the number of inputs.
+     */
+    public int inputCount() {
+        int inputs = 0;
+        for (int i = 0; i < recordCount; i++) {
+            if (recordTags[i] < INPUT_LIMIT) {
+                inputs++;
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns the number of records, inputs and keyframes.
+     *
+     * @return the number of records.
+     */
+    int recordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Returns the tick of a record.
+     *
+     * @param record the index of the record.
+     * @return the tick the record was written at.
+     */
+    long recordTick(int record) {
+        return this.recordTicks[record];
+    }
+
+    /**
+     * Returns the tag of a record.
+     *
+     * @param record the index of the record.
+     * @return the tag, a direction ordinal for inputs, or {@link #KEYFRAME} or {@link #JUMP}.
+     */
+    byte recordTag(int record) {
+        return this.recordTags[record];
+    }
+
+    /**
+     * Returns the direction of an input.
+     *
+     * @param record the index of an input record.
+     * @return the direction given to Pacman.
+     */
+    Direction inputDirection(int record) {
+        return DIRECTIONS[recordTags[record]];
+    }
+
+    /**
+     * Returns the contents of a keyframe.
+     *
+     * @param record the index of a keyframe record.
+     * @return a buffer over the contents of the keyframe.
+     */
+    ByteBuffer keyframe(int record) {
+        ByteBuffer view = data.duplicate().order(ORDER).position(recordOffsets[record]);
+        int size = (int) getVarLong(view);
+        return view.slice(view.position(), size).order(ORDER);
+    }
+
+    /*************************************************************
+     *                          KEYFRAMES                        *
+     *************************************************************/
+
+    /**
+     * Returns the largest size of the keyframe of a game in bytes.
+     *
+     * @param state the game.
+     * @return the size a buffer must have to hold the keyframe.
+     */
+    static int maxKeyframeSize(GameState state) {
+        return 3 * 4 + 2 * 8 + 5 + 5 * state.getChangedTileCount()
+            + 5 + (1 + state.getGhosts().size()) * (5 + 4 + 4 + 1);
+    }
+
+    /**
+     * Writes the keyframe of a game.
+     *
+     * @param state the game.
+     * @param buffer the buffer to write to, with room for {@link #maxKeyframeSize}.
+     */
+    static void writeKeyframe(GameState state, ByteBuffer buffer) {
+        buffer.putInt(state.getScore())
+            .putInt(state.getLives())
+            .putInt(state.getNumberOfItemsLeft())
+            .putDouble(state.getPowerModeDuration())
+            .putDouble(state.getTimeOutDuration());
+
+        int eaten = state.getChangedTileCount();
+        putVarLong(buffer, eaten);
+        for (int i = 0; i < eaten; i++) {
+            putVarLong(buffer, state.getChangedTile(i));
+        }
+
+        Board board = state.getBoard();
+        List<Ghost> ghosts = state.getGhosts();
+        putVarLong(buffer, 1 + ghosts.size());
+        for (int i = 0; i <= ghosts.size(); i++) {
+            Entity entity = i == 0 ? state.getPacman() : ghosts.get(i - 1);
+            Position position = entity.getPosition();
+            putVarLong(buffer, board.index(position.x(), position.y()));
+            buffer.putFloat(entity.getSubTileX())
+                .putFloat(entity.getSubTileY())
+                .put((byte) (entity.getDirection().ordinal() << 4
+                    | entity.getNextDirection().ordinal()));
+        }
+    }
+
+    /**
+     * Starts a new game of a level from a keyframe of a game of it.
+     *
+     * @param level the level of the game.
+     * @param buffer the contents of the keyframe.
+     * @return the game, as it was when the keyframe was written.
+     * @throws RuntimeException if the keyframe does not fit the level.
+     */
+    static GameState readKeyframe(CompiledLevel level, ByteBuffer buffer) {
+        GameState state = new GameState(level);
+        try {
+            state.setScore(buffer.getInt());
+            state.setLives(buffer.getInt());
+            state.setNumberOfItemsLeft(buffer.getInt());
+            state.setPowerMode(buffer.getDouble());
+            state.setTimeOutDuration(buffer.getDouble());
+
+            Board board = state.getBoard();
+            long eaten = getVarLong(buffer);
+            for (long i = 0; i < eaten; i++) {
+                state.clearTile(tileIndex(board, getVarLong(buffer)));
+            }
+
+            List<Ghost> ghosts = state.getGhosts();
+            if (getVarLong(buffer) != 1 + ghosts.size()) {
+                throw new RuntimeException("Ill formated replay file, keyframe has other ghosts.");
+            }
+            for (int i = 0; i <= ghosts.size(); i++) {
+                Entity entity = i == 0 ? state.getPacman() : ghosts.get(i - 1);
+                int tile = tileIndex(board, getVarLong(buffer));
+                entity.setPosition(new Position(tile % board.width(), tile / board.width()));
+                entity.setSubTileX(buffer.getFloat());
+                entity.setSubTileY(buffer.getFloat());
+                int directions = buffer.get();
+                entity.setCurrentDirection(direction(directions >> 4 & 0xF));
+                entity.setDirection(direction(directions & 0xF));
+                entity.savePreviousPosition();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            throw new RuntimeException("Ill formated replay file.", exception);
+        }
+        return state;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that parses a replay file.
+     *
+     * @param buffer the whole file, in the byte order of the format.
+     * @return the replay.
+     * @throws RuntimeException if the file is not a valid replay file.
+     */
+    private static Replay parse(ByteBuffer buffer) {
+        byte[] configHash = new byte[HASH_SIZE];
+        double tickRate;
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new RuntimeException("Not a replay file, wrong magic number.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new RuntimeException("Unsupported replay file version: " + version);
+            }
+            buffer.get(configHash);
+            tickRate = buffer.getDouble();
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new RuntimeException("Ill formated replay file.", bufferUnderflowException);
+        }
+        if (!(tickRate > 0)) {
+            throw new RuntimeException("Ill formated replay file, invalid tick rate.");
+        }
+
+        long[] recordTicks = new long[64];
+        byte[] recordTags = new byte[64];
+        int[] recordOffsets = new int[64];
+        int count = 0;
+        long tick = 0;
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            byte tag = buffer.get();
+            int offset = 0;
+            try {
+                tick += getVarLong(buffer);
+                if (tag == KEYFRAME || tag == JUMP) {
+                    offset = buffer.position();
+                    long size = getVarLong(buffer);
+                    if (size > buffer.remaining()) {
+                        throw new BufferUnderflowException();
+                    }
+                    buffer.position(buffer.position() + (int) size);
+                } else if (tag != END && (tag < 0 || tag >= DIRECTIONS.length)) {
+                    throw new RuntimeException("Ill formated replay file, unknown tag: " + tag);
+                }
+            } catch (BufferUnderflowException bufferUnderflowException) {
+                buffer.position(start);
+                break; /* The file was cut short in the middle of a record */
+            }
+            if (tag == END) {
+                break;
+            }
+            if (count == recordTicks.length) {
+                recordTicks = Arrays.copyOf(recordTicks, count * 2);
+                recordTags = Arrays.copyOf(recordTags, count * 2);
+                recordOffsets = Arrays.copyOf(recordOffsets, count * 2);
+            }
+            recordTicks[count] = tick;
+            recordTags[count] = tag;
+            recordOffsets[count] = offset;
+            count++;
+        }
+        if (count == 0 || (recordTags[0] != KEYFRAME && recordTags[0] != JUMP)) {
+            throw new RuntimeException("Ill formated replay file, no keyframe to start from.");
+        }
+        return new Replay(buffer, configHash, tickRate,
+            recordTicks, recordTags, recordOffsets, count, tick);
+    }
+
+    /**
+     * Helper function that checks a tile index read from a keyframe.
+     *
+     * @param board the board of the game.
+     * @param index the index read.
+     * @return the index.
+     * @throws RuntimeException if the index is not a tile of the board.
+     */
+    private static int tileIndex(Board board, long index) {
+        if (index < 0 || index >= board.size() || board.get((int) index) == null) {
+            throw new RuntimeException("Ill formated replay file, tile outside the board: " + index);
+        }
+        return (int) index;
+    }
+
+    /**
+     * Helper function that looks up a direction by its ordinal in the file.
+     *
+     * @param ordinal the ordinal read from the file.
+     * @return the direction with the ordinal.
+     * @throws RuntimeException if no direction has the ordinal.
+     */
+    private static Direction direction(int ordinal) {
+        if (ordinal >= DIRECTIONS.length) {
+            throw new RuntimeException("Ill formated replay file, unknown ordinal: " + ordinal);
+        }
+        return DIRECTIONS[ordinal];
+    }
+
+    /**
+     * Writes a non-negative integer in as few bytes as possible,
+     * seven bits per byte, with the high bit set on all but the last byte.
+     *
+     * @param buffer the buffer to write to.
+     * @param value the value, not negative.
+     */
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an integer written by {@link #putVarLong}.
+     *
+     * @param buffer the buffer to read from.
+     * @return the value.
+     * @throws BufferUnderflowException if the buffer ends before the value.
+     */
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte part = buffer.get();
+            value |= (long) (part & 0x7F) << shift;
+            if (part >= 0) {
+                return value;
+            }
+        }
+        throw new RuntimeException("Ill formated replay file, integer is too long.");
+    }
+}
@@ -0,0 +1,234 @@
+package com.gr15.pacman.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plays back a {@link Replay} by playing the game again from its inputs.
+ *
+ * <p> The player can step through the replay one tick at a time, or seek to any
+ * tick, which starts from the last keyframe before it and plays the ticks in
+ * between. Seeking forward only starts from a keyframe when that keyframe is
+ * ahead of the current tick. </p>
+ *
+ * <p> Since starting from a keyframe or following a jump in the replay starts
+ * a new game, {@link #getState()} must be asked for again after every call to
+ * {@link #step()}, {@link #seek} or {@link #verify()}. </p>
+ */
+public final class ReplayPlayer {
+
+    /** The replay being played. */
+    private final Replay replay;
+
+    /** The level the replay was recorded on. */
+    private final CompiledLevel level;
+
+    /** Length of a tick in seconds. */
+    private final double stepSeconds;
+
+    /** The game being played. */
+    private GameState state;
+
+    /** Number of updates from the start of the replay. */
+    private long tick;
+
+    /** Index of the next record to apply. */
+    private int nextRecord;
+
+    /** Buffer the keyframes of the game are written to when verifying. */
+    private ByteBuffer scratch = ByteBuffer.allocate(256).order(Replay.ORDER);
+
+    /**
+     * Constructs a player at the start of a replay.
+     *
+     * @param replay the replay (must not be {@code null})
+     * @param level the level the replay was recorded on (must not be {@code null})
+     * @throws IllegalArgumentException if {@code replay} or {@code level} is {@code null},
+     *      or if the replay was recorded with another configuration.
+     * @throws RuntimeException if the first keyframe does not fit the level.
+     */
+    public ReplayPlayer(Replay replay, CompiledLevel level) {
+        if (replay == null) {
+            throw new IllegalArgumentException("replay must not be null");
+        }
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        if (!replay.matches(level.config())) {
+            throw new IllegalArgumentException("replay was recorded with another configuration");
+        }
+        this.replay = replay;
+        this.level = level;
+        this.stepSeconds = 1.0 / replay.tickRate();
+        load(0);
+    }
+
+    /**
+     * Plays a single tick of the replay, giving Pacman the inputs
+     * recorded at the current tick and updating the game.
+     *
+     * @throws IllegalStateException if the replay is finished.
+     * @throws RuntimeException if a keyframe does not fit the level.
+     */
+    public void step() {
+        if (isFinished()) {
+            throw new IllegalStateException("replay is finished");
+        }
+        applyRecords(false);
+        state.update(stepSeconds);
+        tick++;
+    }
+
+    /**
+     * Moves the replay to a tick, the state before the inputs at that tick.
+     *
+     * @param target the tick to move to.
+     * @throws IllegalArgumentException if {@code target} is negative
+     *      or after the end of the replay.
+     * @throws RuntimeException if a keyframe does not fit the level.
+     */
+    public void seek(long target) {
+        if (target < 0 || target > replay.ticks()) {
+            throw new IllegalArgumentException("target must be between 0 and " + replay.ticks());
+        }
+        int keyframe = keyframeBefore(target);
+        if (target < tick || keyframe >= nextRecord) {
+            load(keyframe);
+        }
+        while (tick < target) {
+            step();
+        }
+    }
+
+    /**
+     * Plays the rest of the replay, checking the game against
+     * every keyframe the game updated to.
+     *
+     * <p> A replay only plays back the game that was recorded if the game
+     * still updates the same way, so this finds replays broken by changes
+     * to the rules and nondeterminism alike. </p>
+     *
+     * @return the first tick at which the game differs from
+     *      the recorded game, or {@code -1} if it never does.
+     * @throws RuntimeException if a keyframe does not fit the level.
+     */
+    public long verify() {
+        while (true) {
+            if (!applyRecords(true)) {
+                return tick;
+            }
+            if (isFinished()) {
+                return -1;
+            }
+            state.update(stepSeconds);
+            tick++;
+        }
+    }
+
+    /*************************************************************
+     *                          GETTERS                          *
+     *************************************************************/
+
+    /**
+     * Returns the game being played.
+     *
+     * @return the current game state.
+     */
+    public GameState getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns the number of updates from the start of the replay.
+     *
+     * @return the current tick.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Checks if the replay has been played to its end.
+     *
+     * @return {@code true} if the current tick is the last tick of the replay.
+     */
+    public boolean isFinished() {
+        return tick >= replay.ticks();
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that applies the records at the current tick in the
+     * order they were written: inputs are given to Pacman, jumps start a new
+     * game from their keyframe and keyframes are checked if verifying.
+     *
+     * @param verify whether to check the game against keyframes.
+     * @return {@code false} if a keyframe did not match the game.
+     */
+    private boolean applyRecords(boolean verify) {
+        while (nextRecord < replay.recordCount() && replay.recordTick(nextRecord) == tick) {
+            byte tag = replay.recordTag(nextRecord);
+            if (tag < Replay.INPUT_LIMIT) {
+                state.getPacman().setDirection(replay.inputDirection(nextRecord));
+            } else if (tag == Replay.JUMP) {
+                state = Replay.readKeyframe(level, replay.keyframe(nextRecord));
+            } else if (verify && !matchesKeyframe(nextRecord)) {
+                return false;
+            }
+            nextRecord++;
+        }
+        return true;
+    }
+
+    /**
+     * Helper function that checks the game against a keyframe.
+     *
+     * @param record the index of the keyframe record.
+     * @return {@code true} if the keyframe of the game is the same.
+     */
+    private boolean matchesKeyframe(int record) {
+        int size = Replay.maxKeyframeSize(state);
+        if (scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() * 2)).order(Replay.ORDER);
+        }
+        scratch.clear();
+        Replay.writeKeyframe(state, scratch);
+        return scratch.flip().equals(replay.keyframe(record));
+    }
+
+    /**
+     * Helper function that starts a new game from a keyframe.
+     *
+     * @param record the index of the keyframe record.
+     */
+    private void load(int record) {
+        state = Replay.readKeyframe(level, replay.keyframe(record));
+        tick = replay.recordTick(record);
+        nextRecord = record + 1;
+    }
+
+    /**
+     * Helper function that finds the last keyframe at or before a tick.
+     *
+     * @param target the tick.
+     * @return the index of the keyframe record.
+     */
+    private int keyframeBefore(long target) {
+        int low = 0;
+        int high = replay.recordCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (replay.recordTick(middle) <= target) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        while (replay.recordTag(low) < Replay.INPUT_LIMIT) {
+            low--; /* The first record is always a keyframe */
+        }
+        return low;
+    }
+}
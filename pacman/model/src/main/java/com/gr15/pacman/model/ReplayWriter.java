@@ -0,0 +1,250 @@
+package com.gr15.pacman.model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * Records a game to a replay file, see {@link Replay} for the format.
+ *
+ * <p> The writer is told about every input given to Pacman with {@link #input},
+ * every update with {@link #tick}, and every time the game jumps to a state it
+ * did not update to, such as after being rewound or reset, with {@link #jump}.
+ * The game is recorded from the state it is in when the writer is created. </p>
+ *
+ * <p> Records are buffered and written to the file at every keyframe, when
+ * flushed and when closed. Recording an input or a tick does not allocate. </p>
+ */
+public final class ReplayWriter
+    implements Closeable {
+
+    /** Number of ticks between keyframes, unless given. */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 600;
+
+    /** Largest size of a tag and a tick count in bytes. */
+    private static final int RECORD_HEADER_SIZE = 1 + 10 + 5;
+
+    /** The file being written. */
+    private final OutputStream output;
+
+    /** Number of ticks between keyframes. */
+    private final int keyframeInterval;
+
+    /** Buffer the tag and tick count of a record are put together in. */
+    private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(Replay.ORDER);
+
+    /** Buffer keyframes are put together in, grown as the game goes on. */
+    private ByteBuffer keyframe = ByteBuffer.allocate(256).order(Replay.ORDER);
+
+    /** Number of updates recorded. */
+    private long tick = 0;
+
+    /** Tick of the last record written. */
+    private long lastRecordTick = 0;
+
+    /** Whether the file has been closed. */
+    private boolean closed = false;
+
+    /**
+     * Creates a replay file of a game, with the default keyframe interval.
+     *
+     * @param path the path of the replay file, replaced if it exists.
+     * @param state the game, recorded from its current state (must not be {@code null})
+     * @param tickRate the number of ticks per second the game is updated at.
+     * @throws IllegalArgumentException if {@code state} is {@code null}
+     *      or {@code tickRate} is not positive.
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public ReplayWriter(Path path, GameState state, double tickRate) {
+        this(path, state, tickRate, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates a replay file of a game.
+     *
+     * @param path the path of the replay file, replaced if it exists.
+     * @param state the game, recorded from its current state (must not be {@code null})
+     * @param tickRate the number of ticks per second the game is updated at.
+     * @param keyframeInterval the number of ticks between keyframes.
+     * @throws IllegalArgumentException if {@code state} is {@code null},
+     *      or {@code tickRate} or {@code keyframeInterval} is not positive.
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public ReplayWriter(Path path, GameState state, double tickRate, int keyframeInterval) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null");
+        }
+        if (!(tickRate > 0) || Double.isInfinite(tickRate)) {
+            throw new IllegalArgumentException("tickRate must be positive");
+        }
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframeInterval must be positive");
+        }
+        this.keyframeInterval = keyframeInterval;
+
+        ByteBuffer fileHeader = ByteBuffer.allocate(4 + 4 + Replay.HASH_SIZE + 8).order(Replay.ORDER);
+        fileHeader.putInt(Replay.MAGIC)
+            .putInt(Replay.VERSION)
+            .put(Replay.hashOf(state.getConfig()))
+            .putDouble(tickRate);
+        try {
+            this.output = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+            output.write(fileHeader.array());
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing replay file. Ensure the path is writable", ioException);
+        }
+        writeKeyframe(Replay.KEYFRAME, state);
+    }
+
+    /**
+     * Records an input given to Pacman before the next update.
+     *
+     * @param direction the direction given to Pacman (must not be {@code null})
+     * @throws IllegalArgumentException if {@code direction} is {@code null}
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public void input(Direction direction) {
+        if (direction == null) {
+            throw new IllegalArgumentException("direction must not be null");
+        }
+        writeHeader((byte) direction.ordinal());
+        write(header.flip());
+    }
+
+    /**
+     * Records an update of the game, writing a keyframe every so many ticks.
+     *
+     * @param state the game, after the update (must not be {@code null})
+     * @throws IllegalArgumentException if {@code state} is {@code null}
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public void tick(GameState state) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null");
+        }
+        tick++;
+        if (tick % keyframeInterval == 0) {
+            writeKeyframe(Replay.KEYFRAME, state);
+        }
+    }
+
+    /**
+     * Records that the game jumped to a state it did not update to,
+     * such as after being rewound or reset.
+     *
+     * @param state the game, after the jump (must not be {@code null})
+     * @throws IllegalArgumentException if {@code state} is {@code null}
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public void jump(GameState state) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null");
+        }
+        writeKeyframe(Replay.JUMP, state);
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    public void flush() {
+        try {
+            output.flush();
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing replay file. Ensure the path is writable", ioException);
+        }
+    }
+
+    /**
+     * Marks the end of the replay and closes the file.
+     * Closing a closed writer has no effect.
+     *
+     * @throws RuntimeException if an I/O error occurs during writing.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeHeader(Replay.END);
+        write(header.flip());
+        try {
+            output.close();
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing replay file. Ensure the path is writable", ioException);
+        }
+    }
+
+    /**
+     * Returns the number of updates recorded.
+     *
+     * @return the current tick.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that puts the tag of a record and the number
+     * of ticks since the last record in {@link #header}.
+     *
+     * @param tag the tag of the record.
+     */
+    private void writeHeader(byte tag) {
+        header.clear();
+        header.put(tag);
+        Replay.putVarLong(header, tick - lastRecordTick);
+        lastRecordTick = tick;
+    }
+
+    /**
+     * Helper function that writes a keyframe of a game and flushes the file.
+     *
+     * @param tag {@link Replay#KEYFRAME} or {@link Replay#JUMP}.
+     * @param state the game.
+     */
+    private void writeKeyframe(byte tag, GameState state) {
+        int size = Replay.maxKeyframeSize(state);
+        if (keyframe.capacity() < size) {
+            keyframe = ByteBuffer.allocate(Math.max(size, keyframe.capacity() * 2)).order(Replay.ORDER);
+        }
+        keyframe.clear();
+        Replay.writeKeyframe(state, keyframe);
+        keyframe.flip();
+
+        writeHeader(tag);
+        Replay.putVarLong(header, keyframe.remaining());
+        write(header.flip());
+        write(keyframe);
+        flush();
+    }
+
+    /**
+     * Helper function that writes the contents of a buffer to the file.
+     *
+     * @param buffer the buffer, written from its position to its limit.
+     */
+    private void write(ByteBuffer buffer) {
+        try {
+            output.write(buffer.array(), buffer.position(), buffer.remaining());
+        } catch (IOException ioException) {
+            throw new RuntimeException(
+                "Error writing replay file. Ensure the path is writable", ioException);
+        }
+    }
+}
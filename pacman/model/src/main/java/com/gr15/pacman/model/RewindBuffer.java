@@ -0,0 +1,634 @@
+package com.gr15.pacman.model;
+
+import java.util.List;
+
+import com.gr15.pacman.model.entities.Entity;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.Ghost;
+
+/**
+ * Records the recent ticks of a game, so it can be rewound to any of them.
+ *
+ * <p> The state of the game is recorded after every update: the tile, sub-tile
+ * offsets and directions of every entity, the score, lives, items left and
+ * timers, and how many tiles have been eaten. The eaten tiles themselves are
+ * taken from the journal the game keeps anyway, so rewinding only puts back
+ * the tiles eaten since. </p>
+ *
+ * <p> Every so many ticks the whole state is stored as a keyframe. Other ticks
+ * only store what changed since the tick before, such as the entities that
+ * moved. Records are written to a ring of bytes of a fixed size, which is never
+ * reallocated, and the oldest ticks are dropped when it is full or when they fall
+ * out of the window. Recording a tick does not allocate. Restoring a tick
+ * decodes at most a keyframe and the ticks after it. </p>
+ *
+ * <p> Rewinding discards the ticks after the restored one, so the game
+ * continues from there. The buffer starts over when the game is reset,
+ * its board is replaced or its number of ghosts changes. </p>
+ */
+public final class RewindBuffer {
+
+    /** Number of ticks between keyframes, unless given. */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+
+    /** Size of the ring of records in bytes, unless given. */
+    public static final int DEFAULT_BUDGET_BYTES = 4 << 20;
+
+    /** Flag of a record holding the whole state. */
+    private static final int KEYFRAME = 1;
+
+    /** Flag of a record holding the score. */
+    private static final int SCORE = 1 << 1;
+
+    /** Flag of a record holding the lives. */
+    private static final int LIVES = 1 << 2;
+
+    /** Flag of a record holding the number of items left. */
+    private static final int ITEMS = 1 << 3;
+
+    /** Flag of a record holding the power mode duration. */
+    private static final int POWER_MODE = 1 << 4;
+
+    /** Flag of a record holding the time out duration. */
+    private static final int TIME_OUT = 1 << 5;
+
+    /** Flag of a record holding the number of eaten tiles. */
+    private static final int TILES = 1 << 6;
+
+    /** Flags of a keyframe. */
+    private static final int ALL = KEYFRAME | SCORE | LIVES | ITEMS | POWER_MODE | TIME_OUT | TILES;
+
+    /** Largest size of the flags and the game fields of a record, in bytes. */
+    private static final int HEADER_BYTES = 1 + 4 + 4 + 4 + 8 + 8 + 4 + 4;
+
+    /** Size of an entity in a record, not counting its index, in bytes. */
+    private static final int ENTITY_BYTES = 4 + 4 + 4 + 1;
+
+    /** Directions by ordinal, to avoid copying {@link Direction#values()} on every read. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Ring of records. */
+    private final byte[] data;
+
+    /** Number of ticks kept at least, if the budget allows. */
+    private final int maxTicks;
+
+    /** Number of ticks between keyframes. */
+    private final int keyframeInterval;
+
+    /** Position in {@link #data} each record starts at, by slot. */
+    private final int[] recordStarts;
+
+    /** Length of each record in bytes, by slot. */
+    private final int[] recordLengths;
+
+    /** Slot of the oldest record. */
+    private int oldestSlot = 0;
+
+    /** Number of records kept. */
+    private int count = 0;
+
+    /** Number of bytes of {@link #data} in use. */
+    private int usedBytes = 0;
+
+    /** Position in {@link #data} the next record starts at. */
+    private int writePosition = 0;
+
+    /** Position in {@link #data} the next value is read from. */
+    private int readPosition = 0;
+
+    /** Tick of the oldest record. */
+    private long oldestTick = 0;
+
+    /** Board of the game when it was last recorded, or {@code null} if nothing is recorded. */
+    private Board board = null;
+
+    /** Board generation of the game when it was last recorded. */
+    private int boardGeneration = 0;
+
+    /** Number of entities in every record, Pacman first. */
+    private int entityCount = 0;
+
+    /** Tile index of every entity at the last recorded or restored tick. */
+    private int[] entityTiles = new int[0];
+
+    /** Sub-tile X offset of every entity at the last recorded or restored tick. */
+    private float[] entitySubTileX = new float[0];
+
+    /** Sub-tile Y offset of every entity at the last recorded or restored tick. */
+    private float[] entitySubTileY = new float[0];
+
+    /** Current and next direction of every entity at the last recorded or restored tick,
+     * as the ordinals in the high and low four bits. */
+    private byte[] entityDirections = new byte[0];
+
+    /** Score at the last recorded or restored tick. */
+    private int score;
+
+    /** Lives at the last recorded or restored tick. */
+    private int lives;
+
+    /** Number of items left at the last recorded or restored tick. */
+    private int itemsLeft;
+
+    /** Power mode duration at the last recorded or restored tick. */
+    private double powerModeDuration;
+
+    /** Time out duration at the last recorded or restored tick. */
+    private double timeOutDuration;
+
+    /** Number of eaten tiles at the last recorded or restored tick. */
+    private int eatenTiles;
+
+    /**
+     * Constructs an empty rewind buffer.
+     *
+     * @param maxTicks the number of ticks that can be rewound at least, if the budget allows.
+     * @param keyframeInterval the number of ticks between keyframes.
+     * @param budgetBytes the size of the ring of records in bytes.
+     * @throws IllegalArgumentException if an argument is not positive.
+     */
+    public RewindBuffer(int maxTicks, int keyframeInterval, int budgetBytes) {
+        if (maxTicks <= 0) {
+            throw new IllegalArgumentException("maxTicks must be positive");
+        }
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframeInterval must be positive");
+        }
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("budgetBytes must be positive");
+        }
+        this.maxTicks = maxTicks;
+        this.keyframeInterval = keyframeInterval;
+        this.data = new byte[budgetBytes];
+        this.recordStarts = new int[maxTicks + keyframeInterval];
+        this.recordLengths = new int[maxTicks + keyframeInterval];
+    }
+
+    /**
+     * Creates a rewind buffer keeping a number of seconds of a game,
+     * with the default keyframe interval and memory budget.
+     *
+     * @param seconds the number of seconds that can be rewound.
+     * @param ticksPerSecond the number of ticks per second of the game.
+     * @return the rewind buffer.
+     * @throws IllegalArgumentException if an argument is not positive.
+     */
+    public static RewindBuffer forSeconds(double seconds, double ticksPerSecond) {
+        if (!(seconds > 0) || !(ticksPerSecond > 0)) {
+            throw new IllegalArgumentException("seconds and ticksPerSecond must be positive");
+        }
+        return new RewindBuffer((int) Math.ceil(seconds * ticksPerSecond),
+            DEFAULT_KEYFRAME_INTERVAL, DEFAULT_BUDGET_BYTES);
+    }
+
+    /*************************************************************
+     *                     RECORDING AND REWINDING               *
+     *************************************************************/
+
+    /**
+     * Records the current state of a game as the newest tick. Called after every update.
+     *
+     * @param state the game (must not be {@code null})
+     * @throws IllegalArgumentException if {@code state} is {@code null}
+     * @throws IllegalStateException if a single tick does not fit in the budget.
+     */
+    public void record(GameState state) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null");
+        }
+
+        List<Ghost> ghosts = state.getGhosts();
+        int entities = 1 + ghosts.size();
+        int eaten = state.getChangedTileCount();
+        if (count > 0 && (state.getBoard() != board || entities != entityCount
+            || state.getBoardGeneration() - boardGeneration != eaten - eatenTiles)) {
+            clear(); /* Reset, board replaced or ghosts changed */
+        }
+        if (entities != entityCount) {
+            resizeEntities(entities);
+        }
+
+        int maxBytes = HEADER_BYTES + entities * (4 + ENTITY_BYTES);
+        if (maxBytes >= data.length) {
+            throw new IllegalStateException("A tick of the game does not fit in the budget");
+        }
+        long tick = oldestTick + count;
+        while (count > 0 && (usedBytes + maxBytes > data.length
+            || count + 1 - groupLength() >= maxTicks)) {
+            dropOldestGroup();
+        }
+        if (count == 0) {
+            oldestTick = tick;
+        }
+        boolean keyframe = count == 0 || tick % keyframeInterval == 0;
+
+        int flags = keyframe ? ALL : 0;
+        if (state.getScore() != score) { flags |= SCORE; }
+        if (state.getLives() != lives) { flags |= LIVES; }
+        if (state.getNumberOfItemsLeft() != itemsLeft) { flags |= ITEMS; }
+        if (state.getPowerModeDuration() != powerModeDuration) { flags |= POWER_MODE; }
+        if (state.getTimeOutDuration() != timeOutDuration) { flags |= TIME_OUT; }
+        if (eaten != eatenTiles) { flags |= TILES; }
+        score = state.getScore();
+        lives = state.getLives();
+        itemsLeft = state.getNumberOfItemsLeft();
+        powerModeDuration = state.getPowerModeDuration();
+        timeOutDuration = state.getTimeOutDuration();
+        eatenTiles = eaten;
+
+        int start = writePosition;
+        putByte(flags);
+        if ((flags & SCORE) != 0) { putInt(score); }
+        if ((flags & LIVES) != 0) { putInt(lives); }
+        if ((flags & ITEMS) != 0) { putInt(itemsLeft); }
+        if ((flags & POWER_MODE) != 0) { putLong(Double.doubleToRawLongBits(powerModeDuration)); }
+        if ((flags & TIME_OUT) != 0) { putLong(Double.doubleToRawLongBits(timeOutDuration)); }
+        if ((flags & TILES) != 0) { putInt(eatenTiles); }
+
+        Board gameBoard = state.getBoard();
+        if (keyframe) {
+            putInt(entities);
+            for (int i = 0; i < entities; i++) {
+                Entity entity = i == 0 ? state.getPacman() : ghosts.get(i - 1);
+                storeEntity(i, entity, gameBoard);
+                putEntity(i);
+            }
+        } else {
+            int changed = 0;
+            for (int i = 0; i < entities; i++) {
+                if (hasChanged(i, i == 0 ? state.getPacman() : ghosts.get(i - 1), gameBoard)) {
+                    changed++;
+                }
+            }
+            putInt(changed);
+            for (int i = 0; i < entities && changed > 0; i++) {
+                Entity entity = i == 0 ? state.getPacman() : ghosts.get(i - 1);
+                if (hasChanged(i, entity, gameBoard)) {
+                    storeEntity(i, entity, gameBoard);
+                    putInt(i);
+                    putEntity(i);
+                    changed--;
+                }
+            }
+        }
+
+        int slot = slot(count);
+        recordStarts[slot] = start;
+        recordLengths[slot] = Math.floorMod(writePosition - start, data.length);
+        usedBytes += recordLengths[slot];
+        count++;
+        board = gameBoard;
+        boardGeneration = state.getBoardGeneration();
+    }
+
+    /**
+     * Restores a game to a recorded tick, discarding the ticks after it.
+     * The game must not have been updated since it was last recorded.
+     *
+     * @param state the game that was recorded (must not be {@code null})
+     * @param tick the tick to restore, between {@link #oldestTick} and {@link #newestTick}.
+     * @throws IllegalArgumentException if {@code state} is {@code null}
+     *      or {@code tick} is not recorded.
+     * @throws IllegalStateException if the game changed since it was last recorded.
+     */
+    public void restore(GameState state, long tick) {
+        if (state == null) {
+            throw new IllegalArgumentException("state must not be null");
+        }
+        if (count == 0 || tick < oldestTick || tick > newestTick()) {
+            throw new IllegalArgumentException("tick is not recorded");
+        }
+        if (state.getBoard() != board || state.getBoardGeneration() != boardGeneration
+            || 1 + state.getGhosts().size() != entityCount) {
+            throw new IllegalStateException("The game has changed since it was last recorded");
+        }
+
+        int target = (int) (tick - oldestTick);
+        int first = target;
+        while ((data[recordStarts[slot(first)]] & KEYFRAME) == 0) {
+            first--;
+        }
+        for (int i = first; i <= target; i++) {
+            readRecord(recordStarts[slot(i)]);
+        }
+
+        state.setScore(score);
+        state.setLives(lives);
+        state.setNumberOfItemsLeft(itemsLeft);
+        state.setPowerMode(powerModeDuration);
+        state.setTimeOutDuration(timeOutDuration);
+        state.rewindTiles(eatenTiles);
+        Board gameBoard = state.getBoard();
+        List<Ghost> ghosts = state.getGhosts();
+        for (int i = 0; i < entityCount; i++) {
+            loadEntity(i, i == 0 ? state.getPacman() : ghosts.get(i - 1), gameBoard);
+        }
+
+        /* Discarding the ticks after the restored one */
+        for (int i = target + 1; i < count; i++) {
+            usedBytes -= recordLengths[slot(i)];
+        }
+        int slot = slot(target);
+        writePosition = (recordStarts[slot] + recordLengths[slot]) % data.length;
+        count = target + 1;
+        boardGeneration = state.getBoardGeneration();
+    }
+
+    /**
+     * Rewinds a game by a number of ticks, or to the oldest recorded tick
+     * if fewer are recorded, discarding the ticks after it.
+     * The game must not have been updated since it was last recorded.
+     *
+     * @param state the game that was recorded (must not be {@code null})
+     * @param ticks the number of ticks to rewind.
+     * @return the number of ticks rewound.
+     * @throws IllegalArgumentException if {@code state} is {@code null} or {@code ticks} is negative.
+     * @throws IllegalStateException if the game changed since it was last recorded.
+     */
+    public int rewind(GameState state, int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("ticks must be non-negative");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int rewound = Math.min(ticks, count - 1);
+        restore(state, newestTick() - rewound);
+        return rewound;
+    }
+
+    /**
+     * Discards all recorded ticks.
+     */
+    public void clear() {
+        count = 0;
+        usedBytes = 0;
+        oldestSlot = 0;
+        writePosition = 0;
+        oldestTick = 0;
+        board = null;
+    }
+
+    /*************************************************************
+     *                          GETTERS                          *
+     *************************************************************/
+
+    /**
+     * Returns the number of recorded ticks.
+     *
+     * @return the number of ticks that can be restored.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the oldest recorded tick. Ticks are counted from the first
+     * recorded after the buffer was created or started over.
+     *
+     * @return the oldest tick that can be restored.
+     */
+    public long oldestTick() {
+        return this.oldestTick;
+    }
+
+    /**
+     * Returns the newest recorded tick.
+     *
+     * @return the newest tick, or one less than {@link #oldestTick} if nothing is recorded.
+     */
+    public long newestTick() {
+        return oldestTick + count - 1;
+    }
+
+    /**
+     * Returns the number of bytes of the budget in use.
+     *
+     * @return the size of the recorded ticks in bytes.
+     */
+    public int usedBytes() {
+        return this.usedBytes;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that returns the slot of a record.
+     *
+     * @param record the record, counted from the oldest.
+     * @return the slot of the record.
+     */
+    private int slot(int record) {
+        return (oldestSlot + record) % recordStarts.length;
+    }
+
+    /**
+     * Helper function that returns the number of records from the oldest keyframe
+     * up to the next keyframe, or to the newest record.
+     *
+     * @return the number of records in the oldest group.
+     */
+    private int groupLength() {
+        int length = 1;
+        while (length < count && (data[recordStarts[slot(length)]] & KEYFRAME) == 0) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Helper function that drops the oldest keyframe and the records after it
+     * up to the next keyframe, as they cannot be restored without it.
+     */
+    private void dropOldestGroup() {
+        int length = groupLength();
+        for (int i = 0; i < length; i++) {
+            usedBytes -= recordLengths[slot(i)];
+        }
+        oldestSlot = slot(length);
+        oldestTick += length;
+        count -= length;
+    }
+
+    /**
+     * Helper function that resizes the recorded entities, forgetting their state.
+     *
+     * @param entities the new number of entities.
+     */
+    private void resizeEntities(int entities) {
+        entityCount = entities;
+        entityTiles = new int[entities];
+        entitySubTileX = new float[entities];
+        entitySubTileY = new float[entities];
+        entityDirections = new byte[entities];
+    }
+
+    /**
+     * Helper function that checks if an entity differs from its recorded state.
+     *
+     * @param index the index of the entity, Pacman first.
+     * @param entity the entity.
+     * @param gameBoard the board of the game.
+     * @return {@code true} if the entity moved or turned.
+     */
+    private boolean hasChanged(int index, Entity entity, Board gameBoard) {
+        Position position = entity.getPosition();
+        return entityTiles[index] != gameBoard.index(position.x(), position.y())
+            || entitySubTileX[index] != entity.getSubTileX()
+            || entitySubTileY[index] != entity.getSubTileY()
+            || entityDirections[index] != directionsOf(entity);
+    }
+
+    /**
+     * Helper function that copies the state of an entity to its recorded state.
+     *
+     * @param index the index of the entity, Pacman first.
+     * @param entity the entity.
+     * @param gameBoard the board of the game.
+     */
+    private void storeEntity(int index, Entity entity, Board gameBoard) {
+        Position position = entity.getPosition();
+        entityTiles[index] = gameBoard.index(position.x(), position.y());
+        entitySubTileX[index] = entity.getSubTileX();
+        entitySubTileY[index] = entity.getSubTileY();
+        entityDirections[index] = directionsOf(entity);
+    }
+
+    /**
+     * Helper function that copies the recorded state of an entity to the entity.
+     * The entity is drawn where it is, without interpolating from where it was.
+     *
+     * @param index the index of the entity, Pacman first.
+     * @param entity the entity.
+     * @param gameBoard the board of the game.
+     */
+    private void loadEntity(int index, Entity entity, Board gameBoard) {
+        int tile = entityTiles[index];
+        int width = gameBoard.width();
+        Position position = entity.getPosition();
+        if (gameBoard.index(position.x(), position.y()) != tile) {
+            entity.setPosition(new Position(tile % width, tile / width));
+        }
+        entity.setSubTileX(entitySubTileX[index]);
+        entity.setSubTileY(entitySubTileY[index]);
+        entity.setCurrentDirection(DIRECTIONS[entityDirections[index] >> 4]);
+        entity.setDirection(DIRECTIONS[entityDirections[index] & 0xF]);
+        entity.savePreviousPosition();
+    }
+
+    /**
+     * Helper function that packs the directions of an entity into a byte.
+     *
+     * @param entity the entity.
+     * @return the current direction in the high and the next direction in the low four bits.
+     */
+    private static byte directionsOf(Entity entity) {
+        return (byte) (entity.getDirection().ordinal() << 4 | entity.getNextDirection().ordinal());
+    }
+
+    /**
+     * Helper function that decodes a record into the recorded state,
+     * on top of the state of the tick before it unless it is a keyframe.
+     *
+     * @param start the position of the record in {@link #data}.
+     */
+    private void readRecord(int start) {
+        readPosition = start;
+        int flags = getByte();
+        if ((flags & SCORE) != 0) { score = getInt(); }
+        if ((flags & LIVES) != 0) { lives = getInt(); }
+        if ((flags & ITEMS) != 0) { itemsLeft = getInt(); }
+        if ((flags & POWER_MODE) != 0) { powerModeDuration = Double.longBitsToDouble(getLong()); }
+        if ((flags & TIME_OUT) != 0) { timeOutDuration = Double.longBitsToDouble(getLong()); }
+        if ((flags & TILES) != 0) { eatenTiles = getInt(); }
+
+        int entities = getInt();
+        for (int i = 0; i < entities; i++) {
+            int index = (flags & KEYFRAME) != 0 ? i : getInt();
+            entityTiles[index] = getInt();
+            entitySubTileX[index] = Float.intBitsToFloat(getInt());
+            entitySubTileY[index] = Float.intBitsToFloat(getInt());
+            entityDirections[index] = (byte) getByte();
+        }
+    }
+
+    /**
+     * Helper function that writes the recorded state of an entity to the ring.
+     *
+     * @param index the index of the entity, Pacman first.
+     */
+    private void putEntity(int index) {
+        putInt(entityTiles[index]);
+        putInt(Float.floatToRawIntBits(entitySubTileX[index]));
+        putInt(Float.floatToRawIntBits(entitySubTileY[index]));
+        putByte(entityDirections[index]);
+    }
+
+    /**
+     * Helper function that writes a byte to the ring, wrapping around at its end.
+     *
+     * @param value the byte, in the low eight bits.
+     */
+    private void putByte(int value) {
+        data[writePosition] = (byte) value;
+        if (++writePosition == data.length) {
+            writePosition = 0;
+        }
+    }
+
+    /**
+     * Helper function that writes an int to the ring, little-endian.
+     *
+     * @param value the int.
+     */
+    private void putInt(int value) {
+        putByte(value);
+        putByte(value >>> 8);
+        putByte(value >>> 16);
+        putByte(value >>> 24);
+    }
+
+    /**
+     * Helper function that writes a long to the ring, little-endian.
+     *
+     * @param value the long.
+     */
+    private void putLong(long value) {
+        putInt((int) value);
+        putInt((int) (value >>> 32));
+    }
+
+    /**
+     * Helper function that reads a byte from the ring, wrapping around at its end.
+     *
+     * @return the byte, from 0 to 255.
+     */
+    private int getByte() {
+        int value = data[readPosition] & 0xFF;
+        if (++readPosition == data.length) {
+            readPosition = 0;
+        }
+        return value;
+    }
+
+    /**
+     * Helper function that reads a little-endian int from the ring.
+     *
+     * @return the int.
+     */
+    private int getInt() {
+        return getByte() | getByte() << 8 | getByte() << 16 | getByte() << 24;
+    }
+
+    /**
+     * Helper function that reads a little-endian long from the ring.
+     *
+     * @return the long.
+     */
+    private long getLong() {
+        return (getInt() & 0xFFFFFFFFL) | (long) getInt() << 32;
+    }
+}
@@ -0,0 +1,505 @@
+package com.gr15.pacman.model;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import com.gr15.pacman.model.GameState.TileType;
+
+/**
+ * A {@link Board} kept wholly in memory, stored as a flat buffer of tiles.
+ *
+ * <p> Tiles are addressed by index, {@code y * width + x}, and stored as one
+ * byte each, together with a bitset of the tiles that cannot be walked on.
+ * Boards read from jagged rows are padded to the width of the longest row;
+ * padding cells are not tiles, cannot be walked on and are never drawn. </p>
+ *
+ * <p> A board of ten million tiles takes roughly eleven megabytes,
+ * and walkability checks read a single bit. </p>
+ *
+ * <p> A board can be made read-only with {@link #readOnlyCopy}, so it can be
+ * shared freely. Copies of a read-only board share its tiles until they are
+ * first written to, so copying one is cheap until then. A writable board can
+ * be split in two with {@link #fork}, after which both copy the tiles on their
+ * first write. </p>
+ *
+ * <p> The tiles are kept in buffers rather than arrays, so a board loaded by
+ * {@link LevelFile} can use the memory mapped file directly. </p>
+ */
+public final class TileGrid
+    implements Board {
+
+    /** Byte stored for padding cells, which are not tiles. */
+    private static final byte NO_TILE = -1;
+
+    /** Tile types by ordinal, to avoid copying {@link TileType#values()} on every read. */
+    private static final TileType[] TYPES = TileType.values();
+
+    /** Width of the board in tiles. */
+    private final int width;
+
+    /** Height of the board in tiles. */
+    private final int height;
+
+    /** Ordinal of the {@link TileType} of each tile, or {@link #NO_TILE}. */
+    private ByteBuffer tiles;
+
+    /** One bit per tile, set if the tile cannot be walked on. */
+    private LongBuffer blocked;
+
+    /** Whether the board rejects writes. */
+    private final boolean readOnly;
+
+    /** Whether {@link #tiles} and {@link #blocked} may be read by another board,
+     * so they must be copied before they are first written to. */
+    private boolean shared;
+
+    /**
+     * Constructs a board with every tile set to the same type.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param fill the type of every tile (must not be {@code null})
+     * @throws IllegalArgumentException if a dimension is negative,
+     *      the board is too large, or {@code fill} is {@code null}
+     */
+    public TileGrid(int width, int height, TileType fill) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be non-negative");
+        }
+        if ((long) width * height > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("board is too large");
+        }
+        if (fill == null) {
+            throw new IllegalArgumentException("fill must not be null");
+        }
+
+        this.width = width;
+        this.height = height;
+        byte[] tileArray = new byte[width * height];
+        long[] blockedArray = new long[(width * height + 63) >>> 6];
+        Arrays.fill(tileArray, (byte) fill.ordinal());
+        if (fill == TileType.WALL) {
+            Arrays.fill(blockedArray, -1L);
+        }
+        this.tiles = ByteBuffer.wrap(tileArray);
+        this.blocked = LongBuffer.wrap(blockedArray);
+        this.readOnly = false;
+        this.shared = false;
+    }
+
+    /**
+     * Copy constructor. The tiles of a read-only board, or tiles that are
+     * already shared, are shared, the tiles of a writable board are copied.
+     *
+     * @param other the board to copy.
+     * @param readOnly whether the copy rejects writes.
+     */
+    private TileGrid(TileGrid other, boolean readOnly) {
+        this.width = other.width;
+        this.height = other.height;
+        this.readOnly = readOnly;
+        this.shared = other.readOnly || other.shared;
+        this.tiles = shared ? other.tiles : copyOf(other.tiles);
+        this.blocked = shared ? other.blocked : copyOf(other.blocked);
+    }
+
+    /**
+     * Constructs a read-only board over existing buffers, without copying them.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param tiles the tile buffer, holding {@code width * height} bytes.
+     * @param blocked the walkability bitset, holding a bit per tile.
+     */
+    private TileGrid(int width, int height, ByteBuffer tiles, LongBuffer blocked) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.blocked = blocked;
+        this.readOnly = true;
+        this.shared = false;
+    }
+
+    /**
+     * Creates a board from rows of tiles. Rows shorter than the longest row
+     * are padded with cells that are not tiles.
+     *
+     * @param rows the rows of the board, top to bottom (must not be {@code null})
+     * @return the new board.
+     * @throws IllegalArgumentException if {@code rows}, a row or a tile is {@code null}
+     */
+    public static TileGrid of(TileType[][] rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("rows must not be null");
+        }
+        int width = 0;
+        for (TileType[] row : rows) {
+            if (row == null) {
+                throw new IllegalArgumentException("rows must not contain null");
+            }
+            width = Math.max(width, row.length);
+        }
+
+        TileGrid grid = new TileGrid(width, rows.length, TileType.WALL);
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x >= rows[y].length) {
+                    grid.tiles.put(y * width + x, NO_TILE);
+                } else if (rows[y][x] == null) {
+                    throw new IllegalArgumentException("rows must not contain null tiles");
+                } else {
+                    grid.set(y * width + x, rows[y][x]);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Builds a board one tile at a time, row by row, without keeping
+     * more than a byte per tile. Rows shorter than the longest row
+     * are padded with cells that are not tiles.
+     */
+    static final class RowBuilder {
+
+        /** Ordinals of the tiles added so far, row after row. */
+        private byte[] tiles = new byte[1024];
+
+        /** Number of tiles added so far. */
+        private int tileCount = 0;
+
+        /** Length of each completed row. */
+        private int[] rowLengths = new int[64];
+
+        /** Number of completed rows. */
+        private int rowCount = 0;
+
+        /** Number of tiles in the completed rows. */
+        private int rowStart = 0;
+
+        /** Length of the longest completed row. */
+        private int width = 0;
+
+        /**
+         * Adds a tile at the end of the current row.
+         *
+         * @param type the type of the tile (must not be {@code null})
+         * @throws IllegalArgumentException if {@code type} is {@code null}
+         *      or the board is too large.
+         */
+        void add(TileType type) {
+            if (type == null) {
+                throw new IllegalArgumentException("type must not be null");
+            }
+            if (tileCount == tiles.length) {
+                if (tileCount > Integer.MAX_VALUE - 64 - (tileCount >> 1)) {
+                    throw new IllegalArgumentException("board is too large");
+                }
+                tiles = Arrays.copyOf(tiles, tileCount + (tileCount >> 1));
+            }
+            tiles[tileCount++] = (byte) type.ordinal();
+        }
+
+        /**
+         * Completes the current row.
+         */
+        void endRow() {
+            if (rowCount == rowLengths.length) {
+                rowLengths = Arrays.copyOf(rowLengths, rowCount * 2);
+            }
+            int length = tileCount - rowStart;
+            rowLengths[rowCount++] = length;
+            width = Math.max(width, length);
+            rowStart = tileCount;
+        }
+
+        /**
+         * Builds a read-only board from the completed rows. The tiles are
+         * used in place unless rows have to be padded or much of the space
+         * reserved for them is unused.
+         *
+         * @return the board.
+         * @throws IllegalArgumentException if the padded board is too large.
+         */
+        TileGrid build() {
+            if ((long) width * rowCount > Integer.MAX_VALUE - 64) {
+                throw new IllegalArgumentException("board is too large");
+            }
+            int size = width * rowCount;
+            byte[] cells = tiles;
+            if (size != rowStart) {
+                /* Jagged rows, so pad each row to the full width */
+                cells = new byte[size];
+                Arrays.fill(cells, NO_TILE);
+                int from = 0;
+                for (int y = 0; y < rowCount; y++) {
+                    System.arraycopy(tiles, from, cells, y * width, rowLengths[y]);
+                    from += rowLengths[y];
+                }
+            } else if (tiles.length - size > size >> 3) {
+                cells = Arrays.copyOf(tiles, size);
+            }
+
+            long[] blocked = new long[(size + 63) >>> 6];
+            for (int i = 0; i < size; i++) {
+                if (cells[i] == NO_TILE || cells[i] == TileType.WALL.ordinal()) {
+                    blocked[i >>> 6] |= 1L << i;
+                }
+            }
+            return wrap(width, rowCount, ByteBuffer.wrap(cells).slice(0, size),
+                LongBuffer.wrap(blocked));
+        }
+    }
+
+    /**
+     * Wraps buffers laid out like the buffers of a board in a read-only board,
+     * without copying them. The contents are trusted, so they must come from
+     * {@link #tileBuffer()} and {@link #blockedBuffer()} of a board of the same size.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param tiles the tile buffer, holding {@code width * height} bytes.
+     * @param blocked the walkability bitset, holding a bit per tile.
+     * @return the read-only board.
+     * @throws IllegalArgumentException if a dimension is negative
+     *      or a buffer does not fit the dimensions.
+     */
+    static TileGrid wrap(int width, int height, ByteBuffer tiles, LongBuffer blocked) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be non-negative");
+        }
+        if ((long) width * height > Integer.MAX_VALUE - 64) {
+            throw new IllegalArgumentException("board is too large");
+        }
+        if (tiles.capacity() != width * height
+            || blocked.capacity() != (width * height + 63) >>> 6) {
+            throw new IllegalArgumentException("buffers must fit the board");
+        }
+        return new TileGrid(width, height, tiles, blocked);
+    }
+
+    /**
+     * Returns a writable copy of this board. The copy of a read-only board
+     * shares its tiles until the copy is first written to.
+     *
+     * @return the copy.
+     */
+    public TileGrid copy() {
+        return new TileGrid(this, false);
+    }
+
+    /**
+     * Returns a writable copy of this board sharing its tiles, even if it has
+     * been written to. The tiles are copied by whichever of the two boards is
+     * written to first, so forking is cheap until then.
+     *
+     * @return the copy.
+     */
+    public TileGrid fork() {
+        if (!readOnly) {
+            shared = true;
+        }
+        return new TileGrid(this, false);
+    }
+
+    /**
+     * Returns a read-only copy of this board, or the board itself if it
+     * already is read-only.
+     *
+     * @return the read-only board.
+     */
+    public TileGrid readOnlyCopy() {
+        return readOnly ? this : new TileGrid(this, true);
+    }
+
+    /**
+     * Checks if this board rejects writes.
+     *
+     * @return {@code true} if the board is read-only.
+     */
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    /*************************************************************
+     *                          ACCESSORS                        *
+     *************************************************************/
+
+    /**
+     * Returns the index of a tile.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return {@code y * width + x}
+     */
+    @Override
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Checks if a position is a tile of this board,
+     * inside the bounds and not padding.
+     *
+     * @param x the column.
+     * @param y the row.
+     * @return {@code true} if there is a tile at the position.
+     */
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height
+            && tiles.get(y * width + x) != NO_TILE;
+    }
+
+    /**
+     * Checks if the tile at an index can be walked on.
+     *
+     * @param index the index of the tile, inside the board.
+     * @return {@code true} if the tile is not a wall and not padding.
+     */
+    @Override
+    public boolean isWalkable(int index) {
+        return (blocked.get(index >>> 6) & (1L << index)) == 0;
+    }
+
+    /**
+     * Checks if a position is a tile that can be walked on.
+     * Positions outside the board cannot be walked on.
+     *
+     * @param x the column.
+     * @param y the row.
+     * @return {@code true} if the position is inside the board and walkable.
+     */
+    @Override
+    public boolean isWalkable(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && isWalkable(y * width + x);
+    }
+
+    /**
+     * Returns the tile at an index.
+     *
+     * @param index the index of the tile, inside the board.
+     * @return the type of the tile, or {@code null} for padding.
+     */
+    @Override
+    public TileType get(int index) {
+        byte tile = tiles.get(index);
+        return tile == NO_TILE ? null : TYPES[tile];
+    }
+
+    /**
+     * Returns the tile at a position.
+     *
+     * @param x the column, inside the board.
+     * @param y the row, inside the board.
+     * @return the type of the tile, or {@code null} for padding.
+     */
+    @Override
+    public TileType get(int x, int y) {
+        return get(y * width + x);
+    }
+
+    /**
+     * Sets the tile at an index.
+     *
+     * @param index the index of the tile, inside the board.
+     * @param type the new type of the tile (must not be {@code null})
+     * @throws IllegalArgumentException if {@code type} is {@code null}
+     *      or the index is padding.
+     * @throws IllegalStateException if the board is read-only.
+     */
+    @Override
+    public void set(int index, TileType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null");
+        }
+        if (readOnly) {
+            throw new IllegalStateException("board is read-only");
+        }
+        if (tiles.get(index) == NO_TILE) {
+            throw new IllegalArgumentException("index must not be padding");
+        }
+        if (shared) {
+            /* First write, so the tiles stop being shared */
+            tiles = copyOf(tiles);
+            blocked = copyOf(blocked);
+            shared = false;
+        }
+        tiles.put(index, (byte) type.ordinal());
+        long word = blocked.get(index >>> 6);
+        if (type == TileType.WALL) {
+            blocked.put(index >>> 6, word | 1L << index);
+        } else {
+            blocked.put(index >>> 6, word & ~(1L << index));
+        }
+    }
+
+    /**
+     * Returns the width of the board.
+     *
+     * @return the width in tiles.
+     */
+    @Override
+    public int width() { return this.width; }
+
+    /**
+     * Returns the height of the board.
+     *
+     * @return the height in tiles.
+     */
+    @Override
+    public int height() { return this.height; }
+
+    /**
+     * Returns the number of cells in the board, including padding.
+     *
+     * @return {@code width * height}
+     */
+    @Override
+    public int size() { return this.tiles.capacity(); }
+
+    /**
+     * Returns a read-only view of the tile buffer, one
+     * {@link TileType} ordinal per cell or {@code -1} for padding.
+     *
+     * @return the tile buffer.
+     */
+    ByteBuffer tileBuffer() { return this.tiles.asReadOnlyBuffer(); }
+
+    /**
+     * Returns a read-only view of the walkability bitset,
+     * where a set bit marks a cell that cannot be walked on.
+     *
+     * @return the walkability bitset.
+     */
+    LongBuffer blockedBuffer() { return this.blocked.asReadOnlyBuffer(); }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that copies a tile buffer to the heap.
+     *
+     * @param buffer the buffer to copy.
+     * @return the copy.
+     */
+    private static ByteBuffer copyOf(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.capacity());
+        copy.put(0, buffer, 0, buffer.capacity());
+        return copy;
+    }
+
+    /**
+     * Helper function that copies a walkability bitset to the heap.
+     *
+     * @param buffer the buffer to copy.
+     * @return the copy.
+     */
+    private static LongBuffer copyOf(LongBuffer buffer) {
+        LongBuffer copy = LongBuffer.allocate(buffer.capacity());
+        copy.put(0, buffer, 0, buffer.capacity());
+        return copy;
+    }
+}
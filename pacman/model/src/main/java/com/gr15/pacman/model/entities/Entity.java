@@ -1,7 +1,7 @@
 package com.gr15.pacman.model.entities;
 
-import com.gr15.pacman.model.GameState.TileType;
 import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.Board;
 
 /**
  * Represents an abstract entity with a position
@@ -17,32 +17,24 @@ import com.gr15.pacman.model.Position;
  *
  * <p> Handles movement logic including direction changes, wall collisions,
  * snapping to tile centers, and updating position on the game board. </p>
+ *
+ * <p> The state of an entity is kept in an {@link EntityStore}, of which the
+ * entity is a view. An entity starts in a store of its own, and a game moves
+ * its ghosts into one store, so they can be moved and collided together. </p>
  */
 public abstract class Entity {
 
-    /** Epsilon is used as tolerance when comparing floating point numbers. */
-    private static final double EPSILON = 1e-5;
-
-    /** {@link Position} for tile coordinates */
-    private Position position;
-
-    /** X component of sub tile position */
-    private float subTileX = 0.5f;
-
-    /** Y component of sub tile position */
-    private float subTileY = 0.5f;
-
-    /** Radius of the entity */
-    private double radius;
+    /** The store holding the state of the entity, one of its own until moved into another */
+    EntityStore store;
 
-    /** Current {@link Direction} in which the entity is moving */
-    private Direction currentDirection = Direction.NONE;
+    /** Index of the entity in {@link #store} */
+    int index;
 
-    /** Next {@link Direction} in which the entity will move */
-    private Direction nextDirection = Direction.NONE;
+    /** {@link Position} of the tile last returned by {@link #getPosition}, reused while on it */
+    private Position position;
 
-    /** Speed of the entity, in tiles pr second */
-    private double speed;
+    /** Directions by ordinal, to avoid copying {@link Direction#values()} on every read */
+    private static final Direction[] DIRECTIONS = Direction.values();
 
     /** Enumeration of all possible directions entities can move in. */
     public enum Direction {
@@ -75,256 +67,182 @@ public abstract class Entity {
      *      - speed is less than zero
      */
     public Entity(Position startPos, double radius, double speed) {
-        if (startPos == null) {
-            throw new IllegalArgumentException("startPos cannot be null");
-        }
-        if (radius <= 0) {
-            throw new IllegalArgumentException("radius must be positive");
-        }
-        if (speed < 0) {
-            throw new IllegalArgumentException("Speed must be non-negative");
-        }
-        this.radius = radius;
+        this.store = new EntityStore(1);
+        this.index = store.add(startPos, radius, speed);
         this.position = startPos;
-        this.speed = speed;
+    }
+
+    /**
+     * Copy constructor, copying the position, movement and
+     * interpolation state of another entity.
+     *
+     * @param other the entity to copy (must not be {@code null})
+     * @throws IllegalArgumentException if {@code other} is {@code null}
+     */
+    protected Entity(Entity other) {
+        if (other == null) {
+            throw new IllegalArgumentException("other must not be null");
+        }
+        this.store = new EntityStore(1);
+        this.index = store.copyOf(other.store, other.index);
+        this.position = other.getPosition();
     }
 
     /**
      * Updates Pacman's {@link Position} based on the time elapsed
-     * and the game {@link TileType} state.
+     * and the game {@link Board} state.
      * Handles turning, and tile boundary transitions.
      * Handles moving through multiple tiles by stepping.
      *
-     * @param board the game {@link TileType}, used to determine valid movement.
+     * @param board the game {@link Board}, used to determine valid movement.
      * @param deltaSeconds time in seconds since the last update in seconds.
      * @throws IllegalArgumentException if board is {@code null}
      */
-    public void move(TileType[][] board, double deltaSeconds) {
+    public void move(Board board, double deltaSeconds) {
         if (board == null) {
             throw new IllegalArgumentException("board must not be null");
         }
-        double distanceToMove = speed * deltaSeconds;
-
-        boolean canMoveNext = canMove(board, position, nextDirection);
-        boolean canContinue = canMove(board, position, currentDirection);
-
-        Direction direction = decideDirection(canMoveNext, canContinue);
-        if (direction == Direction.NONE) {
-            snapToCenter(distanceToMove);
-            return; /* Returning early, since no more updating required */
-        }
-
-        boolean verticalMove = isVertical(direction);
-        int directionSign = getDirectionSign(direction);
-
-        double subPrimary = verticalMove ? subTileY : subTileX;
-        double subSecondary = verticalMove ? subTileX : subTileY;
-
-        double center = Math.floor(subSecondary) + 0.5;
-        double distanceToCenter = Math.abs(subSecondary - center);
-
-        /* Snap to secondary axis center first */
-        if (distanceToCenter > EPSILON) {
-            double moveToCenter = Math.min(distanceToMove, distanceToCenter);
-            subSecondary += (subSecondary < center ? 1 : -1) * moveToCenter;
-            distanceToMove -= moveToCenter;
-        }
-
-        /* Storing new secondry axis sub-tile position */
-        if (verticalMove) {
-            subTileX = (float)subSecondary;
-        } else {
-            subTileY = (float)subSecondary;
-        }
-
-        while (distanceToMove > EPSILON) {
-            /* Capping movement distance to a single tile */
-            double maxStep = directionSign > 0 ? 1.0 - subPrimary : subPrimary;
-            double step = Math.min(distanceToMove, maxStep);
-            double newSubPrimary = subPrimary + directionSign * step;
-
-            /* Handling crossing tile boundery */
-            if (crossedTileBoundary(direction, newSubPrimary)) {
-                Position nextPos = position.offset(direction);
-                if (nextPos.inBounds(board) 
-                    && board[nextPos.y()][nextPos.x()] != TileType.WALL) {
-                    position = nextPos;
-                    subPrimary = directionSign > 0 ? 0.0 : 1.0;
-                } else {
-                    /* If hit wall, set direction to none */
-                    currentDirection = Direction.NONE;
-                    subPrimary = directionSign > 0 ? 1.0 : 0.0;
-                    break; /* stopping at wall */
-                }
-            } else {
-                subPrimary = newSubPrimary;
-            }
-
-            /* If there's still longer to go */
-            distanceToMove -= step;
-        }
-
-        /* Storing primary axis sub-tile position */
-        if (verticalMove) {
-            subTileY = (float)subPrimary;
-        } else {
-            subTileX = (float)subPrimary;
-        }
-
-        if (canMoveNext && distanceToCenter < EPSILON) {
-            currentDirection = nextDirection;
-            nextDirection = Direction.NONE;
-        }
+        store.move(index, board, deltaSeconds);
     }
 
     /**
-     * Helper function that determines if Pacman can move 
-     * in the specified direction.
+     * Helper function that checks if the entity moved more than a tile in the current tick.
      *
-     * @param board the game board of {@link TileType}.
-     * @param pos the current {@link Position}.
-     * @param dir the direction to check.
-     * @return {@code true} if the tile in the given {@link Direction} is movable.
+     * @return {@code true} if the entity should be drawn where it is, without interpolation.
      */
-    private boolean canMove(TileType[][] board, Position pos, Direction dir) {
-        assert board != null && pos != null && dir != null;
-        Position next = pos.offset(dir);
-        return dir != Direction.NONE && next.inBounds(board) 
-            && board[next.y()][next.x()] != TileType.WALL;
+    private boolean isTeleported() {
+        return Math.abs(getX() - store.previousX[index])
+            + Math.abs(getY() - store.previousY[index]) > 1;
     }
 
+    /*************************************************************
+     *                          Getters                          *
+     *************************************************************/
+
     /**
-     * Helper function that decides the {@link Direction} to move in
-     * based on current and next {@link Direction} availability.
+     * Gets the tile-based {@link Position} of the entity.
      *
-     * @param canMoveNext true if the next {@link Direction} is available.
-     * @param canContinue true if continuing in the current {@link Direction} is possible.
-     * @return the direction Pacman should move in.
+     * @return The current tile position.
      */
-    private Direction decideDirection(boolean canMoveNext, boolean canContinue) {
-        if (canMoveNext) { return nextDirection; }
-        if (canContinue) { return currentDirection; }
-        return Direction.NONE;
+    public Position getPosition() {
+        int x = store.tileX[index];
+        int y = store.tileY[index];
+        if (position.x() != x || position.y() != y) {
+            position = new Position(x, y);
+        }
+        return this.position;
     }
 
     /**
-     * helper function that checks if a {@link Direction} is vertical.
+     * Gets the radius of the entity.
      *
-     * @param dir the {@link Direction} to check.
-     * @return {@code true} if the direction is {@link Direction.UP} or {@link Direction.DOWN}.
+     * @return The collision radius.
      */
-    private boolean isVertical(Direction dir) {
-        assert dir != null;
-        return dir == Direction.UP || dir == Direction.DOWN;
-    }
+    public double getRadius() { return store.radius[index]; }
 
     /**
-     * Helper function that gets the sign of movement for a {@link Direction}.
+     * Gets the full X coordinate, including sub-tile offset.
      *
-     * @param dir the {@link Direction}.
-     * @return -1 for UP or LEFT and 1 for DOWN or RIGHT.
+     * @return The entity's X position as a double.
      */
-    private int getDirectionSign(Direction dir) {
-        assert dir != null;
-        return (dir == Direction.UP || dir == Direction.LEFT) ? -1 : 1;
-    }
+    public double getX() { return store.tileX[index] + store.subTileX[index]; }
 
     /**
-     * Helper function that determines if the entity has crossed a tile boundary.
+     * Gets the full Y coordinate, including sub-tile offset.
      *
-     * @param dir the {@link Direction} of movement.
-     * @param newPrimary the new sub-tile coordinate in the movement axis.
-     * @return {@code true} if a tile boundary was crossed.
+     * @return The entity's Y position as a double.
      */
-    private boolean crossedTileBoundary(Direction dir, double newPrimary) {
-        assert dir != null;
-        return (dir == Direction.UP && newPrimary <= 0.0)
-            || (dir == Direction.DOWN && newPrimary >= 1.0)
-            || (dir == Direction.LEFT && newPrimary <= 0.0)
-            || (dir == Direction.RIGHT && newPrimary >= 1.0);
-    }
+    public double getY() { return store.tileY[index] + store.subTileY[index]; }
 
     /**
-     * Helper function that snaps the entity toward
-     * the center of the tile when not moving.
-     
-     * @param distanceToMove the maximum distance the entity can move.
+     * Gets the sub-tile X offset.
+     *
+     * @return The X offset within the tile, from 0 to 1.
      */
-    private void snapToCenter(double distanceToMove) {
-        double center = 0.5;
-
-        subTileX = (float)snapAxisToCenter(subTileX, center, distanceToMove);
-        subTileY = (float)snapAxisToCenter(subTileY, center, distanceToMove);
-    }
+    public float getSubTileX() { return store.subTileX[index]; }
 
     /**
-     * Helper function that moves a sub-tile coordinate
-     * toward the center up to a maximum distance.
+     * Gets the sub-tile Y offset.
      *
-     * @param sub the current sub-coordinate.
-     * @param center the center coordinate (typically 0.5).
-     * @param maxMove the maximum movement allowed.
-     * @return the updated coordinate.
+     * @return The Y offset within the tile, from 0 to 1.
      */
-    private double snapAxisToCenter(double sub, double center, double maxMove) {
-        double dist = Math.abs(sub - center);
-        if (dist < maxMove) {
-            return center;
-        } else {
-            return sub + ((sub < center) ? 1 : -1) * maxMove;
-        }
-    }
-
-    /*************************************************************
-     *                          Getters                          *
-     *************************************************************/
+    public float getSubTileY() { return store.subTileY[index]; }
 
     /**
-     * Gets the tile-based {@link Position} of the entity.
+     * Gets the X coordinate the entity's last move started from. The entity moved
+     * from there to where it is, unless it was placed somewhere since.
      *
-     * @return The current tile position.
+     * @return The X coordinate at the start of the last move.
      */
-    public Position getPosition() { return this.position; }
+    public double getMoveStartX() { return store.moveStartX[index]; }
 
     /**
-     * Gets the radius of the entity.
+     * Gets the Y coordinate the entity's last move started from. The entity moved
+     * from there to where it is, unless it was placed somewhere since.
      *
-     * @return The collision radius.
+     * @return The Y coordinate at the start of the last move.
      */
-    public double getRadius() { return this.radius; }
+    public double getMoveStartY() { return store.moveStartY[index]; }
 
     /**
-     * Gets the full X coordinate, including sub-tile offset.
+     * Gets the X coordinate between the start and the end of the current tick,
+     * for drawing the entity between ticks. An entity that moved more than a tile
+     * in the tick, such as one that respawned, is not interpolated.
      *
-     * @return The entity's X position as a double.
+     * @param alpha how far into the next tick to draw, from 0 to 1.
+     * @return The interpolated X position as a double.
      */
-    public double getX() { return position.x() + subTileX; }
+    public double getX(double alpha) {
+        double previousX = store.previousX[index];
+        return isTeleported() ? getX() : previousX + (getX() - previousX) * alpha;
+    }
 
     /**
-     * Gets the full Y coordinate, including sub-tile offset.
+     * Gets the Y coordinate between the start and the end of the current tick,
+     * for drawing the entity between ticks. An entity that moved more than a tile
+     * in the tick, such as one that respawned, is not interpolated.
      *
-     * @return The entity's Y position as a double.
+     * @param alpha how far into the next tick to draw, from 0 to 1.
+     * @return The interpolated Y position as a double.
      */
-    public double getY() { return position.y() + subTileY; }
+    public double getY(double alpha) {
+        double previousY = store.previousY[index];
+        return isTeleported() ? getY() : previousY + (getY() - previousY) * alpha;
+    }
 
     /**
      * Gets the current speed of the entity.
      *
      * @return the speed in tiles per second.
      */
-    public double getSpeed() { return this.speed; }
+    public double getSpeed() { return store.speed[index]; }
 
     /**
      * Gets the current movement direction of the entity.
      *
      * @return the current {@link Direction}.
      */
-    public Direction getDirection() { return this.currentDirection; }
+    public Direction getDirection() { return DIRECTIONS[store.currentDirection[index]]; }
+
+    /**
+     * Gets the direction the entity will turn to at the next available opportunity.
+     *
+     * @return the next {@link Direction}.
+     */
+    public Direction getNextDirection() { return DIRECTIONS[store.nextDirection[index]]; }
 
     /*************************************************************
      *                          Setters                          *
      *************************************************************/
 
+    /**
+     * Records the current coordinates as the start of a tick,
+     * for {@link #getX(double)} and {@link #getY(double)}.
+     */
+    public final void savePreviousPosition() {
+        store.savePreviousPosition(index);
+    }
+
     /**
      * Sets the entity's tile-based {@link Position}.
      *
@@ -336,6 +254,7 @@ public abstract class Entity {
             throw new IllegalArgumentException("newPos must not be null");
         }
         this.position = newPos;
+        store.setTile(index, newPos.x(), newPos.y());
     }
 
     /**
@@ -344,7 +263,8 @@ public abstract class Entity {
      * @param newX The new sub-tile X coordinate.
      */
     public void setSubTileX(float newX) {
-        this.subTileX = newX;
+        store.subTileX[index] = newX;
+        store.resetMoveStart(index);
     }
 
     /**
@@ -353,7 +273,8 @@ public abstract class Entity {
      * @param newY The new sub-tile Y coordinate.
      */
     public void setSubTileY(float newY) {
-        this.subTileY = newY;
+        store.subTileY[index] = newY;
+        store.resetMoveStart(index);
     }
 
     /**
@@ -365,7 +286,7 @@ public abstract class Entity {
         if (newRadius <= 0) {
             throw new IllegalArgumentException("radius must be positive");
         }
-        this.radius = newRadius;
+        store.setRadius(index, newRadius);
     }
 
     /**
@@ -377,7 +298,21 @@ public abstract class Entity {
         if (newSpeed < 0) {
             throw new IllegalArgumentException("Speed must be non-negative");
         }
-        this.speed = newSpeed;
+        store.speed[index] = newSpeed;
+    }
+
+    /**
+     * Sets the direction the entity is moving in right away, without waiting
+     * for an opportunity to turn. Used to restore a recorded state.
+     *
+     * @param newDir the current {@link Direction}.
+     * @throws IllegalArgumentException if newDir is null
+     */
+    public void setCurrentDirection(Direction newDir) {
+        if (newDir == null) {
+            throw new IllegalArgumentException("newDir must not be null");
+        }
+        store.currentDirection[index] = (byte) newDir.ordinal();
     }
 
     /**
@@ -389,6 +324,6 @@ public abstract class Entity {
         if (newDir == null) {
                 throw new IllegalArgumentException("newDir must not be null");
         }
-        this.nextDirection = newDir;
+        store.nextDirection[index] = (byte) newDir.ordinal();
     }
 }
@@ -0,0 +1,692 @@
+package com.gr15.pacman.model.entities;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.entities.Entity.Direction;
+import com.gr15.pacman.model.entities.searching.FlowField;
+
+/**
+ * Keeps many entities in parallel arrays of primitives, one array per field,
+ * and steers, moves and collides all of them in tight loops over the arrays.
+ *
+ * <p> Entities in a store are only numbers in arrays, identified by their index,
+ * and are read and written through the store. A {@link Pacman} or {@link Ghost}
+ * is a view of an entity in a store: its getters and setters read and write the
+ * arrays, so code working with the objects sees the entities the systems move.
+ * Every entity object starts in a store of its own, and {@link #add(Entity)}
+ * moves it into another, such as the store of the ghosts of a game. An entity
+ * is in at most one store, adding it to another removes it from the first. </p>
+ *
+ * <p> Entities in a store move by the same rules as {@link Entity#move}, are steered
+ * like ghosts following a shared {@link FlowField}, and collide like
+ * {@link EntityUtils#timeOfImpact}, so a crowd in a store plays like the same
+ * crowd of objects. Collisions are found through a {@link SpatialHash} of the
+ * entities, kept up to date as they move to other tiles, so with many entities
+ * only the ones near the entity tested against are tested. </p>
+ */
+public final class EntityStore {
+
+    /** Directions by ordinal, to avoid copying {@link Direction#values()} on every read. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Ordinal of {@link Direction#NONE}. */
+    private static final byte NONE = (byte) Direction.NONE.ordinal();
+
+    /** Number of entities from which collisions are found through {@link #spatialHash}. */
+    private static final int GRID_THRESHOLD = 32;
+
+    /** Column of the tile of each entity. */
+    int[] tileX;
+
+    /** Row of the tile of each entity. */
+    int[] tileY;
+
+    /** X component of the sub tile position of each entity. */
+    float[] subTileX;
+
+    /** Y component of the sub tile position of each entity. */
+    float[] subTileY;
+
+    /** X coordinate the last move of each entity started from. */
+    double[] moveStartX;
+
+    /** Y coordinate the last move of each entity started from. */
+    double[] moveStartY;
+
+    /** X coordinate of each entity at the start of the current tick, for interpolation. */
+    double[] previousX;
+
+    /** Y coordinate of each entity at the start of the current tick, for interpolation. */
+    double[] previousY;
+
+    /** Speed of each entity, in tiles per second. */
+    double[] speed;
+
+    /** Radius of each entity. */
+    double[] radius;
+
+    /** Ordinal of the direction each entity is moving in. */
+    byte[] currentDirection;
+
+    /** Ordinal of the direction each entity will turn to when it can. */
+    byte[] nextDirection;
+
+    /** Whether each entity is turned by {@link #steerAll}. */
+    private boolean[] steered;
+
+    /** The object viewing each entity, or {@code null} for entities only kept in the store. */
+    private Entity[] views;
+
+    /** Number of entities in the store. */
+    private int count = 0;
+
+    /** Index of the entities by tile, for finding collisions, built when first needed. */
+    private SpatialHash spatialHash;
+
+    /** Largest radius of the entities, which decides how far around an entity to look. */
+    private double maxRadius = 0;
+
+    /** The movement of the entity being moved, reused for every entity. */
+    private final Movement movement = new Movement();
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param capacity the number of entities to make room for, grown as needed.
+     * @throws IllegalArgumentException if {@code capacity} is negative.
+     */
+    public EntityStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        tileX = new int[capacity];
+        tileY = new int[capacity];
+        subTileX = new float[capacity];
+        subTileY = new float[capacity];
+        moveStartX = new double[capacity];
+        moveStartY = new double[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+        speed = new double[capacity];
+        radius = new double[capacity];
+        currentDirection = new byte[capacity];
+        nextDirection = new byte[capacity];
+        steered = new boolean[capacity];
+        views = new Entity[capacity];
+    }
+
+    /**
+     * Adds an entity at the center of a tile, standing still.
+     * The entity is steered by {@link #steerAll}.
+     *
+     * @param startPos the tile of the entity (must not be {@code null})
+     * @param radius the collision radius of the entity.
+     * @param speed the speed of the entity, in tiles per second.
+     * @return the index of the entity.
+     * @throws IllegalArgumentException if {@code startPos} is {@code null},
+     *      {@code radius} is not positive or {@code speed} is negative.
+     */
+    public int add(Position startPos, double radius, double speed) {
+        if (startPos == null) {
+            throw new IllegalArgumentException("startPos cannot be null");
+        }
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        if (speed < 0) {
+            throw new IllegalArgumentException("Speed must be non-negative");
+        }
+        int index = append(startPos.x(), startPos.y(), radius);
+        this.subTileX[index] = 0.5f;
+        this.subTileY[index] = 0.5f;
+        this.speed[index] = speed;
+        this.currentDirection[index] = NONE;
+        this.nextDirection[index] = NONE;
+        this.steered[index] = true;
+        resetMoveStart(index);
+        savePreviousPosition(index);
+        return index;
+    }
+
+    /**
+     * Moves an entity into the store, with its position, directions, radius,
+     * speed and last move, removing it from the store it was in. The entity
+     * object is a view of its index in this store from then on.
+     * The entity is steered by {@link #steerAll}.
+     *
+     * @param entity the entity to move (must not be {@code null})
+     * @return the index of the entity.
+     * @throws IllegalArgumentException if {@code entity} is {@code null}
+     *      or already in this store.
+     */
+    public int add(Entity entity) {
+        if (entity == null) {
+            throw new IllegalArgumentException("entity must not be null");
+        }
+        if (entity.store == this) {
+            throw new IllegalArgumentException("entity is already in the store");
+        }
+        EntityStore from = entity.store;
+        int index = copyOf(from, entity.index);
+        from.remove(entity.index);
+        bind(index, entity);
+        steered[index] = true;
+        return index;
+    }
+
+    /**
+     * Copies an entity of the store to an entity object, with its position,
+     * directions, radius and speed. The object's last move is not swept.
+     *
+     * @param index the index of the entity in the store.
+     * @param entity the entity to copy to (must not be {@code null})
+     * @throws IllegalArgumentException if {@code entity} is {@code null}
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public void copyTo(int index, Entity entity) {
+        if (entity == null) {
+            throw new IllegalArgumentException("entity must not be null");
+        }
+        Objects.checkIndex(index, count);
+        entity.setPosition(new Position(tileX[index], tileY[index]));
+        entity.setSubTileX(subTileX[index]);
+        entity.setSubTileY(subTileY[index]);
+        entity.setCurrentDirection(DIRECTIONS[currentDirection[index]]);
+        entity.setDirection(DIRECTIONS[nextDirection[index]]);
+        entity.setRadius(radius[index]);
+        entity.setSpeed(speed[index]);
+    }
+
+    /**
+     * Removes every entity from the store. Entity objects viewing the
+     * entities are moved to stores of their own, keeping their state.
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            if (views[i] != null) {
+                EntityStore own = new EntityStore(1);
+                own.bind(own.copyOf(this, i), views[i]);
+                views[i] = null;
+            }
+        }
+        spatialHash = null;
+        count = 0;
+        maxRadius = 0;
+    }
+
+    /*************************************************************
+     *                          SYSTEMS                          *
+     *************************************************************/
+
+    /**
+     * Turns every steered entity towards the goal of a flow field, like a ghost
+     * following a shared {@link com.gr15.pacman.model.entities.searching.FlowFieldSearch}.
+     * Entities at the goal, off the board or unable to reach the goal keep their directions.
+     *
+     * @param board the board the field was computed on (must not be {@code null})
+     * @param field the flow field to follow (must not be {@code null})
+     * @throws IllegalArgumentException if {@code board} or {@code field} is {@code null}
+     */
+    public void steerAll(Board board, FlowField field) {
+        if (board == null) {
+            throw new IllegalArgumentException("board must not be null");
+        }
+        if (field == null) {
+            throw new IllegalArgumentException("field must not be null");
+        }
+        for (int i = 0; i < count; i++) {
+            if (steered[i] && board.contains(tileX[i], tileY[i])) {
+                Direction direction = field.directionFrom(board.index(tileX[i], tileY[i]));
+                if (direction != Direction.NONE) {
+                    nextDirection[i] = (byte) direction.ordinal();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every entity by the time elapsed, by the same rules as {@link Entity#move}.
+     *
+     * @param board the game {@link Board}, used to determine valid movement (must not be {@code null})
+     * @param deltaSeconds time in seconds since the last update in seconds.
+     * @throws IllegalArgumentException if {@code board} is {@code null}
+     */
+    public void moveAll(Board board, double deltaSeconds) {
+        if (board == null) {
+            throw new IllegalArgumentException("board must not be null");
+        }
+        for (int i = 0; i < count; i++) {
+            move(i, board, deltaSeconds);
+        }
+    }
+
+    /**
+     * Calls an action for every entity of the store that collided with an entity
+     * during their last moves, like {@link EntityUtils#hasSweptCollided},
+     * in the order of their indices. With many entities, only the ones
+     * on the tiles around the entity tested against are tested.
+     *
+     * <p> The action may place the entity it is given elsewhere, such as
+     * back at its spawn, but it must not add or remove entities. </p>
+     *
+     * @param target the entity to test against, usually Pacman, in the store
+     *      or not (must not be {@code null})
+     * @param action the action to call with the index of every colliding entity
+     *      (must not be {@code null})
+     * @throws IllegalArgumentException if {@code target} or {@code action} is {@code null}
+     */
+    public void forEachCollision(Entity target, IntConsumer action) {
+        if (target == null) {
+            throw new IllegalArgumentException("target must not be null");
+        }
+        if (action == null) {
+            throw new IllegalArgumentException("action must not be null");
+        }
+        int self = target.store == this ? target.index : -1;
+        if (count < GRID_THRESHOLD) {
+            for (int i = 0; i < count; i++) {
+                if (i != self) {
+                    collide(i, target, action);
+                }
+            }
+            return;
+        }
+
+        /*
+         * An entity is somewhere on its tile, so two entities at most r apart are
+         * at most r + 1 tiles apart. Entities that touched during their moves were
+         * at most as far apart as they moved more than that at the end.
+         */
+        double reach = target.getRadius() + maxRadius + sweepOf(target) + maxSweep() + 1;
+        if (spatialHash == null) {
+            spatialHash = new SpatialHash();
+            for (int i = 0; i < count; i++) {
+                spatialHash.add(tileX[i], tileY[i]);
+            }
+        }
+        Position tile = target.getPosition();
+        int found = spatialHash.findCandidates(tile.x(), tile.y(), (int) reach);
+        for (int i = 0; i < found; i++) {
+            int candidate = spatialHash.candidate(i);
+            if (candidate != self) {
+                collide(candidate, target, action);
+            }
+        }
+    }
+
+    /**
+     * Records the current coordinates of every entity as the start of a tick,
+     * like {@link Entity#savePreviousPosition}.
+     */
+    public void savePreviousPositions() {
+        for (int i = 0; i < count; i++) {
+            savePreviousPosition(i);
+        }
+    }
+
+    /*************************************************************
+     *                          GETTERS                          *
+     *************************************************************/
+
+    /**
+     * Returns the number of entities in the store.
+     *
+     * @return the number of entities.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the column of the tile of an entity.
+     *
+     * @param index the index of the entity.
+     * @return the column of its tile.
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public int getTileX(int index) {
+        return tileX[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * Returns the row of the tile of an entity.
+     *
+     * @param index the index of the entity.
+     * @return the row of its tile.
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public int getTileY(int index) {
+        return tileY[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * Returns the X position of an entity, like {@link Entity#getX()}.
+     *
+     * @param index the index of the entity.
+     * @return the X position, including the sub tile offset.
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public double getX(int index) {
+        Objects.checkIndex(index, count);
+        return tileX[index] + subTileX[index];
+    }
+
+    /**
+     * Returns the Y position of an entity, like {@link Entity#getY()}.
+     *
+     * @param index the index of the entity.
+     * @return the Y position, including the sub tile offset.
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public double getY(int index) {
+        Objects.checkIndex(index, count);
+        return tileY[index] + subTileY[index];
+    }
+
+    /**
+     * Returns the direction an entity is moving in.
+     *
+     * @param index the index of the entity.
+     * @return the current {@link Direction}.
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public Direction getDirection(int index) {
+        return DIRECTIONS[currentDirection[Objects.checkIndex(index, count)]];
+    }
+
+    /*************************************************************
+     *                          SETTERS                          *
+     *************************************************************/
+
+    /**
+     * Requests an entity to change direction at the next available opportunity.
+     *
+     * @param index the index of the entity.
+     * @param newDir the desired {@link Direction} (must not be {@code null})
+     * @throws IllegalArgumentException if {@code newDir} is {@code null}
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public void setDirection(int index, Direction newDir) {
+        if (newDir == null) {
+            throw new IllegalArgumentException("newDir must not be null");
+        }
+        nextDirection[Objects.checkIndex(index, count)] = (byte) newDir.ordinal();
+    }
+
+    /**
+     * Sets whether an entity is turned by {@link #steerAll}. Entities that are not
+     * steered keep the directions they are given, such as ghosts searching their
+     * own paths.
+     *
+     * @param index the index of the entity.
+     * @param isSteered whether {@link #steerAll} turns the entity.
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public void setSteered(int index, boolean isSteered) {
+        steered[Objects.checkIndex(index, count)] = isSteered;
+    }
+
+    /**
+     * Places an entity at the center of a tile, standing still,
+     * like {@link Ghost#respawn}. The jump is not swept.
+     *
+     * @param index the index of the entity.
+     * @param newPos the tile to place the entity on (must not be {@code null})
+     * @throws IllegalArgumentException if {@code newPos} is {@code null}
+     * @throws IndexOutOfBoundsException if there is no entity at {@code index}.
+     */
+    public void place(int index, Position newPos) {
+        if (newPos == null) {
+            throw new IllegalArgumentException("newPos must not be null");
+        }
+        Objects.checkIndex(index, count);
+        subTileX[index] = 0.5f;
+        subTileY[index] = 0.5f;
+        setTile(index, newPos.x(), newPos.y());
+    }
+
+    /*************************************************************
+     *                 FOR THE ENTITIES VIEWING IT               *
+     *************************************************************/
+
+    /**
+     * Moves one entity, loading it into {@link #movement} and storing it back.
+     *
+     * @param i the index of the entity.
+     * @param board the game board.
+     * @param deltaSeconds time in seconds since the last update.
+     */
+    void move(int i, Board board, double deltaSeconds) {
+        resetMoveStart(i);
+        movement.load(tileX[i], tileY[i], subTileX[i], subTileY[i],
+            DIRECTIONS[currentDirection[i]], DIRECTIONS[nextDirection[i]]);
+        movement.move(board, speed[i] * deltaSeconds);
+        if (movement.tileX != tileX[i] || movement.tileY != tileY[i]) {
+            tileX[i] = movement.tileX;
+            tileY[i] = movement.tileY;
+            if (spatialHash != null) {
+                spatialHash.moved(i, tileX[i], tileY[i]);
+            }
+        }
+        subTileX[i] = movement.subTileX;
+        subTileY[i] = movement.subTileY;
+        currentDirection[i] = (byte) movement.currentDirection.ordinal();
+        nextDirection[i] = (byte) movement.nextDirection.ordinal();
+    }
+
+    /**
+     * Puts an entity on another tile, keeping its sub tile position.
+     * The jump is not swept.
+     *
+     * @param i the index of the entity.
+     * @param x the column of the new tile.
+     * @param y the row of the new tile.
+     */
+    void setTile(int i, int x, int y) {
+        if (x != tileX[i] || y != tileY[i]) {
+            tileX[i] = x;
+            tileY[i] = y;
+            if (spatialHash != null) {
+                spatialHash.moved(i, x, y);
+            }
+        }
+        resetMoveStart(i);
+    }
+
+    /**
+     * Sets the radius of an entity, widening the area looked through for collisions.
+     *
+     * @param i the index of the entity.
+     * @param newRadius the new radius.
+     */
+    void setRadius(int i, double newRadius) {
+        radius[i] = newRadius;
+        maxRadius = Math.max(maxRadius, newRadius);
+    }
+
+    /**
+     * Starts the movement segment of an entity where it is.
+     *
+     * @param i the index of the entity.
+     */
+    void resetMoveStart(int i) {
+        moveStartX[i] = tileX[i] + subTileX[i];
+        moveStartY[i] = tileY[i] + subTileY[i];
+    }
+
+    /**
+     * Records the current coordinates of an entity as the start of a tick.
+     *
+     * @param i the index of the entity.
+     */
+    void savePreviousPosition(int i) {
+        previousX[i] = tileX[i] + subTileX[i];
+        previousY[i] = tileY[i] + subTileY[i];
+    }
+
+    /**
+     * Adds a copy of an entity of another store, with its position,
+     * directions, radius, speed, last move and whether it is steered.
+     *
+     * @param from the store of the entity.
+     * @param i the index of the entity in {@code from}.
+     * @return the index of the copy.
+     */
+    int copyOf(EntityStore from, int i) {
+        int index = append(from.tileX[i], from.tileY[i], from.radius[i]);
+        subTileX[index] = from.subTileX[i];
+        subTileY[index] = from.subTileY[i];
+        moveStartX[index] = from.moveStartX[i];
+        moveStartY[index] = from.moveStartY[i];
+        previousX[index] = from.previousX[i];
+        previousY[index] = from.previousY[i];
+        speed[index] = from.speed[i];
+        currentDirection[index] = from.currentDirection[i];
+        nextDirection[index] = from.nextDirection[i];
+        steered[index] = from.steered[i];
+        return index;
+    }
+
+    /**
+     * Makes an entity object the view of an entity of the store.
+     *
+     * @param i the index of the entity.
+     * @param entity the object viewing it.
+     */
+    void bind(int i, Entity entity) {
+        views[i] = entity;
+        entity.store = this;
+        entity.index = i;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that adds an entity on a tile, leaving every field
+     * but its tile and radius to the caller.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @param newRadius the radius of the entity.
+     * @return the index of the entity.
+     */
+    private int append(int x, int y, double newRadius) {
+        if (count == tileX.length) {
+            grow();
+        }
+        int index = count++;
+        tileX[index] = x;
+        tileY[index] = y;
+        radius[index] = newRadius;
+        views[index] = null;
+        if (spatialHash != null) {
+            spatialHash.add(x, y);
+        }
+        maxRadius = Math.max(maxRadius, newRadius);
+        return index;
+    }
+
+    /**
+     * Helper function that removes an entity, moving the last entity into its place.
+     *
+     * @param i the index of the entity.
+     */
+    private void remove(int i) {
+        int last = --count;
+        if (spatialHash != null) {
+            spatialHash.remove(i);
+        }
+        if (i != last) {
+            tileX[i] = tileX[last];
+            tileY[i] = tileY[last];
+            subTileX[i] = subTileX[last];
+            subTileY[i] = subTileY[last];
+            moveStartX[i] = moveStartX[last];
+            moveStartY[i] = moveStartY[last];
+            previousX[i] = previousX[last];
+            previousY[i] = previousY[last];
+            speed[i] = speed[last];
+            radius[i] = radius[last];
+            currentDirection[i] = currentDirection[last];
+            nextDirection[i] = nextDirection[last];
+            steered[i] = steered[last];
+            views[i] = views[last];
+            if (views[i] != null) {
+                views[i].index = i;
+            }
+        }
+        views[last] = null;
+    }
+
+    /**
+     * Helper function that reports an entity to an action
+     * if it collided with the target during their last moves.
+     *
+     * @param i the index of the entity.
+     * @param target the entity tested against.
+     * @param action the action to call.
+     */
+    private void collide(int i, Entity target, IntConsumer action) {
+        double time = EntityUtils.timeOfImpact(
+            moveStartX[i], moveStartY[i], tileX[i] + subTileX[i], tileY[i] + subTileY[i],
+            target.getMoveStartX(), target.getMoveStartY(), target.getX(), target.getY(),
+            radius[i] + target.getRadius());
+        if (time != EntityUtils.NO_IMPACT) {
+            action.accept(i);
+        }
+    }
+
+    /**
+     * Helper function that finds the farthest any entity moved along an axis
+     * in its last move.
+     *
+     * @return the larger of the distances moved along each axis, over all entities.
+     */
+    private double maxSweep() {
+        double sweep = 0;
+        for (int i = 0; i < count; i++) {
+            sweep = Math.max(sweep, Math.max(
+                Math.abs(tileX[i] + subTileX[i] - moveStartX[i]),
+                Math.abs(tileY[i] + subTileY[i] - moveStartY[i])));
+        }
+        return sweep;
+    }
+
+    /**
+     * Helper function that finds how far an entity moved along an axis in its last move.
+     *
+     * @param entity the entity.
+     * @return the larger of the distances moved along each axis.
+     */
+    private static double sweepOf(Entity entity) {
+        return Math.max(Math.abs(entity.getX() - entity.getMoveStartX()),
+            Math.abs(entity.getY() - entity.getMoveStartY()));
+    }
+
+    /**
+     * Helper function that doubles the room for entities.
+     */
+    private void grow() {
+        int capacity = Math.max(16, tileX.length * 2);
+        tileX = Arrays.copyOf(tileX, capacity);
+        tileY = Arrays.copyOf(tileY, capacity);
+        subTileX = Arrays.copyOf(subTileX, capacity);
+        subTileY = Arrays.copyOf(subTileY, capacity);
+        moveStartX = Arrays.copyOf(moveStartX, capacity);
+        moveStartY = Arrays.copyOf(moveStartY, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        currentDirection = Arrays.copyOf(currentDirection, capacity);
+        nextDirection = Arrays.copyOf(nextDirection, capacity);
+        steered = Arrays.copyOf(steered, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+}
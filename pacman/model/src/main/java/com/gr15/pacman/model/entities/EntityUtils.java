@@ -13,6 +13,9 @@ package com.gr15.pacman.model.entities;
  */
 public final class EntityUtils {
 
+    /** Returned by {@link #timeOfImpact} for entities that did not touch. */
+    public static final double NO_IMPACT = -1;
+
     /**
      * Calculates the Euclidean distance between
      * two entities based on their position.
@@ -60,6 +63,96 @@ public final class EntityUtils {
         return distanceSquared <= combinedRadius * combinedRadius;
     }
 
+    /**
+     * Finds when two entities first touched during their last moves, treating
+     * each as a circle moving at a constant speed along a straight segment, from
+     * where its move started to where it is, see {@link Entity#getMoveStartX()}.
+     *
+     * <p> Unlike {@link #hasCollided}, which only looks at where the entities
+     * ended up, this also finds entities that passed through each other within
+     * a move, however far they moved. </p>
+     *
+     * @param arg0 the first entity (must not be {@code null})
+     * @param arg1 the second entity (must not be {@code null})
+     * @return the fraction of the moves, from 0 to 1, at which the bounding circles
+     *      first touch, or {@link #NO_IMPACT} if they never do.
+     * @throws IllegalArgumentException if {@code arg0} or {@code arg1} is {@code null}
+     */
+    public static double timeOfImpact(Entity arg0, Entity arg1) {
+        if (arg0 == null || arg1 == null) {
+            throw new IllegalArgumentException("arg0 and arg1 must not be null");
+        }
+
+        return timeOfImpact(arg0.getMoveStartX(), arg0.getMoveStartY(), arg0.getX(), arg0.getY(),
+            arg1.getMoveStartX(), arg1.getMoveStartY(), arg1.getX(), arg1.getY(),
+            arg0.getRadius() + arg1.getRadius());
+    }
+
+    /**
+     * Finds when two circles moving along straight segments first touch,
+     * see {@link #timeOfImpact(Entity, Entity)}. Also used by {@link EntityStore},
+     * which keeps its entities in arrays rather than objects.
+     *
+     * @param startX0 the X coordinate the first circle starts at.
+     * @param startY0 the Y coordinate the first circle starts at.
+     * @param endX0 the X coordinate the first circle ends at.
+     * @param endY0 the Y coordinate the first circle ends at.
+     * @param startX1 the X coordinate the second circle starts at.
+     * @param startY1 the Y coordinate the second circle starts at.
+     * @param endX1 the X coordinate the second circle ends at.
+     * @param endY1 the Y coordinate the second circle ends at.
+     * @param combinedRadius the sum of the radii of the circles.
+     * @return the fraction of the moves, from 0 to 1, at which the circles
+     *      first touch, or {@link #NO_IMPACT} if they never do.
+     */
+    static double timeOfImpact(double startX0, double startY0, double endX0, double endY0,
+        double startX1, double startY1, double endX1, double endY1, double combinedRadius) {
+
+        /* Distance at the start and how it changes, relative to the second circle */
+        double dx = startX0 - startX1;
+        double dy = startY0 - startY1;
+        double vx = (endX0 - startX0) - (endX1 - startX1);
+        double vy = (endY0 - startY0) - (endY1 - startY1);
+
+        double radiusSquared = combinedRadius * combinedRadius;
+        double c = dx * dx + dy * dy - radiusSquared;
+        if (c <= 0) {
+            return 0; /* Already touching when the moves started */
+        }
+        double a = vx * vx + vy * vy;
+        double halfB = dx * vx + dy * vy;
+        if (halfB >= 0) {
+            return NO_IMPACT; /* Not moving closer */
+        }
+        double discriminant = halfB * halfB - a * c;
+        if (discriminant < 0) {
+            return NO_IMPACT;
+        }
+
+        double time = (-halfB - Math.sqrt(discriminant)) / a;
+        if (time <= 1) {
+            return time;
+        }
+        /* Rounding can put a contact at the very end just past it */
+        double endDx = endX0 - endX1;
+        double endDy = endY0 - endY1;
+        return endDx * endDx + endDy * endDy <= radiusSquared ? 1 : NO_IMPACT;
+    }
+
+    /**
+     * Determines whether two entities touched at any point during their
+     * last moves, see {@link #timeOfImpact}.
+     *
+     * @param arg0 the first entity (must not be {@code null})
+     * @param arg1 the second entity (must not be {@code null})
+     * @return {@code true} if the entities bounding circles
+     *      intersected or touched during the moves; {@code false} otherwise
+     * @throws IllegalArgumentException if {@code arg0} or {@code arg1} is {@code null}
+     */
+    public static boolean hasSweptCollided(Entity arg0, Entity arg1) {
+        return timeOfImpact(arg0, arg1) != NO_IMPACT;
+    }
+
     /** Private constructor to prevent external instantiation */
     private EntityUtils() {}
 }
@@ -1,7 +1,7 @@
 package com.gr15.pacman.model.entities;
 
-import java.util.List;
-import com.gr15.pacman.model.GameState.TileType;
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.searching.PathCache;
 import com.gr15.pacman.model.entities.searching.SearchStrategy;
 import com.gr15.pacman.model.Position;
 
@@ -35,6 +35,30 @@ public class Ghost
     private GhostType ghostType;
     private SearchStrategy searchStrategy;
     private Position goal;
+
+    /** The position the ghost started at, and respawns at. */
+    private final Position spawnPosition;
+
+    /** Cache of search results consulted before searching, may be {@code null}. */
+    private PathCache pathCache;
+
+    /** The board the current plan is searched on. */
+    private Board plannedBoard;
+
+    /** Index of the tile the current plan starts from. */
+    private int plannedStart;
+
+    /** Index of the tile the current plan leads to. */
+    private int plannedGoal;
+
+    /** Direction chosen by the current plan. */
+    private Direction plannedDirection = Direction.NONE;
+
+    /** Whether the current plan was searched rather than read from the cache. */
+    private boolean searched = false;
+
+    /** Whether a completed plan is waiting to be followed by {@link #move}. */
+    private boolean planReady = false;
         
     /**
      * Constructs a new Ghost instance.
@@ -57,44 +81,161 @@ public class Ghost
         }
         
         this.goal = goal;
+        this.spawnPosition = startPos;
         this.ghostType = type;
         this.searchStrategy = searchStrategy;
     }
 
+    /**
+     * Copy constructor, giving the copy its own search strategy.
+     * The copy has no {@link PathCache} until one is set.
+     *
+     * @param other the ghost to copy.
+     * @param searchStrategy the strategy the copy uses to find paths.
+     */
+    private Ghost(Ghost other, SearchStrategy searchStrategy) {
+        super(other);
+        this.ghostType = other.ghostType;
+        this.searchStrategy = searchStrategy;
+        this.goal = other.goal;
+        this.spawnPosition = other.spawnPosition;
+        this.plannedStart = other.plannedStart;
+        this.plannedGoal = other.plannedGoal;
+        this.plannedDirection = other.plannedDirection;
+        this.searched = other.searched;
+        this.planReady = other.planReady;
+    }
+
     /**
      * Updates the ghost's direction and moves it toward its current goal,
      * using the assigned search strategy to find the shortest path.
+     * If a {@link PathCache} is set, it is consulted before searching.
+     *
+     * <p> If the direction was already planned with {@link #startPlan},
+     * {@link #searchPlan} and {@link #finishPlan}, the planned direction is used
+     * instead of searching again. </p>
      *
      * @param board The game board used to determine walkable tiles.
      * @param deltaSeconds Time passed since the last frame.
      * @throws IllegalArgumentException if board is null.
      */
     @Override
-    public void move(TileType[][] board, double deltaSeconds) {
+    public void move(Board board, double deltaSeconds) {
         if (board == null) {
             throw new IllegalArgumentException("board must not be null");
         }
 
-        List<Position> path = searchStrategy.search(
-            getPosition(),
-            goal,
-            pos -> pos.inBounds(board) && board[pos.y()][pos.x()] != TileType.WALL
-        );
-
-        if (path != null && !path.isEmpty()) {
-            Position next = path.get(0);
-
-            for (Direction direction : Direction.values()) {
-                if (getPosition().offset(direction).equals(next)) {
-                    setDirection(direction);
-                    break;
-                }
+        if (!planReady) {
+            if (startPlan(board)) {
+                searchPlan();
             }
+            finishPlan();
         }
+        planReady = false;
 
         super.move(board, deltaSeconds);
     }
 
+    /*************************************************************
+     *                          PLANNING                         *
+     *************************************************************/
+
+    /**
+     * Starts planning the next direction from the ghost's current position and goal.
+     * The plan is answered from the {@link PathCache} if possible.
+     *
+     * <p> Planning is split in three steps so that the searches of many ghosts
+     * can run in parallel: this step and {@link #finishPlan} touch the shared
+     * cache and must run on one thread, while {@link #searchPlan} only touches
+     * the ghost itself and its search strategy. </p>
+     *
+     * @param board The game board used to determine walkable tiles.
+     * @return {@code true} if a search is needed, {@code false} if the plan is complete.
+     * @throws IllegalArgumentException if board is null.
+     */
+    public boolean startPlan(Board board) {
+        if (board == null) {
+            throw new IllegalArgumentException("board must not be null");
+        }
+
+        plannedBoard = board;
+        searched = false;
+        plannedDirection = Direction.NONE;
+        Position position = getPosition();
+        if (!position.inBounds(board) || !goal.inBounds(board)) {
+            return false;
+        }
+
+        plannedStart = board.index(position.x(), position.y());
+        plannedGoal = board.index(goal.x(), goal.y());
+        Direction cached = pathCache != null ? pathCache.get(plannedStart, plannedGoal) : null;
+        if (cached != null) {
+            plannedDirection = cached;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Searches for the next direction of a plan started with {@link #startPlan}.
+     * Does not touch any state shared with other ghosts, except through
+     * the search strategy itself.
+     */
+    public void searchPlan() {
+        plannedDirection = searchStrategy.nextStep(plannedBoard, plannedStart, plannedGoal);
+        searched = true;
+    }
+
+    /**
+     * Completes a plan, storing the searched direction in the {@link PathCache},
+     * and turns the ghost to the planned direction at the next opportunity.
+     * The next call to {@link #move} follows the plan, as does moving the ghost
+     * with the other entities of its {@link EntityStore}.
+     */
+    public void finishPlan() {
+        if (searched && pathCache != null) {
+            pathCache.put(plannedStart, plannedGoal, plannedDirection);
+        }
+        if (plannedDirection != Direction.NONE) {
+            setDirection(plannedDirection);
+        }
+        planReady = true;
+    }
+
+    /**
+     * Returns a copy of this ghost, moving independently of it.
+     * The copy searches with the given strategy, and has no {@link PathCache}
+     * until one is set.
+     *
+     * @param newSearchStrategy the strategy the copy uses to find paths (must not be {@code null})
+     * @return the copy.
+     * @throws IllegalArgumentException if {@code newSearchStrategy} is {@code null}
+     */
+    public Ghost copy(SearchStrategy newSearchStrategy) {
+        if (newSearchStrategy == null) {
+            throw new IllegalArgumentException("newSearchStrategy must not be null");
+        }
+        return new Ghost(this, newSearchStrategy);
+    }
+
+    /**
+     * Moves the ghost back to its spawn position, centered on the tile.
+     */
+    public void respawn() {
+        setPosition(spawnPosition);
+        setSubTileX(0.5f);
+        setSubTileY(0.5f);
+    }
+
+    /**
+     * Returns the position this ghost started at, and respawns at.
+     *
+     * @return The ghost's spawn position.
+     */
+    public Position getSpawnPosition() {
+        return this.spawnPosition;
+    }
+
     /**
      * Returns the type of this ghost.
      *
@@ -104,6 +245,15 @@ public class Ghost
         return this.ghostType;
     }
 
+    /**
+     * Returns the search strategy this ghost uses to find paths.
+     *
+     * @return The ghost's {@link SearchStrategy}.
+     */
+    public SearchStrategy getSearchStrategy() {
+        return this.searchStrategy;
+    }
+
     /**
      * Returns the current goal position that this ghost is trying to reach.
      *
@@ -113,6 +263,16 @@ public class Ghost
         return this.goal;
     }
 
+    /**
+     * Sets the cache of search results this ghost consults before searching.
+     * The cache may be shared by several ghosts.
+     *
+     * @param newPathCache the cache to use, or {@code null} to always search.
+     */
+    public void setPathCache(PathCache newPathCache) {
+        this.pathCache = newPathCache;
+    }
+
     /**
      * Sets a new goal position for this ghost.
      *
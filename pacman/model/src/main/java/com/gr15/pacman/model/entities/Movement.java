@@ -0,0 +1,259 @@
+package com.gr15.pacman.model.entities;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * The movement rules of entities, shared by {@link Entity#move} and
+ * {@link EntityStore#moveAll}, so both move entities the same way.
+ *
+ * <p> Holds the part of an entity's state a move changes, its tile, sub tile
+ * position and directions, in primitives. The state is loaded, moved with
+ * {@link #move} and stored back by the caller, whether it keeps entities as
+ * objects or in arrays. </p>
+ */
+final class Movement {
+
+    /** Epsilon is used as tolerance when comparing floating point numbers. */
+    private static final double EPSILON = 1e-5;
+
+    /** Column of the tile. */
+    int tileX;
+
+    /** Row of the tile. */
+    int tileY;
+
+    /** X component of sub tile position. */
+    float subTileX;
+
+    /** Y component of sub tile position. */
+    float subTileY;
+
+    /** Current {@link Direction} in which the entity is moving. */
+    Direction currentDirection;
+
+    /** Next {@link Direction} in which the entity will move. */
+    Direction nextDirection;
+
+    /**
+     * Loads the state of an entity.
+     *
+     * @param tileX the column of the tile.
+     * @param tileY the row of the tile.
+     * @param subTileX the X component of the sub tile position.
+     * @param subTileY the Y component of the sub tile position.
+     * @param currentDirection the direction the entity is moving in.
+     * @param nextDirection the direction the entity will turn to when it can.
+     */
+    void load(int tileX, int tileY, float subTileX, float subTileY,
+        Direction currentDirection, Direction nextDirection) {
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.subTileX = subTileX;
+        this.subTileY = subTileY;
+        this.currentDirection = currentDirection;
+        this.nextDirection = nextDirection;
+    }
+
+    /**
+     * Moves the entity a distance along the board.
+     * Handles turning, and tile boundary transitions.
+     * Handles moving through multiple tiles by stepping.
+     *
+     * @param board the game {@link Board}, used to determine valid movement.
+     * @param distanceToMove the distance to move, in tiles.
+     */
+    void move(Board board, double distanceToMove) {
+        boolean canMoveNext = canMove(board, nextDirection);
+        boolean canContinue = canMove(board, currentDirection);
+
+        Direction direction = decideDirection(canMoveNext, canContinue);
+        if (direction == Direction.NONE) {
+            snapToCenter(distanceToMove);
+            return; /* Returning early, since no more updating required */
+        }
+
+        boolean verticalMove = isVertical(direction);
+        int directionSign = getDirectionSign(direction);
+
+        double subPrimary = verticalMove ? subTileY : subTileX;
+        double subSecondary = verticalMove ? subTileX : subTileY;
+
+        double center = Math.floor(subSecondary) + 0.5;
+        double distanceToCenter = Math.abs(subSecondary - center);
+
+        /* Snap to secondary axis center first */
+        if (distanceToCenter > EPSILON) {
+            double moveToCenter = Math.min(distanceToMove, distanceToCenter);
+            subSecondary += (subSecondary < center ? 1 : -1) * moveToCenter;
+            distanceToMove -= moveToCenter;
+        }
+
+        /* Storing new secondry axis sub-tile position */
+        if (verticalMove) {
+            subTileX = (float)subSecondary;
+        } else {
+            subTileY = (float)subSecondary;
+        }
+
+        while (distanceToMove > EPSILON) {
+            /* Capping movement distance to a single tile */
+            double maxStep = directionSign > 0 ? 1.0 - subPrimary : subPrimary;
+            double step = Math.min(distanceToMove, maxStep);
+            double newSubPrimary = subPrimary + directionSign * step;
+
+            /* Handling crossing tile boundery */
+            if (crossedTileBoundary(direction, newSubPrimary)) {
+                int nextX = tileX + offsetX(direction);
+                int nextY = tileY + offsetY(direction);
+                if (board.isWalkable(nextX, nextY)) {
+                    tileX = nextX;
+                    tileY = nextY;
+                    subPrimary = directionSign > 0 ? 0.0 : 1.0;
+                } else {
+                    /* If hit wall, set direction to none */
+                    currentDirection = Direction.NONE;
+                    subPrimary = directionSign > 0 ? 1.0 : 0.0;
+                    break; /* stopping at wall */
+                }
+            } else {
+                subPrimary = newSubPrimary;
+            }
+
+            /* If there's still longer to go */
+            distanceToMove -= step;
+        }
+
+        /* Storing primary axis sub-tile position */
+        if (verticalMove) {
+            subTileY = (float)subPrimary;
+        } else {
+            subTileX = (float)subPrimary;
+        }
+
+        if (canMoveNext && distanceToCenter < EPSILON) {
+            currentDirection = nextDirection;
+            nextDirection = Direction.NONE;
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that determines if the entity can move
+     * in the specified direction.
+     *
+     * @param board the game board.
+     * @param dir the direction to check.
+     * @return {@code true} if the tile in the given {@link Direction} is movable.
+     */
+    private boolean canMove(Board board, Direction dir) {
+        assert board != null && dir != null;
+        return dir != Direction.NONE
+            && board.isWalkable(tileX + offsetX(dir), tileY + offsetY(dir));
+    }
+
+    /**
+     * Helper function that decides the {@link Direction} to move in
+     * based on current and next {@link Direction} availability.
+     *
+     * @param canMoveNext true if the next {@link Direction} is available.
+     * @param canContinue true if continuing in the current {@link Direction} is possible.
+     * @return the direction the entity should move in.
+     */
+    private Direction decideDirection(boolean canMoveNext, boolean canContinue) {
+        if (canMoveNext) { return nextDirection; }
+        if (canContinue) { return currentDirection; }
+        return Direction.NONE;
+    }
+
+    /**
+     * helper function that checks if a {@link Direction} is vertical.
+     *
+     * @param dir the {@link Direction} to check.
+     * @return {@code true} if the direction is {@link Direction#UP} or {@link Direction#DOWN}.
+     */
+    private static boolean isVertical(Direction dir) {
+        assert dir != null;
+        return dir == Direction.UP || dir == Direction.DOWN;
+    }
+
+    /**
+     * Helper function that gets the sign of movement for a {@link Direction}.
+     *
+     * @param dir the {@link Direction}.
+     * @return -1 for UP or LEFT and 1 for DOWN or RIGHT.
+     */
+    private static int getDirectionSign(Direction dir) {
+        assert dir != null;
+        return (dir == Direction.UP || dir == Direction.LEFT) ? -1 : 1;
+    }
+
+    /**
+     * Helper function that gets the column offset of a step in a {@link Direction}.
+     *
+     * @param dir the {@link Direction}.
+     * @return -1 for LEFT, 1 for RIGHT and 0 otherwise.
+     */
+    private static int offsetX(Direction dir) {
+        return dir == Direction.LEFT ? -1 : dir == Direction.RIGHT ? 1 : 0;
+    }
+
+    /**
+     * Helper function that gets the row offset of a step in a {@link Direction}.
+     *
+     * @param dir the {@link Direction}.
+     * @return -1 for UP, 1 for DOWN and 0 otherwise.
+     */
+    private static int offsetY(Direction dir) {
+        return dir == Direction.UP ? -1 : dir == Direction.DOWN ? 1 : 0;
+    }
+
+    /**
+     * Helper function that determines if the entity has crossed a tile boundary.
+     *
+     * @param dir the {@link Direction} of movement.
+     * @param newPrimary the new sub-tile coordinate in the movement axis.
+     * @return {@code true} if a tile boundary was crossed.
+     */
+    private static boolean crossedTileBoundary(Direction dir, double newPrimary) {
+        assert dir != null;
+        return (dir == Direction.UP && newPrimary <= 0.0)
+            || (dir == Direction.DOWN && newPrimary >= 1.0)
+            || (dir == Direction.LEFT && newPrimary <= 0.0)
+            || (dir == Direction.RIGHT && newPrimary >= 1.0);
+    }
+
+    /**
+     * Helper function that snaps the entity toward
+     * the center of the tile when not moving.
+     *
+     * @param distanceToMove the maximum distance the entity can move.
+     */
+    private void snapToCenter(double distanceToMove) {
+        double center = 0.5;
+
+        subTileX = (float)snapAxisToCenter(subTileX, center, distanceToMove);
+        subTileY = (float)snapAxisToCenter(subTileY, center, distanceToMove);
+    }
+
+    /**
+     * Helper function that moves a sub-tile coordinate
+     * toward the center up to a maximum distance.
+     *
+     * @param sub the current sub-coordinate.
+     * @param center the center coordinate (typically 0.5).
+     * @param maxMove the maximum movement allowed.
+     * @return the updated coordinate.
+     */
+    private static double snapAxisToCenter(double sub, double center, double maxMove) {
+        double dist = Math.abs(sub - center);
+        if (dist < maxMove) {
+            return center;
+        } else {
+            return sub + ((sub < center) ? 1 : -1) * maxMove;
+        }
+    }
+}
@@ -18,4 +18,22 @@ public class Pacman
     public Pacman(Position startPos, double speed, double radius) {
         super(startPos, radius, speed);
     }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other the Pacman to copy.
+     */
+    private Pacman(Pacman other) {
+        super(other);
+    }
+
+    /**
+     * Returns a copy of this Pacman, moving independently of it.
+     *
+     * @return the copy.
+     */
+    public Pacman copy() {
+        return new Pacman(this);
+    }
 }
@@ -0,0 +1,214 @@
+package com.gr15.pacman.model.entities;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the tiles of a board, telling which entities of an
+ * {@link EntityStore} are near a point, so collisions are only tested between
+ * entities close enough to touch.
+ *
+ * <p> Entities are identified by their index in the store and keyed by the tile
+ * they are on. The store tells the index whenever an entity moves to another tile,
+ * so the index is kept up to date as entities move rather than rebuilt every update.
+ * The cells are kept in a hash table rather than one per tile, so the index only
+ * takes space for its entities, however large the board is. </p>
+ *
+ * <p> The index mirrors the store: entities are added at the end, and removing
+ * one moves the last entity into its place, like the store does. </p>
+ */
+final class SpatialHash {
+
+    /** Marks the end of the list of entities in a bucket. */
+    private static final int NONE = -1;
+
+    /** Column of the tile of each entity, by index. */
+    private int[] tileX = new int[8];
+
+    /** Row of the tile of each entity, by index. */
+    private int[] tileY = new int[8];
+
+    /** Index of the next entity in the same bucket, by index, or {@link #NONE}. */
+    private int[] next = new int[8];
+
+    /**
+     * Index of the previous entity in the same bucket, by index, or {@link #NONE},
+     * so entities are unlinked at once however many share their bucket,
+     * as when a crowd gathers on a few tiles.
+     */
+    private int[] previous = new int[8];
+
+    /** Index of the first entity in each bucket, or {@link #NONE}. */
+    private int[] buckets = newBuckets(16);
+
+    /** Indices of the candidates found by the last query, reused between queries. */
+    private int[] candidates = new int[8];
+
+    /** Number of entities in the index. */
+    private int count = 0;
+
+    /**
+     * Adds the next entity of the store to the index.
+     *
+     * @param x the column of the tile of the entity.
+     * @param y the row of the tile of the entity.
+     */
+    void add(int x, int y) {
+        if (count == tileX.length) {
+            int capacity = count * 2;
+            tileX = Arrays.copyOf(tileX, capacity);
+            tileY = Arrays.copyOf(tileY, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            candidates = Arrays.copyOf(candidates, capacity);
+        }
+        if (count * 2 >= buckets.length) {
+            buckets = newBuckets(buckets.length * 2);
+            for (int index = 0; index < count; index++) {
+                link(index);
+            }
+        }
+
+        int index = count++;
+        tileX[index] = x;
+        tileY[index] = y;
+        link(index);
+    }
+
+    /**
+     * Removes an entity from the index. The last entity takes its place.
+     *
+     * @param index the index of the entity.
+     */
+    void remove(int index) {
+        int last = --count;
+        unlink(index);
+        if (index != last) {
+            unlink(last);
+            tileX[index] = tileX[last];
+            tileY[index] = tileY[last];
+            link(index);
+        }
+    }
+
+    /**
+     * Removes every entity from the index.
+     */
+    void clear() {
+        Arrays.fill(buckets, NONE);
+        count = 0;
+    }
+
+    /**
+     * Moves an entity to the cell of its new tile, called by the store
+     * whenever an entity moves to another tile.
+     *
+     * @param index the index of the entity.
+     * @param x the column of the new tile.
+     * @param y the row of the new tile.
+     */
+    void moved(int index, int x, int y) {
+        unlink(index);
+        tileX[index] = x;
+        tileY[index] = y;
+        link(index);
+    }
+
+    /**
+     * Finds the entities on the tiles at most {@code reach} tiles from a tile
+     * along each axis, in the order of their indices.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @param reach the number of tiles to look along each axis.
+     * @return the number of entities found, read with {@link #candidate}.
+     */
+    int findCandidates(int x, int y, int reach) {
+        int found = 0;
+        for (int cellY = y - reach; cellY <= y + reach; cellY++) {
+            for (int cellX = x - reach; cellX <= x + reach; cellX++) {
+                int index = buckets[bucketOf(cellX, cellY)];
+                while (index != NONE) {
+                    /* Other tiles can share the bucket */
+                    if (tileX[index] == cellX && tileY[index] == cellY) {
+                        candidates[found++] = index;
+                    }
+                    index = next[index];
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, found);
+        return found;
+    }
+
+    /**
+     * Returns an entity found by the last call to {@link #findCandidates}.
+     *
+     * @param i the number of the candidate, below the number found.
+     * @return the index of the entity.
+     */
+    int candidate(int i) {
+        return candidates[i];
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that puts an entity first in the bucket of its tile.
+     *
+     * @param index the index of the entity.
+     */
+    private void link(int index) {
+        int bucket = bucketOf(tileX[index], tileY[index]);
+        int first = buckets[bucket];
+        next[index] = first;
+        previous[index] = NONE;
+        if (first != NONE) {
+            previous[first] = index;
+        }
+        buckets[bucket] = index;
+    }
+
+    /**
+     * Helper function that takes an entity out of the bucket of its tile.
+     *
+     * @param index the index of the entity.
+     */
+    private void unlink(int index) {
+        int before = previous[index];
+        int after = next[index];
+        if (before == NONE) {
+            buckets[bucketOf(tileX[index], tileY[index])] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+
+    /**
+     * Helper function that finds the bucket of a tile.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the index of the bucket.
+     */
+    private int bucketOf(int x, int y) {
+        int hash = x * 0x9E3779B1 + y * 0x85EBCA77;
+        return (hash ^ hash >>> 16) & (buckets.length - 1);
+    }
+
+    /**
+     * Helper function that creates an empty bucket table.
+     *
+     * @param size the number of buckets, a power of two.
+     * @return the table.
+     */
+    private static int[] newBuckets(int size) {
+        int[] buckets = new int[size];
+        Arrays.fill(buckets, NONE);
+        return buckets;
+    }
+}
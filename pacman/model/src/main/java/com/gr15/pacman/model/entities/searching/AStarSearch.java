@@ -0,0 +1,228 @@
+package com.gr15.pacman.model.entities.searching;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * Implements the A* search algorithm for finding the shortest path
+ * between two tiles on the game board.
+ *
+ * <p> The search is guided by a {@link Heuristic}, Manhattan distance by default,
+ * so on open boards it only expands the tiles close to the straight line
+ * between start and goal instead of the whole reachable area. </p>
+ *
+ * <p> The search runs backwards from the goal, so the first step is simply
+ * the tile the start was reached from. The open set is a primitive binary heap,
+ * and all per-tile bookkeeping is generation stamped and kept in {@link TilePages},
+ * so it only takes memory for the tiles a search reaches, however large the board.
+ * The bookkeeping is kept per thread and shared by every A* search, so repeated
+ * searches do not allocate, nor do the searches of new ghosts or forked games. </p>
+ *
+ * <p> Like {@link FlowField}, the search only spreads over the tiles the board
+ * retains, see {@link Board#isRetained}, so on a board that keeps just the chunks
+ * around the entities in memory it never pulls the rest of the world in. </p>
+ */
+public class AStarSearch
+    implements SearchStrategy {
+
+    /** The heuristic guiding the search. */
+    private final Heuristic heuristic;
+
+    /** Field holding the best known distance from the goal to a tile. */
+    private static final int COST = 0;
+
+    /** Field holding the tile a tile was reached from, one step closer to the goal. */
+    private static final int PARENT = 1;
+
+    /** Field holding {@code 1} once a tile is expanded. */
+    private static final int CLOSED = 2;
+
+    /** Bookkeeping of the searches running on each thread. */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** Number of tiles expanded by the most recent search. */
+    private int expanded = 0;
+
+    /** Bookkeeping of a search, reused by the following searches on the same thread. */
+    private static final class Scratch {
+
+        /** Open set of tile indices, ordered by estimated total cost. */
+        private final IntMinHeap open = new IntMinHeap(64);
+
+        /** Per-tile bookkeeping, a tile being marked once its cost is set. */
+        private final TilePages tiles = new TilePages(3);
+    }
+
+    /**
+     * Constructs an A* search guided by Manhattan distance.
+     */
+    public AStarSearch() {
+        this(Heuristic.MANHATTAN);
+    }
+
+    /**
+     * Constructs an A* search guided by the given heuristic.
+     *
+     * @param heuristic the heuristic used to estimate remaining distances.
+     * @throws IllegalArgumentException if {@code heuristic} is {@code null}
+     */
+    public AStarSearch(Heuristic heuristic) {
+        if (heuristic == null) {
+            throw new IllegalArgumentException("heuristic must not be null");
+        }
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Performs an A* search backwards from the goal until the start is expanded.
+     *
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the ghost.
+     * @param goal The index of the target tile.
+     * @return The direction of the first step, or {@link Direction#NONE}
+     *      if already at the goal or no path is found over the retained tiles.
+     */
+    @Override
+    public Direction nextStep(Board grid, int start, int goal) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        int width = grid.width();
+        int height = grid.height();
+        int size = grid.size();
+        if (start < 0 || start >= size || goal < 0 || goal >= size) {
+            throw new IllegalArgumentException("start and goal must be inside the board");
+        }
+
+        expanded = 0;
+        if (start == goal || !grid.isRetained(start) || !grid.isRetained(goal)
+            || !grid.isWalkable(goal)) {
+            return Direction.NONE;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        IntMinHeap open = scratch.open;
+        TilePages tiles = scratch.tiles;
+        tiles.nextGeneration(width);
+        int startX = start % width;
+        int startY = start / width;
+        int goalX = goal % width;
+        int goalY = goal / width;
+
+        open.clear();
+        int first = tiles.tile(goalX, goalY);
+        tiles.mark(first);
+        tiles.set(first, COST, 0);
+        tiles.set(first, CLOSED, 0);
+        open.push(priority(0, goalX, goalY, startX, startY), goal);
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            int x = current % width;
+            int y = current / width;
+            int tile = tiles.tile(x, y);
+            if (tiles.get(tile, CLOSED) != 0) {
+                continue; /* Stale entry, already expanded with a lower cost */
+            }
+            tiles.set(tile, CLOSED, 1);
+            expanded++;
+
+            if (current == start) {
+                return directionTo(start, tiles.get(tile, PARENT), width);
+            }
+
+            int nextCost = tiles.get(tile, COST) + 1;
+            if (y + 1 < height) {
+                relax(scratch, current + width, x, y + 1, current, nextCost, startX, startY, grid);
+            }
+            if (y > 0) {
+                relax(scratch, current - width, x, y - 1, current, nextCost, startX, startY, grid);
+            }
+            if (x > 0) {
+                relax(scratch, current - 1, x - 1, y, current, nextCost, startX, startY, grid);
+            }
+            if (x + 1 < width) {
+                relax(scratch, current + 1, x + 1, y, current, nextCost, startX, startY, grid);
+            }
+        }
+
+        return Direction.NONE;
+    }
+
+    /**
+     * Returns the number of tiles expanded by the most recent search.
+     *
+     * @return the number of expanded tiles.
+     */
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    /**
+     * Helper function that records a cheaper way to reach a tile
+     * and adds it to the open set, if it is retained and walkable.
+     *
+     * @param scratch the bookkeeping of the search.
+     * @param index the tile being reached.
+     * @param x the x coordinate of the tile.
+     * @param y the y coordinate of the tile.
+     * @param from the tile it is reached from.
+     * @param newCost the distance from the goal through {@code from}.
+     * @param startX the x coordinate of the start tile.
+     * @param startY the y coordinate of the start tile.
+     * @param grid the board searched.
+     */
+    private void relax(Scratch scratch, int index, int x, int y, int from, int newCost,
+        int startX, int startY, Board grid) {
+        TilePages tiles = scratch.tiles;
+        int tile = tiles.tile(x, y);
+        if (tiles.isMarked(tile)
+            && (tiles.get(tile, CLOSED) != 0 || tiles.get(tile, COST) <= newCost)) {
+            return;
+        }
+        if (!grid.isRetained(index) || !grid.isWalkable(index)) {
+            return;
+        }
+
+        tiles.mark(tile);
+        tiles.set(tile, COST, newCost);
+        tiles.set(tile, PARENT, from);
+        tiles.set(tile, CLOSED, 0);
+        scratch.open.push(priority(newCost, x, y, startX, startY), index);
+    }
+
+    /**
+     * Helper function that computes the open set priority of a tile.
+     * Ties in estimated total cost are broken in favour of the tile
+     * furthest from the goal, which is closest to finishing.
+     *
+     * @param costSoFar the distance from the goal to the tile.
+     * @param x the x coordinate of the tile.
+     * @param y the y coordinate of the tile.
+     * @param startX the x coordinate of the start tile.
+     * @param startY the y coordinate of the start tile.
+     * @return the priority of the tile.
+     */
+    private long priority(int costSoFar, int x, int y, int startX, int startY) {
+        int estimate = costSoFar + heuristic.estimate(x, y, startX, startY);
+        return ((long) estimate << 32) | (Integer.MAX_VALUE - costSoFar);
+    }
+
+    /**
+     * Helper function that converts a step between two adjacent tiles
+     * into a {@link Direction}.
+     *
+     * @param from the tile stepped from.
+     * @param to the adjacent tile stepped to.
+     * @param width the width of the board.
+     * @return the direction from {@code from} to {@code to}.
+     */
+    static Direction directionTo(int from, int to, int width) {
+        int delta = to - from;
+        if (delta == -width) { return Direction.UP; }
+        if (delta == width) { return Direction.DOWN; }
+        if (delta == -1) { return Direction.LEFT; }
+        if (delta == 1) { return Direction.RIGHT; }
+        return Direction.NONE;
+    }
+}
@@ -1,78 +1,130 @@
 package com.gr15.pacman.model.entities.searching;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-import java.util.function.Function;
+import java.util.Arrays;
 
-import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
 
 /**
  * Implements the Breadth-First Search (BFS) algorithm for finding
- * the shortest path between two positions on the game board.
+ * the shortest path between two tiles on the game board.
+ *
+ * <p> The queue and visited marks used by {@link #nextStep} are kept per thread
+ * and shared by every breadth-first search, so repeated searches do not allocate,
+ * nor do the searches of new ghosts or forked games. Tiles are marked visited
+ * with a generation stamp, which avoids clearing the visited marks before each
+ * search, and the marks are kept in {@link TilePages}, so they only take memory
+ * for the tiles a search reaches. </p>
+ *
+ * <p> Tiles the board does not retain, see {@link Board#isRetained}, are never
+ * queued, so on a {@link com.gr15.pacman.model.ChunkedBoard} the search stays
+ * within the chunks around the entities, and finds no path leaving them. </p>
  */
 public class BreadthFirstSearch
     implements SearchStrategy {
 
+    /** Bookkeeping of the searches running on each thread. */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** Bookkeeping of a search, reused by the following searches on the same thread. */
+    private static final class Scratch {
+
+        /** Reusable queue of tile indices, grown when a search outgrows it. */
+        private int[] queue = new int[64];
+
+        /** Visited marks, a tile being marked once it is queued. */
+        private final TilePages visited = new TilePages(0);
+    }
+
     /**
-     * Performs a BFS to find the shortest path from the start to the goal.
+     * Performs a BFS backwards from the goal until the start is reached.
+     * The tile the start was reached from is the first step of the path.
      *
-     * @param start The starting position of the ghost.
-     * @param goal The target position
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the ghost.
+     * @param goal The index of the target tile
      *      (e.g., Pacman's current location or a scatter target).
-     * @param isWalkable A function that determines
-     *      whether a given tile can be walked on.
-     * @return A list of positions representing the path from start to goal,
-     *      excluding the start position. Returns null if no path is found.
+     * @return The direction of the first step, or {@link Direction#NONE}
+     *      if already at the goal or no path is found over the retained tiles.
      */
     @Override
-    public List<Position> search(Position start, Position goal,
-        Function<Position, Boolean> isWalkable) {
-        if (start == null) {
-            throw new IllegalArgumentException("Start position must not be null");
+    public Direction nextStep(Board grid, int start, int goal) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
         }
-        if (goal == null) {
-            throw new IllegalArgumentException("Goal position must not be null");
+        int width = grid.width();
+        int height = grid.height();
+        int size = grid.size();
+        if (start < 0 || start >= size || goal < 0 || goal >= size) {
+            throw new IllegalArgumentException("start and goal must be inside the board");
         }
-        if (isWalkable == null) {
-            throw new IllegalArgumentException("isWalkable must not be null");
+        if (start == goal || !grid.isRetained(start) || !grid.isRetained(goal)
+            || !grid.isWalkable(goal)) {
+            return Direction.NONE;
         }
 
-        Queue<Position> queue = new LinkedList<>();
-        Map<Position, Position> cameFrom = new HashMap<>();
-        Set<Position> visited = new HashSet<>();
+        Scratch scratch = SCRATCH.get();
+        TilePages visited = scratch.visited;
+        visited.nextGeneration(width);
+        int head = 0;
+        int tail = 0;
+        scratch.queue[tail++] = goal;
+        visited.mark(visited.tile(goal % width, goal / width));
 
-        queue.add(start);
-        visited.add(start);
-        cameFrom.put(start, null);
+        while (head < tail) {
+            int current = scratch.queue[head++];
+            int x = current % width;
+            int y = current / width;
 
-        while (!queue.isEmpty()) {
-            Position current = queue.poll();
-
-            if (current.equals(goal)) {
-                List<Position> path = new ArrayList<>();
-                while (cameFrom.get(current) != null) {
-                    path.add(0, current);
-                    current = cameFrom.get(current);
-                }
-
-                return path;
+            /* Checking neighbours in the same order as Position.neighbors() */
+            if (y + 1 < height) {
+                int neighbor = current + width;
+                if (neighbor == start) { return Direction.UP; }
+                tail = enqueue(scratch, neighbor, x, y + 1, tail, grid);
             }
-
-            for (Position neighbor : current.neighbors()) {
-                if (!visited.contains(neighbor) && isWalkable.apply(neighbor)) {
-                    visited.add(neighbor);
-                    cameFrom.put(neighbor, current);
-                    queue.add(neighbor);
-                }
+            if (y > 0) {
+                int neighbor = current - width;
+                if (neighbor == start) { return Direction.DOWN; }
+                tail = enqueue(scratch, neighbor, x, y - 1, tail, grid);
+            }
+            if (x > 0) {
+                int neighbor = current - 1;
+                if (neighbor == start) { return Direction.RIGHT; }
+                tail = enqueue(scratch, neighbor, x - 1, y, tail, grid);
             }
+            if (x + 1 < width) {
+                int neighbor = current + 1;
+                if (neighbor == start) { return Direction.LEFT; }
+                tail = enqueue(scratch, neighbor, x + 1, y, tail, grid);
+            }
+        }
+
+        return Direction.NONE;
+    }
+
+    /**
+     * Helper function that adds a tile to the queue
+     * if it is retained, walkable and not yet visited in this search.
+     *
+     * @param scratch the bookkeeping of the search.
+     * @param index the index of the tile.
+     * @param x the x coordinate of the tile.
+     * @param y the y coordinate of the tile.
+     * @param tail the current tail of the queue.
+     * @param grid the board searched.
+     * @return the new tail of the queue.
+     */
+    private static int enqueue(Scratch scratch, int index, int x, int y, int tail, Board grid) {
+        TilePages visited = scratch.visited;
+        int tile = visited.tile(x, y);
+        if (visited.isMarked(tile) || !grid.isRetained(index) || !grid.isWalkable(index)) {
+            return tail;
+        }
+        visited.mark(tile);
+        if (tail == scratch.queue.length) {
+            scratch.queue = Arrays.copyOf(scratch.queue, tail * 2);
         }
-        
-        return null;
+        scratch.queue[tail] = index;
+        return tail + 1;
     }
 }
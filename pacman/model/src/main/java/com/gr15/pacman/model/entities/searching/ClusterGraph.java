@@ -0,0 +1,827 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.ChunkedBoard;
+
+/**
+ * The abstract graph used for hierarchical pathfinding (HPA*).
+ *
+ * <p> The board is partitioned into square clusters. Wherever walkable tiles
+ * line up across the border of two clusters an entrance is formed, with one
+ * or two transition points depending on its width. Each transition point
+ * becomes a pair of abstract nodes, one on each side of the border, joined by
+ * a single step. Within a cluster the walking distances between all of its
+ * nodes are precomputed, so a search can cross a cluster in one step. </p>
+ *
+ * <p> The graph keeps a snapshot of the walkable tiles. When tiles change,
+ * only the clusters containing them, and the borders they share with their
+ * neighbours, are rebuilt. </p>
+ *
+ * <p> Queries may be answered by any number of {@link HierarchicalSearch}
+ * instances, but the graph must not be changed while they run. </p>
+ */
+public final class ClusterGraph {
+
+    /** Default width and height of a cluster in tiles. */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /** Marker for a missing node or an unreachable distance. */
+    public static final int NONE = -1;
+
+    /** Entrances at least this wide get a transition point at each end. */
+    private static final int WIDE_ENTRANCE = 6;
+
+    /** Width of the board in tiles. */
+    private final int width;
+
+    /** Height of the board in tiles. */
+    private final int height;
+
+    /** Width and height of a cluster in tiles. */
+    private final int clusterSize;
+
+    /** Number of clusters along the x axis. */
+    private final int clustersX;
+
+    /** Number of clusters along the y axis. */
+    private final int clustersY;
+
+    /** Snapshot of the walkable tiles, one bit per tile. */
+    private final long[] walkable;
+
+    /** Tile of each node. */
+    private int[] nodeTiles = new int[64];
+
+    /** Node on the other side of each node's border. */
+    private int[] nodePartners = new int[64];
+
+    /** Position of each node within its cluster's node list. */
+    private int[] nodeSlots = new int[64];
+
+    /** Ids of deleted nodes available for reuse. */
+    private int[] freeNodes = new int[16];
+
+    /** Number of ids in {@link #freeNodes}. */
+    private int freeCount = 0;
+
+    /** Number of node ids handed out, including freed ones. */
+    private int nodeCapacity = 0;
+
+    /** Transition node pairs on the east border of each cluster, flattened as (west, east). */
+    private final int[][] eastBorders;
+
+    /** Transition node pairs on the south border of each cluster, flattened as (north, south). */
+    private final int[][] southBorders;
+
+    /** Nodes of each cluster. */
+    private final int[][] clusterNodes;
+
+    /** Distances between the nodes of each cluster, as a row-major matrix. */
+    private final int[][] clusterDistances;
+
+    /** Clusters waiting to be rebuilt. */
+    private final boolean[] dirty;
+
+    /** Reusable queue for searches within a cluster. */
+    private final int[] localQueue;
+
+    /** Reusable distances for searches within a cluster. */
+    private final int[] localDistances;
+
+    /**
+     * Constructs and builds the graph of a board.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param clusterSize the width and height of a cluster in tiles.
+     * @param isWalkable predicate that determines if the tile at an index is walkable.
+     * @throws IllegalArgumentException if {@code isWalkable} is {@code null},
+     *      a dimension is negative or {@code clusterSize} is not positive.
+     */
+    public ClusterGraph(int width, int height, int clusterSize, IntPredicate isWalkable) {
+        this(width, height, clusterSize, snapshot(width, height, clusterSize, isWalkable));
+        Arrays.fill(dirty, true);
+        rebuildDirty();
+    }
+
+    /**
+     * Constructs a graph without any nodes over a snapshot of the walkable tiles.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param clusterSize the width and height of a cluster in tiles.
+     * @param walkable the walkable tiles, one bit per tile.
+     */
+    private ClusterGraph(int width, int height, int clusterSize, long[] walkable) {
+        this.width = width;
+        this.height = height;
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        this.walkable = walkable;
+
+        int clusters = clustersX * clustersY;
+        this.eastBorders = new int[clusters][0];
+        this.southBorders = new int[clusters][0];
+        this.clusterNodes = new int[clusters][0];
+        this.clusterDistances = new int[clusters][0];
+        this.dirty = new boolean[clusters];
+        this.localQueue = new int[clusterSize * clusterSize];
+        this.localDistances = new int[clusterSize * clusterSize];
+    }
+
+    /**
+     * Constructs and builds the graph of a board with the default cluster size.
+     *
+     * @param grid the board (must not be {@code null})
+     * @return the cluster graph of the board.
+     * @throws IllegalArgumentException if {@code grid} is {@code null}
+     *      or a {@link ChunkedBoard}.
+     */
+    public static ClusterGraph build(Board grid) {
+        return build(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Constructs and builds the graph of a board.
+     *
+     * @param grid the board (must not be {@code null})
+     * @param clusterSize the width and height of a cluster in tiles.
+     * @return the cluster graph of the board.
+     * @throws IllegalArgumentException if {@code grid} is {@code null} or a
+     *      {@link ChunkedBoard}, which would be loaded whole,
+     *      or {@code clusterSize} is not positive.
+     */
+    public static ClusterGraph build(Board grid, int clusterSize) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        if (grid instanceof ChunkedBoard) {
+            throw new IllegalArgumentException("grid must not be a ChunkedBoard");
+        }
+        return new ClusterGraph(grid.width(), grid.height(), clusterSize, grid::isWalkable);
+    }
+
+    /*************************************************************
+     *                          UPDATING                         *
+     *************************************************************/
+
+    /**
+     * Updates the walkability of a single tile,
+     * rebuilding the affected clusters if it changed.
+     *
+     * @param tile the index of the tile.
+     * @param isWalkable whether the tile can now be walked on.
+     */
+    public void tileChanged(int tile, boolean isWalkable) {
+        if (setWalkable(tile, isWalkable)) {
+            rebuildDirty();
+        }
+    }
+
+    /**
+     * Compares the board against the snapshot and rebuilds
+     * only the clusters in which tiles have changed.
+     *
+     * @param isWalkable predicate that determines if the tile at an index is walkable.
+     * @return the number of clusters rebuilt.
+     * @throws IllegalArgumentException if {@code isWalkable} is {@code null}
+     */
+    public int refresh(IntPredicate isWalkable) {
+        if (isWalkable == null) {
+            throw new IllegalArgumentException("isWalkable must not be null");
+        }
+        for (int tile = 0; tile < width * height; tile++) {
+            setWalkable(tile, isWalkable.test(tile));
+        }
+        return rebuildDirty();
+    }
+
+    /**
+     * Compares a board against the snapshot and rebuilds
+     * only the clusters in which tiles have changed.
+     *
+     * @param grid the board, with the same dimensions as this graph.
+     * @return the number of clusters rebuilt.
+     * @throws IllegalArgumentException if {@code grid} is {@code null}
+     *      or does not fit this graph.
+     */
+    public int refresh(Board grid) {
+        if (!fits(grid)) {
+            throw new IllegalArgumentException("grid does not fit the graph");
+        }
+        return refresh(grid::isWalkable);
+    }
+
+    /*************************************************************
+     *                          QUERIES                          *
+     *************************************************************/
+
+    /**
+     * Checks whether this graph was built for a board of the given size.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @return {@code true} if the dimensions match.
+     */
+    public boolean fits(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    /**
+     * Checks whether this graph was built for a board of the same size.
+     *
+     * @param grid the board (must not be {@code null})
+     * @return {@code true} if the dimensions match.
+     * @throws IllegalArgumentException if {@code grid} is {@code null}
+     */
+    public boolean fits(Board grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        return fits(grid.width(), grid.height());
+    }
+
+    /**
+     * Checks if a tile was walkable when the graph was last updated.
+     *
+     * @param tile the index of the tile.
+     * @return {@code true} if the tile is walkable.
+     */
+    public boolean isWalkable(int tile) {
+        return (walkable[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    /**
+     * Returns the cluster a tile belongs to.
+     *
+     * @param tile the index of the tile.
+     * @return the cluster.
+     */
+    public int clusterOf(int tile) {
+        return (tile / width / clusterSize) * clustersX + (tile % width) / clusterSize;
+    }
+
+    /**
+     * Returns the width and height of a cluster in tiles.
+     *
+     * @return the cluster size.
+     */
+    public int clusterSize() { return clusterSize; }
+
+    /**
+     * Returns the width of the board the graph was built for.
+     *
+     * @return the width in tiles.
+     */
+    public int width() { return width; }
+
+    /**
+     * Returns the height of the board the graph was built for.
+     *
+     * @return the height in tiles.
+     */
+    public int height() { return height; }
+
+    /**
+     * Returns an upper bound on node ids, for sizing per-node arrays.
+     *
+     * @return one more than the highest node id in use.
+     */
+    public int nodeCapacity() { return nodeCapacity; }
+
+    /**
+     * Returns the number of nodes in a cluster.
+     *
+     * @param cluster the cluster.
+     * @return the number of nodes.
+     */
+    public int nodeCount(int cluster) { return clusterNodes[cluster].length; }
+
+    /**
+     * Returns one of the nodes in a cluster.
+     *
+     * @param cluster the cluster.
+     * @param slot the position of the node within the cluster,
+     *      from {@code 0} to {@link #nodeCount} exclusive.
+     * @return the node.
+     */
+    public int node(int cluster, int slot) { return clusterNodes[cluster][slot]; }
+
+    /**
+     * Returns the tile a node is at.
+     *
+     * @param node the node.
+     * @return the index of the tile.
+     */
+    public int nodeTile(int node) { return nodeTiles[node]; }
+
+    /**
+     * Returns the node across the border from a node, one step away.
+     *
+     * @param node the node.
+     * @return the partner node.
+     */
+    public int partner(int node) { return nodePartners[node]; }
+
+    /**
+     * Returns the walking distance within their cluster between two of its nodes.
+     *
+     * @param cluster the cluster of both nodes.
+     * @param fromSlot the position of the first node within the cluster.
+     * @param toSlot the position of the second node within the cluster.
+     * @return the distance, or {@link #NONE} if they are not connected in the cluster.
+     */
+    public int distance(int cluster, int fromSlot, int toSlot) {
+        return clusterDistances[cluster][fromSlot * clusterNodes[cluster].length + toSlot];
+    }
+
+    /**
+     * Returns the position of a node within its cluster.
+     *
+     * @param node the node.
+     * @return the slot of the node.
+     */
+    public int slot(int node) { return nodeSlots[node]; }
+
+    /*************************************************************
+     *                        SERIALIZING                        *
+     *************************************************************/
+
+    /**
+     * Returns the number of bytes {@link #writeTo} writes.
+     *
+     * @return the size of the graph in bytes.
+     */
+    public long serializedSize() {
+        long size = 3 * Integer.BYTES
+            + GraphBuffers.longsSize(walkable.length)
+            + 3 * GraphBuffers.intsSize(nodeCapacity)
+            + GraphBuffers.intsSize(freeCount);
+        for (int cluster = 0; cluster < clustersX * clustersY; cluster++) {
+            size += GraphBuffers.intsSize(eastBorders[cluster].length)
+                + GraphBuffers.intsSize(southBorders[cluster].length)
+                + GraphBuffers.intsSize(clusterNodes[cluster].length)
+                + GraphBuffers.intsSize(clusterDistances[cluster].length);
+        }
+        return size;
+    }
+
+    /**
+     * Writes the graph to a buffer, to be read back with {@link #readFrom}.
+     *
+     * @param buffer the buffer, with at least {@link #serializedSize()} bytes remaining.
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     */
+    public void writeTo(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer must not be null");
+        }
+        buffer.putInt(width).putInt(height).putInt(clusterSize);
+        GraphBuffers.putLongs(buffer, walkable);
+        GraphBuffers.putInts(buffer, nodeTiles, nodeCapacity);
+        GraphBuffers.putInts(buffer, nodePartners, nodeCapacity);
+        GraphBuffers.putInts(buffer, nodeSlots, nodeCapacity);
+        GraphBuffers.putInts(buffer, freeNodes, freeCount);
+        for (int cluster = 0; cluster < clustersX * clustersY; cluster++) {
+            GraphBuffers.putInts(buffer, eastBorders[cluster], eastBorders[cluster].length);
+            GraphBuffers.putInts(buffer, southBorders[cluster], southBorders[cluster].length);
+            GraphBuffers.putInts(buffer, clusterNodes[cluster], clusterNodes[cluster].length);
+            GraphBuffers.putInts(buffer, clusterDistances[cluster],
+                clusterDistances[cluster].length);
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #writeTo}, without rebuilding it.
+     *
+     * @param buffer the buffer, positioned at the graph (must not be {@code null})
+     * @return the graph.
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     *      or does not hold a valid graph.
+     */
+    public static ClusterGraph readFrom(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer must not be null");
+        }
+        try {
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int clusterSize = buffer.getInt();
+            long[] walkable = GraphBuffers.getLongs(buffer);
+            if (width < 0 || height < 0 || clusterSize <= 0
+                || walkable.length != ((long) width * height + 63) >>> 6) {
+                throw new IllegalArgumentException("buffer does not hold a valid graph");
+            }
+
+            ClusterGraph graph = new ClusterGraph(width, height, clusterSize, walkable);
+            int[] nodeTiles = GraphBuffers.getInts(buffer);
+            int[] nodePartners = GraphBuffers.getInts(buffer);
+            int[] nodeSlots = GraphBuffers.getInts(buffer);
+            int[] freeNodes = GraphBuffers.getInts(buffer);
+            int capacity = nodeTiles.length;
+            if (nodePartners.length != capacity || nodeSlots.length != capacity
+                || !allBelow(freeNodes, capacity)) {
+                throw new IllegalArgumentException("buffer does not hold a valid graph");
+            }
+            graph.nodeCapacity = capacity;
+            graph.nodeTiles = Arrays.copyOf(nodeTiles, Math.max(capacity, 64));
+            graph.nodePartners = Arrays.copyOf(nodePartners, Math.max(capacity, 64));
+            graph.nodeSlots = Arrays.copyOf(nodeSlots, Math.max(capacity, 64));
+            graph.freeCount = freeNodes.length;
+            graph.freeNodes = Arrays.copyOf(freeNodes, Math.max(freeNodes.length, 16));
+
+            for (int cluster = 0; cluster < graph.clustersX * graph.clustersY; cluster++) {
+                int[] eastBorder = GraphBuffers.getInts(buffer);
+                int[] southBorder = GraphBuffers.getInts(buffer);
+                int[] nodes = GraphBuffers.getInts(buffer);
+                int[] distances = GraphBuffers.getInts(buffer);
+                if (!allBelow(eastBorder, capacity) || !allBelow(southBorder, capacity)
+                    || !allBelow(nodes, capacity)
+                    || distances.length != (long) nodes.length * nodes.length) {
+                    throw new IllegalArgumentException("buffer does not hold a valid graph");
+                }
+                graph.eastBorders[cluster] = eastBorder;
+                graph.southBorders[cluster] = southBorder;
+                graph.clusterNodes[cluster] = nodes;
+                graph.clusterDistances[cluster] = distances;
+            }
+            return graph;
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new IllegalArgumentException("buffer does not hold a valid graph",
+                bufferUnderflowException);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that validates the arguments of the constructor
+     * and takes a snapshot of the walkable tiles.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param clusterSize the width and height of a cluster in tiles.
+     * @param isWalkable predicate that determines if the tile at an index is walkable.
+     * @return the walkable tiles, one bit per tile.
+     * @throws IllegalArgumentException if {@code isWalkable} is {@code null},
+     *      a dimension is negative or {@code clusterSize} is not positive.
+     */
+    private static long[] snapshot(int width, int height, int clusterSize,
+        IntPredicate isWalkable) {
+        if (isWalkable == null) {
+            throw new IllegalArgumentException("isWalkable must not be null");
+        }
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be non-negative");
+        }
+        if (clusterSize <= 0) {
+            throw new IllegalArgumentException("clusterSize must be positive");
+        }
+
+        long[] walkable = new long[(width * height + 63) >>> 6];
+        for (int tile = 0; tile < width * height; tile++) {
+            if (isWalkable.test(tile)) {
+                walkable[tile >>> 6] |= 1L << tile;
+            }
+        }
+        return walkable;
+    }
+
+    /**
+     * Helper function that checks that every value of an array is
+     * a node below a capacity, or {@link #NONE}.
+     *
+     * @param values the values.
+     * @param capacity the number of node ids.
+     * @return {@code true} if every value is in {@code [NONE, capacity)}.
+     */
+    private static boolean allBelow(int[] values, int capacity) {
+        for (int value : values) {
+            if (value < NONE || value >= capacity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper function that updates the snapshot of a tile,
+     * marking its cluster dirty if it changed.
+     *
+     * @param tile the index of the tile.
+     * @param isWalkable whether the tile can be walked on.
+     * @return {@code true} if the tile changed.
+     */
+    private boolean setWalkable(int tile, boolean isWalkable) {
+        if (isWalkable(tile) == isWalkable) {
+            return false;
+        }
+        walkable[tile >>> 6] ^= 1L << tile;
+        dirty[clusterOf(tile)] = true;
+        return true;
+    }
+
+    /**
+     * Helper function that rebuilds the borders of all dirty clusters,
+     * and the node distances of every cluster touching those borders.
+     *
+     * @return the number of clusters whose node distances were rebuilt.
+     */
+    private int rebuildDirty() {
+        int clusters = clustersX * clustersY;
+        boolean[] borderDirty = new boolean[clusters * 2];
+        boolean[] distancesDirty = new boolean[clusters];
+
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            if (!dirty[cluster]) {
+                continue;
+            }
+            int cx = cluster % clustersX;
+            int cy = cluster / clustersX;
+            borderDirty[cluster * 2] = true;
+            borderDirty[cluster * 2 + 1] = true;
+            if (cx > 0) { borderDirty[(cluster - 1) * 2] = true; }
+            if (cy > 0) { borderDirty[(cluster - clustersX) * 2 + 1] = true; }
+            dirty[cluster] = false;
+        }
+
+        /* Rebuilding the transition points of every dirty border */
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            int cx = cluster % clustersX;
+            int cy = cluster / clustersX;
+            if (borderDirty[cluster * 2] && cx + 1 < clustersX) {
+                eastBorders[cluster] = rebuildBorder(eastBorders[cluster], cluster, true);
+                distancesDirty[cluster] = true;
+                distancesDirty[cluster + 1] = true;
+            }
+            if (borderDirty[cluster * 2 + 1] && cy + 1 < clustersY) {
+                southBorders[cluster] = rebuildBorder(southBorders[cluster], cluster, false);
+                distancesDirty[cluster] = true;
+                distancesDirty[cluster + clustersX] = true;
+            }
+        }
+
+        int rebuilt = 0;
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            if (distancesDirty[cluster]) {
+                rebuildDistances(cluster);
+                rebuilt++;
+            }
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Helper function that replaces the transition points on one border.
+     *
+     * @param oldPairs the node pairs previously on the border, to be freed.
+     * @param cluster the cluster west or north of the border.
+     * @param east {@code true} for the east border, {@code false} for the south border.
+     * @return the new node pairs on the border.
+     */
+    private int[] rebuildBorder(int[] oldPairs, int cluster, boolean east) {
+        for (int node : oldPairs) {
+            freeNode(node);
+        }
+
+        int cx = cluster % clustersX;
+        int cy = cluster / clustersX;
+        int[] pairs = new int[0];
+        int count = 0;
+
+        /* Walking along the border, one tile pair at a time */
+        int length = east
+            ? Math.min(clusterSize, height - cy * clusterSize)
+            : Math.min(clusterSize, width - cx * clusterSize);
+        int runStart = NONE;
+        for (int i = 0; i <= length; i++) {
+            boolean open = false;
+            if (i < length) {
+                int near = borderTile(cx, cy, east, i);
+                int far = east ? near + 1 : near + width;
+                open = isWalkable(near) && isWalkable(far);
+            }
+
+            if (open && runStart == NONE) {
+                runStart = i;
+            } else if (!open && runStart != NONE) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= WIDE_ENTRANCE) {
+                    pairs = addTransition(pairs, count++, cx, cy, east, runStart);
+                    pairs = addTransition(pairs, count++, cx, cy, east, runEnd);
+                } else {
+                    pairs = addTransition(pairs, count++, cx, cy, east,
+                        (runStart + runEnd) / 2);
+                }
+                runStart = NONE;
+            }
+        }
+
+        return Arrays.copyOf(pairs, count * 2);
+    }
+
+    /**
+     * Helper function that creates the pair of nodes for a transition point.
+     *
+     * @param pairs the node pairs of the border so far.
+     * @param index the number of pairs already in {@code pairs}.
+     * @param cx the x coordinate of the cluster west or north of the border.
+     * @param cy the y coordinate of that cluster.
+     * @param east {@code true} for the east border, {@code false} for the south border.
+     * @param i the position of the transition along the border.
+     * @return the node pairs, grown if needed.
+     */
+    private int[] addTransition(int[] pairs, int index, int cx, int cy, boolean east, int i) {
+        if (pairs.length < (index + 1) * 2) {
+            pairs = Arrays.copyOf(pairs, Math.max(8, pairs.length * 2));
+        }
+        int near = borderTile(cx, cy, east, i);
+        int far = east ? near + 1 : near + width;
+        int nearNode = allocateNode(near);
+        int farNode = allocateNode(far);
+        nodePartners[nearNode] = farNode;
+        nodePartners[farNode] = nearNode;
+        pairs[index * 2] = nearNode;
+        pairs[index * 2 + 1] = farNode;
+        return pairs;
+    }
+
+    /**
+     * Helper function that returns a tile on the near side of a border.
+     *
+     * @param cx the x coordinate of the cluster west or north of the border.
+     * @param cy the y coordinate of that cluster.
+     * @param east {@code true} for the east border, {@code false} for the south border.
+     * @param i the position along the border.
+     * @return the index of the tile.
+     */
+    private int borderTile(int cx, int cy, boolean east, int i) {
+        if (east) {
+            return (cy * clusterSize + i) * width + (cx + 1) * clusterSize - 1;
+        }
+        return ((cy + 1) * clusterSize - 1) * width + cx * clusterSize + i;
+    }
+
+    /**
+     * Helper function that collects the nodes of a cluster from its four borders
+     * and computes the distances between them within the cluster.
+     *
+     * @param cluster the cluster to rebuild.
+     */
+    private void rebuildDistances(int cluster) {
+        int cx = cluster % clustersX;
+        int cy = cluster / clustersX;
+
+        /* Near side of the east and south borders, far side of the west and north */
+        int count = eastBorders[cluster].length / 2 + southBorders[cluster].length / 2
+            + (cx > 0 ? eastBorders[cluster - 1].length / 2 : 0)
+            + (cy > 0 ? southBorders[cluster - clustersX].length / 2 : 0);
+        int[] nodes = new int[count];
+        int filled = 0;
+        filled = collect(eastBorders[cluster], 0, nodes, filled);
+        filled = collect(southBorders[cluster], 0, nodes, filled);
+        if (cx > 0) { filled = collect(eastBorders[cluster - 1], 1, nodes, filled); }
+        if (cy > 0) { filled = collect(southBorders[cluster - clustersX], 1, nodes, filled); }
+
+        for (int slot = 0; slot < count; slot++) {
+            nodeSlots[nodes[slot]] = slot;
+        }
+
+        int[] distances = new int[count * count];
+        for (int from = 0; from < count; from++) {
+            searchCluster(cluster, nodeTiles[nodes[from]]);
+            for (int to = 0; to < count; to++) {
+                distances[from * count + to] = localDistances[local(cluster, nodeTiles[nodes[to]])];
+            }
+        }
+
+        clusterNodes[cluster] = nodes;
+        clusterDistances[cluster] = distances;
+    }
+
+    /**
+     * Helper function that copies one side of a border's node pairs into a list.
+     *
+     * @param pairs the node pairs of the border.
+     * @param side {@code 0} for the near side, {@code 1} for the far side.
+     * @param nodes the list being filled.
+     * @param filled the number of nodes already in the list.
+     * @return the new number of nodes in the list.
+     */
+    private static int collect(int[] pairs, int side, int[] nodes, int filled) {
+        for (int i = side; i < pairs.length; i += 2) {
+            nodes[filled++] = pairs[i];
+        }
+        return filled;
+    }
+
+    /**
+     * Helper function that runs a breadth-first search from a tile,
+     * restricted to the tiles of one cluster.
+     * The distances are left in {@link #localDistances}.
+     *
+     * @param cluster the cluster to search in.
+     * @param from the tile to search from.
+     */
+    private void searchCluster(int cluster, int from) {
+        int x0 = (cluster % clustersX) * clusterSize;
+        int y0 = (cluster / clustersX) * clusterSize;
+        int x1 = Math.min(x0 + clusterSize, width);
+        int y1 = Math.min(y0 + clusterSize, height);
+
+        Arrays.fill(localDistances, NONE);
+        int head = 0;
+        int tail = 0;
+        localDistances[local(cluster, from)] = 0;
+        localQueue[tail++] = from;
+
+        while (head < tail) {
+            int current = localQueue[head++];
+            int x = current % width;
+            int y = current / width;
+            int next = localDistances[local(cluster, current)] + 1;
+
+            if (y + 1 < y1) { tail = visit(cluster, current + width, next, tail); }
+            if (y > y0) { tail = visit(cluster, current - width, next, tail); }
+            if (x > x0) { tail = visit(cluster, current - 1, next, tail); }
+            if (x + 1 < x1) { tail = visit(cluster, current + 1, next, tail); }
+        }
+    }
+
+    /**
+     * Helper function that enqueues a tile in a cluster search
+     * if it is walkable and not yet reached.
+     *
+     * @param cluster the cluster being searched.
+     * @param tile the tile.
+     * @param distance the distance to assign the tile.
+     * @param tail the current tail of the queue.
+     * @return the new tail of the queue.
+     */
+    private int visit(int cluster, int tile, int distance, int tail) {
+        int local = local(cluster, tile);
+        if (localDistances[local] != NONE || !isWalkable(tile)) {
+            return tail;
+        }
+        localDistances[local] = distance;
+        localQueue[tail] = tile;
+        return tail + 1;
+    }
+
+    /**
+     * Helper function that converts a tile to its index within its cluster.
+     *
+     * @param cluster the cluster of the tile.
+     * @param tile the index of the tile on the board.
+     * @return the index of the tile within the cluster.
+     */
+    int local(int cluster, int tile) {
+        int x = tile % width - (cluster % clustersX) * clusterSize;
+        int y = tile / width - (cluster / clustersX) * clusterSize;
+        return y * clusterSize + x;
+    }
+
+    /**
+     * Helper function that hands out a node id for a tile.
+     *
+     * @param tile the tile of the node.
+     * @return the new node.
+     */
+    private int allocateNode(int tile) {
+        int node;
+        if (freeCount > 0) {
+            node = freeNodes[--freeCount];
+        } else {
+            node = nodeCapacity++;
+            if (node == nodeTiles.length) {
+                nodeTiles = Arrays.copyOf(nodeTiles, node * 2);
+                nodePartners = Arrays.copyOf(nodePartners, node * 2);
+                nodeSlots = Arrays.copyOf(nodeSlots, node * 2);
+            }
+        }
+        nodeTiles[node] = tile;
+        return node;
+    }
+
+    /**
+     * Helper function that returns a node id for reuse.
+     *
+     * @param node the node to free.
+     */
+    private void freeNode(int node) {
+        if (freeCount == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+        }
+        freeNodes[freeCount++] = node;
+        nodeTiles[node] = NONE;
+        nodePartners[node] = NONE;
+    }
+}
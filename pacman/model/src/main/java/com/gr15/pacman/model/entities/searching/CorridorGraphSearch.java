@@ -0,0 +1,266 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.ChunkedBoard;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A {@link SearchStrategy} that runs Dijkstra's algorithm over a
+ * {@link NavigationGraph} instead of over individual tiles.
+ *
+ * <p> Only junctions and dead ends are visited, with whole corridors relaxed
+ * in a single step, so on mazes made of long corridors a search expands
+ * a small fraction of the nodes a tile-based search would. Start and goal tiles
+ * in the middle of a corridor are connected to the two ends of their edge. </p>
+ *
+ * <p> The graph is either supplied by the owner of the board, so that many
+ * searches can share it, or built from the walkable tiles on first use.
+ * Per-query bookkeeping is kept between calls. The graph covers every tile of
+ * the board, so chunked boards, which keep only part of the world in memory,
+ * cannot be searched. </p>
+ */
+public class CorridorGraphSearch
+    implements SearchStrategy {
+
+    /** Distance used for nodes not reached yet. */
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /** Source of the shared graph, or {@code null} to build one from the board. */
+    private final Supplier<NavigationGraph> graphSource;
+
+    /** The graph searched, {@code null} until first needed. */
+    private NavigationGraph graph;
+
+    /** Open set of nodes, ordered by distance from the start. */
+    private final IntMinHeap open = new IntMinHeap(64);
+
+    /** Best known distance from the start to each node. */
+    private int[] distances = new int[0];
+
+    /** Direction of the first step from the start on the best path to each node. */
+    private Direction[] firstSteps = new Direction[0];
+
+    /** Generation in which each node's distance was last set. */
+    private int[] seen = new int[0];
+
+    /** Generation of the current search. */
+    private int generation = 0;
+
+    /** Number of nodes expanded by the most recent search. */
+    private int expanded = 0;
+
+    /**
+     * Constructs a search that builds its own graph from the board on first use.
+     */
+    public CorridorGraphSearch() {
+        this.graphSource = null;
+    }
+
+    /**
+     * Constructs a search over a graph supplied by the owner of the board.
+     * The supplier is asked again after every {@link #reset}.
+     *
+     * @param graphSource supplies the graph of the current board.
+     * @throws IllegalArgumentException if {@code graphSource} is {@code null}
+     */
+    public CorridorGraphSearch(Supplier<NavigationGraph> graphSource) {
+        if (graphSource == null) {
+            throw new IllegalArgumentException("graphSource must not be null");
+        }
+        this.graphSource = graphSource;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm over the junctions of the board,
+     * starting from the ends of the start tile's corridor.
+     *
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the ghost.
+     * @param goal The index of the target tile.
+     * @return The direction of the first step, or {@link Direction#NONE}
+     *      if already at the goal or no path is found.
+     * @throws IllegalArgumentException if {@code grid} is a {@link ChunkedBoard},
+     *      whose graph would load the whole world.
+     */
+    @Override
+    public Direction nextStep(Board grid, int start, int goal) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        if (grid instanceof ChunkedBoard) {
+            throw new IllegalArgumentException("grid must not be a ChunkedBoard");
+        }
+        int width = grid.width();
+        int height = grid.height();
+        int size = grid.size();
+        if (start < 0 || start >= size || goal < 0 || goal >= size) {
+            throw new IllegalArgumentException("start and goal must be inside the board");
+        }
+
+        NavigationGraph navigation = graphFor(grid);
+        expanded = 0;
+        if (start == goal || !navigation.contains(start) || !navigation.contains(goal)) {
+            return Direction.NONE;
+        }
+
+        nextGeneration(navigation.nodeCount());
+        open.clear();
+
+        int best = INFINITY;
+        Direction bestStep = Direction.NONE;
+
+        /* Seeding the search with the start tile's node or corridor ends */
+        int startNode = navigation.nodeAt(start);
+        int startEdge = navigation.edgeAt(start);
+        if (startNode != NavigationGraph.NONE) {
+            reach(startNode, 0, Direction.NONE);
+        } else {
+            int offset = navigation.offsetAt(start);
+            reach(navigation.edgeStart(startEdge), offset, navigation.towardStart(start));
+            reach(navigation.edgeEnd(startEdge),
+                navigation.edgeLength(startEdge) - offset, navigation.towardEnd(start));
+        }
+
+        int goalNode = navigation.nodeAt(goal);
+        int goalEdge = navigation.edgeAt(goal);
+        int goalOffset = goalEdge != NavigationGraph.NONE ? navigation.offsetAt(goal) : 0;
+
+        /* Walking straight along a shared corridor */
+        if (startEdge != NavigationGraph.NONE && startEdge == goalEdge) {
+            int offset = navigation.offsetAt(start);
+            best = Math.abs(offset - goalOffset);
+            bestStep = goalOffset < offset
+                ? navigation.towardStart(start) : navigation.towardEnd(start);
+        }
+
+        while (!open.isEmpty()) {
+            long distance = open.peekPriority();
+            int node = open.pop();
+            if (distance != distances[node]) {
+                continue; /* Stale entry, already reached with a lower distance */
+            }
+            if (distance >= best) {
+                break; /* Nothing left can improve on the best path found */
+            }
+            expanded++;
+
+            if (node == goalNode) {
+                best = distances[node];
+                bestStep = firstSteps[node];
+                break;
+            }
+
+            for (int i = 0; i < navigation.degree(node); i++) {
+                int edge = navigation.adjacentEdge(node, i);
+                boolean fromStart = navigation.edgeStart(edge) == node;
+                int length = navigation.edgeLength(edge);
+
+                /* The first step out of the start node is along this edge */
+                Direction step = node == startNode
+                    ? (fromStart ? navigation.edgeStartDirection(edge)
+                        : navigation.edgeEndDirection(edge))
+                    : firstSteps[node];
+
+                if (edge == goalEdge) {
+                    int candidate = distances[node]
+                        + (fromStart ? goalOffset : length - goalOffset);
+                    if (candidate < best) {
+                        best = candidate;
+                        bestStep = step;
+                    }
+                    if (navigation.edgeStart(edge) == navigation.edgeEnd(edge)
+                        && distances[node] + length - goalOffset < best) {
+                        /* A loop can also be entered from its other end */
+                        best = distances[node] + length - goalOffset;
+                        bestStep = node == startNode
+                            ? navigation.edgeEndDirection(edge) : firstSteps[node];
+                    }
+                }
+
+                int other = fromStart ? navigation.edgeEnd(edge) : navigation.edgeStart(edge);
+                reach(other, distances[node] + length, step);
+            }
+        }
+
+        return bestStep;
+    }
+
+    /**
+     * Drops the graph, so it is fetched or built again on next use.
+     */
+    @Override
+    public void reset() {
+        this.graph = null;
+    }
+
+    /**
+     * Returns the number of graph nodes expanded by the most recent search.
+     *
+     * @return the number of expanded nodes.
+     */
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    /**
+     * Helper function that returns the graph for the board,
+     * fetching or building it if needed.
+     *
+     * @param grid the board searched.
+     * @return the navigation graph.
+     */
+    private NavigationGraph graphFor(Board grid) {
+        if (graph == null || !graph.fits(grid.width(), grid.height())) {
+            graph = graphSource != null
+                ? graphSource.get()
+                : NavigationGraph.build(grid);
+            if (!graph.fits(grid.width(), grid.height())) {
+                throw new IllegalStateException("navigation graph does not match the board");
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Helper function that records a path to a node if it is shorter
+     * than any found before, and adds the node to the open set.
+     *
+     * @param node the node reached.
+     * @param distance the length of the path.
+     * @param firstStep the first step from the start along the path.
+     */
+    private void reach(int node, int distance, Direction firstStep) {
+        if (seen[node] == generation && distances[node] <= distance) {
+            return;
+        }
+        seen[node] = generation;
+        distances[node] = distance;
+        firstSteps[node] = firstStep;
+        open.push(distance, node);
+    }
+
+    /**
+     * Helper function that starts a new search generation,
+     * growing the buffers if the graph is larger than any seen before.
+     *
+     * @param nodes the number of nodes in the graph.
+     */
+    private void nextGeneration(int nodes) {
+        if (seen.length < nodes) {
+            distances = new int[nodes];
+            firstSteps = new Direction[nodes];
+            seen = new int[nodes];
+            generation = 0;
+        }
+
+        generation++;
+        if (generation == 0) {
+            /* The stamp wrapped around, so old marks could collide */
+            Arrays.fill(seen, 0);
+            generation = 1;
+        }
+    }
+}
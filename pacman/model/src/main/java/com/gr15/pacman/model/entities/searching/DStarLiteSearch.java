@@ -0,0 +1,656 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * Implements the D* Lite algorithm, an incremental search that keeps its
+ * search tree between calls and only repairs the parts affected by a change.
+ *
+ * <p> The search tree is rooted at the ghost, and every tile stores its distance
+ * from the ghost, counted from the distance stored for the ghost's own tile.
+ * The search is guided by the Manhattan distance to the goal, so when the goal
+ * moves, as Pacman does every few ticks, the keys of the open set are offset
+ * instead of recomputed, and only the few tiles between the old and the new
+ * goal are expanded. The first step is read off by following the distances back
+ * from the goal to the ghost, taking the first closer neighbour in a fixed order.
+ * Every tile on a shortest path has its distance by then, so the step only
+ * depends on the board, the ghost and the goal, not on earlier searches, and a
+ * game played again from a keyframe moves its ghosts the same. </p>
+ *
+ * <p> When the ghost moves to a tile of the tree, the tree is rooted there instead,
+ * as in Moving Target D* Lite. The tiles whose shortest paths all run through the
+ * new root keep their distances, which the new root's stored distance now counts
+ * from, so they are not touched. The other tiles are at most as far as going back
+ * through the old root, so their distances are raised to that, and only the tiles
+ * with a shorter path are expanded again. When the ghost leaves the tree, as when
+ * it respawns, or most of the tree is outside the new root's subtree, a new tree
+ * is searched. All per-tile state is generation stamped and kept in
+ * {@link TilePages}, so discarding a tree takes constant time, and the state only
+ * takes memory for the tiles searched. </p>
+ *
+ * <p> The walkable tiles are captured when first searched. Changes to them are
+ * picked up after {@link #reset}, repairing around the tiles that changed.
+ * Tiles the board does not retain, see {@link Board#isRetained}, are captured as
+ * walls, so the tree never spreads beyond the chunks kept around the entities,
+ * and is repaired the same way whenever the retained tiles change.
+ * The state belongs to one ghost, so every ghost needs its own instance. </p>
+ */
+public class DStarLiteSearch
+    implements SearchStrategy {
+
+    /** Distance used for tiles not connected to the ghost. */
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    /** Key offset at which all keys are recomputed, so they cannot overflow. */
+    private static final int MAX_KEY_OFFSET = 1 << 28;
+
+    /** Marker for a tile that is not in the open set. */
+    private static final long NOT_QUEUED = -1L;
+
+    /** Marker for a tile found outside the new root's subtree while moving the root. */
+    private static final long OUTSIDE = -2L;
+
+    /** Field holding the distance from the ghost to a tile, as of its last expansion. */
+    private static final int DISTANCE = 0;
+
+    /** Field holding the distance from the ghost to a tile, as seen from its neighbours. */
+    private static final int LOOKAHEAD = 1;
+
+    /** Field holding the upper half of the key of a tile in the open set. */
+    private static final int KEY_HIGH = 2;
+
+    /** Field holding the lower half of the key of a tile in the open set. */
+    private static final int KEY_LOW = 3;
+
+    /** Field holding {@code 1} if a tile was walkable when it was captured. */
+    private static final int WALKABLE = 4;
+
+    /** Open set of tile indices, ordered by key. */
+    private final IntMinHeap open = new IntMinHeap(64);
+
+    /** Per-tile state of the search tree, a tile being marked once it is captured. */
+    private final TilePages tiles = new TilePages(5);
+
+    /** Tiles captured by the search tree, in the order they were captured. */
+    private int[] captured = new int[64];
+
+    /** Number of tiles in {@link #captured}. */
+    private int capturedCount = 0;
+
+    /** Tiles outside the new root's subtree when moving the root, reused between moves. */
+    private int[] outside = new int[64];
+
+    /** The board searched by the current call. */
+    private Board board;
+
+    /** Width of the board searched, {@code 0} before the first search. */
+    private int width = 0;
+
+    /** Height of the board searched. */
+    private int height = 0;
+
+    /** The ghost's tile, the root of the search tree, or {@code -1} if there is no tree. */
+    private int root = -1;
+
+    /** Distance stored for the root, from which the distances of all tiles count. */
+    private int rootDistance = 0;
+
+    /** The goal the keys were last computed for. */
+    private int goal = -1;
+
+    /** Sum of the distances the goal has moved, added to all new keys. */
+    private int keyOffset = 0;
+
+    /** Whether the walkable tiles must be compared against the board before the next search. */
+    private boolean stale = false;
+
+    /** The version of the retained tiles of the board when the tiles were captured. */
+    private long retainedVersion = 0;
+
+    /** Number of tiles expanded by the most recent search. */
+    private int expanded = 0;
+
+    /**
+     * Repairs the search tree after the goal, the ghost or the board changed,
+     * or searches a new tree if the ghost left it, then reads off the first step.
+     *
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the ghost.
+     * @param goal The index of the target tile.
+     * @return The direction of the first step, or {@link Direction#NONE}
+     *      if already at the goal or no path is found over the retained tiles.
+     */
+    @Override
+    public Direction nextStep(Board grid, int start, int goal) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        int width = grid.width();
+        int height = grid.height();
+        int size = grid.size();
+        if (start < 0 || start >= size || goal < 0 || goal >= size) {
+            throw new IllegalArgumentException("start and goal must be inside the board");
+        }
+
+        expanded = 0;
+        if (start == goal) {
+            return Direction.NONE;
+        }
+
+        this.board = grid;
+        if (grid.retainedVersion() != retainedVersion) {
+            retainedVersion = grid.retainedVersion();
+            stale = true;
+        }
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            this.root = -1;
+        }
+
+        if (this.root != -1 && stale) {
+            applyChanges();
+        }
+        if (this.root == -1 || this.root != start && !reroot(start)) {
+            plant(start, goal);
+        } else {
+            /* Moving the goal only shifts the heuristic, so the keys are offset */
+            keyOffset += heuristic(this.goal, goal);
+            this.goal = goal;
+        }
+        stale = false;
+
+        if (!isWalkable(tile(start)) || !isWalkable(tile(goal))) {
+            return Direction.NONE;
+        }
+
+        repair(goal);
+        if (tiles.get(tile(goal), DISTANCE) >= INFINITY) {
+            return Direction.NONE;
+        }
+        return firstStep(goal);
+    }
+
+    /**
+     * Marks the walkable tiles for comparison against the board on next use.
+     */
+    @Override
+    public void reset() {
+        this.stale = true;
+    }
+
+    /**
+     * Returns the number of tiles expanded by the most recent search.
+     *
+     * @return the number of expanded tiles.
+     */
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that discards the search tree and starts a new one
+     * rooted at the ghost.
+     *
+     * @param start the tile of the ghost.
+     * @param goal the goal of the search.
+     */
+    private void plant(int start, int goal) {
+        tiles.nextGeneration(width);
+        capturedCount = 0;
+        open.clear();
+        this.root = start;
+        this.rootDistance = 0;
+        this.goal = goal;
+        this.keyOffset = 0;
+
+        int tile = tile(start);
+        if (isWalkable(tile)) {
+            tiles.set(tile, LOOKAHEAD, 0);
+            queue(tile, start, key(tile, start));
+        }
+    }
+
+    /**
+     * Helper function that moves the root of the search tree to the ghost's new tile.
+     *
+     * <p> A tile keeps its distance if every path its distance rests on runs
+     * through the new root, as its distance from the new root is then its stored
+     * distance less the new root's. The tiles outside the new root's subtree are
+     * found by following the distances up from the old root and from every queued
+     * tile, whose distance may be wrong, without passing the new root. Going back
+     * through the old root, the path to such a tile is at most twice the move
+     * longer, so their distances are raised by that much and their lookahead
+     * distances recomputed. Only the tiles with a shorter path are queued. </p>
+     *
+     * @param start the new tile of the ghost.
+     * @return {@code true} if the root was moved, {@code false} if the tile
+     *      is not settled in the tree, or most of the tree lies outside its
+     *      subtree, and a new tree must be searched.
+     */
+    private boolean reroot(int start) {
+        int tile = tiles.find(start % width, start / width);
+        if (!tiles.isMarked(tile) || !isWalkable(tile)) {
+            return false;
+        }
+        int distance = tiles.get(tile, DISTANCE);
+        if (distance >= INFINITY || tiles.get(tile, LOOKAHEAD) != distance) {
+            return false;
+        }
+
+        int count = markOutside(root, start, 0);
+        for (int i = 0; i < open.size(); i++) {
+            int index = open.value(i);
+            long key = key(tiles.find(index % width, index / width));
+            if (key != NOT_QUEUED && key != OUTSIDE) {
+                count = markOutside(index, start, count);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (count > capturedCount / 2) {
+                return false; /* Most of the tree is outside, searching anew is cheaper */
+            }
+            int index = outside[i];
+            int x = index % width;
+            int y = index / width;
+            int next = tiles.get(tiles.find(x, y), DISTANCE) + 1;
+            if (next >= INFINITY) {
+                continue;
+            }
+            if (y + 1 < height) { count = markOutsideIfSettled(index + width, next, start, count); }
+            if (y > 0) { count = markOutsideIfSettled(index - width, next, start, count); }
+            if (x > 0) { count = markOutsideIfSettled(index - 1, next, start, count); }
+            if (x + 1 < width) { count = markOutsideIfSettled(index + 1, next, start, count); }
+        }
+
+        int raise = 2 * (distance - rootDistance);
+        for (int i = 0; i < count; i++) {
+            int index = outside[i];
+            int outsideTile = tiles.find(index % width, index / width);
+            int old = tiles.get(outsideTile, DISTANCE);
+            tiles.set(outsideTile, DISTANCE, Math.min(old + raise, INFINITY));
+            setKey(outsideTile, NOT_QUEUED);
+        }
+        open.clear();
+        this.root = start;
+        this.rootDistance = distance;
+        this.keyOffset = 0;
+        for (int i = 0; i < count; i++) {
+            update(outside[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Helper function that marks a settled tile as outside the new root's subtree
+     * if its distance rests on a tile beside it that is outside.
+     *
+     * @param index the tile.
+     * @param distance the distance the tile has if it rests on that tile.
+     * @param start the new root, which is never outside.
+     * @param count the number of tiles outside so far.
+     * @return the number of tiles outside.
+     */
+    private int markOutsideIfSettled(int index, int distance, int start, int count) {
+        int tile = tiles.find(index % width, index / width);
+        if (!tiles.isMarked(tile) || key(tile) != NOT_QUEUED
+            || tiles.get(tile, DISTANCE) != distance) {
+            return count;
+        }
+        return markOutside(index, start, count);
+    }
+
+    /**
+     * Helper function that marks a tile as outside the new root's subtree
+     * and adds it to {@link #outside}.
+     *
+     * @param index the tile.
+     * @param start the new root, which is never outside.
+     * @param count the number of tiles outside so far.
+     * @return the number of tiles outside.
+     */
+    private int markOutside(int index, int start, int count) {
+        if (index == start) {
+            return count;
+        }
+        setKey(tiles.find(index % width, index / width), OUTSIDE);
+        if (count == outside.length) {
+            outside = Arrays.copyOf(outside, count * 2);
+        }
+        outside[count] = index;
+        return count + 1;
+    }
+
+    /**
+     * Helper function that compares the board against the captured walkable tiles
+     * and updates the tiles around every tile that changed.
+     */
+    private void applyChanges() {
+        for (int i = 0; i < capturedCount; i++) {
+            int index = captured[i];
+            int tile = tile(index);
+            boolean walkable = isOpen(index);
+            if (walkable == isWalkable(tile)) {
+                continue;
+            }
+
+            tiles.set(tile, WALKABLE, walkable ? 1 : 0);
+            if (!walkable) {
+                tiles.set(tile, DISTANCE, INFINITY);
+                tiles.set(tile, LOOKAHEAD, INFINITY);
+                setKey(tile, NOT_QUEUED);
+            } else {
+                update(index);
+            }
+            updateNeighbours(index);
+        }
+    }
+
+    /**
+     * Helper function that expands tiles in key order until the goal's
+     * distance is correct and no tile in the open set could change it.
+     * The tiles whose estimate ties the goal's are expanded as well, so every
+     * tile on a shortest path has its distance when the first step is read off.
+     *
+     * @param goal the goal of the search.
+     */
+    private void repair(int goal) {
+        compact();
+        int goalTile = tile(goal);
+        while (!open.isEmpty()) {
+            long key = open.peekPriority();
+            int index = open.peek();
+            int tile = tile(index);
+            if (key(tile) != key) {
+                open.pop();
+                continue; /* Stale entry, the tile was updated since */
+            }
+            if ((key >>> 32) > (key(goalTile, goal) >>> 32)
+                && tiles.get(goalTile, LOOKAHEAD) == tiles.get(goalTile, DISTANCE)) {
+                break;
+            }
+
+            open.pop();
+            setKey(tile, NOT_QUEUED);
+            long current = key(tile, index);
+            int distance = tiles.get(tile, DISTANCE);
+            int lookahead = tiles.get(tile, LOOKAHEAD);
+            if (key < current) {
+                /* Key computed before the goal moved */
+                queue(tile, index, current);
+            } else if (distance > lookahead) {
+                expanded++;
+                tiles.set(tile, DISTANCE, lookahead);
+                updateNeighbours(index);
+            } else {
+                expanded++;
+                tiles.set(tile, DISTANCE, INFINITY);
+                update(index);
+                updateNeighbours(index);
+            }
+        }
+    }
+
+    /**
+     * Helper function that reads off the first step from the ghost towards the goal,
+     * by following the closest neighbours from the goal back to the ghost.
+     *
+     * @param goal the goal of the search, at a finite distance.
+     * @return the direction of the first step, or {@link Direction#NONE}
+     *      if the distances do not lead back to the ghost.
+     */
+    private Direction firstStep(int goal) {
+        int current = goal;
+        int distance = distance(goal);
+        while (true) {
+            int x = current % width;
+            int y = current / width;
+            int next = -1;
+            int best = distance;
+            if (y + 1 < height && distance(current + width) < best) {
+                next = current + width;
+                best = distance(next);
+            }
+            if (y > 0 && distance(current - width) < best) {
+                next = current - width;
+                best = distance(next);
+            }
+            if (x > 0 && distance(current - 1) < best) {
+                next = current - 1;
+                best = distance(next);
+            }
+            if (x + 1 < width && distance(current + 1) < best) {
+                next = current + 1;
+                best = distance(next);
+            }
+
+            if (next == -1) {
+                return Direction.NONE;
+            }
+            if (next == root) {
+                return AStarSearch.directionTo(root, current, width);
+            }
+            current = next;
+            distance = best;
+        }
+    }
+
+    /**
+     * Helper function that recomputes the lookahead distance of a tile from its
+     * neighbours, and queues the tile if it differs from its distance.
+     *
+     * @param index the tile to update.
+     */
+    private void update(int index) {
+        int tile = tile(index);
+        if (!isWalkable(tile)) {
+            return;
+        }
+        if (index != root) {
+            int x = index % width;
+            int y = index / width;
+            int best = INFINITY;
+            if (y + 1 < height) { best = Math.min(best, distance(index + width)); }
+            if (y > 0) { best = Math.min(best, distance(index - width)); }
+            if (x > 0) { best = Math.min(best, distance(index - 1)); }
+            if (x + 1 < width) { best = Math.min(best, distance(index + 1)); }
+            tiles.set(tile, LOOKAHEAD, Math.min(best + 1, INFINITY));
+        }
+
+        if (tiles.get(tile, DISTANCE) != tiles.get(tile, LOOKAHEAD)) {
+            queue(tile, index, key(tile, index));
+        } else {
+            setKey(tile, NOT_QUEUED);
+        }
+    }
+
+    /**
+     * Helper function that updates the walkable neighbours of a tile.
+     *
+     * @param index the tile whose neighbours to update.
+     */
+    private void updateNeighbours(int index) {
+        int x = index % width;
+        int y = index / width;
+        if (y + 1 < height) { update(index + width); }
+        if (y > 0) { update(index - width); }
+        if (x > 0) { update(index - 1); }
+        if (x + 1 < width) { update(index + 1); }
+    }
+
+    /**
+     * Helper function that adds a tile to the open set with a new key.
+     * Any earlier entry for the tile is left in the heap and skipped when popped.
+     *
+     * @param tile the handle of the tile.
+     * @param index the index of the tile.
+     * @param key the key of the tile.
+     */
+    private void queue(int tile, int index, long key) {
+        setKey(tile, key);
+        open.push(key, index);
+    }
+
+    /**
+     * Helper function that rebuilds the open set without its stale entries
+     * once they make up most of it, and recomputes all keys once the key offset
+     * or the root's distance grows large, counting distances from zero again.
+     */
+    private void compact() {
+        boolean rebase = rootDistance > MAX_KEY_OFFSET;
+        boolean rekey = rebase || keyOffset > MAX_KEY_OFFSET;
+        if (!rekey && open.size() <= 4 * Math.max(64, capturedCount)) {
+            return;
+        }
+        if (rekey) {
+            keyOffset = 0;
+        }
+        open.clear();
+        for (int i = 0; i < capturedCount; i++) {
+            int index = captured[i];
+            int tile = tile(index);
+            if (rebase) {
+                rebase(tile, DISTANCE);
+                rebase(tile, LOOKAHEAD);
+            }
+            if (key(tile) != NOT_QUEUED) {
+                if (rekey) {
+                    setKey(tile, key(tile, index));
+                }
+                open.push(key(tile), index);
+            }
+        }
+        if (rebase) {
+            rootDistance = 0;
+        }
+    }
+
+    /**
+     * Helper function that counts a distance of a tile from zero rather than
+     * from the root's distance.
+     *
+     * @param tile the handle of the tile.
+     * @param field {@link #DISTANCE} or {@link #LOOKAHEAD}.
+     */
+    private void rebase(int tile, int field) {
+        int distance = tiles.get(tile, field);
+        if (distance < INFINITY) {
+            tiles.set(tile, field, distance - rootDistance);
+        }
+    }
+
+    /**
+     * Helper function that computes the key of a tile, packed into a single {@code long}.
+     * Tiles are ordered by their estimated path length through the tile. Ties are
+     * broken in favour of tiles whose distance grew, as the distances of other tiles
+     * may rest on them, and then of the tile furthest from the ghost, which is
+     * closest to the goal, like {@link AStarSearch} does.
+     *
+     * @param tile the handle of the tile.
+     * @param index the index of the tile.
+     * @return the key of the tile.
+     */
+    private long key(int tile, int index) {
+        int distance = tiles.get(tile, DISTANCE);
+        int lookahead = tiles.get(tile, LOOKAHEAD);
+        long estimate = Math.min(
+            (long) Math.min(distance, lookahead) + heuristic(index, goal) + keyOffset, INFINITY);
+        long tieBreak = distance < lookahead ? 0 : INFINITY - lookahead;
+        return (estimate << 32) | tieBreak;
+    }
+
+    /**
+     * Helper function that returns the key a tile is queued with.
+     *
+     * @param tile the handle of the tile.
+     * @return the key, or {@link #NOT_QUEUED}.
+     */
+    private long key(int tile) {
+        return ((long) tiles.get(tile, KEY_HIGH) << 32) | (tiles.get(tile, KEY_LOW) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Helper function that stores the key a tile is queued with.
+     *
+     * @param tile the handle of the tile.
+     * @param key the key, or {@link #NOT_QUEUED}.
+     */
+    private void setKey(int tile, long key) {
+        tiles.set(tile, KEY_HIGH, (int) (key >>> 32));
+        tiles.set(tile, KEY_LOW, (int) key);
+    }
+
+    /**
+     * Helper function that returns the distance of a tile from the ghost,
+     * without capturing the tile.
+     *
+     * @param index the tile.
+     * @return the distance, or {@link #INFINITY} if the tile was never captured.
+     */
+    private int distance(int index) {
+        int tile = tiles.find(index % width, index / width);
+        return tiles.isMarked(tile) ? tiles.get(tile, DISTANCE) : INFINITY;
+    }
+
+    /**
+     * Helper function that returns the handle of a tile, capturing it
+     * with its walkability on the board if this tree has not yet.
+     *
+     * @param index the tile.
+     * @return the handle of the tile.
+     */
+    private int tile(int index) {
+        int tile = tiles.tile(index % width, index / width);
+        if (!tiles.isMarked(tile)) {
+            tiles.mark(tile);
+            tiles.set(tile, DISTANCE, INFINITY);
+            tiles.set(tile, LOOKAHEAD, INFINITY);
+            setKey(tile, NOT_QUEUED);
+            tiles.set(tile, WALKABLE, isOpen(index) ? 1 : 0);
+            if (capturedCount == captured.length) {
+                captured = Arrays.copyOf(captured, capturedCount * 2);
+            }
+            captured[capturedCount++] = index;
+        }
+        return tile;
+    }
+
+    /**
+     * Helper function that computes the Manhattan distance between two tiles.
+     *
+     * @param from the first tile.
+     * @param to the second tile.
+     * @return the distance in tiles.
+     */
+    private int heuristic(int from, int to) {
+        return Heuristic.MANHATTAN.estimate(from % width, from / width, to % width, to / width);
+    }
+
+    /**
+     * Helper function that checks if a tile is walkable and retained by the board,
+     * checking retention first so tiles outside the retained chunks are never loaded.
+     *
+     * @param index the tile.
+     * @return {@code true} if the search may step on the tile.
+     */
+    private boolean isOpen(int index) {
+        return board.isRetained(index) && board.isWalkable(index);
+    }
+
+    /**
+     * Helper function that checks the captured walkability of a tile.
+     *
+     * @param tile the handle of the tile.
+     * @return {@code true} if the tile was walkable when captured.
+     */
+    private boolean isWalkable(int tile) {
+        return tiles.get(tile, WALKABLE) != 0;
+    }
+}
@@ -0,0 +1,225 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A distance field over the game board, pointing every walkable tile
+ * towards a single goal tile.
+ *
+ * <p> The field is built by a single reverse breadth-first search from the goal,
+ * after which the next {@link Direction} towards the goal can be read
+ * for any tile in constant time. This lets any number of ghosts chasing
+ * the same goal share one search. </p>
+ *
+ * <p> The search only spreads over the tiles the board retains, see
+ * {@link Board#isRetained}, so on a board that keeps just the chunks around the
+ * entities in memory the field covers those chunks instead of pulling the whole
+ * world in, and tiles outside them cannot reach the goal. Distances are kept in
+ * {@link TilePages}, so the field only takes memory for the tiles it covers. </p>
+ */
+public final class FlowField {
+
+    /** Distance value used for tiles that cannot reach the goal. */
+    public static final int UNREACHABLE = -1;
+
+    /** Width of the field in tiles. */
+    private final int width;
+
+    /** Height of the field in tiles. */
+    private final int height;
+
+    /** Field holding the distance in tiles from a tile to the goal. */
+    private static final int DISTANCE = 0;
+
+    /** Distances to the goal, a tile being marked once it is reached. */
+    private final TilePages distances = new TilePages(1);
+
+    /** Reusable queue of tile indices for the breadth-first search. */
+    private int[] queue = new int[64];
+
+    /** Index of the goal tile this field currently points towards. */
+    private int goal = -1;
+
+    /** Version of the retained tiles of the board the field was computed on. */
+    private long retainedVersion = 0;
+
+    /**
+     * Constructs an empty flow field for a board of the given size.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @throws IllegalArgumentException if {@code width} or {@code height} is negative.
+     */
+    public FlowField(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be non-negative");
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Recomputes the field so that it points towards {@code goal}.
+     *
+     * @param grid the board to search, of the same size as the field.
+     * @param goal the index of the goal tile.
+     * @throws IllegalArgumentException if {@code grid} is {@code null}
+     *      or does not fit the field, or {@code goal} is outside the field.
+     */
+    public void compute(Board grid, int goal) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        if (!fits(grid.width(), grid.height())) {
+            throw new IllegalArgumentException("grid does not fit the field");
+        }
+        if (goal < 0 || goal >= width * height) {
+            throw new IllegalArgumentException("goal must be inside the field");
+        }
+
+        this.goal = goal;
+        this.retainedVersion = grid.retainedVersion();
+        distances.nextGeneration(width);
+        if (!grid.isRetained(goal) || !grid.isWalkable(goal)) {
+            return; /* Nothing can reach a goal inside a wall or outside the retained tiles */
+        }
+
+        int head = 0;
+        int tail = 0;
+        int first = distances.tile(goal % width, goal / width);
+        distances.mark(first);
+        distances.set(first, DISTANCE, 0);
+        queue[tail++] = goal;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % width;
+            int y = current / width;
+            int nextDistance = distances.get(distances.tile(x, y), DISTANCE) + 1;
+
+            if (y + 1 < height) {
+                tail = visit(current + width, x, y + 1, nextDistance, tail, grid);
+            }
+            if (y > 0) {
+                tail = visit(current - width, x, y - 1, nextDistance, tail, grid);
+            }
+            if (x > 0) {
+                tail = visit(current - 1, x - 1, y, nextDistance, tail, grid);
+            }
+            if (x + 1 < width) {
+                tail = visit(current + 1, x + 1, y, nextDistance, tail, grid);
+            }
+        }
+    }
+
+    /**
+     * Returns the shortest walking distance from a tile to the goal.
+     *
+     * @param index the index of the tile to look up.
+     * @return the distance in tiles, or {@link #UNREACHABLE}
+     *      if the goal cannot be reached from the tile.
+     */
+    public int distance(int index) {
+        if (index < 0 || index >= width * height) {
+            return UNREACHABLE;
+        }
+        return distance(index % width, index / width);
+    }
+
+    /**
+     * Returns the direction to move from a tile to get one tile
+     * closer to the goal.
+     *
+     * @param index the index of the tile to move from.
+     * @return the next {@link Direction}, or {@link Direction#NONE}
+     *      if the tile is the goal or cannot reach it.
+     */
+    public Direction directionFrom(int index) {
+        int current = distance(index);
+        if (current <= 0) {
+            return Direction.NONE;
+        }
+
+        /* Same neighbour order as Position.neighbors() */
+        int x = index % width;
+        int y = index / width;
+        int target = current - 1;
+        if (y + 1 < height && distance(x, y + 1) == target) { return Direction.DOWN; }
+        if (y > 0 && distance(x, y - 1) == target) { return Direction.UP; }
+        if (x > 0 && distance(x - 1, y) == target) { return Direction.LEFT; }
+        if (x + 1 < width && distance(x + 1, y) == target) { return Direction.RIGHT; }
+        return Direction.NONE;
+    }
+
+    /**
+     * Checks whether this field covers a board of the given size.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @return {@code true} if the field has the same dimensions.
+     */
+    public boolean fits(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    /**
+     * Returns the index of the goal this field points towards.
+     *
+     * @return the goal index, or {@code -1} if the field was never computed.
+     */
+    public int getGoal() {
+        return this.goal;
+    }
+
+    /**
+     * Checks whether the board retained the same tiles when this field
+     * was computed as it does now, so the field still covers them.
+     *
+     * @param grid the board.
+     * @return {@code true} if the retained tiles have not changed since.
+     */
+    public boolean isCurrent(Board grid) {
+        return this.retainedVersion == grid.retainedVersion();
+    }
+
+    /**
+     * Helper function that looks up the distance of a tile.
+     *
+     * @param x the x coordinate of the tile.
+     * @param y the y coordinate of the tile.
+     * @return the distance in tiles, or {@link #UNREACHABLE}.
+     */
+    private int distance(int x, int y) {
+        int tile = distances.find(x, y);
+        return distances.isMarked(tile) ? distances.get(tile, DISTANCE) : UNREACHABLE;
+    }
+
+    /**
+     * Helper function that enqueues a tile if it is retained, walkable
+     * and has not been reached yet.
+     *
+     * @param index the index of the tile.
+     * @param x the x coordinate of the tile.
+     * @param y the y coordinate of the tile.
+     * @param distance the distance to assign the tile.
+     * @param tail the current tail of the queue.
+     * @param grid the board searched.
+     * @return the new tail of the queue.
+     */
+    private int visit(int index, int x, int y, int distance, int tail, Board grid) {
+        int tile = distances.tile(x, y);
+        if (distances.isMarked(tile) || !grid.isRetained(index) || !grid.isWalkable(index)) {
+            return tail;
+        }
+        distances.mark(tile);
+        distances.set(tile, DISTANCE, distance);
+        if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, tail * 2);
+        }
+        queue[tail] = index;
+        return tail + 1;
+    }
+}
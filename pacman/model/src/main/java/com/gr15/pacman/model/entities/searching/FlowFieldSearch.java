@@ -0,0 +1,126 @@
+package com.gr15.pacman.model.entities.searching;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A {@link SearchStrategy} that answers queries from shared {@link FlowField}s.
+ *
+ * <p> One instance is meant to be shared by every ghost on a board.
+ * A field is computed once per distinct goal tile and reused until the goal
+ * moves to a new tile, so when all ghosts chase the same goal the cost
+ * of pathfinding per frame is a single search over the board,
+ * independent of the number of ghosts. </p>
+ *
+ * <p> Fields are assumed to stay valid until {@link #reset} is called,
+ * which must happen whenever the walkable tiles of the board change.
+ * A field is also recomputed once the board retains other tiles than when
+ * it was computed, as it only covers the tiles retained then. </p>
+ *
+ * <p> A copy, see {@link #copy}, shares the cached fields with the original.
+ * Shared fields are never recomputed in place, so the fields of one search are
+ * not changed by the other. </p>
+ */
+public class FlowFieldSearch
+    implements SearchStrategy {
+
+    /** Maximum number of goals to keep fields for. */
+    private static final int MAX_FIELDS = 8;
+
+    /** Cached fields, at most {@link #MAX_FIELDS}. */
+    private final FlowField[] fields = new FlowField[MAX_FIELDS];
+
+    /** Logical time each cached field was last used, for eviction. */
+    private final long[] lastUsed = new long[MAX_FIELDS];
+
+    /** Whether each cached field may be used by a copy, so it must not be recomputed in place. */
+    private final boolean[] shared = new boolean[MAX_FIELDS];
+
+    /** Number of cached fields. */
+    private int fieldCount = 0;
+
+    /** Logical clock, incremented on every lookup. */
+    private long clock = 0;
+
+    /**
+     * Returns the field pointing towards {@code goal},
+     * computing it if no field for that goal is cached.
+     *
+     * @param grid the board to search.
+     * @param goal the index of the goal tile.
+     * @return the flow field for {@code goal}.
+     */
+    public FlowField fieldFor(Board grid, int goal) {
+        int width = grid.width();
+        int height = grid.height();
+        clock++;
+        int eldest = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            FlowField field = fields[i];
+            if (field.getGoal() == goal && field.fits(width, height) && field.isCurrent(grid)) {
+                lastUsed[i] = clock;
+                return field;
+            }
+            if (lastUsed[i] < lastUsed[eldest]) {
+                eldest = i;
+            }
+        }
+
+        /* Recycling the least recently used field when full */
+        int slot = fieldCount < MAX_FIELDS ? fieldCount++ : eldest;
+        FlowField field = fields[slot];
+        if (field == null || shared[slot] || !field.fits(width, height)) {
+            field = new FlowField(width, height);
+            fields[slot] = field;
+            shared[slot] = false;
+        }
+
+        field.compute(grid, goal);
+        lastUsed[slot] = clock;
+        return field;
+    }
+
+    /**
+     * Returns a search sharing the cached fields of this one,
+     * so a forked game starts with the fields of the original.
+     *
+     * @return the copy.
+     */
+    public FlowFieldSearch copy() {
+        FlowFieldSearch copy = new FlowFieldSearch();
+        System.arraycopy(fields, 0, copy.fields, 0, fieldCount);
+        System.arraycopy(lastUsed, 0, copy.lastUsed, 0, fieldCount);
+        copy.fieldCount = fieldCount;
+        copy.clock = clock;
+        for (int i = 0; i < fieldCount; i++) {
+            shared[i] = true;
+            copy.shared[i] = true;
+        }
+        return copy;
+    }
+
+    /**
+     * Reads the next direction from the flow field in constant time,
+     * computing the field first if the goal has moved to a new tile.
+     *
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the ghost.
+     * @param goal The index of the target tile.
+     * @return The direction of the first step towards the goal.
+     */
+    @Override
+    public Direction nextStep(Board grid, int start, int goal) {
+        return fieldFor(grid, goal).directionFrom(start);
+    }
+
+    /**
+     * Discards all cached fields.
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = null;
+        }
+        fieldCount = 0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Helper functions for storing the arrays of the search graphs in byte buffers.
+ *
+ * <p> Arrays are stored as their length followed by their elements, and are
+ * copied in bulk, so precomputed graphs of large boards load quickly. </p>
+ *
+ * <p> This class cannot be extended or instantiated. </p>
+ */
+final class GraphBuffers {
+
+    /**
+     * Returns the number of bytes {@link #putInts} writes for an array.
+     *
+     * @param length the length of the array.
+     * @return the number of bytes.
+     */
+    static long intsSize(int length) {
+        return Integer.BYTES + (long) length * Integer.BYTES;
+    }
+
+    /**
+     * Returns the number of bytes {@link #putBytes} writes for an array.
+     *
+     * @param length the length of the array.
+     * @return the number of bytes.
+     */
+    static long bytesSize(int length) {
+        return Integer.BYTES + (long) length;
+    }
+
+    /**
+     * Returns the number of bytes {@link #putLongs} writes for an array.
+     *
+     * @param length the length of the array.
+     * @return the number of bytes.
+     */
+    static long longsSize(int length) {
+        return Integer.BYTES + (long) length * Long.BYTES;
+    }
+
+    /**
+     * Writes the first elements of an array, prefixed by their number.
+     *
+     * @param buffer the buffer to write to.
+     * @param array the array.
+     * @param length the number of elements to write.
+     */
+    static void putInts(ByteBuffer buffer, int[] array, int length) {
+        buffer.putInt(length);
+        buffer.asIntBuffer().put(array, 0, length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+    }
+
+    /**
+     * Writes an array, prefixed by its length.
+     *
+     * @param buffer the buffer to write to.
+     * @param array the array.
+     */
+    static void putBytes(ByteBuffer buffer, byte[] array) {
+        buffer.putInt(array.length);
+        buffer.put(array);
+    }
+
+    /**
+     * Writes an array, prefixed by its length.
+     *
+     * @param buffer the buffer to write to.
+     * @param array the array.
+     */
+    static void putLongs(ByteBuffer buffer, long[] array) {
+        buffer.putInt(array.length);
+        buffer.asLongBuffer().put(array);
+        buffer.position(buffer.position() + array.length * Long.BYTES);
+    }
+
+    /**
+     * Reads an array written by {@link #putInts}.
+     *
+     * @param buffer the buffer to read from.
+     * @return the array.
+     * @throws BufferUnderflowException if the buffer ends early.
+     * @throws IllegalArgumentException if the length is invalid.
+     */
+    static int[] getInts(ByteBuffer buffer) {
+        int[] array = new int[length(buffer, Integer.BYTES)];
+        buffer.asIntBuffer().get(array);
+        buffer.position(buffer.position() + array.length * Integer.BYTES);
+        return array;
+    }
+
+    /**
+     * Reads an array written by {@link #putBytes}.
+     *
+     * @param buffer the buffer to read from.
+     * @return the array.
+     * @throws BufferUnderflowException if the buffer ends early.
+     * @throws IllegalArgumentException if the length is invalid.
+     */
+    static byte[] getBytes(ByteBuffer buffer) {
+        byte[] array = new byte[length(buffer, 1)];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Reads an array written by {@link #putLongs}.
+     *
+     * @param buffer the buffer to read from.
+     * @return the array.
+     * @throws BufferUnderflowException if the buffer ends early.
+     * @throws IllegalArgumentException if the length is invalid.
+     */
+    static long[] getLongs(ByteBuffer buffer) {
+        long[] array = new long[length(buffer, Long.BYTES)];
+        buffer.asLongBuffer().get(array);
+        buffer.position(buffer.position() + array.length * Long.BYTES);
+        return array;
+    }
+
+    /**
+     * Helper function that reads the length of an array,
+     * checking that the buffer holds that many elements.
+     *
+     * @param buffer the buffer to read from.
+     * @param elementSize the size of an element in bytes.
+     * @return the length.
+     * @throws BufferUnderflowException if the buffer ends early.
+     * @throws IllegalArgumentException if the length is invalid.
+     */
+    private static int length(ByteBuffer buffer, int elementSize) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            throw new IllegalArgumentException("array length must be non-negative");
+        }
+        if ((long) length * elementSize > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    /** Private constructor to prevent external instantiation */
+    private GraphBuffers() {}
+}
@@ -0,0 +1,31 @@
+package com.gr15.pacman.model.entities.searching;
+
+/**
+ * Estimates the remaining walking distance between two tiles,
+ * used to guide informed searches such as {@link AStarSearch}.
+ *
+ * <p> For searches to find shortest paths the estimate must never exceed
+ * the true distance, and should be consistent: the estimate may drop by at
+ * most one between neighbouring tiles. </p>
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    /** Manhattan distance, exact on an open grid with four-way movement. */
+    Heuristic MANHATTAN = (fromX, fromY, toX, toY) ->
+        Math.abs(fromX - toX) + Math.abs(fromY - toY);
+
+    /** Always zero, which makes A* behave like Dijkstra's algorithm. */
+    Heuristic NONE = (fromX, fromY, toX, toY) -> 0;
+
+    /**
+     * Estimates the distance in tiles between two tiles.
+     *
+     * @param fromX the x coordinate of the first tile.
+     * @param fromY the y coordinate of the first tile.
+     * @param toX the x coordinate of the second tile.
+     * @param toY the y coordinate of the second tile.
+     * @return a non-negative estimate of the distance.
+     */
+    int estimate(int fromX, int fromY, int toX, int toY);
+}
@@ -0,0 +1,384 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.ChunkedBoard;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A {@link SearchStrategy} that searches a {@link ClusterGraph}
+ * instead of individual tiles (HPA*).
+ *
+ * <p> Tiles are only searched within the cluster of the start and the cluster
+ * of the goal. Between them, A* runs over the transition points of the
+ * cluster borders, crossing a whole cluster in a single step. Since only the
+ * first step is needed, the abstract path is never refined beyond the start
+ * cluster. </p>
+ *
+ * <p> Paths found are not always the shortest, as they are forced through
+ * the transition points, but a path is always found if one exists. </p>
+ */
+public class HierarchicalSearch
+    implements SearchStrategy {
+
+    /** Distance used for nodes not reached yet. */
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /** Source of the shared graph, or {@code null} to build one from the board. */
+    private final Supplier<ClusterGraph> graphSource;
+
+    /** Cluster size used when building a graph from the board. */
+    private final int clusterSize;
+
+    /** The graph searched, {@code null} until first needed. */
+    private ClusterGraph graph;
+
+    /** Whether an owned graph must be compared against the board before the next search. */
+    private boolean stale = false;
+
+    /** Open set of abstract nodes, ordered by estimated total distance. */
+    private final IntMinHeap open = new IntMinHeap(64);
+
+    /** Best known distance from the start to each node. */
+    private int[] distances = new int[0];
+
+    /** Direction of the first step from the start on the best path to each node. */
+    private Direction[] firstSteps = new Direction[0];
+
+    /** Generation in which each node's distance was last set. */
+    private int[] seen = new int[0];
+
+    /** Generation of the current search. */
+    private int generation = 0;
+
+    /** Distances from the start to the tiles of its cluster. */
+    private int[] startDistances = new int[0];
+
+    /** First step from the start towards each tile of its cluster. */
+    private Direction[] startSteps = new Direction[0];
+
+    /** Distances from the tiles of the goal's cluster to the goal. */
+    private int[] goalDistances = new int[0];
+
+    /** Reusable queue for the searches within a cluster. */
+    private int[] queue = new int[0];
+
+    /** Number of abstract nodes expanded by the most recent search. */
+    private int expanded = 0;
+
+    /**
+     * Constructs a search that builds its own graph from the board on first use,
+     * with clusters of {@link ClusterGraph#DEFAULT_CLUSTER_SIZE}.
+     */
+    public HierarchicalSearch() {
+        this(ClusterGraph.DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Constructs a search that builds its own graph from the board on first use.
+     *
+     * @param clusterSize the width and height of a cluster in tiles.
+     * @throws IllegalArgumentException if {@code clusterSize} is not positive.
+     */
+    public HierarchicalSearch(int clusterSize) {
+        if (clusterSize <= 0) {
+            throw new IllegalArgumentException("clusterSize must be positive");
+        }
+        this.graphSource = null;
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Constructs a search over a graph supplied by the owner of the board.
+     * The supplier is asked again after every {@link #reset}.
+     *
+     * @param graphSource supplies the graph of the current board.
+     * @throws IllegalArgumentException if {@code graphSource} is {@code null}
+     */
+    public HierarchicalSearch(Supplier<ClusterGraph> graphSource) {
+        if (graphSource == null) {
+            throw new IllegalArgumentException("graphSource must not be null");
+        }
+        this.graphSource = graphSource;
+        this.clusterSize = 0;
+    }
+
+    /**
+     * Searches the tiles around the start and the goal,
+     * and the abstract graph in between.
+     *
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the ghost.
+     * @param goal The index of the target tile.
+     * @return The direction of the first step, or {@link Direction#NONE}
+     *      if already at the goal or no path is found.
+     * @throws IllegalArgumentException if {@code grid} is a {@link ChunkedBoard},
+     *      whose clusters would load the whole world.
+     */
+    @Override
+    public Direction nextStep(Board grid, int start, int goal) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        if (grid instanceof ChunkedBoard) {
+            throw new IllegalArgumentException("grid must not be a ChunkedBoard");
+        }
+        int width = grid.width();
+        int height = grid.height();
+        int size = grid.size();
+        if (start < 0 || start >= size || goal < 0 || goal >= size) {
+            throw new IllegalArgumentException("start and goal must be inside the board");
+        }
+
+        ClusterGraph clusters = graphFor(grid);
+        expanded = 0;
+        if (start == goal || !clusters.isWalkable(start) || !clusters.isWalkable(goal)) {
+            return Direction.NONE;
+        }
+
+        nextGeneration(clusters);
+        int startCluster = clusters.clusterOf(start);
+        int goalCluster = clusters.clusterOf(goal);
+        searchCluster(clusters, startCluster, start, startDistances, startSteps);
+        searchCluster(clusters, goalCluster, goal, goalDistances, null);
+
+        int best = INFINITY;
+        Direction bestStep = Direction.NONE;
+
+        /* Walking to the goal without leaving the start cluster */
+        if (startCluster == goalCluster) {
+            int local = clusters.local(startCluster, goal);
+            if (startDistances[local] != ClusterGraph.NONE) {
+                best = startDistances[local];
+                bestStep = startSteps[local];
+            }
+        }
+
+        /* Seeding the abstract search with the nodes reachable in the start cluster */
+        open.clear();
+        for (int slot = 0; slot < clusters.nodeCount(startCluster); slot++) {
+            int node = clusters.node(startCluster, slot);
+            int local = clusters.local(startCluster, clusters.nodeTile(node));
+            if (startDistances[local] != ClusterGraph.NONE) {
+                reach(clusters, node, startDistances[local], startSteps[local], goal, width);
+            }
+        }
+
+        while (!open.isEmpty()) {
+            long priority = open.peekPriority();
+            int node = open.pop();
+            int distance = distances[node];
+            int tile = clusters.nodeTile(node);
+            if ((int) priority != distance) {
+                continue; /* Stale entry, already reached with a lower distance */
+            }
+            if ((priority >>> 32) >= best) {
+                break; /* Nothing left can improve on the best path found */
+            }
+            expanded++;
+
+            int cluster = clusters.clusterOf(tile);
+            if (cluster == goalCluster) {
+                int toGoal = goalDistances[clusters.local(cluster, tile)];
+                if (toGoal != ClusterGraph.NONE && distance + toGoal < best) {
+                    best = distance + toGoal;
+                    bestStep = firstSteps[node];
+                }
+            }
+
+            /* Crossing the border */
+            int partner = clusters.partner(node);
+            Direction step = firstSteps[node] != Direction.NONE
+                ? firstSteps[node]
+                : AStarSearch.directionTo(tile, clusters.nodeTile(partner), width);
+            reach(clusters, partner, distance + 1, step, goal, width);
+
+            /* Crossing the cluster */
+            int from = clusters.slot(node);
+            for (int slot = 0; slot < clusters.nodeCount(cluster); slot++) {
+                int across = clusters.distance(cluster, from, slot);
+                if (slot != from && across != ClusterGraph.NONE) {
+                    reach(clusters, clusters.node(cluster, slot), distance + across,
+                        firstSteps[node], goal, width);
+                }
+            }
+        }
+
+        return bestStep;
+    }
+
+    /**
+     * Drops or marks the graph, so it is fetched or refreshed on next use.
+     */
+    @Override
+    public void reset() {
+        if (graphSource != null) {
+            this.graph = null;
+        } else {
+            this.stale = true;
+        }
+    }
+
+    /**
+     * Returns the number of abstract nodes expanded by the most recent search.
+     *
+     * @return the number of expanded nodes.
+     */
+    public int getExpanded() {
+        return this.expanded;
+    }
+
+    /**
+     * Helper function that returns the graph for the board,
+     * fetching, building or refreshing it if needed.
+     *
+     * @param grid the board searched.
+     * @return the cluster graph.
+     */
+    private ClusterGraph graphFor(Board grid) {
+        if (graphSource != null) {
+            if (graph == null || !graph.fits(grid)) {
+                graph = graphSource.get();
+            }
+        } else if (graph == null || !graph.fits(grid)) {
+            graph = ClusterGraph.build(grid, clusterSize);
+        } else if (stale) {
+            graph.refresh(grid);
+        }
+        stale = false;
+
+        if (!graph.fits(grid)) {
+            throw new IllegalStateException("cluster graph does not match the board");
+        }
+        return graph;
+    }
+
+    /**
+     * Helper function that records a path to a node if it is shorter
+     * than any found before, and adds the node to the open set.
+     *
+     * @param clusters the graph searched.
+     * @param node the node reached.
+     * @param distance the length of the path.
+     * @param firstStep the first step from the start along the path.
+     * @param goal the goal tile, for the distance estimate.
+     * @param width the width of the board in tiles.
+     */
+    private void reach(ClusterGraph clusters, int node, int distance, Direction firstStep,
+        int goal, int width) {
+        if (seen[node] == generation && distances[node] <= distance) {
+            return;
+        }
+        seen[node] = generation;
+        distances[node] = distance;
+        firstSteps[node] = firstStep;
+
+        int tile = clusters.nodeTile(node);
+        long estimate = distance + Heuristic.MANHATTAN.estimate(
+            tile % width, tile / width, goal % width, goal / width);
+        open.push((estimate << 32) | distance, node);
+    }
+
+    /**
+     * Helper function that runs a breadth-first search from a tile,
+     * restricted to the tiles of its cluster.
+     *
+     * @param clusters the graph searched.
+     * @param cluster the cluster of the tile.
+     * @param from the tile to search from.
+     * @param reached receives the distance to each tile of the cluster.
+     * @param steps receives the first step towards each tile, or {@code null}.
+     */
+    private void searchCluster(ClusterGraph clusters, int cluster, int from,
+        int[] reached, Direction[] steps) {
+        int width = clusters.width();
+        int x0 = (from % width) / clusters.clusterSize() * clusters.clusterSize();
+        int y0 = (from / width) / clusters.clusterSize() * clusters.clusterSize();
+        int x1 = Math.min(x0 + clusters.clusterSize(), width);
+        int y1 = Math.min(y0 + clusters.clusterSize(), clusters.height());
+
+        Arrays.fill(reached, ClusterGraph.NONE);
+        int head = 0;
+        int tail = 0;
+        reached[clusters.local(cluster, from)] = 0;
+        if (steps != null) {
+            steps[clusters.local(cluster, from)] = Direction.NONE;
+        }
+        queue[tail++] = from;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % width;
+            int y = current / width;
+
+            if (y + 1 < y1) { tail = visit(clusters, cluster, from, current, current + width, reached, steps, tail); }
+            if (y > y0) { tail = visit(clusters, cluster, from, current, current - width, reached, steps, tail); }
+            if (x > x0) { tail = visit(clusters, cluster, from, current, current - 1, reached, steps, tail); }
+            if (x + 1 < x1) { tail = visit(clusters, cluster, from, current, current + 1, reached, steps, tail); }
+        }
+    }
+
+    /**
+     * Helper function that enqueues a neighbouring tile in a cluster search
+     * if it is walkable and not yet reached.
+     *
+     * @param clusters the graph searched.
+     * @param cluster the cluster being searched.
+     * @param from the tile the search started from.
+     * @param current the tile being expanded.
+     * @param next the neighbouring tile.
+     * @param reached the distance to each tile of the cluster.
+     * @param steps the first step towards each tile, or {@code null}.
+     * @param tail the current tail of the queue.
+     * @return the new tail of the queue.
+     */
+    private int visit(ClusterGraph clusters, int cluster, int from, int current, int next,
+        int[] reached, Direction[] steps, int tail) {
+        int nextLocal = clusters.local(cluster, next);
+        if (reached[nextLocal] != ClusterGraph.NONE || !clusters.isWalkable(next)) {
+            return tail;
+        }
+        int local = clusters.local(cluster, current);
+        reached[nextLocal] = reached[local] + 1;
+        if (steps != null) {
+            steps[nextLocal] = current == from
+                ? AStarSearch.directionTo(from, next, clusters.width()) : steps[local];
+        }
+        queue[tail] = next;
+        return tail + 1;
+    }
+
+    /**
+     * Helper function that starts a new search generation,
+     * growing the buffers if the graph is larger than any seen before.
+     *
+     * @param clusters the graph searched.
+     */
+    private void nextGeneration(ClusterGraph clusters) {
+        int tiles = clusters.clusterSize() * clusters.clusterSize();
+        if (queue.length < tiles) {
+            startDistances = new int[tiles];
+            startSteps = new Direction[tiles];
+            goalDistances = new int[tiles];
+            queue = new int[tiles];
+        }
+
+        int nodes = clusters.nodeCapacity();
+        if (seen.length < nodes) {
+            int capacity = Math.max(nodes, seen.length * 2);
+            distances = new int[capacity];
+            firstSteps = new Direction[capacity];
+            seen = new int[capacity];
+            generation = 0;
+        }
+
+        generation++;
+        if (generation == 0) {
+            /* The stamp wrapped around, so old marks could collide */
+            Arrays.fill(seen, 0);
+            generation = 1;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of {@code int} values ordered by {@code long} priorities,
+ * stored in primitive arrays.
+ *
+ * <p> The heap does not support decreasing a priority. Searches instead push
+ * a value again with its better priority and skip stale entries when they
+ * are popped. Clearing keeps the arrays, so a heap reused across searches
+ * stops allocating once it has grown to the size of the largest frontier. </p>
+ */
+final class IntMinHeap {
+
+    /** Priorities of the entries, in heap order. */
+    private long[] priorities;
+
+    /** Values of the entries, in heap order. */
+    private int[] values;
+
+    /** Number of entries in the heap. */
+    private int size = 0;
+
+    /**
+     * Constructs an empty heap.
+     *
+     * @param initialCapacity the number of entries to allocate room for.
+     */
+    IntMinHeap(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.priorities = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Adds a value with the given priority.
+     *
+     * @param priority the priority, lower values are popped first.
+     * @param value the value to add.
+     */
+    void push(long priority, int value) {
+        if (size == values.length) {
+            priorities = Arrays.copyOf(priorities, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        /* Sifting the hole up from the bottom */
+        int hole = size++;
+        while (hole > 0) {
+            int parent = (hole - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            priorities[hole] = priorities[parent];
+            values[hole] = values[parent];
+            hole = parent;
+        }
+        priorities[hole] = priority;
+        values[hole] = value;
+    }
+
+    /**
+     * Removes the value with the lowest priority.
+     *
+     * @return the removed value.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+
+        int top = values[0];
+        size--;
+        long priority = priorities[size];
+        int value = values[size];
+
+        /* Sifting the hole down from the top */
+        int hole = 0;
+        int half = size >>> 1;
+        while (hole < half) {
+            int child = 2 * hole + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            priorities[hole] = priorities[child];
+            values[hole] = values[child];
+            hole = child;
+        }
+        priorities[hole] = priority;
+        values[hole] = value;
+
+        return top;
+    }
+
+    /**
+     * Returns the value with the lowest priority without removing it.
+     *
+     * @return the next value to be popped.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+        return values[0];
+    }
+
+    /**
+     * Returns the lowest priority in the heap.
+     *
+     * @return the priority of the next value to be popped.
+     * @throws IllegalStateException if the heap is empty.
+     */
+    long peekPriority() {
+        if (size == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+        return priorities[0];
+    }
+
+    /**
+     * Checks if the heap is empty.
+     *
+     * @return {@code true} if there are no entries.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of entries, including stale ones.
+     *
+     * @return the number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of an entry, in no particular order,
+     * so the values queued can be listed without popping them.
+     *
+     * @param i the position of the entry, below {@link #size()}.
+     * @return the value of the entry, which may be stale.
+     */
+    int value(int i) {
+        return values[i];
+    }
+
+    /** Removes all entries, keeping the allocated arrays. */
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,748 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.ChunkedBoard;
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A compressed graph of the walkable tiles of a board.
+ *
+ * <p> Every walkable tile with other than two walkable neighbours, that is
+ * every junction and dead end, becomes a node. The chains of two-neighbour
+ * tiles between nodes become weighted edges, with the number of steps along
+ * the corridor as weight. Corridor tiles are mapped to their edge and their
+ * offset from the edge's start node, so a search can start and end anywhere
+ * on the board while only visiting nodes. A corridor that loops without
+ * passing a junction gets one of its tiles promoted to a node. </p>
+ *
+ * <p> Instances are immutable once built, and can be shared freely. </p>
+ */
+public final class NavigationGraph {
+
+    /** Marker for tiles that are not a node or not on an edge. */
+    public static final int NONE = -1;
+
+    /** All directions a step can be taken in, by {@link Direction#ordinal()}. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Width of the board in tiles. */
+    private final int width;
+
+    /** Height of the board in tiles. */
+    private final int height;
+
+    /** Tile index of each node. */
+    private final int[] nodeTiles;
+
+    /** For each node, where its edges start in {@link #adjacentEdges}. */
+    private final int[] adjacencyStart;
+
+    /** Edges incident to each node, grouped by node. */
+    private final int[] adjacentEdges;
+
+    /** Start node of each edge. */
+    private final int[] edgeStarts;
+
+    /** End node of each edge. */
+    private final int[] edgeEnds;
+
+    /** Length in steps of each edge. */
+    private final int[] edgeLengths;
+
+    /** Direction of the first step from the start node along each edge. */
+    private final byte[] edgeStartDirections;
+
+    /** Direction of the first step from the end node along each edge. */
+    private final byte[] edgeEndDirections;
+
+    /** Node of each tile, or {@link #NONE}. */
+    private final int[] tileNodes;
+
+    /** Edge of each corridor tile, or {@link #NONE}. */
+    private final int[] tileEdges;
+
+    /** Steps from the start node of the edge to each corridor tile. */
+    private final int[] tileOffsets;
+
+    /**
+     * Constructs a graph from its raw arrays. Use {@link #build} to
+     * compress a board, the arrays are not copied.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param nodeTiles the tile index of each node.
+     * @param edgeStarts the start node of each edge.
+     * @param edgeEnds the end node of each edge.
+     * @param edgeLengths the length of each edge.
+     * @param edgeStartDirections the first direction from the start node along each edge.
+     * @param edgeEndDirections the first direction from the end node along each edge.
+     * @param tileEdges the edge of each tile, or {@link #NONE}.
+     * @param tileOffsets the offset of each corridor tile along its edge.
+     */
+    NavigationGraph(int width, int height, int[] nodeTiles,
+        int[] edgeStarts, int[] edgeEnds, int[] edgeLengths,
+        byte[] edgeStartDirections, byte[] edgeEndDirections,
+        int[] tileEdges, int[] tileOffsets) {
+        this.width = width;
+        this.height = height;
+        this.nodeTiles = nodeTiles;
+        this.edgeStarts = edgeStarts;
+        this.edgeEnds = edgeEnds;
+        this.edgeLengths = edgeLengths;
+        this.edgeStartDirections = edgeStartDirections;
+        this.edgeEndDirections = edgeEndDirections;
+        this.tileEdges = tileEdges;
+        this.tileOffsets = tileOffsets;
+
+        this.tileNodes = new int[width * height];
+        Arrays.fill(tileNodes, NONE);
+        for (int node = 0; node < nodeTiles.length; node++) {
+            tileNodes[nodeTiles[node]] = node;
+        }
+
+        /* Grouping edges by node, self loops are listed once */
+        this.adjacencyStart = new int[nodeTiles.length + 1];
+        for (int edge = 0; edge < edgeStarts.length; edge++) {
+            adjacencyStart[edgeStarts[edge] + 1]++;
+            if (edgeEnds[edge] != edgeStarts[edge]) {
+                adjacencyStart[edgeEnds[edge] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeTiles.length; node++) {
+            adjacencyStart[node + 1] += adjacencyStart[node];
+        }
+        this.adjacentEdges = new int[adjacencyStart[nodeTiles.length]];
+        int[] fill = Arrays.copyOf(adjacencyStart, nodeTiles.length);
+        for (int edge = 0; edge < edgeStarts.length; edge++) {
+            adjacentEdges[fill[edgeStarts[edge]]++] = edge;
+            if (edgeEnds[edge] != edgeStarts[edge]) {
+                adjacentEdges[fill[edgeEnds[edge]]++] = edge;
+            }
+        }
+    }
+
+    /**
+     * Compresses a board into a navigation graph.
+     *
+     * @param grid the board to compress (must not be {@code null})
+     * @return the navigation graph of the board.
+     * @throws IllegalArgumentException if {@code grid} is {@code null}
+     *      or a {@link ChunkedBoard}, which would be loaded whole.
+     */
+    public static NavigationGraph build(Board grid) {
+        if (grid == null) {
+            throw new IllegalArgumentException("grid must not be null");
+        }
+        if (grid instanceof ChunkedBoard) {
+            throw new IllegalArgumentException("grid must not be a ChunkedBoard");
+        }
+        return build(grid.width(), grid.height(), grid::isWalkable);
+    }
+
+    /**
+     * Compresses a board, given by its size and walkable tiles, into a navigation graph.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @param isWalkable predicate that determines if the tile at an index is walkable.
+     * @return the navigation graph of the board.
+     * @throws IllegalArgumentException if {@code isWalkable} is {@code null}
+     *      or a dimension is negative.
+     */
+    public static NavigationGraph build(int width, int height, IntPredicate isWalkable) {
+        if (isWalkable == null) {
+            throw new IllegalArgumentException("isWalkable must not be null");
+        }
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must be non-negative");
+        }
+        return new Builder(width, height, isWalkable).build();
+    }
+
+    /*************************************************************
+     *                          QUERIES                          *
+     *************************************************************/
+
+    /**
+     * Checks whether this graph was built for a board of the given size.
+     *
+     * @param width the width of the board in tiles.
+     * @param height the height of the board in tiles.
+     * @return {@code true} if the dimensions match.
+     */
+    public boolean fits(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    /**
+     * Checks whether a tile is walkable, meaning it is a node or on an edge.
+     *
+     * @param tile the index of the tile.
+     * @return {@code true} if the tile is part of the graph.
+     */
+    public boolean contains(int tile) {
+        return tileNodes[tile] != NONE || tileEdges[tile] != NONE;
+    }
+
+    /**
+     * Returns the node at a tile.
+     *
+     * @param tile the index of the tile.
+     * @return the node, or {@link #NONE} if the tile is not a node.
+     */
+    public int nodeAt(int tile) { return tileNodes[tile]; }
+
+    /**
+     * Returns the edge a corridor tile lies on.
+     *
+     * @param tile the index of the tile.
+     * @return the edge, or {@link #NONE} if the tile is not a corridor tile.
+     */
+    public int edgeAt(int tile) { return tileEdges[tile]; }
+
+    /**
+     * Returns the number of steps from the start node of its edge to a corridor tile.
+     *
+     * @param tile the index of a corridor tile.
+     * @return the offset along the edge.
+     */
+    public int offsetAt(int tile) { return tileOffsets[tile]; }
+
+    /**
+     * Returns the direction to step from a corridor tile towards the start of its edge.
+     *
+     * @param tile the index of a corridor tile.
+     * @return the direction of the step.
+     */
+    public Direction towardStart(int tile) {
+        int edge = tileEdges[tile];
+        int offset = tileOffsets[tile];
+        return stepAlong(tile, edge, offset - 1, nodeTiles[edgeStarts[edge]]);
+    }
+
+    /**
+     * Returns the direction to step from a corridor tile towards the end of its edge.
+     *
+     * @param tile the index of a corridor tile.
+     * @return the direction of the step.
+     */
+    public Direction towardEnd(int tile) {
+        int edge = tileEdges[tile];
+        int offset = tileOffsets[tile];
+        return stepAlong(tile, edge, offset + 1, nodeTiles[edgeEnds[edge]]);
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes.
+     */
+    public int nodeCount() { return nodeTiles.length; }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of edges.
+     */
+    public int edgeCount() { return edgeStarts.length; }
+
+    /**
+     * Returns the width of the board the graph was built for.
+     *
+     * @return the width in tiles.
+     */
+    public int width() { return width; }
+
+    /**
+     * Returns the height of the board the graph was built for.
+     *
+     * @return the height in tiles.
+     */
+    public int height() { return height; }
+
+    /**
+     * Returns the tile a node is at.
+     *
+     * @param node a node.
+     * @return the index of the node's tile.
+     */
+    public int nodeTile(int node) { return nodeTiles[node]; }
+
+    /**
+     * Returns the number of edges incident to a node.
+     *
+     * @param node a node.
+     * @return the number of edges, a self loop counted once.
+     */
+    public int degree(int node) {
+        return adjacencyStart[node + 1] - adjacencyStart[node];
+    }
+
+    /**
+     * Returns one of the edges incident to a node.
+     *
+     * @param node a node.
+     * @param i the position of the edge among the node's edges,
+     *      from {@code 0} to {@link #degree} exclusive.
+     * @return the edge.
+     */
+    public int adjacentEdge(int node, int i) {
+        return adjacentEdges[adjacencyStart[node] + i];
+    }
+
+    /**
+     * Returns the start node of an edge.
+     *
+     * @param edge an edge.
+     * @return the start node.
+     */
+    public int edgeStart(int edge) { return edgeStarts[edge]; }
+
+    /**
+     * Returns the end node of an edge.
+     *
+     * @param edge an edge.
+     * @return the end node.
+     */
+    public int edgeEnd(int edge) { return edgeEnds[edge]; }
+
+    /**
+     * Returns the length of an edge.
+     *
+     * @param edge an edge.
+     * @return the number of steps from one end to the other.
+     */
+    public int edgeLength(int edge) { return edgeLengths[edge]; }
+
+    /**
+     * Returns the direction leaving the start node along an edge.
+     *
+     * @param edge an edge.
+     * @return the direction of the first step from the start node.
+     */
+    public Direction edgeStartDirection(int edge) {
+        return DIRECTIONS[edgeStartDirections[edge]];
+    }
+
+    /**
+     * Returns the direction leaving the end node along an edge.
+     *
+     * @param edge an edge.
+     * @return the direction of the first step from the end node.
+     */
+    public Direction edgeEndDirection(int edge) {
+        return DIRECTIONS[edgeEndDirections[edge]];
+    }
+
+    /*************************************************************
+     *                        SERIALIZING                        *
+     *************************************************************/
+
+    /**
+     * Returns the number of bytes {@link #writeTo} writes.
+     *
+     * @return the size of the graph in bytes.
+     */
+    public long serializedSize() {
+        return 2 * Integer.BYTES
+            + GraphBuffers.intsSize(nodeTiles.length)
+            + 3 * GraphBuffers.intsSize(edgeStarts.length)
+            + 2 * GraphBuffers.bytesSize(edgeStarts.length)
+            + 2 * GraphBuffers.intsSize(tileEdges.length);
+    }
+
+    /**
+     * Writes the graph to a buffer, to be read back with {@link #readFrom}.
+     *
+     * @param buffer the buffer, with at least {@link #serializedSize()} bytes remaining.
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     */
+    public void writeTo(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer must not be null");
+        }
+        buffer.putInt(width).putInt(height);
+        GraphBuffers.putInts(buffer, nodeTiles, nodeTiles.length);
+        GraphBuffers.putInts(buffer, edgeStarts, edgeStarts.length);
+        GraphBuffers.putInts(buffer, edgeEnds, edgeEnds.length);
+        GraphBuffers.putInts(buffer, edgeLengths, edgeLengths.length);
+        GraphBuffers.putBytes(buffer, edgeStartDirections);
+        GraphBuffers.putBytes(buffer, edgeEndDirections);
+        GraphBuffers.putInts(buffer, tileEdges, tileEdges.length);
+        GraphBuffers.putInts(buffer, tileOffsets, tileOffsets.length);
+    }
+
+    /**
+     * Reads a graph written by {@link #writeTo}, without rebuilding it.
+     *
+     * @param buffer the buffer, positioned at the graph (must not be {@code null})
+     * @return the graph.
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     *      or does not hold a valid graph.
+     */
+    public static NavigationGraph readFrom(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer must not be null");
+        }
+        try {
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int[] nodeTiles = GraphBuffers.getInts(buffer);
+            int[] edgeStarts = GraphBuffers.getInts(buffer);
+            int[] edgeEnds = GraphBuffers.getInts(buffer);
+            int[] edgeLengths = GraphBuffers.getInts(buffer);
+            byte[] edgeStartDirections = GraphBuffers.getBytes(buffer);
+            byte[] edgeEndDirections = GraphBuffers.getBytes(buffer);
+            int[] tileEdges = GraphBuffers.getInts(buffer);
+            int[] tileOffsets = GraphBuffers.getInts(buffer);
+
+            int edges = edgeStarts.length;
+            long tiles = (long) width * height;
+            if (width < 0 || height < 0 || tileEdges.length != tiles || tileOffsets.length != tiles
+                || edgeEnds.length != edges || edgeLengths.length != edges
+                || edgeStartDirections.length != edges || edgeEndDirections.length != edges
+                || !allWithin(nodeTiles, (int) tiles) || !allWithin(edgeStarts, nodeTiles.length)
+                || !allWithin(edgeEnds, nodeTiles.length)
+                || !allWithin(edgeStartDirections, DIRECTIONS.length)
+                || !allWithin(edgeEndDirections, DIRECTIONS.length)) {
+                throw new IllegalArgumentException("buffer does not hold a valid graph");
+            }
+            return new NavigationGraph(width, height, nodeTiles, edgeStarts, edgeEnds,
+                edgeLengths, edgeStartDirections, edgeEndDirections, tileEdges, tileOffsets);
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new IllegalArgumentException("buffer does not hold a valid graph",
+                bufferUnderflowException);
+        }
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that checks that every value of an array is an index below a bound.
+     *
+     * @param values the values.
+     * @param bound the exclusive upper bound.
+     * @return {@code true} if every value is in {@code [0, bound)}.
+     */
+    private static boolean allWithin(int[] values, int bound) {
+        for (int value : values) {
+            if (value < 0 || value >= bound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper function that checks that every value of an array is an index below a bound.
+     *
+     * @param values the values.
+     * @param bound the exclusive upper bound.
+     * @return {@code true} if every value is in {@code [0, bound)}.
+     */
+    private static boolean allWithin(byte[] values, int bound) {
+        for (byte value : values) {
+            if (value < 0 || value >= bound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper function that finds the neighbour of a corridor tile that is
+     * either at the given offset on the same edge or the given node tile.
+     *
+     * @param tile the corridor tile.
+     * @param edge the edge of the tile.
+     * @param offset the offset of the wanted neighbour.
+     * @param nodeTile the tile of the node at the end being moved towards.
+     * @return the direction of the neighbour.
+     */
+    private Direction stepAlong(int tile, int edge, int offset, int nodeTile) {
+        int x = tile % width;
+        int y = tile / width;
+        if (y > 0 && isStep(tile - width, edge, offset, nodeTile)) { return Direction.UP; }
+        if (y + 1 < height && isStep(tile + width, edge, offset, nodeTile)) { return Direction.DOWN; }
+        if (x > 0 && isStep(tile - 1, edge, offset, nodeTile)) { return Direction.LEFT; }
+        if (x + 1 < width && isStep(tile + 1, edge, offset, nodeTile)) { return Direction.RIGHT; }
+        return Direction.NONE;
+    }
+
+    /**
+     * Helper function that checks if a neighbour is the wanted step along an edge.
+     *
+     * @param neighbor the neighbouring tile.
+     * @param edge the edge being walked.
+     * @param offset the offset of the wanted tile.
+     * @param nodeTile the tile of the node at the end being moved towards.
+     * @return {@code true} if the neighbour is the wanted step.
+     */
+    private boolean isStep(int neighbor, int edge, int offset, int nodeTile) {
+        if (offset == 0 || offset == edgeLengths[edge]) {
+            return neighbor == nodeTile;
+        }
+        return tileEdges[neighbor] == edge && tileOffsets[neighbor] == offset;
+    }
+
+    /**
+     * Single use helper that traces the corridors of a board.
+     */
+    private static final class Builder {
+
+        /** Width of the board in tiles. */
+        private final int width;
+
+        /** Height of the board in tiles. */
+        private final int height;
+
+        /** Walkability of the board. */
+        private final IntPredicate isWalkable;
+
+        /** Node of each tile, or {@link #NONE}. */
+        private final int[] tileNodes;
+
+        /** Edge of each tile, or {@link #NONE}. */
+        private final int[] tileEdges;
+
+        /** Offset of each corridor tile along its edge. */
+        private final int[] tileOffsets;
+
+        /** Tile of each node, growing as nodes are found. */
+        private int[] nodeTiles = new int[16];
+
+        /** Number of nodes found. */
+        private int nodeCount = 0;
+
+        /** Start node of each edge, growing as edges are traced. */
+        private int[] edgeStarts = new int[16];
+
+        /** End node of each edge. */
+        private int[] edgeEnds = new int[16];
+
+        /** Length of each edge. */
+        private int[] edgeLengths = new int[16];
+
+        /** First direction from the start node along each edge. */
+        private byte[] edgeStartDirections = new byte[16];
+
+        /** First direction from the end node along each edge. */
+        private byte[] edgeEndDirections = new byte[16];
+
+        /** Number of edges traced. */
+        private int edgeCount = 0;
+
+        /**
+         * Constructs a builder for a board.
+         *
+         * @param width the width of the board in tiles.
+         * @param height the height of the board in tiles.
+         * @param isWalkable the walkability of the board.
+         */
+        Builder(int width, int height, IntPredicate isWalkable) {
+            this.width = width;
+            this.height = height;
+            this.isWalkable = isWalkable;
+            this.tileNodes = new int[width * height];
+            this.tileEdges = new int[width * height];
+            this.tileOffsets = new int[width * height];
+            Arrays.fill(tileNodes, NONE);
+            Arrays.fill(tileEdges, NONE);
+        }
+
+        /**
+         * Finds all nodes, then traces every corridor leaving them.
+         *
+         * @return the finished graph.
+         */
+        NavigationGraph build() {
+            int size = width * height;
+            for (int tile = 0; tile < size; tile++) {
+                if (isWalkable.test(tile) && degree(tile) != 2) {
+                    addNode(tile);
+                }
+            }
+
+            int junctions = nodeCount;
+            for (int node = 0; node < junctions; node++) {
+                traceAll(node);
+            }
+
+            /* Loops without any junction get one tile promoted to a node */
+            for (int tile = 0; tile < size; tile++) {
+                if (tileNodes[tile] == NONE && tileEdges[tile] == NONE
+                    && isWalkable.test(tile)) {
+                    traceAll(addNode(tile));
+                }
+            }
+
+            return new NavigationGraph(width, height,
+                Arrays.copyOf(nodeTiles, nodeCount),
+                Arrays.copyOf(edgeStarts, edgeCount),
+                Arrays.copyOf(edgeEnds, edgeCount),
+                Arrays.copyOf(edgeLengths, edgeCount),
+                Arrays.copyOf(edgeStartDirections, edgeCount),
+                Arrays.copyOf(edgeEndDirections, edgeCount),
+                tileEdges, tileOffsets);
+        }
+
+        /**
+         * Traces the corridors leaving a node in every direction.
+         *
+         * @param node the node to trace from.
+         */
+        private void traceAll(int node) {
+            int tile = nodeTiles[node];
+            for (Direction direction : DIRECTIONS) {
+                int next = neighbor(tile, direction);
+                if (next != NONE && isWalkable.test(next)) {
+                    trace(node, direction, next);
+                }
+            }
+        }
+
+        /**
+         * Follows a corridor from a node until it reaches another node,
+         * recording the corridor as an edge unless it was already traced
+         * from its other end.
+         *
+         * @param startNode the node the corridor leaves from.
+         * @param startDirection the direction of the first step.
+         * @param first the first tile of the corridor.
+         */
+        private void trace(int startNode, Direction startDirection, int first) {
+            if (tileNodes[first] != NONE) {
+                /* Neighbouring nodes, recorded from the lower node only */
+                if (startNode < tileNodes[first]) {
+                    addEdge(startNode, tileNodes[first], 1, startDirection,
+                        directionBetween(first, nodeTiles[startNode]));
+                }
+                return;
+            }
+            if (tileEdges[first] != NONE) {
+                return; /* Already traced from the other end */
+            }
+
+            int edge = edgeCount;
+            int previous = nodeTiles[startNode];
+            int current = first;
+            int length = 1;
+            while (tileNodes[current] == NONE) {
+                tileEdges[current] = edge;
+                tileOffsets[current] = length;
+
+                int next = NONE;
+                for (Direction direction : DIRECTIONS) {
+                    int candidate = neighbor(current, direction);
+                    if (candidate != NONE && candidate != previous
+                        && isWalkable.test(candidate)) {
+                        next = candidate;
+                        break;
+                    }
+                }
+                previous = current;
+                current = next;
+                length++;
+            }
+
+            addEdge(startNode, tileNodes[current], length, startDirection,
+                directionBetween(current, previous));
+        }
+
+        /**
+         * Adds a node at a tile.
+         *
+         * @param tile the tile of the node.
+         * @return the new node.
+         */
+        private int addNode(int tile) {
+            if (nodeCount == nodeTiles.length) {
+                nodeTiles = Arrays.copyOf(nodeTiles, nodeCount * 2);
+            }
+            tileNodes[tile] = nodeCount;
+            nodeTiles[nodeCount] = tile;
+            return nodeCount++;
+        }
+
+        /**
+         * Adds an edge.
+         *
+         * @param start the start node.
+         * @param end the end node.
+         * @param length the number of steps between the nodes.
+         * @param startDirection the first direction from the start node.
+         * @param endDirection the first direction from the end node.
+         */
+        private void addEdge(int start, int end, int length,
+            Direction startDirection, Direction endDirection) {
+            if (edgeCount == edgeStarts.length) {
+                int capacity = edgeCount * 2;
+                edgeStarts = Arrays.copyOf(edgeStarts, capacity);
+                edgeEnds = Arrays.copyOf(edgeEnds, capacity);
+                edgeLengths = Arrays.copyOf(edgeLengths, capacity);
+                edgeStartDirections = Arrays.copyOf(edgeStartDirections, capacity);
+                edgeEndDirections = Arrays.copyOf(edgeEndDirections, capacity);
+            }
+            edgeStarts[edgeCount] = start;
+            edgeEnds[edgeCount] = end;
+            edgeLengths[edgeCount] = length;
+            edgeStartDirections[edgeCount] = (byte) startDirection.ordinal();
+            edgeEndDirections[edgeCount] = (byte) endDirection.ordinal();
+            edgeCount++;
+        }
+
+        /**
+         * Counts the walkable neighbours of a tile.
+         *
+         * @param tile the tile.
+         * @return the number of walkable neighbours.
+         */
+        private int degree(int tile) {
+            int degree = 0;
+            for (Direction direction : DIRECTIONS) {
+                int next = neighbor(tile, direction);
+                if (next != NONE && isWalkable.test(next)) {
+                    degree++;
+                }
+            }
+            return degree;
+        }
+
+        /**
+         * Returns the neighbour of a tile in a direction.
+         *
+         * @param tile the tile.
+         * @param direction the direction.
+         * @return the neighbouring tile, or {@link #NONE} if outside the board.
+         */
+        private int neighbor(int tile, Direction direction) {
+            int x = tile % width;
+            int y = tile / width;
+            return switch (direction) {
+                case UP -> y > 0 ? tile - width : NONE;
+                case DOWN -> y + 1 < height ? tile + width : NONE;
+                case LEFT -> x > 0 ? tile - 1 : NONE;
+                case RIGHT -> x + 1 < width ? tile + 1 : NONE;
+                case NONE -> NONE;
+            };
+        }
+
+        /**
+         * Returns the direction from a tile to an adjacent tile.
+         *
+         * @param from the tile stepped from.
+         * @param to the adjacent tile.
+         * @return the direction of the step.
+         */
+        private Direction directionBetween(int from, int to) {
+            return AStarSearch.directionTo(from, to, width);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+
+import com.gr15.pacman.model.entities.Entity.Direction;
+
+/**
+ * A bounded cache of search results, mapping a start tile and a goal tile
+ * to the first step of the shortest path between them.
+ *
+ * <p> Entries are additionally keyed by a board generation. Whenever the board
+ * changes the owner bumps the generation with {@link #setGeneration}, after
+ * which older entries can no longer be hit and are evicted as the cache fills.
+ * When full, the least recently used entry is replaced. </p>
+ *
+ * <p> All entries live in parallel primitive arrays, chained into hash buckets
+ * and a recency list by index, so lookups and insertions do not allocate. </p>
+ */
+public final class PathCache {
+
+    /** Marker for the end of a chain. */
+    private static final int NIL = -1;
+
+    /** Cached directions, by {@link Direction#ordinal()}. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Start tile of each entry. */
+    private final int[] starts;
+
+    /** Goal tile of each entry. */
+    private final int[] goals;
+
+    /** Board generation of each entry. */
+    private final int[] generations;
+
+    /** Cached first step of each entry, as a direction ordinal. */
+    private final byte[] directions;
+
+    /** Next entry in the same hash bucket. */
+    private final int[] bucketNext;
+
+    /** Next more recently used entry. */
+    private final int[] newer;
+
+    /** Next less recently used entry. */
+    private final int[] older;
+
+    /** First entry of each hash bucket. */
+    private final int[] buckets;
+
+    /** Most recently used entry. */
+    private int newest = NIL;
+
+    /** Least recently used entry. */
+    private int oldest = NIL;
+
+    /** Number of entries in use. */
+    private int size = 0;
+
+    /** Current board generation. */
+    private int generation = 0;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity the maximum number of entries.
+     * @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+    public PathCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.starts = new int[capacity];
+        this.goals = new int[capacity];
+        this.generations = new int[capacity];
+        this.directions = new byte[capacity];
+        this.bucketNext = new int[capacity];
+        this.newer = new int[capacity];
+        this.older = new int[capacity];
+        this.buckets = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        Arrays.fill(buckets, NIL);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other the cache to copy.
+     */
+    private PathCache(PathCache other) {
+        this.starts = other.starts.clone();
+        this.goals = other.goals.clone();
+        this.generations = other.generations.clone();
+        this.directions = other.directions.clone();
+        this.bucketNext = other.bucketNext.clone();
+        this.newer = other.newer.clone();
+        this.older = other.older.clone();
+        this.buckets = other.buckets.clone();
+        this.newest = other.newest;
+        this.oldest = other.oldest;
+        this.size = other.size;
+        this.generation = other.generation;
+    }
+
+    /**
+     * Returns a copy of this cache, with the same entries in the same order of use.
+     *
+     * @return the copy.
+     */
+    public PathCache copy() {
+        return new PathCache(this);
+    }
+
+    /**
+     * Looks up the cached first step from {@code start} to {@code goal}
+     * for the current board generation.
+     *
+     * @param start the index of the start tile.
+     * @param goal the index of the goal tile.
+     * @return the cached direction, or {@code null} if nothing is cached.
+     */
+    public Direction get(int start, int goal) {
+        int entry = find(start, goal);
+        if (entry == NIL) {
+            return null;
+        }
+        touch(entry);
+        return DIRECTIONS[directions[entry]];
+    }
+
+    /**
+     * Caches the first step from {@code start} to {@code goal}
+     * for the current board generation.
+     *
+     * @param start the index of the start tile.
+     * @param goal the index of the goal tile.
+     * @param direction the first step of the path.
+     * @throws IllegalArgumentException if {@code direction} is {@code null}
+     */
+    public void put(int start, int goal, Direction direction) {
+        if (direction == null) {
+            throw new IllegalArgumentException("direction must not be null");
+        }
+
+        int entry = find(start, goal);
+        if (entry == NIL) {
+            entry = size < starts.length ? size++ : evictOldest();
+            starts[entry] = start;
+            goals[entry] = goal;
+            generations[entry] = generation;
+            int bucket = bucket(start, goal, generation);
+            bucketNext[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+            linkNewest(entry);
+        } else {
+            touch(entry);
+        }
+        directions[entry] = (byte) direction.ordinal();
+    }
+
+    /**
+     * Sets the current board generation. Entries cached under
+     * any other generation are no longer returned.
+     *
+     * @param newGeneration the new board generation.
+     */
+    public void setGeneration(int newGeneration) {
+        this.generation = newGeneration;
+    }
+
+    /**
+     * Returns the current board generation.
+     *
+     * @return the generation entries are cached under.
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Helper function that finds the entry for a key in the current generation.
+     *
+     * @param start the index of the start tile.
+     * @param goal the index of the goal tile.
+     * @return the entry, or {@link #NIL} if not cached.
+     */
+    private int find(int start, int goal) {
+        int entry = buckets[bucket(start, goal, generation)];
+        while (entry != NIL) {
+            if (starts[entry] == start && goals[entry] == goal
+                && generations[entry] == generation) {
+                return entry;
+            }
+            entry = bucketNext[entry];
+        }
+        return NIL;
+    }
+
+    /**
+     * Helper function that removes the least recently used entry
+     * from its bucket and the recency list.
+     *
+     * @return the freed entry.
+     */
+    private int evictOldest() {
+        int entry = oldest;
+        unlink(entry);
+
+        int bucket = bucket(starts[entry], goals[entry], generations[entry]);
+        if (buckets[bucket] == entry) {
+            buckets[bucket] = bucketNext[entry];
+        } else {
+            int previous = buckets[bucket];
+            while (bucketNext[previous] != entry) {
+                previous = bucketNext[previous];
+            }
+            bucketNext[previous] = bucketNext[entry];
+        }
+        return entry;
+    }
+
+    /**
+     * Helper function that marks an entry as the most recently used.
+     *
+     * @param entry the entry that was used.
+     */
+    private void touch(int entry) {
+        if (entry != newest) {
+            unlink(entry);
+            linkNewest(entry);
+        }
+    }
+
+    /**
+     * Helper function that inserts an entry at the newest end of the recency list.
+     *
+     * @param entry the entry to insert.
+     */
+    private void linkNewest(int entry) {
+        older[entry] = newest;
+        newer[entry] = NIL;
+        if (newest != NIL) {
+            newer[newest] = entry;
+        }
+        newest = entry;
+        if (oldest == NIL) {
+            oldest = entry;
+        }
+    }
+
+    /**
+     * Helper function that removes an entry from the recency list.
+     *
+     * @param entry the entry to remove.
+     */
+    private void unlink(int entry) {
+        if (older[entry] != NIL) {
+            newer[older[entry]] = newer[entry];
+        } else {
+            oldest = newer[entry];
+        }
+        if (newer[entry] != NIL) {
+            older[newer[entry]] = older[entry];
+        } else {
+            newest = older[entry];
+        }
+    }
+
+    /**
+     * Helper function that hashes a key to a bucket.
+     *
+     * @param start the index of the start tile.
+     * @param goal the index of the goal tile.
+     * @param keyGeneration the board generation.
+     * @return the bucket index.
+     */
+    private int bucket(int start, int goal, int keyGeneration) {
+        int hash = start * 0x9E3779B1 ^ goal * 0x85EBCA77 ^ keyGeneration * 0xC2B2AE3D;
+        hash ^= hash >>> 16;
+        return hash & (buckets.length - 1);
+    }
+}
@@ -1,27 +1,60 @@
 package com.gr15.pacman.model.entities.searching;
 
-import java.util.List;
-import java.util.function.Function;
 
-import com.gr15.pacman.model.Position;
+import com.gr15.pacman.model.Board;
+import com.gr15.pacman.model.entities.Entity.Direction;
 
 /**
  * Interface for defining pathfinding algorithms used by ghosts to
  * navigate the game board.
+ *
+ * <p> Tiles are addressed by index, {@code y * width + x}, so that
+ * implementations can work on primitive arrays and avoid allocating
+ * on every query. </p>
  */
 public interface SearchStrategy {
 
     /**
-     * Searches for a path from the start position to the goal position,
-     * considering only walkable tiles.
+     * Enumeration of the search strategies a game can be configured to use.
+     */
+    enum StrategyType {
+
+        /** Breadth-first search, see {@link BreadthFirstSearch}. */
+        BREADTH_FIRST,
+
+        /** A* search with Manhattan distance, see {@link AStarSearch}. */
+        A_STAR,
+
+        /** Flow fields shared by all ghosts, see {@link FlowFieldSearch}. */
+        FLOW_FIELD,
+
+        /** Dijkstra over junctions and corridors, see {@link CorridorGraphSearch}. */
+        CORRIDOR_GRAPH,
+
+        /** Approximate hierarchical search over board clusters, see {@link HierarchicalSearch}. */
+        HIERARCHICAL,
+
+        /** Incremental search repairing its tree between calls, see {@link DStarLiteSearch}. */
+        D_STAR_LITE
+    };
+
+    /**
+     * Finds the direction of the first step on the shortest path
+     * from the start tile to the goal tile, considering only walkable tiles.
+     *
+     * @param grid The board to search.
+     * @param start The index of the starting tile of the search.
+     * @param goal The index of the target tile to reach.
+     * @return The direction of the first step, or {@link Direction#NONE}
+     *      if already at the goal or no path exists.
+     */
+    Direction nextStep(Board grid, int start, int goal);
+
+    /**
+     * Discards any state the strategy has derived from the board.
+     * Called whenever the board is replaced.
      *
-     * @param start The starting position of the search.
-     * @param goal The target position to reach.
-     * @param isWalkable A function that determines if a given position is walkable
-     *      (not a wall, in bounds, etc.).
-     * @return A list of positions representing the shortest path to the goal,
-     *      excluding the start position. Returns null if no path exists.
+     * <p> The default implementation does nothing. </p>
      */
-    List<Position> search(Position start, Position goal,
-        Function<Position, Boolean> isWalkable);
+    default void reset() {}
 }
@@ -0,0 +1,273 @@
+package com.gr15.pacman.model.entities.searching;
+
+import java.util.Arrays;
+
+/**
+ * Per-tile bookkeeping of a search, kept in square pages of tiles that are
+ * allocated when the search first reaches them, so a search takes memory for the
+ * part of the board it explores rather than for the whole board.
+ *
+ * <p> Tiles are looked up by column and row, which gives a handle to the tile
+ * within its page. Every tile holds a fixed number of {@code int} fields and a
+ * generation stamp: {@link #nextGeneration} forgets every tile in constant time,
+ * and the fields of a tile are only meaningful once it is marked in the current
+ * generation. Pages are found through an open addressing map, so boards of any
+ * size cost nothing until searched. When far more pages are held than the last
+ * search used, they are all released, so one long search does not keep its
+ * memory for good. </p>
+ */
+final class TilePages {
+
+    /** Base two logarithm of the width and height of a page in tiles. */
+    private static final int PAGE_SHIFT = 5;
+
+    /** Mask giving the position of a tile within its page along one axis. */
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    /** Number of tiles in a page. */
+    private static final int PAGE_TILES = 1 << (2 * PAGE_SHIFT);
+
+    /** Number of pages always kept, however few the last search used. */
+    private static final int MIN_PAGES = 16;
+
+    /** Marks an empty slot of the page map. */
+    private static final int EMPTY = -1;
+
+    /** Number of {@code int} fields per tile. */
+    private final int fields;
+
+    /** Number of pages along the x axis of the board searched. */
+    private int pagesX = -1;
+
+    /** Page number of every page in the map, or {@link #EMPTY}. */
+    private int[] keys = emptyKeys(MIN_PAGES * 2);
+
+    /** Slot of the page under the same position in {@link #keys}. */
+    private int[] slots = new int[MIN_PAGES * 2];
+
+    /** Number of pages allocated. */
+    private int pageCount = 0;
+
+    /** Generation in which each page was last marked, by slot. */
+    private int[] pageGenerations = new int[MIN_PAGES];
+
+    /** Number of pages marked in the current generation. */
+    private int pagesUsed = 0;
+
+    /** Generation in which each tile was last marked, by handle. */
+    private int[] stamps = new int[0];
+
+    /** Fields of every tile, {@code fields} consecutive values per handle. */
+    private int[] values = new int[0];
+
+    /** Generation of the current search. */
+    private int generation = 0;
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param fields the number of {@code int} fields per tile.
+     */
+    TilePages(int fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Starts a new generation, forgetting every tile, and releases the pages
+     * if the previous generation used only a few of them.
+     *
+     * @param width the width of the board searched in this generation.
+     */
+    void nextGeneration(int width) {
+        int pagesWide = (width + PAGE_MASK) >> PAGE_SHIFT;
+        if (pagesWide != pagesX) {
+            pagesX = pagesWide;
+            release(MIN_PAGES);
+        } else if (pageCount > 4 * Math.max(pagesUsed, MIN_PAGES)) {
+            release(Math.max(pagesUsed, MIN_PAGES));
+        }
+        pagesUsed = 0;
+
+        generation++;
+        if (generation == 0) {
+            /* The stamp wrapped around, so old marks could collide */
+            Arrays.fill(stamps, 0);
+            Arrays.fill(pageGenerations, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the handle of a tile, allocating its page if needed.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the handle of the tile.
+     */
+    int tile(int x, int y) {
+        int page = (y >> PAGE_SHIFT) * pagesX + (x >> PAGE_SHIFT);
+        int position = position(page);
+        int slot;
+        if (keys[position] == page) {
+            slot = slots[position];
+        } else {
+            slot = allocate(page, position);
+        }
+        if (pageGenerations[slot] != generation) {
+            pageGenerations[slot] = generation;
+            pagesUsed++;
+        }
+        return slot * PAGE_TILES + (((y & PAGE_MASK) << PAGE_SHIFT) | (x & PAGE_MASK));
+    }
+
+    /**
+     * Returns the handle of a tile without allocating anything,
+     * so it may be called from many threads once the table is filled.
+     *
+     * @param x the column of the tile.
+     * @param y the row of the tile.
+     * @return the handle of the tile, or {@code -1} if its page was never allocated.
+     */
+    int find(int x, int y) {
+        int page = (y >> PAGE_SHIFT) * pagesX + (x >> PAGE_SHIFT);
+        int position = position(page);
+        if (keys[position] != page) {
+            return -1;
+        }
+        return slots[position] * PAGE_TILES + (((y & PAGE_MASK) << PAGE_SHIFT) | (x & PAGE_MASK));
+    }
+
+    /**
+     * Checks if a tile was marked in the current generation.
+     *
+     * @param tile the handle of the tile, or {@code -1}.
+     * @return {@code true} if the tile is marked.
+     */
+    boolean isMarked(int tile) {
+        return tile >= 0 && stamps[tile] == generation;
+    }
+
+    /**
+     * Marks a tile in the current generation.
+     *
+     * @param tile the handle of the tile.
+     */
+    void mark(int tile) {
+        stamps[tile] = generation;
+    }
+
+    /**
+     * Returns a field of a tile.
+     *
+     * @param tile the handle of the tile.
+     * @param field the field.
+     * @return the value of the field.
+     */
+    int get(int tile, int field) {
+        return values[tile * fields + field];
+    }
+
+    /**
+     * Sets a field of a tile.
+     *
+     * @param tile the handle of the tile.
+     * @param field the field.
+     * @param value the new value of the field.
+     */
+    void set(int tile, int field, int value) {
+        values[tile * fields + field] = value;
+    }
+
+    /*************************************************************
+     *                      HELPER FUNCTIONS                     *
+     *************************************************************/
+
+    /**
+     * Helper function that finds the position of a page in the map,
+     * or the empty position where it would go.
+     *
+     * @param page the page number.
+     * @return the position in {@link #keys}.
+     */
+    private int position(int page) {
+        int mask = keys.length - 1;
+        int hash = page * 0x9E3779B9;
+        int position = (hash ^ (hash >>> 16)) & mask;
+        while (keys[position] != page && keys[position] != EMPTY) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Helper function that allocates a page, growing the storage if needed.
+     *
+     * @param page the page number.
+     * @param position the empty position of the page in the map.
+     * @return the slot of the page.
+     */
+    private int allocate(int page, int position) {
+        int slot = pageCount++;
+        if (pageCount > pageGenerations.length) {
+            int capacity = pageGenerations.length * 2;
+            pageGenerations = Arrays.copyOf(pageGenerations, capacity);
+        }
+        if ((long) pageCount * PAGE_TILES > stamps.length) {
+            int tiles = pageGenerations.length * PAGE_TILES;
+            stamps = Arrays.copyOf(stamps, tiles);
+            values = Arrays.copyOf(values, tiles * fields);
+        }
+
+        keys[position] = page;
+        slots[position] = slot;
+        if (pageCount * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return slot;
+    }
+
+    /**
+     * Helper function that moves every page to a map of a new size.
+     *
+     * @param capacity the number of positions in the new map, a power of two.
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = emptyKeys(capacity);
+        slots = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int position = position(oldKeys[i]);
+                keys[position] = oldKeys[i];
+                slots[position] = oldSlots[i];
+            }
+        }
+    }
+
+    /**
+     * Helper function that releases every page, keeping room for some.
+     *
+     * @param keep the number of pages to keep room for.
+     */
+    private void release(int keep) {
+        pageCount = 0;
+        keys = emptyKeys(Integer.highestOneBit(keep * 4 - 1));
+        slots = new int[keys.length];
+        pageGenerations = new int[keep];
+        stamps = new int[0];
+        values = new int[0];
+    }
+
+    /**
+     * Helper function that creates an empty page map.
+     *
+     * @param capacity the number of positions, a power of two.
+     * @return the keys of the map, all {@link #EMPTY}.
+     */
+    private static int[] emptyKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
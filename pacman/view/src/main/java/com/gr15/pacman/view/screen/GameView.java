@@ -1,5 +1,6 @@
 package com.gr15.pacman.view.screen;
 
+import com.gr15.pacman.model.Board;
 import com.gr15.pacman.model.GameState;
 import com.gr15.pacman.model.GameState.TileType;
 import com.gr15.pacman.model.entities.Entity;
@@ -72,6 +73,12 @@ public class GameView
     /** Current zoom factor. */
     private double currentZoom = 1;
 
+    /** Scale of the camera, from world pixels to screen pixels. */
+    private double camaraScale = 1;
+
+    /** How far between the previous and the current tick entities are drawn. */
+    private double alpha = 1;
+
     /** Boolean for keeping track of power mode. Needed for changing sprites */
     private boolean powerMode = false;
 
@@ -166,10 +173,15 @@ public class GameView
      * Renders the game frame. This includes clearing the screen,
      * updating the camera transformation, drawing the game board, and
      * rendering all game entities (e.g., Pacman and ghosts).
+     * Entities are drawn between their positions at the previous and the
+     * current tick, so movement stays smooth whatever the tick rate.
      *
      * @param deltaSeconds time since the last frame, used for animation timing
+     * @param alpha how far between the previous and the current tick to draw
+     *      entities, from 0 to 1.
      */
-    public void renderGame(double deltaSeconds) {
+    public void renderGame(double deltaSeconds, double alpha) {
+        this.alpha = alpha;
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
         updateCamara();
         renderBoard();
@@ -243,11 +255,12 @@ public class GameView
         double scaleX = (screenWidth / VIRTUAL_WIDTH) * currentZoom;
         double scaleY = (screenHeight / VIRTUAL_HEIGHT) * currentZoom;
         double scale = Math.min(scaleX, scaleY);
+        camaraScale = scale;
 
         /* Define center of camara.
          * Could be changed to center on anything. */
-        double centerX = gameState.getPacman().getX() * TILE_SIZE;
-        double centerY = gameState.getPacman().getY() * TILE_SIZE;
+        double centerX = gameState.getPacman().getX(alpha) * TILE_SIZE;
+        double centerY = gameState.getPacman().getY(alpha) * TILE_SIZE;
 
         camara.appendTranslation(screenWidth / 2, screenHeight / 2);
         camara.appendScale(scale, scale);
@@ -259,12 +272,28 @@ public class GameView
     /**
      * Renders the game board based on tile types from the current game state.
      * Draws wall textures and leaves empty tiles blank.
+     * Only the tiles within view of the camera are drawn, so large boards
+     * cost no more to render than small ones.
      */
     private void renderBoard() {
-        TileType[][] tileBoard = gameState.getBoard();
-        for (int y = 0; y < tileBoard.length; y++) {
-            for (int x = 0; x < tileBoard[y].length; x++) {
-                TileType tile = tileBoard[y][x];
+        Board tileBoard = gameState.getBoard();
+
+        /* Tiles from the center of the camara to the edge of the screen. */
+        int rangeX = (int) Math.ceil(canvas.getWidth() / 2 / camaraScale / TILE_SIZE) + 1;
+        int rangeY = (int) Math.ceil(canvas.getHeight() / 2 / camaraScale / TILE_SIZE) + 1;
+        int centerX = (int) gameState.getPacman().getX(alpha);
+        int centerY = (int) gameState.getPacman().getY(alpha);
+        int minX = Math.max(0, centerX - rangeX);
+        int maxX = Math.min(tileBoard.width() - 1, centerX + rangeX);
+        int minY = Math.max(0, centerY - rangeY);
+        int maxY = Math.min(tileBoard.height() - 1, centerY + rangeY);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                TileType tile = tileBoard.get(x, y);
+                if (tile == null) {
+                    continue; /* Padding past the end of a short row */
+                }
                 double worldX = x * TILE_SIZE;
                 double worldY = y * TILE_SIZE;
 
@@ -299,8 +328,8 @@ public class GameView
      * @param sprite the sprite to use for rendering the entity
      */
     private void renderEntity(Entity entity, Sprite sprite) {
-        double spriteX = entity.getX() * TILE_SIZE;
-        double spriteY = entity.getY() * TILE_SIZE;
+        double spriteX = entity.getX(alpha) * TILE_SIZE;
+        double spriteY = entity.getY(alpha) * TILE_SIZE;
 
         sprite.setX(spriteX - sprite.getWidth() / 2);
         sprite.setY(spriteY - sprite.getHeight()  / 2);
@@ -6,7 +6,7 @@ import javafx.scene.layout.VBox;
 
 /**
  * Represents the main menu view of the application, containing UI elements
- * such as buttons for starting a new game, and exiting.
+ * such as buttons for starting a new game, playing an endless world, and exiting.
  * 
  * This view extends {@link BaseView} and lays out the buttons vertically
  * centered using a {@link VBox}.
@@ -23,18 +23,21 @@ public class MainMenuView
     
     /** Button to start a new game. */
     private Button newGameButton = new Button("New Game");
+
+    /** Button to start a game on an endless world. */
+    private Button endlessWorldButton = new Button("Endless World");
     
     /** Button to exit the game. */
     private Button exitButton = new Button("Exit Game");
     
     /**
      * Constructs a new {@code MainMenuView} and initializes the layout with
-     * three main buttons: New Game, and Exit Game. The layout is
+     * three main buttons: New Game, Endless World, and Exit Game. The layout is
      * vertically centered.
      */
     public MainMenuView() {
         root.setAlignment(Pos.CENTER);
-        root.getChildren().addAll(newGameButton, exitButton);
+        root.getChildren().addAll(newGameButton, endlessWorldButton, exitButton);
         this.getChildren().add(root);
     }
 
@@ -71,6 +74,13 @@ public class MainMenuView
      */
     public Button getNewGameButton() { return this.newGameButton; }
 
+    /**
+     * Returns the button used to start a game on an endless world.
+     *
+     * @return the endless world button
+     */
+    public Button getEndlessWorldButton() { return this.endlessWorldButton; }
+
     /**
      * Returns the button used to exit the game.
      *